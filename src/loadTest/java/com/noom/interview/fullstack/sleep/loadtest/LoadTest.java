@@ -0,0 +1,136 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.loadtest.OpenModelLoadGenerator.OperationStats;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * End-to-end load test: starts the application on a Testcontainers PostgreSQL, seeds a synthetic
+ * population, runs an open-model load and writes a JSON report.
+ *
+ * <p>Run it with {@code ./gradlew loadTest}; settings are passed as {@code -PloadTest.*} project
+ * properties, see {@link LoadTestConfig}. Comparing the report of the default mode with one run
+ * with {@code -PloadTest.profiles=reactive} or {@code async} shows how the runtime modes behave
+ * at the same arrival rate.
+ */
+public final class LoadTest {
+
+    private static final int SEED_BATCH_SIZE = 5_000;
+
+    private static final String INSERT_SLEEP_LOG = """
+            INSERT INTO sleep_log (user_id, sleep_date, bed_time, wake_time, morning_feeling)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine")) {
+            postgres.start();
+            try (ConfigurableApplicationContext application = start(config, postgres)) {
+                SyntheticPopulation population = new SyntheticPopulation(
+                        config.users(), config.historyDays(), config.seed(), LocalDate.now());
+                long seededNights = seed(application, population);
+
+                int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                OpenModelLoadGenerator generator = new OpenModelLoadGenerator(
+                        client, URI.create("http://localhost:" + port), population, config);
+
+                generator.run(config.warmup());
+                Map<Operation, OperationStats> stats = generator.run(config.duration());
+
+                LoadTestReport report = LoadTestReport.of(config, seededNights, stats);
+                report.writeTo(config.report());
+                System.out.printf("Load test report written to %s%n", config.report().toAbsolutePath());
+                report.operations().forEach((operation, result) -> System.out.printf(
+                        "%-10s %8.1f req/s  p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  dropped %d%n",
+                        operation, result.throughput(), result.latencyMillis().get("p50"),
+                        result.latencyMillis().get("p99"), result.latencyMillis().get("p99.9"), result.dropped()));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestConfig config, PostgreSQLContainer<?> postgres) {
+        String r2dbcUrl = "r2dbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName();
+        return new SpringApplicationBuilder(SleepApplication.class)
+                .profiles(config.profiles().isBlank() ? new String[0] : config.profiles().split(","))
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.r2dbc.url=" + r2dbcUrl,
+                        "spring.r2dbc.username=" + postgres.getUsername(),
+                        "spring.r2dbc.password=" + postgres.getPassword())
+                .run();
+    }
+
+    /**
+     * Stores the population's histories: batched inserts when the application has a database,
+     * through the repository otherwise (the {@code in-memory} profile).
+     */
+    private static long seed(ConfigurableApplicationContext application, SyntheticPopulation population) {
+        DataSource dataSource = application.getBeanProvider(DataSource.class).getIfAvailable();
+        AtomicLong seeded = new AtomicLong();
+        if (dataSource == null) {
+            SleepLogRepository repository = application.getBean(SleepLogRepository.class);
+            population.generate(night -> {
+                repository.save(night);
+                seeded.incrementAndGet();
+            });
+            return seeded.get();
+        }
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        population.generate(night -> {
+            batch.add(insertParameters(night));
+            if (batch.size() == SEED_BATCH_SIZE) {
+                seeded.addAndGet(insert(jdbc, batch));
+            }
+        });
+        seeded.addAndGet(insert(jdbc, batch));
+        jdbc.execute("ANALYZE sleep_log");
+        return seeded.get();
+    }
+
+    private static int insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate(INSERT_SLEEP_LOG, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private static Object[] insertParameters(SleepLog night) {
+        return new Object[]{
+                night.userId(),
+                night.sleepDate(),
+                Timestamp.valueOf(night.bedTime()),
+                Timestamp.valueOf(night.wakeTime()),
+                night.morningFeeling().name()
+        };
+    }
+}
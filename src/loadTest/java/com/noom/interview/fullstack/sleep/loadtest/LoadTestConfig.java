@@ -0,0 +1,63 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadTest.*} system properties.
+ *
+ * @param profiles    Spring profiles the application is started with, comma-separated
+ * @param users       size of the synthetic user population
+ * @param historyDays nights of history seeded per user, ending today
+ * @param rate        target arrival rate in requests per second, independent of response times
+ * @param warmup      how long to run before recording
+ * @param duration    how long to record
+ * @param mix         relative weight of each operation
+ * @param maxInFlight requests allowed in flight; arrivals beyond it are counted as dropped
+ * @param seed        seed for the population and the arrival process
+ * @param report      where the JSON report is written
+ */
+record LoadTestConfig(
+        String profiles,
+        int users,
+        int historyDays,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        Map<Operation, Integer> mix,
+        int maxInFlight,
+        long seed,
+        Path report
+) {
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadTest.profiles", ""),
+                Integer.getInteger("loadTest.users", 10_000),
+                Integer.getInteger("loadTest.historyDays", 90),
+                Double.parseDouble(System.getProperty("loadTest.rate", "500")),
+                Duration.parse(System.getProperty("loadTest.warmup", "PT30S")),
+                Duration.parse(System.getProperty("loadTest.duration", "PT60S")),
+                parseMix(System.getProperty("loadTest.mix", "create=10,last-night=40,averages=50")),
+                Integer.getInteger("loadTest.maxInFlight", 2_000),
+                Long.getLong("loadTest.seed", 42L),
+                Path.of(System.getProperty("loadTest.report", "build/reports/load-test/report.json"))
+        );
+    }
+
+    /**
+     * Parses {@code name=weight} pairs, e.g. {@code create=10,last-night=40,averages=50}.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + pair + "', expected name=weight");
+            }
+            weights.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
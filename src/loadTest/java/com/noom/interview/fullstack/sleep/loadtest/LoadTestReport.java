@@ -0,0 +1,101 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.loadtest.OpenModelLoadGenerator.OperationStats;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Machine-readable result of a load test run.
+ *
+ * @param profiles          Spring profiles the application ran with
+ * @param users             synthetic user population
+ * @param historyDays       nights of history seeded per user
+ * @param seededNights      nights stored before the run
+ * @param targetRate        requested arrival rate, requests per second
+ * @param achievedRate      responses received per second over the recorded run
+ * @param durationSeconds   length of the recorded run, including the drain of outstanding requests
+ * @param operations        results per operation, keyed by operation name
+ */
+record LoadTestReport(
+        String profiles,
+        int users,
+        int historyDays,
+        long seededNights,
+        double targetRate,
+        double achievedRate,
+        double durationSeconds,
+        Map<String, OperationReport> operations
+) {
+    /**
+     * @param count           responses received, whatever their status
+     * @param throughput      responses received per second
+     * @param statuses        responses per HTTP status
+     * @param failures        requests that failed without a response, e.g. timeouts
+     * @param dropped         arrivals not sent because too many requests were in flight, or no
+     *                        unlogged night was left to create
+     * @param latencyMillis   latency percentiles, measured from when each request was due
+     */
+    record OperationReport(
+            long count,
+            double throughput,
+            Map<Integer, Long> statuses,
+            long failures,
+            long dropped,
+            Map<String, Double> latencyMillis
+    ) {
+    }
+
+    static LoadTestReport of(LoadTestConfig config, long seededNights, Map<Operation, OperationStats> stats) {
+        Map<String, OperationReport> operations = new LinkedHashMap<>();
+        long responses = 0;
+        long elapsedNanos = 1;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            elapsedNanos = Math.max(elapsedNanos, operationStats.elapsedNanos);
+            OperationReport report = operationReport(operationStats);
+            responses += report.count() - report.failures();
+            operations.put(entry.getKey().displayName(), report);
+        }
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        return new LoadTestReport(config.profiles(), config.users(), config.historyDays(), seededNights,
+                config.rate(), responses / seconds, seconds, operations);
+    }
+
+    void writeTo(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), this);
+    }
+
+    private static OperationReport operationReport(OperationStats stats) {
+        Histogram histogram = stats.latencyNanos;
+        Map<Integer, Long> statuses = new TreeMap<>();
+        stats.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+
+        Map<String, Double> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+        latency.put("p95", millis(histogram.getValueAtPercentile(95)));
+        latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+        latency.put("p99.9", millis(histogram.getValueAtPercentile(99.9)));
+        latency.put("max", millis(histogram.getMaxValue()));
+        latency.put("mean", histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1));
+
+        double seconds = Math.max(stats.elapsedNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        long count = histogram.getTotalCount();
+        return new OperationReport(count, (count - stats.failures.sum()) / seconds, statuses,
+                stats.failures.sum(), stats.dropped.sum(), latency);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
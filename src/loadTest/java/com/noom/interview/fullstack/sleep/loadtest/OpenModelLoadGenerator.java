@@ -0,0 +1,163 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Issues API calls at a fixed average rate, whether or not earlier calls have completed.
+ *
+ * <p>Arrivals follow a Poisson process: the gaps between them are drawn from an exponential
+ * distribution, as for independent users. A closed loop of workers would slow down with the
+ * server and hide queueing; here latency is measured from the moment a request was due to be
+ * sent, so time spent waiting behind a slow server is part of the result.
+ *
+ * <p>Arrivals that find {@code maxInFlight} requests outstanding are not sent but counted as
+ * dropped, which keeps the generator itself from running out of memory when the server stalls.
+ */
+final class OpenModelLoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final SyntheticPopulation population;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final double rate;
+    private final int maxInFlight;
+    private final SplittableRandom random;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenModelLoadGenerator(HttpClient client, URI baseUri, SyntheticPopulation population, LoadTestConfig config) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.population = population;
+        this.mix = config.mix();
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.rate = config.rate();
+        this.maxInFlight = config.maxInFlight();
+        this.random = new SplittableRandom(config.seed() + 1);
+    }
+
+    /**
+     * Generates load for {@code duration} and waits for outstanding requests to finish.
+     */
+    Map<Operation, OperationStats> run(Duration duration) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long due = start;
+        while (due < end) {
+            LockSupport.parkNanos(due - System.nanoTime());
+            Operation operation = nextOperation();
+            OperationStats operationStats = stats.get(operation);
+            if (inFlight.get() >= maxInFlight) {
+                operationStats.dropped.increment();
+            } else {
+                send(operation, operationStats, due);
+            }
+            due += (long) (-Math.log(1.0 - random.nextDouble()) * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.values().forEach(operationStats -> operationStats.elapsedNanos = elapsed);
+        return stats;
+    }
+
+    private void send(Operation operation, OperationStats stats, long due) {
+        HttpRequest request = request(operation);
+        if (request == null) {
+            stats.dropped.increment();
+            return;
+        }
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<Void>> response = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        response.whenComplete((result, failure) -> {
+            long latency = Math.max(0, System.nanoTime() - due);
+            stats.latencyNanos.recordValue(Math.min(latency, stats.latencyNanos.getHighestTrackableValue()));
+            if (failure != null) {
+                stats.failures.increment();
+            } else {
+                stats.statuses.computeIfAbsent(result.statusCode(), status -> new LongAdder()).increment();
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private HttpRequest request(Operation operation) {
+        long userId = 1 + random.nextInt(population.users());
+        return switch (operation) {
+            case CREATE -> {
+                SleepLog night = population.nextGap();
+                yield night == null ? null : post(night);
+            }
+            case LAST_NIGHT -> get("/api/sleep-log/last-night", userId);
+            case AVERAGES -> get("/api/sleep-log/averages", userId);
+        };
+    }
+
+    private HttpRequest get(String path, long userId) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("X-User-Id", Long.toString(userId))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(SleepLog night) {
+        String body = "{\"bedTime\":\"" + night.bedTime() + "\",\"wakeTime\":\"" + night.wakeTime()
+                + "\",\"morningFeeling\":\"" + night.morningFeeling() + "\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/api/sleep-log"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("X-User-Id", Long.toString(night.userId()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private Operation nextOperation() {
+        int pick = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    /**
+     * Outcome of one operation type over a run.
+     */
+    static final class OperationStats {
+        final Histogram latencyNanos = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder failures = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        long elapsedNanos;
+    }
+}
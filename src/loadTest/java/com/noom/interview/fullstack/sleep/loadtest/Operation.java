@@ -0,0 +1,29 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+/**
+ * The API calls the load generator issues.
+ */
+enum Operation {
+    CREATE("create"),
+    LAST_NIGHT("last-night"),
+    AVERAGES("averages");
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    String displayName() {
+        return name;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + name + "'");
+    }
+}
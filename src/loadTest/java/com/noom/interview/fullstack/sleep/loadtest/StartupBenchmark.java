@@ -0,0 +1,173 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Cold start benchmark: launches the application in fresh JVMs on a Testcontainers PostgreSQL and
+ * measures the time from launching each until it answers a first request successfully.
+ *
+ * <p>Run it with {@code ./gradlew startupBenchmark}. The schema is migrated once beforehand with
+ * the {@code migrate} profile, as a deployment would, so the application may run with Flyway
+ * disabled. Settings are {@code -PstartupBenchmark.*} project properties:
+ * <ul>
+ *   <li>{@code profiles}: Spring profiles of the application, default {@code fast-start}</li>
+ *   <li>{@code runs}: JVMs launched one after the other, default {@code 5}</li>
+ *   <li>{@code jvmArgs}: extra JVM options, space-separated, e.g. {@code -XX:SharedArchiveFile=...}</li>
+ *   <li>{@code classpath}: the application classpath, default the {@code main} runtime classpath</li>
+ * </ul>
+ * Each JVM's output goes to {@code run-N.log} next to the report.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * @param profiles         Spring profiles the application ran with
+     * @param jvmArgs          extra JVM options
+     * @param migrationMillis  time taken by the {@code migrate} run, JVM launch included
+     * @param runsMillis       time to the first successful request, per run
+     * @param minMillis        fastest run
+     * @param medianMillis     median run
+     * @param maxMillis        slowest run
+     */
+    record Report(
+            String profiles,
+            String jvmArgs,
+            double migrationMillis,
+            List<Double> runsMillis,
+            double minMillis,
+            double medianMillis,
+            double maxMillis
+    ) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String profiles = System.getProperty("startupBenchmark.profiles", "fast-start");
+        int runs = Integer.getInteger("startupBenchmark.runs", 5);
+        String jvmArgs = System.getProperty("startupBenchmark.jvmArgs", "");
+        String classpath = System.getProperty("startupBenchmark.classpath", System.getProperty("java.class.path"));
+        Path report = Path.of(System.getProperty("startupBenchmark.report", "build/reports/startup-benchmark/report.json"));
+        Path logs = report.toAbsolutePath().getParent();
+        Files.createDirectories(logs);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine")) {
+            postgres.start();
+
+            long migrationStart = System.nanoTime();
+            Process migration = launch(classpath, jvmArgs, "migrate", 0, postgres, logs.resolve("migrate.log"));
+            if (!migration.waitFor(STARTUP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) || migration.exitValue() != 0) {
+                migration.destroyForcibly();
+                throw new IllegalStateException("Migration failed, see " + logs.resolve("migrate.log"));
+            }
+            double migrationMillis = millis(System.nanoTime() - migrationStart);
+
+            List<Double> runsMillis = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                runsMillis.add(timeToFirstRequest(client, classpath, jvmArgs, profiles, postgres, logs.resolve("run-" + run + ".log")));
+                System.out.printf("run %d: first successful request after %.0f ms%n", run, runsMillis.get(run - 1));
+            }
+
+            List<Double> sorted = runsMillis.stream().sorted().toList();
+            Report result = new Report(profiles, jvmArgs, migrationMillis, runsMillis,
+                    sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), result);
+            System.out.printf("Startup benchmark report written to %s%n", report.toAbsolutePath());
+            System.out.printf("min %.0f ms  median %.0f ms  max %.0f ms  (migration %.0f ms)%n",
+                    result.minMillis(), result.medianMillis(), result.maxMillis(), migrationMillis);
+        }
+    }
+
+    private static double timeToFirstRequest(HttpClient client, String classpath, String jvmArgs, String profiles,
+                                             PostgreSQLContainer<?> postgres, Path log) throws Exception {
+        int port = freePort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/sleep-log/averages"))
+                .timeout(Duration.ofSeconds(5))
+                .header("X-User-Id", "1")
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        Process application = launch(classpath, jvmArgs, profiles, port, postgres, log);
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!application.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + application.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return millis(System.nanoTime() - start);
+                    }
+                } catch (IOException notListeningYet) {
+                    // retried below
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            throw new IllegalStateException("No successful request within " + STARTUP_TIMEOUT + ", see " + log);
+        } finally {
+            application.destroy();
+            if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                application.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Process launch(String classpath, String jvmArgs, String profiles, int port,
+                                  PostgreSQLContainer<?> postgres, Path log) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmArgs.isBlank()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.addAll(List.of(
+                "-cp", classpath,
+                SleepApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.r2dbc.url=r2dbc:postgresql://" + postgres.getHost() + ":"
+                        + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName(),
+                "--spring.r2dbc.username=" + postgres.getUsername(),
+                "--spring.r2dbc.password=" + postgres.getPassword()));
+        if (!profiles.isBlank()) {
+            command.add("--spring.profiles.active=" + profiles);
+        }
+        File output = log.toFile();
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+
+/**
+ * Users with plausible sleep histories, generated deterministically from a seed.
+ *
+ * <p>Every user has a chronotype (usual bed time and usual time in bed) and a habit of logging
+ * most, but not all, nights. Each night varies around the chronotype, and short nights are more
+ * often followed by a bad morning. The nights a user did not log are kept as gaps; the load
+ * generator backfills them through {@code POST /api/sleep-log}, so writes succeed instead of
+ * colliding with already logged nights.
+ */
+final class SyntheticPopulation {
+
+    private final int users;
+    private final int historyDays;
+    private final long seed;
+    private final LocalDate today;
+    private final ConcurrentLinkedQueue<SleepLog> gaps = new ConcurrentLinkedQueue<>();
+
+    SyntheticPopulation(int users, int historyDays, long seed, LocalDate today) {
+        this.users = users;
+        this.historyDays = historyDays;
+        this.seed = seed;
+        this.today = today;
+    }
+
+    int users() {
+        return users;
+    }
+
+    /**
+     * Passes every logged night to {@code sink} and remembers the unlogged ones as gaps.
+     */
+    void generate(Consumer<SleepLog> sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<SleepLog> unlogged = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            double usualBedMinute = 23 * 60 + gaussian(random) * 60;
+            double usualMinutesInBed = 450 + gaussian(random) * 35;
+            double loggingRate = 0.6 + random.nextDouble() * 0.38;
+            for (int daysAgo = historyDays - 1; daysAgo >= 0; daysAgo--) {
+                SleepLog night = night(random, userId, today.minusDays(daysAgo), usualBedMinute, usualMinutesInBed);
+                if (random.nextDouble() < loggingRate) {
+                    sink.accept(night);
+                } else {
+                    unlogged.add(night);
+                }
+            }
+        }
+        Collections.shuffle(unlogged, new Random(seed));
+        gaps.addAll(unlogged);
+    }
+
+    /**
+     * Returns a night the user has not logged yet, or {@code null} once every gap was taken.
+     */
+    SleepLog nextGap() {
+        return gaps.poll();
+    }
+
+    private static SleepLog night(SplittableRandom random, long userId, LocalDate sleepDate,
+                                  double usualBedMinute, double usualMinutesInBed) {
+        long bedMinute = Math.round(usualBedMinute + gaussian(random) * 40);
+        long minutesInBed = Math.round(Math.max(180, Math.min(720, usualMinutesInBed + gaussian(random) * 50)));
+        // wake up on the sleep date, no earlier than 03:00
+        minutesInBed = Math.max(minutesInBed, 27 * 60 - bedMinute);
+        LocalDateTime bedTime = sleepDate.minusDays(1).atStartOfDay().plusMinutes(bedMinute);
+        LocalDateTime wakeTime = bedTime.plusMinutes(minutesInBed);
+        return new SleepLog(null, userId, wakeTime.toLocalDate(), bedTime, wakeTime, feeling(random, minutesInBed), null);
+    }
+
+    private static MorningFeeling feeling(SplittableRandom random, long minutesInBed) {
+        double score = (minutesInBed - 360) / 120.0 + gaussian(random) * 0.5;
+        if (score < 0.3) {
+            return MorningFeeling.BAD;
+        }
+        return score < 1.0 ? MorningFeeling.OK : MorningFeeling.GOOD;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+}
@@ -0,0 +1,90 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.infrastructure.CborConfig;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encode time and payload size of JSON against CBOR, for a single night, 30-day averages with
+ * every optional part, and a 30-night history as a batch response would carry it.
+ *
+ * <p>Run it with {@code ./gradlew encodingBenchmark}; the JMH report is written to
+ * {@code build/reports/jmh/response-encoding.json}. Next to the time per encode, the
+ * {@code payloadBytes} counter gives the size of the encoded payload. Both mappers have the
+ * Spring Boot managed settings, as in {@code ResponseEncodingTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    @Param({"night", "averages", "history"})
+    private String payload;
+
+    @Param({"json", "cbor"})
+    private String encoding;
+
+    private ObjectMapper objectMapper;
+    private Object body;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+        objectMapper = encoding.equals("cbor") ? CborConfig.cborObjectMapper(builder) : builder.build();
+        List<SleepLog> nights = new ArrayList<>();
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            LocalDateTime bedTime = TODAY.minusDays(daysAgo + 1).atTime(22, 0).plusMinutes(daysAgo * 7 % 120);
+            nights.add(new SleepLog((long) daysAgo, 1L, TODAY.minusDays(daysAgo), bedTime,
+                    bedTime.plusHours(7).plusMinutes(daysAgo * 11 % 90), MorningFeeling.values()[daysAgo % 3], null));
+        }
+        body = switch (payload) {
+            case "night" -> SleepLogResponse.fromSleepLog(nights.get(nights.size() - 1));
+            case "averages" -> SleepAveragesResponse.fromSleepAverages(SleepAverages.fromSleepLogs(nights, TODAY.minusDays(30), TODAY)
+                    .withMorningFeelingBreakdown(MorningFeelingAverages.fromSleepLogs(nights)));
+            default -> nights.stream().map(SleepLogResponse::fromSleepLog).toList();
+        };
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        byte[] encoded = objectMapper.writeValueAsBytes(body);
+        size.payloadBytes = encoded.length;
+        return encoded;
+    }
+}
@@ -0,0 +1,69 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sequential against fork-join aggregation of {@link SleepAverages}, by number of nights, to find
+ * where {@link SleepAverages#PARALLEL_THRESHOLD} should sit on the machines it runs on.
+ *
+ * <p>Run it with {@code ./gradlew aggregationBenchmark}; the JMH report is written to
+ * {@code build/reports/jmh/sleep-averages.json}. The parallel path uses the common pool, so its
+ * results depend on the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SleepAveragesBenchmark {
+
+    private static final LocalDate FROM = LocalDate.of(2020, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 1, 1);
+
+    @Param({"1000", "4096", "8192", "20000", "100000", "1000000"})
+    private int nights;
+
+    private List<SleepLog> sleepLogs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        MorningFeeling[] feelings = MorningFeeling.values();
+        sleepLogs = new ArrayList<>(nights);
+        for (int i = 0; i < nights; i++) {
+            LocalDateTime bedTime = FROM.atTime(21, 0).plusDays(i % 2000).plusSeconds(random.nextInt(5 * 3600));
+            LocalDateTime wakeTime = bedTime.plusSeconds(5 * 3600 + random.nextInt(5 * 3600));
+            sleepLogs.add(new SleepLog((long) i, 1L + i / 2000, wakeTime.toLocalDate(), bedTime, wakeTime,
+                    feelings[random.nextInt(feelings.length)], null));
+        }
+    }
+
+    @Benchmark
+    public SleepAverages sequential() {
+        return SleepAverages.fromSleepLogsSequentially(sleepLogs, FROM, TO, SleepStatistic.ALL);
+    }
+
+    @Benchmark
+    public SleepAverages forkJoin() {
+        return SleepAverages.fromSleepLogs(sleepLogs, FROM, TO, SleepStatistic.ALL, ForkJoinPool.commonPool());
+    }
+}
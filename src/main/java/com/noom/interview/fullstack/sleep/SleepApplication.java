@@ -2,11 +2,20 @@ package com.noom.interview.fullstack.sleep;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SleepApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SleepApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(SleepApplication.class, args);
+        // the rebuild command or the migration has finished by now, and a class data sharing
+        // training run only needed the startup; scheduler threads would keep the JVM alive
+        if (context.getEnvironment().acceptsProfiles(Profiles.of("rebuild | migrate | cds-training"))) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
@@ -0,0 +1,47 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for the {@code async} profile.
+ *
+ * <p>Database calls and CPU-bound aggregation run on separate, separately sized pools,
+ * so a slow database cannot starve aggregation and neither of them holds Tomcat workers.
+ * Both pools have bounded queues; when a queue is full the submission is rejected and
+ * the request is answered with 503 instead of piling up.
+ */
+@Configuration
+@Profile("async & !reactive")
+public class AsyncExecutorConfig {
+
+    public static final String DB_EXECUTOR = "sleepLogDbExecutor";
+    public static final String AGGREGATION_EXECUTOR = "sleepLogAggregationExecutor";
+
+    @Bean(DB_EXECUTOR)
+    public ThreadPoolTaskExecutor sleepLogDbExecutor(
+            @Value("${sleep.async.db.pool-size:16}") int poolSize,
+            @Value("${sleep.async.db.queue-capacity:200}") int queueCapacity) {
+        return boundedExecutor("sleep-db-", poolSize, queueCapacity);
+    }
+
+    @Bean(AGGREGATION_EXECUTOR)
+    public ThreadPoolTaskExecutor sleepLogAggregationExecutor(
+            @Value("${sleep.async.aggregation.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int poolSize,
+            @Value("${sleep.async.aggregation.queue-capacity:200}") int queueCapacity) {
+        return boundedExecutor("sleep-cpu-", poolSize, queueCapacity);
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
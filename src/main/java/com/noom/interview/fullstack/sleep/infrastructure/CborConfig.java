@@ -0,0 +1,47 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR ({@code application/cbor}) for clients that ask for it with {@code Accept}, and for request
+ * bodies sent with that {@code Content-Type}; JSON stays the default.
+ *
+ * <p>The mapper has the Spring Boot managed settings, but writes dates, times and durations as
+ * integers, see {@link CompactTimeModule}. The converter bean replaces the one Spring MVC would
+ * register, which would write them as arrays and decimals.
+ */
+@Configuration
+public class CborConfig {
+
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.factory(new CBORFactory()).build();
+        // Registered last, so it takes precedence over the ISO-8601 serializers of JavaTimeModule
+        objectMapper.registerModule(new CompactTimeModule());
+        return objectMapper;
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builder));
+    }
+
+    @Bean
+    @Profile("reactive")
+    public CodecCustomizer cborCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = cborObjectMapper(builder);
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2CborEncoder(objectMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(objectMapper));
+        };
+    }
+}
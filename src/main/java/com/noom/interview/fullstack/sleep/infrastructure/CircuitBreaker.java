@@ -0,0 +1,68 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+
+/**
+ * Stops calls to a dependency after it failed a number of times in a row, and lets a single
+ * trial call through once a cool-down has passed.
+ *
+ * <p>Closed, every call is permitted and consecutive failures are counted; reaching the
+ * threshold opens the breaker. Open, no call is permitted until {@code openDuration} has passed.
+ * Then one call is permitted as a trial: its success closes the breaker, its failure opens it
+ * again for another {@code openDuration}.
+ *
+ * <p>Every permitted call must be followed by exactly one {@link #recordSuccess} or
+ * {@link #recordFailure}. Outcomes of calls that were still running when the breaker opened
+ * are ignored. Thread-safe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Returns whether a call may be made now; when half-open, only the first caller gets a trial.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.OPEN) {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,71 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+/**
+ * Writes dates, times and durations as integers, for binary formats where ISO-8601 strings would
+ * take most of the payload.
+ *
+ * <ul>
+ *   <li>{@link LocalDate}: days since 1970-01-01</li>
+ *   <li>{@link LocalDateTime}: seconds since 1970-01-01T00:00, of the local time as if it were UTC</li>
+ *   <li>{@link LocalTime}: seconds since midnight</li>
+ *   <li>{@link Duration}: whole seconds</li>
+ * </ul>
+ *
+ * <p>Sub-second parts are dropped; no value in the API has them except averaged durations.
+ * Reading accepts the same integers, or ISO-8601 strings as in JSON.
+ */
+public class CompactTimeModule extends SimpleModule {
+
+    public CompactTimeModule() {
+        super(CompactTimeModule.class.getSimpleName());
+        add(LocalDate.class, LocalDate::toEpochDay, LocalDate::ofEpochDay, LocalDate::parse);
+        add(LocalDateTime.class, dateTime -> dateTime.toEpochSecond(ZoneOffset.UTC),
+                seconds -> LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC), LocalDateTime::parse);
+        add(LocalTime.class, LocalTime::toSecondOfDay, LocalTime::ofSecondOfDay, LocalTime::parse);
+        add(Duration.class, Duration::getSeconds, Duration::ofSeconds, Duration::parse);
+    }
+
+    private <T> void add(Class<T> type, ToLongFunction<T> toLong, LongFunction<T> fromLong, Function<String, T> parse) {
+        addSerializer(type, new StdScalarSerializer<T>(type) {
+            @Override
+            public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(toLong.applyAsLong(value));
+            }
+        });
+        addDeserializer(type, new StdScalarDeserializer<T>(type) {
+            @Override
+            public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                    return fromLong.apply(parser.getLongValue());
+                }
+                if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                    try {
+                        return parse.apply(parser.getText());
+                    } catch (RuntimeException exception) {
+                        return type.cast(context.handleWeirdStringValue(type, parser.getText(), exception.getMessage()));
+                    }
+                }
+                return type.cast(context.handleUnexpectedToken(type, parser));
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+import org.springframework.core.InfrastructureProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Measures how long each thread waits for a connection from the pool.
+ *
+ * <p>{@link InstrumentedJdbcTemplate} reads the wait with {@link #takeConnectionWaitNanos()} after
+ * every statement, so pool starvation shows up per statement. As an {@link InfrastructureProxy},
+ * transaction synchronization treats this wrapper and the pool as the same resource, so statements
+ * inside a transaction still reuse its connection.
+ */
+public class ConnectionWaitTimingDataSource extends DelegatingDataSource implements InfrastructureProxy {
+
+    private final ThreadLocal<long[]> connectionWaitNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public ConnectionWaitTimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            connectionWaitNanos.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            connectionWaitNanos.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Returns the time the current thread waited for connections since the last call, and resets it.
+     */
+    public long takeConnectionWaitNanos() {
+        long[] wait = connectionWaitNanos.get();
+        long nanos = wait[0];
+        wait[0] = 0;
+        return nanos;
+    }
+
+    @Override
+    public Object getWrappedObject() {
+        return obtainTargetDataSource();
+    }
+}
@@ -0,0 +1,159 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a slow or failing database from holding request threads.
+ *
+ * <p>Reads run on a separate thread and the caller waits at most {@code read-timeout} for them;
+ * a read that takes longer is abandoned and finishes on its own thread. The
+ * {@link ThreadDatabaseTime} of a read that completes, or fails, is added to the caller's. At most
+ * {@code max-concurrent-reads} reads, abandoned ones included, are in flight at a time; further
+ * reads are refused at once instead of queueing behind them. A read timeout of zero runs reads on
+ * the calling thread, without a time limit.
+ *
+ * <p>Writes run on the calling thread without a time limit, so that their caller always learns
+ * whether they were stored.
+ *
+ * <p>Timeouts and {@link DataAccessException}s other than constraint violations count as failures
+ * of a {@link CircuitBreaker}. While it is open, reads and writes fail at once. A read refused for
+ * lack of permits does not count: a burst of healthy reads must not suspend the database. Every
+ * failure and refusal surfaces as a {@link DatabaseUnavailableException}.
+ */
+@Component
+public class DatabaseGuard {
+
+    private final CircuitBreaker breaker;
+    private final Duration readTimeout;
+    private final Semaphore readPermits;
+    private final ExecutorService readExecutor;
+
+    public DatabaseGuard(
+            @Value("${sleep.database.read-timeout:1s}") Duration readTimeout,
+            @Value("${sleep.database.max-concurrent-reads:16}") int maxConcurrentReads,
+            @Value("${sleep.database.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${sleep.database.breaker.open-duration:10s}") Duration openDuration) {
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.readTimeout = readTimeout;
+        this.readPermits = new Semaphore(maxConcurrentReads);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.readExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "db-read-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> T read(Supplier<T> read) {
+        // Permits first, so a refused read never takes the half-open breaker's only trial
+        if (!readPermits.tryAcquire()) {
+            throw new DatabaseUnavailableException("Too many database reads in flight");
+        }
+        if (!breaker.tryAcquire()) {
+            readPermits.release();
+            throw suspended();
+        }
+        if (readTimeout.isZero() || readTimeout.isNegative()) {
+            try {
+                return call(read);
+            } finally {
+                readPermits.release();
+            }
+        }
+        Future<T> future;
+        // Written before the read completes, so visible once the future is done
+        long[] databaseNanos = {0};
+        try {
+            future = readExecutor.submit(() -> {
+                ThreadDatabaseTime.take();
+                try {
+                    return read.get();
+                } finally {
+                    databaseNanos[0] = ThreadDatabaseTime.take();
+                    readPermits.release();
+                }
+            });
+        } catch (RuntimeException exception) {
+            readPermits.release();
+            breaker.recordFailure();
+            throw new DatabaseUnavailableException("Database reads are shut down", exception);
+        }
+        try {
+            T result = future.get(readTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            ThreadDatabaseTime.add(databaseNanos[0]);
+            breaker.recordSuccess();
+            return result;
+        } catch (TimeoutException exception) {
+            breaker.recordFailure();
+            throw new DatabaseUnavailableException("Database read took longer than " + readTimeout, exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            breaker.recordFailure();
+            throw new DatabaseUnavailableException("Interrupted while waiting for a database read", exception);
+        } catch (ExecutionException exception) {
+            ThreadDatabaseTime.add(databaseNanos[0]);
+            throw failed(exception.getCause());
+        }
+    }
+
+    public <T> T write(Supplier<T> write) {
+        if (!breaker.tryAcquire()) {
+            throw suspended();
+        }
+        return call(write);
+    }
+
+    public CircuitBreaker.State state() {
+        return breaker.state();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readExecutor.shutdown();
+    }
+
+    private <T> T call(Supplier<T> call) {
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error exception) {
+            throw failed(exception);
+        }
+        breaker.recordSuccess();
+        return result;
+    }
+
+    /**
+     * Records the outcome of a call that threw and returns what to throw in its place.
+     */
+    private RuntimeException failed(Throwable exception) {
+        if (exception instanceof DataAccessException && !(exception instanceof DataIntegrityViolationException)) {
+            breaker.recordFailure();
+            return new DatabaseUnavailableException("Database call failed", exception);
+        }
+        breaker.recordSuccess();
+        if (exception instanceof Error error) {
+            throw error;
+        }
+        return (RuntimeException) exception;
+    }
+
+    private static DatabaseUnavailableException suspended() {
+        return new DatabaseUnavailableException("Database calls are suspended after repeated failures");
+    }
+}
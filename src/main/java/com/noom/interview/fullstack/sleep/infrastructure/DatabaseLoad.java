@@ -0,0 +1,48 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Samples the signals that bulk jobs back off on: how far the replicas lag behind, and how many
+ * sessions are waiting for a lock.
+ *
+ * <p>Replication lag is read from {@code pg_stat_replication}, which shows it only to superusers
+ * and members of {@code pg_monitor}; for other roles, and without replicas, it reads as zero.
+ */
+@Component
+@Profile("!in-memory")
+public class DatabaseLoad {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public DatabaseLoad(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public Sample sample() {
+        return jdbc.queryForObject(SAMPLE, new MapSqlParameterSource(), DatabaseLoad::mapToSample);
+    }
+
+    static final String SAMPLE = """
+            SELECT (SELECT coalesce(max(extract(EPOCH FROM replay_lag)), 0) FROM pg_stat_replication) AS replication_lag_seconds,
+                   (SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock') AS lock_waits
+            """;
+
+    private static Sample mapToSample(ResultSet rs, int rowNum) throws SQLException {
+        return new Sample(Duration.ofMillis(Math.round(rs.getDouble("replication_lag_seconds") * 1000)), rs.getInt("lock_waits"));
+    }
+
+    /**
+     * @param replicationLag how far the slowest replica is behind in replaying
+     * @param lockWaits      sessions currently waiting for a lock
+     */
+    public record Sample(Duration replicationLag, int lockWaits) {
+    }
+}
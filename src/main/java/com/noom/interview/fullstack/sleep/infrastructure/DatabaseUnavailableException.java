@@ -0,0 +1,12 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+public class DatabaseUnavailableException extends RuntimeException {
+
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,60 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import javax.annotation.PostConstruct;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+/**
+ * Selective lazy initialization for the {@code fast-start} profile, which turns on
+ * {@code spring.main.lazy-initialization}.
+ *
+ * <p>Beans nothing asks for at startup are created on first use. Controllers stay eager, and with
+ * them everything on the request path, so the first request does not pay for creating it; so do
+ * beans with scheduled, event listener or {@link PostConstruct} methods, which would otherwise
+ * never run.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    private static final List<Class<? extends Annotation>> EAGER_TYPE_ANNOTATIONS =
+            List.of(Controller.class, ControllerAdvice.class);
+    private static final List<Class<? extends Annotation>> EAGER_METHOD_ANNOTATIONS =
+            List.of(Scheduled.class, EventListener.class, PostConstruct.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerRequestPathAndBackgroundWork() {
+        return (beanName, beanDefinition, beanType) -> isEager(beanType);
+    }
+
+    static boolean isEager(Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        for (Class<? extends Annotation> annotation : EAGER_TYPE_ANNOTATIONS) {
+            if (AnnotatedElementUtils.hasAnnotation(beanType, annotation)) {
+                return true;
+            }
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType, ReflectionUtils.USER_DECLARED_METHODS)) {
+            for (Class<? extends Annotation> annotation : EAGER_METHOD_ANNOTATIONS) {
+                if (AnnotatedElementUtils.hasAnnotation(method, annotation)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records every request in the {@link HeavyHitterTracker}, keyed by {@code X-User-Id} and by
+ * method and route pattern. Requests no route matched, such as 404 scans, share the
+ * {@value #UNMATCHED} pattern rather than one key per URI crowding out the candidates.
+ *
+ * <p>Database time is what {@link InstrumentedJdbcTemplate} measured on the request thread,
+ * including reads {@link DatabaseGuard} ran on its own threads for it, see
+ * {@link ThreadDatabaseTime}. In the {@code async} profile the service runs on the database
+ * executor, so only requests are counted there; in the {@code in-memory} profile there is no
+ * database time.
+ */
+@Component
+@Profile("!reactive")
+public class HeavyHitterFilter extends OncePerRequestFilter {
+
+    static final String USER_ID_HEADER = "X-User-Id";
+    static final String ANONYMOUS = "<none>";
+    static final String UNMATCHED = "<unmatched>";
+
+    private final HeavyHitterTracker tracker;
+
+    public HeavyHitterFilter(HeavyHitterTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ThreadDatabaseTime.take();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            String userId = request.getHeader(USER_ID_HEADER);
+            tracker.record(userId == null ? ANONYMOUS : userId, endpoint(request), ThreadDatabaseTime.take());
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : UNMATCHED);
+    }
+}
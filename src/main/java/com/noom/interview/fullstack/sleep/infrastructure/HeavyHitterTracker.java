@@ -0,0 +1,64 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Heavy hitters among users ({@code X-User-Id}) and endpoints, by requests and by database time.
+ *
+ * <p>Memory is fixed by the configured slots, sketch size and candidates, however many distinct
+ * users call. The window is {@code slots} times {@code slot-duration}.
+ */
+@Component
+@Profile("!reactive")
+public class HeavyHitterTracker {
+
+    static final int MAX_KEY_LENGTH = 128;
+
+    private final HeavyHitters users;
+    private final HeavyHitters endpoints;
+    private final Duration window;
+
+    public HeavyHitterTracker(
+            @Value("${sleep.heavy-hitters.slots:5}") int slots,
+            @Value("${sleep.heavy-hitters.slot-duration:PT1M}") Duration slotDuration,
+            @Value("${sleep.heavy-hitters.sketch-width:2048}") int width,
+            @Value("${sleep.heavy-hitters.sketch-depth:4}") int depth,
+            @Value("${sleep.heavy-hitters.candidates:32}") int candidates) {
+        this.users = new HeavyHitters(slots, width, depth, candidates);
+        this.endpoints = new HeavyHitters(slots, width, depth, candidates);
+        this.window = slotDuration.multipliedBy(slots);
+    }
+
+    public void record(String userId, String endpoint, long databaseNanos) {
+        users.record(truncate(userId), databaseNanos);
+        endpoints.record(truncate(endpoint), databaseNanos);
+    }
+
+    public HeavyHitters users() {
+        return users;
+    }
+
+    public HeavyHitters endpoints() {
+        return endpoints;
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    @Scheduled(fixedRateString = "${sleep.heavy-hitters.slot-duration:PT1M}",
+            initialDelayString = "${sleep.heavy-hitters.slot-duration:PT1M}")
+    public void rotate() {
+        users.rotate();
+        endpoints.rotate();
+    }
+
+    private static String truncate(String key) {
+        return key.length() <= MAX_KEY_LENGTH ? key : key.substring(0, MAX_KEY_LENGTH);
+    }
+}
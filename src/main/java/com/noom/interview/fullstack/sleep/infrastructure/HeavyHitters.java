@@ -0,0 +1,239 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Approximate top keys by request count and by database time over a sliding window, in fixed memory.
+ *
+ * <p>The window is a ring of slots. Each slot holds two count-min sketches, one counting requests
+ * and one summing database nanoseconds, and for each a small table of candidate heavy keys. A key
+ * enters a candidate table when its estimate in that slot exceeds the smallest estimate already
+ * there. {@link #rotate()} advances to the next slot and clears it, so the window spans between
+ * {@code slots - 1} and {@code slots} rotation intervals.
+ *
+ * <p>Recording is lock-free: sketch cells are {@link AtomicLongArray} counters and candidate
+ * entries are replaced by compare-and-set. Estimates never undercount; they overcount by more than
+ * {@code e / width} of a slot's total only with probability {@code e^-depth}. Concurrent
+ * updates may occasionally admit a key twice or evict a slightly heavier one; reported figures are
+ * always re-estimated from the sketches.
+ */
+public class HeavyHitters {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final Slot[] slots;
+    private final int width;
+    private final int depth;
+    private volatile int current;
+
+    public HeavyHitters(int slots, int width, int depth, int candidates) {
+        this.width = width;
+        this.depth = depth;
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot(width * depth, candidates);
+        }
+    }
+
+    /**
+     * Counts one request for {@code key} that spent {@code databaseNanos} in the database.
+     */
+    public void record(String key, long databaseNanos) {
+        Slot slot = slots[current];
+        long hash = hash(key);
+        slot.requestCandidates.offer(key, slot.requests.add(hash, 1));
+        if (databaseNanos > 0) {
+            slot.databaseCandidates.offer(key, slot.databaseNanos.add(hash, databaseNanos));
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} keys with the highest estimate of {@code metric} over the window.
+     */
+    public List<Estimate> top(int limit, Metric metric) {
+        Set<String> keys = new HashSet<>();
+        for (Slot slot : slots) {
+            (metric == Metric.REQUESTS ? slot.requestCandidates : slot.databaseCandidates).collectKeys(keys);
+        }
+        Comparator<Estimate> ranking = metric == Metric.REQUESTS
+                ? Comparator.comparingLong(Estimate::requests)
+                : Comparator.comparingLong(Estimate::databaseNanos);
+        return keys.stream()
+                .map(this::estimate)
+                .sorted(ranking.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Estimates {@code key} over the whole window.
+     */
+    public Estimate estimate(String key) {
+        long hash = hash(key);
+        long requests = 0;
+        long databaseNanos = 0;
+        for (Slot slot : slots) {
+            requests += slot.requests.estimate(hash);
+            databaseNanos += slot.databaseNanos.estimate(hash);
+        }
+        return new Estimate(key, requests, databaseNanos);
+    }
+
+    /**
+     * Starts a new slot, dropping the oldest one from the window.
+     */
+    public void rotate() {
+        int next = (current + 1) % slots.length;
+        slots[next].clear();
+        current = next;
+    }
+
+    private static long hash(String key) {
+        long hash = SEED;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public enum Metric {
+        REQUESTS,
+        DATABASE_TIME
+    }
+
+    /**
+     * Window estimate for one key; both figures are upper bounds.
+     */
+    public record Estimate(String key, long requests, long databaseNanos) {
+    }
+
+    private final class Slot {
+        final Sketch requests;
+        final Sketch databaseNanos;
+        final Candidates requestCandidates;
+        final Candidates databaseCandidates;
+
+        Slot(int cells, int candidates) {
+            this.requests = new Sketch(cells);
+            this.databaseNanos = new Sketch(cells);
+            this.requestCandidates = new Candidates(candidates);
+            this.databaseCandidates = new Candidates(candidates);
+        }
+
+        void clear() {
+            requests.clear();
+            databaseNanos.clear();
+            requestCandidates.clear();
+            databaseCandidates.clear();
+        }
+    }
+
+    /**
+     * Count-min sketch of {@code depth} rows by {@code width} counters. Each row indexes by its own
+     * remix of the key's 64-bit hash, so two keys colliding in one row rarely collide in the others.
+     */
+    private final class Sketch {
+        final AtomicLongArray cells;
+
+        Sketch(int cells) {
+            this.cells = new AtomicLongArray(cells);
+        }
+
+        long add(long hash, long amount) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, cells.addAndGet(row * width + index(hash, row), amount));
+            }
+            return estimate;
+        }
+
+        long estimate(long hash) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, cells.get(row * width + index(hash, row)));
+            }
+            return estimate;
+        }
+
+        private int index(long hash, int row) {
+            return (int) Long.remainderUnsigned(mix(hash + row * SEED), width);
+        }
+
+        void clear() {
+            for (int i = 0; i < cells.length(); i++) {
+                cells.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Fixed table of candidate heavy keys with the estimate they were last offered with.
+     */
+    private static final class Candidates {
+        final AtomicReferenceArray<String> keys;
+        final AtomicLongArray estimates;
+
+        Candidates(int capacity) {
+            this.keys = new AtomicReferenceArray<>(capacity);
+            this.estimates = new AtomicLongArray(capacity);
+        }
+
+        void offer(String key, long estimate) {
+            int victim = -1;
+            long victimEstimate = Long.MAX_VALUE;
+            for (int i = 0; i < keys.length(); i++) {
+                String candidate = keys.get(i);
+                if (candidate == null && keys.compareAndSet(i, null, key)) {
+                    estimates.set(i, estimate);
+                    return;
+                }
+                candidate = keys.get(i);
+                if (key.equals(candidate)) {
+                    estimates.accumulateAndGet(i, estimate, Math::max);
+                    return;
+                }
+                long candidateEstimate = estimates.get(i);
+                if (candidateEstimate < victimEstimate) {
+                    victim = i;
+                    victimEstimate = candidateEstimate;
+                }
+            }
+            if (victim >= 0 && estimate > victimEstimate) {
+                String evicted = keys.get(victim);
+                if (evicted != null && keys.compareAndSet(victim, evicted, key)) {
+                    estimates.set(victim, estimate);
+                }
+            }
+        }
+
+        void collectKeys(Set<String> into) {
+            for (int i = 0; i < keys.length(); i++) {
+                String key = keys.get(i);
+                if (key != null) {
+                    into.add(key);
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < keys.length(); i++) {
+                keys.set(i, null);
+                estimates.set(i, 0);
+            }
+        }
+    }
+}
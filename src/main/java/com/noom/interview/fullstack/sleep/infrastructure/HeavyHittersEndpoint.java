@@ -0,0 +1,72 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/heavyhitters}: the users and endpoints with the most requests or database time
+ * over the tracker's window.
+ *
+ * <p>{@code GET ?top=10&by=requests}, {@code by} being {@code requests} or {@code database_time}.
+ * Figures are count-min estimates and may overcount, never undercount. The response lists user
+ * IDs, so the endpoint is only served on the unauthenticated management port
+ * ({@code management.server.port}), not on the API port.
+ */
+@Component
+@Profile("!reactive")
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private final HeavyHitterTracker tracker;
+
+    public HeavyHittersEndpoint(HeavyHitterTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public HeavyHittersReport heavyHitters(@Nullable Integer top, @Nullable String by) {
+        int limit = top == null ? DEFAULT_TOP : Math.max(top, 0);
+        HeavyHitters.Metric metric = metric(by);
+        return new HeavyHittersReport(
+                tracker.window(),
+                metric,
+                entries(tracker.users().top(limit, metric)),
+                entries(tracker.endpoints().top(limit, metric)));
+    }
+
+    private static List<HeavyHitterEntry> entries(List<HeavyHitters.Estimate> estimates) {
+        return estimates.stream()
+                .map(estimate -> new HeavyHitterEntry(estimate.key(), estimate.requests(),
+                        TimeUnit.NANOSECONDS.toMillis(estimate.databaseNanos())))
+                .toList();
+    }
+
+    private static HeavyHitters.Metric metric(@Nullable String by) {
+        if (by == null) {
+            return HeavyHitters.Metric.REQUESTS;
+        }
+        try {
+            return HeavyHitters.Metric.valueOf(by.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidEndpointRequestException("Unknown metric: " + by, "Unknown metric");
+        }
+    }
+
+    public record HeavyHittersReport(Duration window, HeavyHitters.Metric rankedBy,
+                                     List<HeavyHitterEntry> users, List<HeavyHitterEntry> endpoints) {
+    }
+
+    public record HeavyHitterEntry(String key, long requests, long databaseMillis) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.util.Collection;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link JdbcTemplate} that records every statement in {@link SqlStatementStatistics}.
+ *
+ * <p>All queries and updates, including those issued through
+ * {@link InstrumentedNamedParameterJdbcTemplate}, pass through one of the two {@code execute}
+ * methods overridden here. The recorded time includes waiting for a connection; the wait is
+ * also recorded on its own, see {@link ConnectionWaitTimingDataSource}. Rows are the size of
+ * a returned list or the update count; other results count as zero rows.
+ *
+ * <p>The time is also summed per thread, so the request filter can attribute database time to
+ * the caller, see {@link ThreadDatabaseTime}.
+ */
+public class InstrumentedJdbcTemplate extends JdbcTemplate {
+
+    private final ConnectionWaitTimingDataSource dataSource;
+    private final SqlStatementStatistics statistics;
+
+    public InstrumentedJdbcTemplate(ConnectionWaitTimingDataSource dataSource, SqlStatementStatistics statistics) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.statistics = statistics;
+    }
+
+    @Override
+    @Nullable
+    public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action) throws DataAccessException {
+        dataSource.takeConnectionWaitNanos();
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = super.execute(psc, action);
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            ThreadDatabaseTime.add(elapsed);
+            if (psc instanceof InstrumentedNamedParameterJdbcTemplate.NamedStatementCreator named) {
+                statistics.record(named.namedSql(), named.parameters(), elapsed, dataSource.takeConnectionWaitNanos(), rowsOf(result), failed);
+            } else {
+                statistics.record(sqlOf(psc), null, elapsed, dataSource.takeConnectionWaitNanos(), rowsOf(result), failed);
+            }
+        }
+    }
+
+    @Override
+    @Nullable
+    public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+        dataSource.takeConnectionWaitNanos();
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = super.execute(action);
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            ThreadDatabaseTime.add(elapsed);
+            statistics.record(sqlOf(action), null, elapsed, dataSource.takeConnectionWaitNanos(), rowsOf(result), failed);
+        }
+    }
+
+    private static String sqlOf(Object statement) {
+        if (statement instanceof SqlProvider provider && provider.getSql() != null) {
+            return provider.getSql();
+        }
+        return "<unknown>";
+    }
+
+    private static long rowsOf(@Nullable Object result) {
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof Integer count) {
+            return count;
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        return 0;
+    }
+}
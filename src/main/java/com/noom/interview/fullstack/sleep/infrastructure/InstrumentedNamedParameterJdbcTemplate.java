@@ -0,0 +1,58 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.ParameterDisposer;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link NamedParameterJdbcTemplate} that lets {@link InstrumentedJdbcTemplate} see the statement
+ * as written, with named parameters, and its bind values.
+ *
+ * <p>Statistics are therefore grouped by the SQL text in the repository rather than by the
+ * expanded JDBC text, and the slow-statement log can show the parameters.
+ */
+public class InstrumentedNamedParameterJdbcTemplate extends NamedParameterJdbcTemplate {
+
+    public InstrumentedNamedParameterJdbcTemplate(InstrumentedJdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    protected PreparedStatementCreator getPreparedStatementCreator(
+            String sql, SqlParameterSource paramSource, @Nullable Consumer<PreparedStatementCreatorFactory> customizer) {
+        return new NamedStatementCreator(super.getPreparedStatementCreator(sql, paramSource, customizer), sql, paramSource);
+    }
+
+    /**
+     * Delegates statement creation and keeps the named SQL and parameters for recording.
+     */
+    record NamedStatementCreator(PreparedStatementCreator delegate, String namedSql, SqlParameterSource parameters)
+            implements PreparedStatementCreator, SqlProvider, ParameterDisposer {
+
+        @Override
+        public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+            return delegate.createPreparedStatement(connection);
+        }
+
+        @Override
+        public String getSql() {
+            return delegate instanceof SqlProvider provider ? provider.getSql() : namedSql;
+        }
+
+        @Override
+        public void cleanupParameters() {
+            if (delegate instanceof ParameterDisposer disposer) {
+                disposer.cleanupParameters();
+            }
+        }
+    }
+}
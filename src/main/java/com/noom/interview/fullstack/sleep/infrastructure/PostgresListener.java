@@ -0,0 +1,114 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the notifications sent on one PostgreSQL channel, on its own thread.
+ *
+ * <p>The listener takes one connection from the pool when it starts and holds it until it stops,
+ * however many consumers the notifications are passed on to. If the connection breaks, the
+ * listener reconnects after {@code retryDelay} and then calls {@code onReconnect}, since
+ * notifications sent in between are lost.
+ */
+public class PostgresListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresListener.class);
+
+    static final int POLL_MILLIS = 500;
+
+    private final DataSource dataSource;
+    private final String channel;
+    private final Consumer<String> onNotification;
+    private final Runnable onReconnect;
+    private final Duration retryDelay;
+    private volatile boolean running;
+    private Thread thread;
+
+    public PostgresListener(DataSource dataSource, String channel, Consumer<String> onNotification,
+                            Runnable onReconnect, Duration retryDelay) {
+        this.dataSource = dataSource;
+        this.channel = channel;
+        this.onNotification = onNotification;
+        this.onReconnect = onReconnect;
+        this.retryDelay = retryDelay;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "pg-listen-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void listen() {
+        boolean reconnected = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                execute(connection, "LISTEN " + channel);
+                // Only now is nothing missed any more
+                if (reconnected) {
+                    onReconnect.run();
+                }
+                reconnected = true;
+                receive(connection.unwrap(PGConnection.class));
+                // The connection goes back to the pool, where it must not keep collecting notifications
+                execute(connection, "UNLISTEN " + channel);
+            } catch (SQLException | RuntimeException exception) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the connection listening on {}, reconnecting in {}", channel, retryDelay, exception);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(retryDelay.toNanos());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(PGConnection connection) throws SQLException {
+        while (running) {
+            PGNotification[] notifications = connection.getNotifications(POLL_MILLIS);
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                try {
+                    onNotification.accept(notification.getParameter());
+                } catch (RuntimeException exception) {
+                    log.warn("Could not handle notification on {}: {}", channel, notification.getParameter(), exception);
+                }
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
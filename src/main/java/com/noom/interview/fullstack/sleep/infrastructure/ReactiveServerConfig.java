@@ -0,0 +1,23 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Server setup for the {@code reactive} profile.
+ *
+ * <p>Tomcat stays on the classpath for the default servlet mode, and Spring Boot would
+ * prefer it for a reactive context too. Declaring the Netty factory explicitly makes the
+ * reactive mode run on an event loop instead of a servlet container.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
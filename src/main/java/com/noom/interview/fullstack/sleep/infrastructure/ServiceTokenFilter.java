@@ -0,0 +1,66 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets only other services call the internal APIs: requests to {@link #PROTECTED_PATHS} must carry
+ * {@code Authorization: Bearer} with the {@code sleep.service.token}, or they are answered with
+ * {@code 401 Unauthorized}. Without a configured token those APIs refuse every request.
+ */
+@Component
+@Profile("!reactive")
+public class ServiceTokenFilter extends OncePerRequestFilter {
+
+    static final List<String> PROTECTED_PATHS = List.of("/api/admin/**", "/api/sleep-log-feed/**");
+
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ServiceTokenFilter(@Value("${sleep.service.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PROTECTED_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (authorized(request.getHeader(HttpHeaders.AUTHORIZATION))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"A valid service token is required\"}");
+    }
+
+    private boolean authorized(String authorization) {
+        if (token.length == 0 || authorization == null || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        // constant time, so the token cannot be guessed byte by byte from response times
+        return MessageDigest.isEqual(token, authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8));
+    }
+}
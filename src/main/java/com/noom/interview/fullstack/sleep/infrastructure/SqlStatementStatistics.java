@@ -0,0 +1,222 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+
+/**
+ * Per-statement call counts, timings, rows and connection waits, plus a slow-statement log.
+ *
+ * <p>Statements are grouped by fingerprint: the SQL with whitespace collapsed and literals replaced
+ * by {@code ?}, so ad hoc statements differing only in their values share one entry. At most
+ * {@code maxStatements} fingerprints are tracked; anything beyond is counted under {@value #OTHER}.
+ *
+ * <p>A statement slower than {@code slowThreshold} is logged at WARN with the names of its bind
+ * parameters and the part of its time spent waiting for a connection. Bind values hold user IDs and
+ * sleep times, so they are masked: only {@code null} and the size of a collection are shown.
+ */
+public class SqlStatementStatistics {
+
+    static final String OTHER = "<other>";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementStatistics.class);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, Statement> bySql = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Statement> byFingerprint = new ConcurrentHashMap<>();
+    private final Statement other = new Statement(OTHER);
+    private final long slowThresholdNanos;
+    private final int maxStatements;
+
+    public SqlStatementStatistics(Duration slowThreshold, int maxStatements) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param sql                 the statement as issued, named parameters included
+     * @param parameters          its bind values, if known
+     * @param elapsedNanos        time from asking for a connection to having processed the result
+     * @param connectionWaitNanos part of the elapsed time spent waiting for a connection
+     * @param rows                rows returned or affected
+     * @param failed              whether the statement threw
+     */
+    public void record(String sql, @Nullable SqlParameterSource parameters, long elapsedNanos,
+                       long connectionWaitNanos, long rows, boolean failed) {
+        Statement statement = statementFor(sql);
+        statement.calls.increment();
+        statement.totalNanos.add(elapsedNanos);
+        statement.maxNanos.accumulate(elapsedNanos);
+        statement.rows.add(rows);
+        statement.connectionWaitNanos.add(connectionWaitNanos);
+        statement.maxConnectionWaitNanos.accumulate(connectionWaitNanos);
+        if (failed) {
+            statement.failures.increment();
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            statement.slowCalls.increment();
+            log.warn("Slow SQL: {} ms, {} ms waiting for a connection, {} rows{}: {} parameters {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), TimeUnit.NANOSECONDS.toMillis(connectionWaitNanos),
+                    rows, failed ? ", failed" : "", statement.fingerprint, describe(parameters));
+        }
+    }
+
+    /**
+     * Returns the {@code limit} statements ranked highest by {@code order}.
+     */
+    public List<SqlStatementSnapshot> top(int limit, Order order) {
+        return Stream.concat(byFingerprint.values().stream(), Stream.of(other))
+                .map(Statement::snapshot)
+                .filter(snapshot -> snapshot.calls() > 0)
+                .sorted(order.comparator.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        bySql.clear();
+        byFingerprint.clear();
+        other.reset();
+    }
+
+    private Statement statementFor(String sql) {
+        Statement statement = bySql.get(sql);
+        if (statement != null) {
+            return statement;
+        }
+        if (bySql.size() >= maxStatements) {
+            return other;
+        }
+        return bySql.computeIfAbsent(sql, key -> byFingerprint.computeIfAbsent(fingerprint(key), Statement::new));
+    }
+
+    /**
+     * Returns the key a statement is grouped under: whitespace collapsed, literals replaced by {@code ?}.
+     */
+    public static String fingerprint(String sql) {
+        String withoutStrings = STRING_LITERAL.matcher(sql).replaceAll("?");
+        String withoutNumbers = NUMERIC_LITERAL.matcher(withoutStrings).replaceAll("?");
+        return WHITESPACE.matcher(withoutNumbers).replaceAll(" ").trim();
+    }
+
+    static Object describe(@Nullable SqlParameterSource parameters) {
+        if (parameters == null) {
+            return "unknown";
+        }
+        String[] names = parameters instanceof MapSqlParameterSource map
+                ? map.getValues().keySet().toArray(String[]::new)
+                : parameters.getParameterNames();
+        if (names == null) {
+            return "unknown";
+        }
+        Map<String, String> masked = new LinkedHashMap<>();
+        Arrays.stream(names).forEach(name -> masked.put(name, mask(parameters.getValue(name))));
+        return masked;
+    }
+
+    private static String mask(@Nullable Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Collection<?> collection) {
+            return "<" + collection.size() + " values>";
+        }
+        if (value.getClass().isArray()) {
+            return "<" + Array.getLength(value) + " values>";
+        }
+        return "?";
+    }
+
+    /**
+     * Ranking for {@link #top}.
+     */
+    public enum Order {
+        TOTAL_TIME(Comparator.comparingDouble(SqlStatementSnapshot::totalMillis)),
+        MAX_TIME(Comparator.comparingDouble(SqlStatementSnapshot::maxMillis)),
+        CALLS(Comparator.comparingLong(SqlStatementSnapshot::calls)),
+        CONNECTION_WAIT(Comparator.comparingDouble(SqlStatementSnapshot::connectionWaitMillis));
+
+        private final Comparator<SqlStatementSnapshot> comparator;
+
+        Order(Comparator<SqlStatementSnapshot> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * Point-in-time statistics of one statement fingerprint.
+     */
+    public record SqlStatementSnapshot(
+            String statement,
+            long calls,
+            long failures,
+            long slowCalls,
+            long rows,
+            double totalMillis,
+            double meanMillis,
+            double maxMillis,
+            double connectionWaitMillis,
+            double maxConnectionWaitMillis
+    ) {
+    }
+
+    private static final class Statement {
+        final String fingerprint;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder slowCalls = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder connectionWaitNanos = new LongAdder();
+        final LongAccumulator maxConnectionWaitNanos = new LongAccumulator(Math::max, 0);
+
+        Statement(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        SqlStatementSnapshot snapshot() {
+            long callCount = calls.sum();
+            double total = millis(totalNanos.sum());
+            return new SqlStatementSnapshot(fingerprint, callCount, failures.sum(), slowCalls.sum(), rows.sum(),
+                    total, callCount == 0 ? 0 : total / callCount, millis(maxNanos.get()),
+                    millis(connectionWaitNanos.sum()), millis(maxConnectionWaitNanos.get()));
+        }
+
+        void reset() {
+            calls.reset();
+            failures.reset();
+            slowCalls.reset();
+            rows.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            connectionWaitNanos.reset();
+            maxConnectionWaitNanos.reset();
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * JDBC templates that record per-statement statistics.
+ *
+ * <p>Declaring both templates makes Boot's auto-configured ones back off, so every repository
+ * goes through {@link InstrumentedJdbcTemplate}. The {@code spring.jdbc.template.*} properties
+ * still apply.
+ */
+@Configuration
+@Profile("!in-memory")
+public class SqlStatisticsConfig {
+
+    @Bean
+    public SqlStatementStatistics sqlStatementStatistics(
+            @Value("${sleep.sql.slow-threshold:200ms}") Duration slowThreshold,
+            @Value("${sleep.sql.max-statements:500}") int maxStatements) {
+        return new SqlStatementStatistics(slowThreshold, maxStatements);
+    }
+
+    @Bean
+    public InstrumentedJdbcTemplate jdbcTemplate(DataSource dataSource, SqlStatementStatistics statistics,
+                                                 JdbcProperties properties) {
+        InstrumentedJdbcTemplate jdbcTemplate =
+                new InstrumentedJdbcTemplate(new ConnectionWaitTimingDataSource(dataSource), statistics);
+        JdbcProperties.Template template = properties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+        return jdbcTemplate;
+    }
+
+    @Bean
+    public InstrumentedNamedParameterJdbcTemplate namedParameterJdbcTemplate(InstrumentedJdbcTemplate jdbcTemplate) {
+        return new InstrumentedNamedParameterJdbcTemplate(jdbcTemplate);
+    }
+}
@@ -0,0 +1,55 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/sqlstats}: the most expensive statements since start-up or the last reset.
+ *
+ * <p>{@code GET ?top=10&sort=total_time} lists them, {@code sort} being one of
+ * {@code total_time}, {@code max_time}, {@code calls} or {@code connection_wait};
+ * {@code DELETE} clears the statistics. Like every actuator endpoint it is served on the
+ * unauthenticated management port ({@code management.server.port}), not on the API port.
+ */
+@Component
+@Profile("!in-memory")
+@Endpoint(id = "sqlstats")
+public class SqlStatisticsEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final SqlStatementStatistics statistics;
+
+    public SqlStatisticsEndpoint(SqlStatementStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public List<SqlStatementStatistics.SqlStatementSnapshot> statements(@Nullable Integer top, @Nullable String sort) {
+        return statistics.top(top == null ? DEFAULT_TOP : Math.max(top, 0), order(sort));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+
+    private static SqlStatementStatistics.Order order(@Nullable String sort) {
+        if (sort == null) {
+            return SqlStatementStatistics.Order.TOTAL_TIME;
+        }
+        try {
+            return SqlStatementStatistics.Order.valueOf(sort.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidEndpointRequestException("Unknown sort: " + sort, "Unknown sort");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+/**
+ * Time the current thread spent in database statements, summed by {@link InstrumentedJdbcTemplate}.
+ *
+ * <p>{@link DatabaseGuard} adds the time of a read it ran on one of its threads to the caller's,
+ * so the request filter sees the database time of guarded reads too, see {@link HeavyHitterFilter}.
+ */
+public final class ThreadDatabaseTime {
+
+    private static final ThreadLocal<long[]> NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private ThreadDatabaseTime() {
+    }
+
+    static void add(long nanos) {
+        NANOS.get()[0] += nanos;
+    }
+
+    /**
+     * Returns the time the current thread spent in statements since the last call, and resets it.
+     */
+    public static long take() {
+        long[] nanos = NANOS.get();
+        long total = nanos[0];
+        nanos[0] = 0;
+        return total;
+    }
+}
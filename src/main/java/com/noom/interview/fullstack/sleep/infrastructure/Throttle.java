@@ -0,0 +1,39 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces work to at most a given number of permits per second, shared by any number of threads.
+ *
+ * <p>Each call reserves the next free slot and sleeps until it starts. There is no burst
+ * allowance, so a batch job puts an even load on the database. A rate of zero or less disables
+ * pacing.
+ */
+public class Throttle {
+
+    private final long nanosPerPermit;
+    private long nextFreeNanos = System.nanoTime();
+
+    public Throttle(double permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    /**
+     * Blocks until {@code permits} may be used.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (nanosPerPermit == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + permits * nanosPerPermit;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.AsyncSleepLogService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Servlet-async variant of {@link SleepLogController}, active with the {@code async} profile.
+ *
+ * <p>Each method returns as soon as the work is handed to {@link AsyncSleepLogService}; the Tomcat
+ * worker is released and the response is written through async dispatch when the future completes.
+ */
+@RestController
+@RequestMapping("/api/sleep-log")
+@Profile("async & !reactive")
+public class AsyncSleepLogController {
+
+    private final AsyncSleepLogService sleepLogService;
+
+    public AsyncSleepLogController(AsyncSleepLogService sleepLogService) {
+        this.sleepLogService = sleepLogService;
+    }
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<SleepLogResponse>> createSleepLog(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestBody CreateSleepLogRequest request) {
+
+        return sleepLogService.createSleepLog(userId, request)
+                .thenApply(sleepLog -> ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .body(SleepLogResponse.fromSleepLog(sleepLog)));
+    }
+
+    @GetMapping("/last-night")
+    public CompletableFuture<ResponseEntity<SleepLogResponse>> getLastNightSleep(
+            @RequestHeader("X-User-Id") Long userId) {
+
+        return sleepLogService.getLastNightSleep(userId)
+                .thenApply(sleepLog -> ResponseEntity.ok(SleepLogResponse.fromSleepLog(sleepLog)));
+    }
+
+    @GetMapping("/averages")
+    public CompletableFuture<ResponseEntity<SleepAveragesResponse>> getLast30DayAverages(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String breakdown,
+            @RequestParam(required = false) String fields) {
+
+        Set<SleepStatistic> statistics = AveragesFields.statistics(fields);
+        return sleepLogService.getLast30DayAverages(userId, AveragesBreakdown.byMorningFeeling(breakdown), statistics)
+                .thenApply(averages -> ResponseEntity.ok(SleepAveragesResponse.fromSleepAverages(averages, statistics)));
+    }
+}
@@ -0,0 +1,27 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+/**
+ * Parses the optional {@code breakdown} parameter of the averages endpoints.
+ */
+final class AveragesBreakdown {
+
+    static final String MORNING_FEELING = "morningFeeling";
+
+    private AveragesBreakdown() {
+    }
+
+    /**
+     * Returns whether averages per morning feeling were requested.
+     *
+     * @throws IllegalArgumentException for any value other than {@value #MORNING_FEELING}
+     */
+    static boolean byMorningFeeling(String breakdown) {
+        if (breakdown == null) {
+            return false;
+        }
+        if (!MORNING_FEELING.equals(breakdown)) {
+            throw new IllegalArgumentException("Unsupported breakdown '" + breakdown + "', expected " + MORNING_FEELING);
+        }
+        return true;
+    }
+}
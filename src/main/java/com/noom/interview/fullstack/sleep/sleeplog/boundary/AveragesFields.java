@@ -0,0 +1,47 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+
+/**
+ * Parses the optional {@code fields} parameter of the averages endpoints: a comma-separated list
+ * of the statistics to compute and return, such as {@code averageBedTime,morningFeelingFrequencies}.
+ */
+final class AveragesFields {
+
+    private static final String SUPPORTED = Arrays.stream(SleepStatistic.values())
+            .map(SleepStatistic::fieldName)
+            .collect(Collectors.joining(", "));
+
+    private AveragesFields() {
+    }
+
+    /**
+     * Returns the requested statistics, or all of them if {@code fields} is absent.
+     *
+     * @throws IllegalArgumentException for an empty list or a name that is not one of the statistics
+     */
+    static Set<SleepStatistic> statistics(String fields) {
+        if (fields == null) {
+            return SleepStatistic.ALL;
+        }
+        Set<SleepStatistic> statistics = EnumSet.noneOf(SleepStatistic.class);
+        for (String field : fields.split(",")) {
+            statistics.add(statistic(field.trim()));
+        }
+        return statistics;
+    }
+
+    private static SleepStatistic statistic(String field) {
+        for (SleepStatistic statistic : SleepStatistic.values()) {
+            if (statistic.fieldName().equals(field)) {
+                return statistic;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported field '" + field + "', expected any of " + SUPPORTED);
+    }
+}
@@ -0,0 +1,7 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.util.List;
+
+public record PurgeUsersRequest(
+        List<Long> userIds
+) {}
@@ -0,0 +1,64 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.util.Set;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.ReactiveSleepLogService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link SleepLogController}, active with the {@code reactive} profile.
+ *
+ * <p>Serves the same endpoints with the same request and response bodies.
+ */
+@RestController
+@RequestMapping("/api/sleep-log")
+@Profile("reactive")
+public class ReactiveSleepLogController {
+
+    private final ReactiveSleepLogService sleepLogService;
+
+    public ReactiveSleepLogController(ReactiveSleepLogService sleepLogService) {
+        this.sleepLogService = sleepLogService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<SleepLogResponse>> createSleepLog(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestBody CreateSleepLogRequest request) {
+
+        return sleepLogService.createSleepLog(userId, request)
+                .map(sleepLog -> ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .body(SleepLogResponse.fromSleepLog(sleepLog)));
+    }
+
+    @GetMapping("/last-night")
+    public Mono<ResponseEntity<SleepLogResponse>> getLastNightSleep(
+            @RequestHeader("X-User-Id") Long userId) {
+
+        return sleepLogService.getLastNightSleep(userId)
+                .map(sleepLog -> ResponseEntity.ok(SleepLogResponse.fromSleepLog(sleepLog)));
+    }
+
+    @GetMapping("/averages")
+    public Mono<ResponseEntity<SleepAveragesResponse>> getLast30DayAverages(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String breakdown,
+            @RequestParam(required = false) String fields) {
+
+        Set<SleepStatistic> statistics = AveragesFields.statistics(fields);
+        return sleepLogService.getLast30DayAverages(userId, AveragesBreakdown.byMorningFeeling(breakdown), statistics)
+                .map(averages -> ResponseEntity.ok(SleepAveragesResponse.fromSleepAverages(averages, statistics)));
+    }
+}
@@ -1,29 +1,87 @@
 package com.noom.interview.fullstack.sleep.sleeplog.boundary;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Map;
+import java.util.Set;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepDistribution;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
 
+/**
+ * The averages response, with only the requested {@code statistics}.
+ *
+ * <p>Written field by field because a statistic that was not requested is left out, while one
+ * that was requested is written even when {@code null}, as the bed time of an empty range is.
+ * {@code distribution} and {@code byMorningFeeling} are left out whenever {@code null}.
+ */
 public record SleepAveragesResponse(
         LocalDate from,
         LocalDate to,
         Duration averageTotalTimeInBed,
         LocalTime averageBedTime,
         LocalTime averageWakeTime,
-        Map<MorningFeeling, Long> morningFeelingFrequencies
-) {
+        Map<MorningFeeling, Long> morningFeelingFrequencies,
+        SleepDistribution distribution,
+        Map<MorningFeeling, MorningFeelingAverages> byMorningFeeling,
+        Set<SleepStatistic> statistics
+) implements JsonSerializable {
+
     public static SleepAveragesResponse fromSleepAverages(SleepAverages averages) {
+        return fromSleepAverages(averages, SleepStatistic.ALL);
+    }
+
+    public static SleepAveragesResponse fromSleepAverages(SleepAverages averages, Set<SleepStatistic> statistics) {
         return new SleepAveragesResponse(
                 averages.from(),
                 averages.to(),
                 averages.averageTotalTimeInBed(),
                 averages.averageBedTime(),
                 averages.averageWakeTime(),
-                averages.morningFeelingFrequencies()
+                averages.morningFeelingFrequencies(),
+                averages.distribution(),
+                averages.byMorningFeeling(),
+                statistics
         );
     }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(this);
+        provider.defaultSerializeField("from", from, generator);
+        provider.defaultSerializeField("to", to, generator);
+        writeIfRequested(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED, averageTotalTimeInBed, generator, provider);
+        writeIfRequested(SleepStatistic.AVERAGE_BED_TIME, averageBedTime, generator, provider);
+        writeIfRequested(SleepStatistic.AVERAGE_WAKE_TIME, averageWakeTime, generator, provider);
+        writeIfRequested(SleepStatistic.MORNING_FEELING_FREQUENCIES, morningFeelingFrequencies, generator, provider);
+        if (distribution != null) {
+            provider.defaultSerializeField(SleepStatistic.DISTRIBUTION.fieldName(), distribution, generator);
+        }
+        if (byMorningFeeling != null) {
+            provider.defaultSerializeField("byMorningFeeling", byMorningFeeling, generator);
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+
+    private void writeIfRequested(SleepStatistic statistic, Object value, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        if (statistics.contains(statistic)) {
+            provider.defaultSerializeField(statistic.fieldName(), value, generator);
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.LocalDate;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepConsistencyService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Streaks and regularity of the user's sleep, read from the row {@link SleepConsistencyService}
+ * maintains as nights are logged.
+ */
+@RestController
+@RequestMapping("/api/sleep-log")
+@Profile("!reactive")
+public class SleepConsistencyController {
+
+    private final SleepConsistencyService sleepConsistencyService;
+
+    public SleepConsistencyController(SleepConsistencyService sleepConsistencyService) {
+        this.sleepConsistencyService = sleepConsistencyService;
+    }
+
+    @GetMapping("/consistency")
+    public ResponseEntity<SleepConsistencyResponse> getConsistency(@RequestHeader("X-User-Id") Long userId) {
+        return ResponseEntity.ok(SleepConsistencyResponse.fromSleepConsistency(
+                sleepConsistencyService.getConsistency(userId), LocalDate.now()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+
+/**
+ * How regular the user's sleep is over their whole history, see {@link SleepConsistency}.
+ * Statistics that need nights the user has not logged, such as social jet lag without a weekend
+ * night, are {@code null}.
+ */
+public record SleepConsistencyResponse(
+        int nights,
+        LocalDate lastNight,
+        int currentStreak,
+        int longestStreak,
+        Double bedTimeCircularVariance,
+        Double wakeTimeCircularVariance,
+        LocalTime weekdayMidSleep,
+        LocalTime weekendMidSleep,
+        Duration socialJetLag,
+        Duration averageTimeInBedChange
+) {
+    public static SleepConsistencyResponse fromSleepConsistency(SleepConsistency consistency, LocalDate today) {
+        return new SleepConsistencyResponse(
+                consistency.nights(),
+                consistency.lastDate(),
+                consistency.currentStreak(today),
+                consistency.longestStreak(),
+                consistency.bedTimeCircularVariance(),
+                consistency.wakeTimeCircularVariance(),
+                consistency.weekdayMidSleep(),
+                consistency.weekendMidSleep(),
+                consistency.socialJetLag(),
+                consistency.averageTimeInBedChange()
+        );
+    }
+}
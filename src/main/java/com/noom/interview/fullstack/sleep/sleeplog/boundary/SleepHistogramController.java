@@ -0,0 +1,56 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepHistogramService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramBucket;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramField;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Histogram of bed times, wake times or time in bed, for drawing charts without fetching every night.
+ *
+ * <p>{@code from} and {@code to} are inclusive and default to the last 30 nights; {@code bucket}
+ * accepts {@code 15m}, {@code 1h} or ISO-8601 durations.
+ */
+@RestController
+@RequestMapping("/api/sleep-log")
+@Profile("!reactive")
+public class SleepHistogramController {
+
+    static final int DEFAULT_PERIOD_DAYS = 30;
+
+    private final SleepHistogramService sleepHistogramService;
+
+    public SleepHistogramController(SleepHistogramService sleepHistogramService) {
+        this.sleepHistogramService = sleepHistogramService;
+    }
+
+    @GetMapping("/histogram")
+    public ResponseEntity<SleepHistogramResponse> getHistogram(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam String field,
+            @RequestParam(defaultValue = "15m") String bucket) {
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS - 1);
+        SleepHistogramField histogramField = SleepHistogramField.fromParameterName(field);
+        Duration bucketDuration = DurationStyle.detectAndParse(bucket);
+
+        List<SleepHistogramBucket> buckets = sleepHistogramService.getHistogram(userId, start, end, histogramField, bucketDuration);
+
+        return ResponseEntity.ok(SleepHistogramResponse.fromBuckets(start, end, histogramField, bucketDuration, buckets));
+    }
+}
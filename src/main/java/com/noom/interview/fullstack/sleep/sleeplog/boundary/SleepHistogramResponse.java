@@ -0,0 +1,44 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramBucket;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramField;
+
+/**
+ * Nights per bucket. Bucket bounds are clock times ({@code "23:45"}) for bed and wake times and
+ * ISO-8601 durations ({@code "PT7H30M"}) for time in bed; {@code start} is inclusive, {@code end}
+ * exclusive.
+ */
+public record SleepHistogramResponse(
+        LocalDate from,
+        LocalDate to,
+        String field,
+        Duration bucket,
+        List<Bucket> buckets
+) {
+    public record Bucket(String start, String end, long count) {
+    }
+
+    public static SleepHistogramResponse fromBuckets(LocalDate from, LocalDate to, SleepHistogramField field,
+                                                     Duration bucket, List<SleepHistogramBucket> buckets) {
+        return new SleepHistogramResponse(
+                from,
+                to,
+                field.parameterName(),
+                bucket,
+                buckets.stream()
+                        .map(histogramBucket -> new Bucket(
+                                bound(field, bucket.multipliedBy(histogramBucket.index())),
+                                bound(field, bucket.multipliedBy(histogramBucket.index() + 1)),
+                                histogramBucket.count()))
+                        .toList()
+        );
+    }
+
+    private static String bound(SleepHistogramField field, Duration offset) {
+        return field.isClockTime() ? field.origin().plus(offset).toString() : offset.toString();
+    }
+}
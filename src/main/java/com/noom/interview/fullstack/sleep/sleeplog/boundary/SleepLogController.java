@@ -1,25 +1,38 @@
 package com.noom.interview.fullstack.sleep.sleeplog.boundary;
 
+import java.util.Set;
+
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.control.LastKnownGoodReads;
+import com.noom.interview.fullstack.sleep.sleeplog.control.Served;
 import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogService;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/sleep-log")
+@Profile("!reactive & !async")
 public class SleepLogController {
 
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final SleepLogService sleepLogService;
+    private final LastKnownGoodReads lastKnownGoodReads;
 
-    public SleepLogController(SleepLogService sleepLogService) {
+    public SleepLogController(SleepLogService sleepLogService, LastKnownGoodReads lastKnownGoodReads) {
         this.sleepLogService = sleepLogService;
+        this.lastKnownGoodReads = lastKnownGoodReads;
     }
 
     @PostMapping
@@ -38,17 +51,33 @@ public class SleepLogController {
     public ResponseEntity<SleepLogResponse> getLastNightSleep(
             @RequestHeader("X-User-Id") Long userId) {
 
-        SleepLog sleepLog = sleepLogService.getLastNightSleep(userId);
+        Served<SleepLog> sleepLog = lastKnownGoodReads.getLastNightSleep(userId);
 
-        return ResponseEntity.ok(SleepLogResponse.fromSleepLog(sleepLog));
+        return ok(sleepLog).body(SleepLogResponse.fromSleepLog(sleepLog.value()));
     }
 
     @GetMapping("/averages")
     public ResponseEntity<SleepAveragesResponse> getLast30DayAverages(
-            @RequestHeader("X-User-Id") Long userId) {
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String breakdown,
+            @RequestParam(required = false) String fields) {
+
+        Set<SleepStatistic> statistics = AveragesFields.statistics(fields);
+        Served<SleepAverages> averages =
+                lastKnownGoodReads.getLast30DayAverages(userId, AveragesBreakdown.byMorningFeeling(breakdown), statistics);
 
-        SleepAverages averages = sleepLogService.getLast30DayAverages(userId);
+        return ok(averages).body(SleepAveragesResponse.fromSleepAverages(averages.value(), statistics));
+    }
 
-        return ResponseEntity.ok(SleepAveragesResponse.fromSleepAverages(averages));
+    /**
+     * A 200 response, marked with a {@code Warning} and its {@code Age} if the value is stale.
+     */
+    private static ResponseEntity.BodyBuilder ok(Served<?> served) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (served.stale()) {
+            response.header(HttpHeaders.WARNING, STALE_WARNING)
+                    .header(HttpHeaders.AGE, String.valueOf(served.age().toSeconds()));
+        }
+        return response;
     }
 }
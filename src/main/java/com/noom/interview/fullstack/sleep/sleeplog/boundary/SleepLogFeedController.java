@@ -0,0 +1,87 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogFeed;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events feed of new sleep logs, for downstream services that would otherwise poll.
+ *
+ * <p>Each log is sent as a {@code sleep-log} event whose id is the log id. A client resumes with
+ * that id in the {@code Last-Event-ID} header, which {@code EventSource} sends on reconnecting, or
+ * in the {@code resumeToken} parameter. A {@code reset} event means logs may have been missed.
+ * {@code userId} may be repeated to follow only some users. Streams end after
+ * {@code sleep.feed.timeout}, or when the client falls behind, and are meant to be resumed.
+ *
+ * <p>The feed carries every user's nights, so only services holding the service token may
+ * subscribe, see {@link com.noom.interview.fullstack.sleep.infrastructure.ServiceTokenFilter}.
+ */
+@RestController
+@RequestMapping("/api/sleep-log-feed")
+@Profile("!reactive")
+public class SleepLogFeedController {
+
+    private final SleepLogFeed sleepLogFeed;
+    private final Duration timeout;
+
+    public SleepLogFeedController(SleepLogFeed sleepLogFeed, @Value("${sleep.feed.timeout:30m}") Duration timeout) {
+        this.sleepLogFeed = sleepLogFeed;
+        this.timeout = timeout;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestParam(name = "userId", required = false) Set<Long> userIds,
+            @RequestParam(required = false) Long resumeToken,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        SleepLogFeed.Subscription subscription = sleepLogFeed.subscribe(userIds != null ? userIds : Set.of(),
+                lastEventId != null ? lastEventId : resumeToken, new EmitterSubscriber(emitter));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(exception -> subscription.cancel());
+        return emitter;
+    }
+
+    private record EmitterSubscriber(SseEmitter emitter) implements SleepLogFeed.Subscriber {
+
+        @Override
+        public void send(SleepLog sleepLog) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(sleepLog.id()))
+                    .name("sleep-log")
+                    .data(SleepLogFeedEvent.fromSleepLog(sleepLog), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void reset(String reason) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .name("reset")
+                    .data(Map.of("reason", reason), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
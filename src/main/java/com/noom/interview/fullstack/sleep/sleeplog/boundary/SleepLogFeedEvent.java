@@ -0,0 +1,32 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+
+public record SleepLogFeedEvent(
+        Long id,
+        Long userId,
+        LocalDate sleepDate,
+        LocalDateTime bedTime,
+        LocalDateTime wakeTime,
+        Duration totalTimeInBed,
+        MorningFeeling morningFeeling,
+        LocalDateTime createdAt
+) {
+    public static SleepLogFeedEvent fromSleepLog(SleepLog sleepLog) {
+        return new SleepLogFeedEvent(
+                sleepLog.id(),
+                sleepLog.userId(),
+                sleepLog.sleepDate(),
+                sleepLog.bedTime(),
+                sleepLog.wakeTime(),
+                Duration.between(sleepLog.bedTime(), sleepLog.wakeTime()),
+                sleepLog.morningFeeling(),
+                sleepLog.createdAt()
+        );
+    }
+}
@@ -0,0 +1,50 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.net.URI;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.UserPurge;
+import com.noom.interview.fullstack.sleep.sleeplog.control.UserPurgeService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin API deleting all data of a set of users.
+ *
+ * <p>{@code POST} queues a purge and answers {@code 202 Accepted} with its progress and location;
+ * {@code GET} on that location reports how far it got.
+ */
+@RestController
+@RequestMapping("/api/admin/user-purges")
+@Profile("!reactive")
+public class UserPurgeController {
+
+    private final UserPurgeService userPurgeService;
+
+    public UserPurgeController(UserPurgeService userPurgeService) {
+        this.userPurgeService = userPurgeService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UserPurgeResponse> purgeUsers(@RequestBody PurgeUsersRequest request) {
+
+        UserPurge.Progress progress = userPurgeService.start(request.userIds());
+
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/admin/user-purges/" + progress.id()))
+                .body(UserPurgeResponse.fromProgress(progress));
+    }
+
+    @GetMapping("/{purgeId}")
+    public ResponseEntity<UserPurgeResponse> getPurge(@PathVariable String purgeId) {
+        return userPurgeService.progress(purgeId)
+                .map(progress -> ResponseEntity.ok(UserPurgeResponse.fromProgress(progress)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,33 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.UserPurge;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+
+public record UserPurgeResponse(
+        String id,
+        PurgeJob.State state,
+        Instant requestedAt,
+        int users,
+        int purgedUsers,
+        long deletedNights,
+        double percent,
+        Duration paused,
+        String error
+) {
+    public static UserPurgeResponse fromProgress(UserPurge.Progress progress) {
+        return new UserPurgeResponse(
+                progress.id(),
+                progress.state(),
+                progress.requestedAt(),
+                progress.users(),
+                progress.purgedUsers(),
+                progress.deletedNights(),
+                progress.percent(),
+                progress.paused(),
+                progress.error()
+        );
+    }
+}
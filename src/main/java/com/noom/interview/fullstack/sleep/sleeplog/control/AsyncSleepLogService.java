@@ -0,0 +1,97 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.noom.interview.fullstack.sleep.infrastructure.AsyncExecutorConfig;
+import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link SleepLogService} operations as {@link CompletableFuture}s, active with the {@code async} profile.
+ *
+ * <p>Repository calls run on the database executor and {@link SleepAverages} aggregation on the
+ * aggregation executor. Averages already held by the {@link RecentNightsCache} complete immediately;
+ * precomputed ones complete on the database executor without aggregation. Every future fails
+ * with a {@link java.util.concurrent.TimeoutException} once {@code sleep.async.timeout} elapses; the underlying database call is not interrupted
+ * and still completes on its pool thread.
+ */
+@Service
+@Profile("async & !reactive")
+public class AsyncSleepLogService {
+
+    private final SleepLogService sleepLogService;
+    private final RecentNightsCache recentNightsCache;
+    private final Executor dbExecutor;
+    private final Executor aggregationExecutor;
+    private final Duration timeout;
+
+    public AsyncSleepLogService(
+            SleepLogService sleepLogService,
+            RecentNightsCache recentNightsCache,
+            @Qualifier(AsyncExecutorConfig.DB_EXECUTOR) Executor dbExecutor,
+            @Qualifier(AsyncExecutorConfig.AGGREGATION_EXECUTOR) Executor aggregationExecutor,
+            @Value("${sleep.async.timeout:2s}") Duration timeout) {
+        this.sleepLogService = sleepLogService;
+        this.recentNightsCache = recentNightsCache;
+        this.dbExecutor = dbExecutor;
+        this.aggregationExecutor = aggregationExecutor;
+        this.timeout = timeout;
+    }
+
+    public CompletableFuture<SleepLog> createSleepLog(Long userId, CreateSleepLogRequest request) {
+        return withTimeout(CompletableFuture.supplyAsync(() -> sleepLogService.createSleepLog(userId, request), dbExecutor));
+    }
+
+    public CompletableFuture<SleepLog> getLastNightSleep(Long userId) {
+        return withTimeout(CompletableFuture.supplyAsync(() -> sleepLogService.getLastNightSleep(userId), dbExecutor));
+    }
+
+    public CompletableFuture<SleepAverages> getLast30DayAverages(Long userId) {
+        return getLast30DayAverages(userId, false);
+    }
+
+    public CompletableFuture<SleepAverages> getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown) {
+        return getLast30DayAverages(userId, withMorningFeelingBreakdown, SleepStatistic.ALL);
+    }
+
+    public CompletableFuture<SleepAverages> getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown,
+                                                                 Set<SleepStatistic> statistics) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        Optional<SleepAverages> cached = recentNightsCache.averages(userId, from, to, withMorningFeelingBreakdown, statistics);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        CompletableFuture<Loaded> loaded = CompletableFuture.supplyAsync(() -> sleepLogService
+                .precomputedAverages(userId, from, to, withMorningFeelingBreakdown, statistics)
+                .map(averages -> new Loaded(averages, null))
+                .orElseGet(() -> new Loaded(null, sleepLogService.loadAndCacheRecentNights(userId, from, to))), dbExecutor);
+        return withTimeout(loaded.thenCompose(result -> result.averages() != null
+                ? CompletableFuture.completedFuture(result.averages())
+                : CompletableFuture.supplyAsync(
+                        () -> SleepLogService.averagesOf(result.sleepLogs(), from, to, withMorningFeelingBreakdown, statistics), aggregationExecutor)));
+    }
+
+    /**
+     * Either precomputed averages or the logs to aggregate.
+     */
+    private record Loaded(SleepAverages averages, List<SleepLog> sleepLogs) {
+    }
+
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
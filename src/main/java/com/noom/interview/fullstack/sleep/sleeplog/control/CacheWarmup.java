@@ -0,0 +1,169 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.infrastructure.Throttle;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Preloads the caches with the users likeliest to come back once the application has started, so
+ * a freshly started instance does not answer its first requests with range queries.
+ *
+ * <p>Up to {@code sleep.warmup.max-users} users with a log written in the last
+ * {@code active-within} are read, most recently written first. Their 30-day nights are loaded
+ * {@code batch-size} users per query, paced to {@code max-users-per-second}, and seeded into the
+ * {@link RecentNightsCache}; their averages and today's night are also stored in
+ * {@link LastKnownGoodReads}, when present. Users that write meanwhile are skipped, see
+ * {@link RecentNightsCache#seed}. Both queries are reads of the {@link DatabaseGuard}, so an
+ * unavailable database fails the warm-up instead of holding it up.
+ *
+ * <p>The warm-up runs in the background. As a health indicator ({@code cacheWarmup}) it is out of
+ * service until the warm-up has finished or failed, or {@code max-duration} has passed, whichever
+ * comes first, so including it in the readiness group holds traffic back that long at most.
+ * Setting {@code max-users} to zero disables the warm-up.
+ */
+@Component
+@Profile("!reactive & !rebuild & !migrate & !cds-training")
+public class CacheWarmup implements HealthIndicator {
+
+    enum State { PENDING, RUNNING, COMPLETED, FAILED, DISABLED }
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private final SleepLogRepository sleepLogRepository;
+    private final SleepLogService sleepLogService;
+    private final ObjectProvider<LastKnownGoodReads> lastKnownGoodReads;
+    private final DatabaseGuard databaseGuard;
+    private final int maxUsers;
+    private final Duration activeWithin;
+    private final int batchSize;
+    private final double maxUsersPerSecond;
+    private final long maxDurationNanos;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sleep-warmup-"));
+    private volatile State state = State.PENDING;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int usersFound;
+    private volatile int usersWarmed;
+
+    public CacheWarmup(
+            SleepLogRepository sleepLogRepository,
+            SleepLogService sleepLogService,
+            ObjectProvider<LastKnownGoodReads> lastKnownGoodReads,
+            DatabaseGuard databaseGuard,
+            @Value("${sleep.warmup.max-users:10000}") int maxUsers,
+            @Value("${sleep.warmup.active-within:1d}") Duration activeWithin,
+            @Value("${sleep.warmup.batch-size:500}") int batchSize,
+            @Value("${sleep.warmup.max-users-per-second:5000}") double maxUsersPerSecond,
+            @Value("${sleep.warmup.max-duration:60s}") Duration maxDuration) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.sleepLogService = sleepLogService;
+        this.lastKnownGoodReads = lastKnownGoodReads;
+        this.databaseGuard = databaseGuard;
+        this.maxUsers = maxUsers;
+        this.activeWithin = activeWithin;
+        this.batchSize = batchSize;
+        this.maxUsersPerSecond = maxUsersPerSecond;
+        this.maxDurationNanos = maxDuration.toNanos();
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (maxUsers <= 0) {
+            state = State.DISABLED;
+            return;
+        }
+        startedAt = System.nanoTime();
+        state = State.RUNNING;
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Health health() {
+        State current = state;
+        long elapsed = switch (current) {
+            case PENDING, DISABLED -> 0;
+            case RUNNING -> System.nanoTime() - startedAt;
+            case COMPLETED, FAILED -> finishedAt - startedAt;
+        };
+        boolean holdingBack = current == State.PENDING || current == State.RUNNING && elapsed < maxDurationNanos;
+        return (holdingBack ? Health.outOfService() : Health.up())
+                .withDetail("state", current)
+                .withDetail("usersFound", usersFound)
+                .withDetail("usersWarmed", usersWarmed)
+                .withDetail("elapsedMs", Duration.ofNanos(elapsed).toMillis())
+                .build();
+    }
+
+    void run() {
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(activeWithin);
+            List<Long> userIds = databaseGuard.read(() -> sleepLogRepository.findUserIdsWrittenSince(since, maxUsers));
+            usersFound = userIds.size();
+            Throttle throttle = new Throttle(maxUsersPerSecond);
+            for (int start = 0; start < userIds.size(); start += batchSize) {
+                List<Long> batch = userIds.subList(start, Math.min(start + batchSize, userIds.size()));
+                throttle.acquire(batch.size());
+                warm(batch);
+                usersWarmed += batch.size();
+            }
+            finished(State.COMPLETED);
+            log.info("Cache warm-up loaded {} users in {} ms", usersWarmed, Duration.ofNanos(finishedAt - startedAt).toMillis());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            finished(State.FAILED);
+        } catch (RuntimeException exception) {
+            finished(State.FAILED);
+            log.warn("Cache warm-up failed after {} of {} users", usersWarmed, usersFound, exception);
+        }
+    }
+
+    private void warm(List<Long> userIds) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        Map<Long, List<SleepLog>> byUser = sleepLogService.loadAndCacheRecentNights(userIds, from, to);
+        LastKnownGoodReads fallback = lastKnownGoodReads.getIfAvailable();
+        if (fallback == null) {
+            return;
+        }
+        for (Long userId : userIds) {
+            List<SleepLog> sleepLogs = byUser.getOrDefault(userId, List.of());
+            fallback.remember(userId, SleepLogService.averagesOf(sleepLogs, from, to, true, SleepStatistic.ALL), SleepStatistic.ALL);
+            sleepLogs.stream()
+                    .filter(sleepLog -> sleepLog.sleepDate().equals(to))
+                    .findFirst()
+                    .ifPresent(fallback::remember);
+        }
+    }
+
+    private void finished(State outcome) {
+        finishedAt = System.nanoTime();
+        state = outcome;
+    }
+}
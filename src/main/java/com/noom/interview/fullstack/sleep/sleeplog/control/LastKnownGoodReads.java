@@ -0,0 +1,129 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The reads of {@link SleepLogService}, answered from the last value returned for the user when
+ * the {@link DatabaseGuard} reports the database unavailable.
+ *
+ * <p>The latest averages and last night of every user are kept in memory for {@code max-age}.
+ * Stored averages stand in for any request whose statistics and breakdown they include; a stored
+ * night only stands in while it is still today's. Without a usable stored value the
+ * {@link DatabaseUnavailableException} propagates. No new users are stored beyond {@code max-users}.
+ */
+@Component
+@Profile("!reactive & !async")
+public class LastKnownGoodReads {
+
+    private final SleepLogService sleepLogService;
+    private final ConcurrentHashMap<Long, Stored<StoredAverages>> averages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Stored<SleepLog>> lastNights = new ConcurrentHashMap<>();
+    private final int maxUsers;
+    private final long maxAgeNanos;
+
+    public LastKnownGoodReads(
+            SleepLogService sleepLogService,
+            @Value("${sleep.fallback.max-users:100000}") int maxUsers,
+            @Value("${sleep.fallback.max-age:24h}") Duration maxAge) {
+        this.sleepLogService = sleepLogService;
+        this.maxUsers = maxUsers;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public Served<SleepAverages> getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown, Set<SleepStatistic> statistics) {
+        try {
+            SleepAverages fresh = sleepLogService.getLast30DayAverages(userId, withMorningFeelingBreakdown, statistics);
+            store(averages, userId, new StoredAverages(fresh, statistics));
+            return Served.fresh(fresh);
+        } catch (DatabaseUnavailableException exception) {
+            Stored<StoredAverages> stored = averages.get(userId);
+            if (stored == null || stored.expired(maxAgeNanos)
+                    || !stored.value().statistics().containsAll(statistics)
+                    || withMorningFeelingBreakdown && stored.value().averages().byMorningFeeling() == null) {
+                throw exception;
+            }
+            SleepAverages fallback = stored.value().averages();
+            return new Served<>(withMorningFeelingBreakdown ? fallback : fallback.withMorningFeelingBreakdown(null), stored.age());
+        }
+    }
+
+    public Served<SleepLog> getLastNightSleep(Long userId) {
+        try {
+            SleepLog fresh = sleepLogService.getLastNightSleep(userId);
+            store(lastNights, userId, fresh);
+            return Served.fresh(fresh);
+        } catch (DatabaseUnavailableException exception) {
+            Stored<SleepLog> stored = lastNights.get(userId);
+            if (stored == null || stored.expired(maxAgeNanos) || !stored.value().sleepDate().equals(LocalDate.now())) {
+                throw exception;
+            }
+            return new Served<>(stored.value(), stored.age());
+        }
+    }
+
+    /**
+     * Stores averages read without going through this class, such as by {@link CacheWarmup}.
+     */
+    void remember(Long userId, SleepAverages fresh, Set<SleepStatistic> statistics) {
+        store(averages, userId, new StoredAverages(fresh, statistics));
+    }
+
+    /**
+     * Stores a night read without going through this class, such as by {@link CacheWarmup}.
+     */
+    void remember(SleepLog fresh) {
+        store(lastNights, fresh.userId(), fresh);
+    }
+
+    /**
+     * Forgets the stored values of a user, such as when the user is purged.
+     */
+    public void invalidate(Long userId) {
+        averages.remove(userId);
+        lastNights.remove(userId);
+    }
+
+    public int size() {
+        return averages.size() + lastNights.size();
+    }
+
+    @Scheduled(fixedDelayString = "${sleep.fallback.sweep-interval:PT10M}")
+    public void evictExpired() {
+        averages.values().removeIf(stored -> stored.expired(maxAgeNanos));
+        lastNights.values().removeIf(stored -> stored.expired(maxAgeNanos));
+    }
+
+    private <T> void store(ConcurrentHashMap<Long, Stored<T>> store, Long userId, T value) {
+        Stored<T> stored = new Stored<>(value, System.nanoTime());
+        if (store.replace(userId, stored) == null && store.size() < maxUsers) {
+            store.put(userId, stored);
+        }
+    }
+
+    private record StoredAverages(SleepAverages averages, Set<SleepStatistic> statistics) {
+    }
+
+    private record Stored<T>(T value, long storedAt) {
+
+        boolean expired(long maxAgeNanos) {
+            return System.nanoTime() - storedAt > maxAgeNanos;
+        }
+
+        Duration age() {
+            return Duration.ofNanos(System.nanoTime() - storedAt);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.ReactiveSleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link SleepLogService}.
+ *
+ * <p>Validation ({@link SleepLog#fromRequest}) and aggregation ({@link SleepAverages#fromSleepLogs})
+ * are shared with the blocking stack; only the I/O is reactive.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveSleepLogService {
+
+    private final ReactiveSleepLogRepository sleepLogRepository;
+
+    public ReactiveSleepLogService(ReactiveSleepLogRepository sleepLogRepository) {
+        this.sleepLogRepository = sleepLogRepository;
+    }
+
+    public Mono<SleepLog> createSleepLog(Long userId, CreateSleepLogRequest request) {
+        return Mono.fromCallable(() -> SleepLog.fromRequest(userId, request))
+                .flatMap(sleepLogRepository::save);
+    }
+
+    public Mono<SleepLog> getLastNightSleep(Long userId) {
+        LocalDate today = LocalDate.now();
+        return sleepLogRepository.findByUserIdAndDate(userId, today)
+                .switchIfEmpty(Mono.error(() -> new SleepLogNotFoundException("No sleep log found for user " + userId + " on " + today)));
+    }
+
+    public Mono<SleepAverages> getLast30DayAverages(Long userId) {
+        return getLast30DayAverages(userId, false);
+    }
+
+    public Mono<SleepAverages> getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown) {
+        return getLast30DayAverages(userId, withMorningFeelingBreakdown, SleepStatistic.ALL);
+    }
+
+    public Mono<SleepAverages> getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown, Set<SleepStatistic> statistics) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        return sleepLogRepository.findByUserIdAndDateRange(userId, from, to)
+                .collectList()
+                .map(sleepLogs -> SleepLogService.averagesOf(sleepLogs, from, to, withMorningFeelingBreakdown, statistics));
+    }
+}
@@ -0,0 +1,215 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.lang.ref.SoftReference;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.RecentNights;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user {@link RecentNights} buffers that answer 30-day averages from memory.
+ *
+ * <p>A user's buffer is seeded from the repository on the first averages request and kept
+ * up to date by {@link #add} on every new log written through this instance. Nights that fall
+ * out of the window are evicted as the date advances.
+ *
+ * <p>Buffers are held through {@link SoftReference}s, so the garbage collector drops them under
+ * memory pressure. Idle buffers are swept periodically, and no new users are admitted beyond
+ * {@code max-users}. Every buffer expires {@code max-age} after seeding; this bounds staleness
+ * when other instances write logs for the same user.
+ *
+ * <p>A seed loaded concurrently with a write for the same user is discarded: writers bump a
+ * striped version counter before touching the buffer, and a seed is only installed if the
+ * version it read before querying is unchanged.
+ */
+@Component
+public class RecentNightsCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final int maxUsers;
+    private final long idleTtlNanos;
+    private final long maxAgeNanos;
+
+    public RecentNightsCache(
+            @Value("${sleep.cache.recent-nights.max-users:100000}") int maxUsers,
+            @Value("${sleep.cache.recent-nights.idle-ttl:30m}") Duration idleTtl,
+            @Value("${sleep.cache.recent-nights.max-age:5m}") Duration maxAge) {
+        this.maxUsers = maxUsers;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Returns the averages over {@code (from, to]} if the user's buffer is present and current.
+     */
+    public Optional<SleepAverages> averages(Long userId, LocalDate from, LocalDate to) {
+        return averages(userId, from, to, false, SleepStatistic.ALL);
+    }
+
+    /**
+     * Returns the given statistics over {@code (from, to]}, optionally with averages per morning
+     * feeling, if the user's buffer is present and current.
+     */
+    public Optional<SleepAverages> averages(Long userId, LocalDate from, LocalDate to, boolean withMorningFeelingBreakdown,
+                                            Set<SleepStatistic> statistics) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long now = System.nanoTime();
+        RecentNights nights = entry.nights.get();
+        if (nights == null || now - entry.seededAt > maxAgeNanos) {
+            entries.remove(userId, entry);
+            return Optional.empty();
+        }
+        entry.lastAccess = now;
+        synchronized (nights) {
+            return Optional.of(averagesOf(nights, from, to, withMorningFeelingBreakdown, statistics));
+        }
+    }
+
+    /**
+     * Returns the given statistics of the buffered nights in {@code (from, to]}, evicting older nights.
+     */
+    static SleepAverages averagesOf(RecentNights nights, LocalDate from, LocalDate to, boolean withMorningFeelingBreakdown,
+                                    Set<SleepStatistic> statistics) {
+        SleepAverages averages = nights.averages(from, to, statistics);
+        return withMorningFeelingBreakdown
+                ? averages.withMorningFeelingBreakdown(nights.morningFeelingBreakdown())
+                : averages;
+    }
+
+    /**
+     * Returns the version to pass to {@link #seed}; read it before querying the repository.
+     */
+    public long stamp(Long userId) {
+        return versions.get(stripeOf(userId));
+    }
+
+    /**
+     * Installs a buffer built from the logs in {@code (from, to]}, unless a write for the
+     * same user happened since {@code stamp} was read or the cache is full.
+     */
+    public void seed(Long userId, List<SleepLog> sleepLogs, LocalDate from, LocalDate to, long stamp) {
+        RecentNights nights = new RecentNights(SleepLogService.AVERAGES_PERIOD_DAYS);
+        for (SleepLog sleepLog : sleepLogs) {
+            if (sleepLog.sleepDate().isAfter(from) && !sleepLog.sleepDate().isAfter(to)) {
+                nights.add(sleepLog);
+            }
+        }
+        seed(userId, nights, stamp);
+    }
+
+    /**
+     * Installs a buffer that is already built, under the same conditions as {@link #seed(Long, List, LocalDate, LocalDate, long)}.
+     * The buffer must not be used by the caller afterwards.
+     */
+    public void seed(Long userId, RecentNights nights, long stamp) {
+        if (entries.size() >= maxUsers) {
+            return;
+        }
+        Entry seeded = new Entry(nights, System.nanoTime());
+        entries.compute(userId, (id, existing) -> versions.get(stripeOf(id)) == stamp ? seeded : existing);
+    }
+
+    /**
+     * Adds a newly stored log to the user's buffer, if one is cached.
+     *
+     * <p>A log dated after today would have to stay out of today's averages, so it drops
+     * the buffer instead.
+     */
+    public void add(SleepLog sleepLog) {
+        versions.incrementAndGet(stripeOf(sleepLog.userId()));
+        boolean future = sleepLog.sleepDate().isAfter(LocalDate.now());
+        entries.computeIfPresent(sleepLog.userId(), (id, entry) -> {
+            RecentNights nights = entry.nights.get();
+            if (nights == null || future) {
+                return null;
+            }
+            synchronized (nights) {
+                nights.add(sleepLog);
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Installs a buffer restored from a snapshot, unless the user already has one or the cache is full.
+     * The buffer counts as freshly seeded.
+     */
+    public void restore(Long userId, RecentNights nights) {
+        if (entries.size() >= maxUsers) {
+            return;
+        }
+        entries.putIfAbsent(userId, new Entry(nights, System.nanoTime()));
+    }
+
+    /**
+     * Calls {@code action} for every buffer still held, while holding that buffer's lock.
+     */
+    public void forEachBuffer(BiConsumer<Long, RecentNights> action) {
+        entries.forEach((userId, entry) -> {
+            RecentNights nights = entry.nights.get();
+            if (nights != null) {
+                synchronized (nights) {
+                    action.accept(userId, nights);
+                }
+            }
+        });
+    }
+
+    public void invalidate(Long userId) {
+        versions.incrementAndGet(stripeOf(userId));
+        entries.remove(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * How long a buffer is served after seeding.
+     */
+    public Duration maxAge() {
+        return Duration.ofNanos(maxAgeNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${sleep.cache.recent-nights.sweep-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.nights.get() == null
+                || now - entry.lastAccess > idleTtlNanos
+                || now - entry.seededAt > maxAgeNanos);
+    }
+
+    private static int stripeOf(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (VERSION_STRIPES - 1);
+    }
+
+    private static final class Entry {
+        final SoftReference<RecentNights> nights;
+        final long seededAt;
+        volatile long lastAccess;
+
+        Entry(RecentNights nights, long seededAt) {
+            this.nights = new SoftReference<>(nights);
+            this.seededAt = seededAt;
+            this.lastAccess = seededAt;
+        }
+    }
+}
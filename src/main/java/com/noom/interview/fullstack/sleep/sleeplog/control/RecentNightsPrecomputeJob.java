@@ -0,0 +1,160 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes the 30-day nights of recently active users once the date rolls over, so their first
+ * averages request of the day is answered from {@link PrecomputedNightsRepository} instead of
+ * a range query, see {@link SleepLogService#precomputedAverages}.
+ *
+ * <p>Users with a night in the last {@code sleep.precompute.active-days} days are paged through
+ * by id. Each page is split into {@code chunk-size} users that {@code parallelism} threads load
+ * with one query each, which bounds the job's share of database connections. After every page
+ * the last user id is stored in a {@link JobCheckpoint}.
+ *
+ * <p>Every {@code check-interval} each instance checks whether today's run is done and, if not,
+ * tries to take the job's lease. Only the holder runs; it resumes after the checkpoint of an
+ * unfinished run for the same date, such as one whose instance crashed and whose lease expired.
+ */
+@Component
+@Profile("!reactive & !rebuild & !migrate")
+public class RecentNightsPrecomputeJob {
+
+    static final String JOB_NAME = "precompute-recent-nights";
+
+    private static final Logger log = LoggerFactory.getLogger(RecentNightsPrecomputeJob.class);
+
+    private final SleepLogRepository sleepLogRepository;
+    private final RecentNightsPrecomputer precomputer;
+    private final JobCheckpointRepository checkpointRepository;
+    private final int activeDays;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration lease;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public RecentNightsPrecomputeJob(
+            SleepLogRepository sleepLogRepository,
+            RecentNightsPrecomputer precomputer,
+            JobCheckpointRepository checkpointRepository,
+            @Value("${sleep.precompute.active-days:14}") int activeDays,
+            @Value("${sleep.precompute.chunk-size:500}") int chunkSize,
+            @Value("${sleep.precompute.parallelism:4}") int parallelism,
+            @Value("${sleep.precompute.lease:5m}") Duration lease) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.precomputer = precomputer;
+        this.checkpointRepository = checkpointRepository;
+        this.activeDays = activeDays;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.lease = lease;
+    }
+
+    @Scheduled(initialDelayString = "${sleep.precompute.check-interval:PT10M}",
+            fixedDelayString = "${sleep.precompute.check-interval:PT10M}")
+    public void runIfDue() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Precomputes the nights in {@code (asOf - 30 days, asOf]} of every active user, unless that run
+     * is complete or another instance holds the lease.
+     *
+     * @return the number of users whose nights were stored by this call
+     */
+    public int run(LocalDate asOf) {
+        String runKey = asOf.toString();
+        if (checkpointRepository.find(JOB_NAME).filter(checkpoint -> isComplete(checkpoint, runKey)).isPresent()) {
+            return 0;
+        }
+        Optional<JobCheckpoint> claimed = checkpointRepository.claim(JOB_NAME, owner, lease);
+        if (claimed.isEmpty()) {
+            log.debug("Skipping {}, another instance holds its lease", JOB_NAME);
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("sleep-precompute-"));
+        try {
+            JobCheckpoint checkpoint = claimed.get().forRun(runKey);
+            return checkpoint.completed() ? 0 : resume(checkpoint, asOf, executor);
+        } finally {
+            executor.shutdownNow();
+            checkpointRepository.release(JOB_NAME, owner);
+        }
+    }
+
+    private int resume(JobCheckpoint checkpoint, LocalDate asOf, ExecutorService executor) {
+        if (checkpoint.position() > 0) {
+            log.info("Resuming {} for {} after user {}", JOB_NAME, asOf, checkpoint.position());
+        }
+        LocalDate activeSince = asOf.minusDays(activeDays);
+        int pageSize = chunkSize * parallelism;
+        long started = System.nanoTime();
+        int stored = 0;
+        List<Long> userIds;
+        do {
+            userIds = sleepLogRepository.findActiveUserIds(activeSince, checkpoint.position(), pageSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            try {
+                stored += precomputePage(userIds, asOf, executor);
+            } catch (ExecutionException exception) {
+                log.warn("{} for {} failed after user {}, will resume from there", JOB_NAME, asOf, checkpoint.position(), exception.getCause());
+                return stored;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return stored;
+            }
+            checkpoint = checkpoint.advancedTo(userIds.get(userIds.size() - 1));
+            if (!checkpointRepository.advance(checkpoint, owner, lease)) {
+                log.warn("{} for {} lost its lease after user {}", JOB_NAME, asOf, checkpoint.position());
+                return stored;
+            }
+        } while (userIds.size() == pageSize);
+
+        checkpointRepository.advance(checkpoint.completedRun(), owner, lease);
+        log.info("{} stored the nights of {} users as of {} in {} ms", JOB_NAME, stored, asOf,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        return stored;
+    }
+
+    private int precomputePage(List<Long> userIds, LocalDate asOf, ExecutorService executor)
+            throws ExecutionException, InterruptedException {
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < userIds.size(); start += chunkSize) {
+            List<Long> chunk = userIds.subList(start, Math.min(start + chunkSize, userIds.size()));
+            chunks.add(executor.submit(() -> precomputer.precompute(chunk, asOf)));
+        }
+        int stored = 0;
+        for (Future<Integer> chunk : chunks) {
+            stored += chunk.get();
+        }
+        return stored;
+    }
+
+    private static boolean isComplete(JobCheckpoint checkpoint, String runKey) {
+        return checkpoint.runKey().equals(runKey) && checkpoint.completed();
+    }
+}
@@ -0,0 +1,56 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNights;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes the 30-day nights of a chunk of users with one query and stores them in
+ * {@link PrecomputedNightsRepository}. Shared by {@link RecentNightsPrecomputeJob} and
+ * {@link RecentNightsRebuildCommand}.
+ */
+@Component
+@Profile("!reactive")
+public class RecentNightsPrecomputer {
+
+    private final SleepLogRepository sleepLogRepository;
+    private final PrecomputedNightsRepository precomputedNightsRepository;
+
+    public RecentNightsPrecomputer(SleepLogRepository sleepLogRepository, PrecomputedNightsRepository precomputedNightsRepository) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.precomputedNightsRepository = precomputedNightsRepository;
+    }
+
+    /**
+     * Stores the nights in {@code (asOf - 30 days, asOf]} of each user. A user whose logs change
+     * meanwhile is skipped, see {@link PrecomputedNightsRepository#saveAll}.
+     *
+     * @return the number of users stored
+     */
+    public int precompute(List<Long> userIds, LocalDate asOf) {
+        LocalDate from = asOf.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        Map<Long, List<SleepLog>> byUser = sleepLogRepository.findByUserIdsAndDateRange(userIds, from, asOf).stream()
+                .collect(Collectors.groupingBy(SleepLog::userId));
+        List<PrecomputedNights> precomputed = userIds.stream()
+                .map(userId -> PrecomputedNights.of(userId, byUser.getOrDefault(userId, List.of()), SleepLogService.AVERAGES_PERIOD_DAYS))
+                .toList();
+        return precomputedNightsRepository.saveAll(precomputed, from, asOf);
+    }
+
+    /**
+     * Like {@link #precompute}, but first drops the users' previous rows, so a skipped user is
+     * left without a row and answered from the sleep logs rather than from an outdated row.
+     */
+    public int replace(List<Long> userIds, LocalDate asOf) {
+        precomputedNightsRepository.deleteByUserIds(userIds);
+        return precompute(userIds, asOf);
+    }
+}
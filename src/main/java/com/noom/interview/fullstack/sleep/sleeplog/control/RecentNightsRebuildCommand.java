@@ -0,0 +1,289 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.noom.interview.fullstack.sleep.infrastructure.Throttle;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the precomputed recent nights from {@code sleep_log}, for instance after a bug in the
+ * aggregation or a change of the stored format, and with {@code consistency} on, the users'
+ * {@code sleep_consistency} rows from their whole history, so that they are not built on reads. Runs with the {@code rebuild} profile, in which
+ * the application serves no requests and exits when the rebuild is done:
+ *
+ * <pre>
+ * java -jar sleep.jar --spring.profiles.active=rebuild --sleep.rebuild.partitions=16
+ * </pre>
+ *
+ * <p>Users with a night in {@code (as-of - active-days, as-of]} and an id in
+ * {@code [from-user-id, to-user-id]} are rebuilt. The id range is split into {@code partitions}
+ * equal ranges processed in parallel, each in chunks of {@code chunk-size} users with one query
+ * per chunk, paced to {@code max-users-per-second} overall. Each partition keeps its own
+ * {@link JobCheckpoint}, so a rebuild started again with the same arguments resumes where it
+ * stopped and skips the partitions it completed.
+ *
+ * <p>Online writes are not blocked: the logs are read without locks and each chunk replaces its
+ * users' rows in a short statement. A user who logs a night while their chunk is rebuilt is left
+ * without a row and answered from the logs until the next precomputation. Consistency rows are
+ * compared-and-set per user, see {@link SleepConsistencyService#rebuild}.
+ */
+@Component
+@Profile("rebuild & !reactive")
+public class RecentNightsRebuildCommand implements CommandLineRunner {
+
+    static final String JOB_NAME = "rebuild-recent-nights";
+
+    private static final Logger log = LoggerFactory.getLogger(RecentNightsRebuildCommand.class);
+
+    private final SleepLogRepository sleepLogRepository;
+    private final RecentNightsPrecomputer precomputer;
+    private final SleepConsistencyService sleepConsistencyService;
+    private final JobCheckpointRepository checkpointRepository;
+    private final LocalDate asOf;
+    private final int activeDays;
+    private final long fromUserId;
+    private final long toUserId;
+    private final int partitions;
+    private final int chunkSize;
+    private final double maxUsersPerSecond;
+    private final Duration lease;
+    private final Duration progressInterval;
+    private final boolean consistency;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public RecentNightsRebuildCommand(
+            SleepLogRepository sleepLogRepository,
+            RecentNightsPrecomputer precomputer,
+            SleepConsistencyService sleepConsistencyService,
+            JobCheckpointRepository checkpointRepository,
+            @Value("${sleep.rebuild.as-of:}") String asOf,
+            @Value("${sleep.rebuild.active-days:30}") int activeDays,
+            @Value("${sleep.rebuild.from-user-id:1}") long fromUserId,
+            @Value("${sleep.rebuild.to-user-id:0}") long toUserId,
+            @Value("${sleep.rebuild.partitions:4}") int partitions,
+            @Value("${sleep.rebuild.chunk-size:500}") int chunkSize,
+            @Value("${sleep.rebuild.max-users-per-second:0}") double maxUsersPerSecond,
+            @Value("${sleep.rebuild.lease:5m}") Duration lease,
+            @Value("${sleep.rebuild.progress-interval:10s}") Duration progressInterval,
+            @Value("${sleep.rebuild.consistency:true}") boolean consistency) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.precomputer = precomputer;
+        this.sleepConsistencyService = sleepConsistencyService;
+        this.checkpointRepository = checkpointRepository;
+        this.asOf = asOf.isBlank() ? LocalDate.now() : LocalDate.parse(asOf);
+        this.activeDays = activeDays;
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.maxUsersPerSecond = maxUsersPerSecond;
+        this.lease = lease;
+        this.progressInterval = progressInterval;
+        this.consistency = consistency;
+    }
+
+    /**
+     * Fails, so the application exits with a non-zero status, unless every partition completed.
+     */
+    @Override
+    public void run(String... args) {
+        Progress progress = rebuild();
+        if (progress.completedPartitions() < progress.partitions()) {
+            throw new IllegalStateException("Rebuild incomplete: " + progress.completedPartitions() + " of "
+                    + progress.partitions() + " partitions done, run it again with the same arguments to resume");
+        }
+    }
+
+    /**
+     * Rebuilds every partition not completed by an earlier run with the same arguments.
+     */
+    public Progress rebuild() {
+        long lastUserId = toUserId > 0 ? toUserId : sleepLogRepository.findMaxUserId().orElse(0L);
+        if (lastUserId < fromUserId) {
+            log.info("{}: no users in [{}, {}]", JOB_NAME, fromUserId, lastUserId);
+            return new Progress(0, 0, 0, 0, 100, 0);
+        }
+        LocalDate activeSince = asOf.minusDays(activeDays);
+        String runKey = asOf + "/" + activeDays + "/" + fromUserId + "-" + lastUserId + "/" + partitions;
+        List<Partition> ranges = Partition.split(fromUserId, lastUserId, partitions);
+        Tracker tracker = new Tracker(ranges);
+        Throttle throttle = new Throttle(maxUsersPerSecond);
+        log.info("{}: rebuilding users {} to {} active since {} as of {} in {} partitions",
+                JOB_NAME, fromUserId, lastUserId, activeSince, asOf, ranges.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size(), new CustomizableThreadFactory("sleep-rebuild-"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sleep-rebuild-progress-"));
+        reporter.scheduleAtFixedRate(() -> log.info("{}: {}", JOB_NAME, tracker.progress()),
+                progressInterval.toMillis(), progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (Partition partition : ranges) {
+                running.add(executor.submit(() -> rebuildPartition(partition, runKey, activeSince, throttle, tracker)));
+            }
+            for (Future<?> partition : running) {
+                try {
+                    partition.get();
+                } catch (ExecutionException exception) {
+                    log.warn("{}: a partition failed, its checkpoint is kept", JOB_NAME, exception.getCause());
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reporter.shutdownNow();
+            executor.shutdownNow();
+        }
+        Progress progress = tracker.progress();
+        log.info("{}: finished, {}", JOB_NAME, progress);
+        return progress;
+    }
+
+    private Void rebuildPartition(Partition partition, String runKey, LocalDate activeSince, Throttle throttle, Tracker tracker)
+            throws InterruptedException {
+        String jobName = JOB_NAME + "-" + partition.index();
+        JobCheckpoint checkpoint = checkpointRepository.claim(jobName, owner, lease)
+                .orElseThrow(() -> new IllegalStateException(jobName + " is held by another instance"))
+                .forRun(runKey);
+        try {
+            long after = Math.max(checkpoint.position(), partition.firstUserId() - 1);
+            tracker.advance(partition, after);
+            if (checkpoint.completed()) {
+                tracker.complete(partition);
+                return null;
+            }
+            List<Long> userIds;
+            do {
+                userIds = sleepLogRepository.findActiveUserIds(activeSince, after, chunkSize).stream()
+                        .filter(userId -> userId <= partition.lastUserId())
+                        .toList();
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                throttle.acquire(userIds.size());
+                int stored = precomputer.replace(userIds, asOf);
+                if (consistency) {
+                    userIds.forEach(sleepConsistencyService::rebuild);
+                }
+                after = userIds.get(userIds.size() - 1);
+                checkpoint = checkpoint.advancedTo(after);
+                if (!checkpointRepository.advance(checkpoint, owner, lease)) {
+                    throw new IllegalStateException(jobName + " lost its lease after user " + after);
+                }
+                tracker.record(partition, after, userIds.size(), stored);
+            } while (userIds.size() == chunkSize);
+            checkpointRepository.advance(checkpoint.completedRun(), owner, lease);
+            tracker.complete(partition);
+            return null;
+        } finally {
+            checkpointRepository.release(jobName, owner);
+        }
+    }
+
+    /**
+     * A snapshot of a rebuild's progress.
+     *
+     * @param partitions          partitions of the rebuild
+     * @param completedPartitions partitions done, including those completed by an earlier run
+     * @param users               users rebuilt by this run
+     * @param skippedUsers        users left without a row because they logged a night meanwhile
+     * @param percent             share of the user id range done
+     * @param usersPerSecond      users rebuilt per second by this run
+     */
+    public record Progress(int partitions, int completedPartitions, long users, long skippedUsers, double percent,
+                           double usersPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format("%.1f%% of the user id range, %d of %d partitions done, %d users rebuilt at %.0f/s, %d skipped",
+                    percent, completedPartitions, partitions, users, usersPerSecond, skippedUsers);
+        }
+    }
+
+    record Partition(int index, long firstUserId, long lastUserId) {
+
+        static List<Partition> split(long firstUserId, long lastUserId, int count) {
+            long size = Math.max(1, (lastUserId - firstUserId + count) / count);
+            List<Partition> partitions = new ArrayList<>();
+            for (long first = firstUserId; first <= lastUserId; first += size) {
+                partitions.add(new Partition(partitions.size(), first, Math.min(lastUserId, first + size - 1)));
+            }
+            return partitions;
+        }
+
+        long users() {
+            return lastUserId - firstUserId + 1;
+        }
+    }
+
+    /**
+     * Progress of the partitions of one rebuild, updated by their threads and read by the reporter.
+     */
+    private static final class Tracker {
+
+        private final List<Partition> partitions;
+        private final AtomicLongArray positions;
+        private final AtomicLongArray completed;
+        private final LongAdder users = new LongAdder();
+        private final LongAdder skippedUsers = new LongAdder();
+        private final long startedNanos = System.nanoTime();
+
+        Tracker(List<Partition> partitions) {
+            this.partitions = partitions;
+            this.positions = new AtomicLongArray(partitions.size());
+            this.completed = new AtomicLongArray(partitions.size());
+            partitions.forEach(partition -> positions.set(partition.index(), partition.firstUserId() - 1));
+        }
+
+        void advance(Partition partition, long position) {
+            positions.set(partition.index(), position);
+        }
+
+        void record(Partition partition, long position, int chunkUsers, int stored) {
+            advance(partition, position);
+            users.add(chunkUsers);
+            skippedUsers.add(chunkUsers - stored);
+        }
+
+        void complete(Partition partition) {
+            advance(partition, partition.lastUserId());
+            completed.set(partition.index(), 1);
+        }
+
+        Progress progress() {
+            long done = 0;
+            long total = 0;
+            int completedPartitions = 0;
+            for (Partition partition : partitions) {
+                done += positions.get(partition.index()) - partition.firstUserId() + 1;
+                total += partition.users();
+                completedPartitions += (int) completed.get(partition.index());
+            }
+            long rebuilt = users.sum();
+            double seconds = Math.max(1, System.nanoTime() - startedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            return new Progress(partitions.size(), completedPartitions, rebuilt, skippedUsers.sum(),
+                    total == 0 ? 100 : 100.0 * done / total, rebuilt / seconds);
+        }
+    }
+}
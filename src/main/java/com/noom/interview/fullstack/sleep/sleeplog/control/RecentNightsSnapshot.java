@@ -0,0 +1,237 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+import javax.annotation.PreDestroy;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.RecentNights;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogWatermark;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.UserPurgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Persists the {@link RecentNightsCache} to a memory-mapped file so a restarted instance starts warm.
+ *
+ * <p>Enabled by setting {@code sleep.cache.snapshot.path}. The snapshot is written every
+ * {@code sleep.cache.snapshot.interval} and on shutdown, to a temporary file that then replaces the
+ * previous snapshot. It is restored once the application has started, before it reports readiness.
+ *
+ * <p>File layout, big-endian:
+ * <pre>
+ * header   int magic, int format version, int nights per user, int user count,
+ *          long watermark id, long watermark created_at (epoch seconds), long CRC-32 of the records
+ * records  per user: long user id, followed by a {@link RecentNights} record
+ * </pre>
+ *
+ * <p>The watermark is read from the repository before the buffers are written, so every log
+ * missing from the snapshot is newer than it. On restore the snapshot is discarded if it is
+ * corrupt, if the database is behind its watermark (restored or recreated), or if more than
+ * {@code sleep.cache.snapshot.max-replay} logs were written since; otherwise the newer logs are
+ * replayed into the restored buffers. Logs are replayed by id and, to catch transactions that
+ * committed out of id order, by {@code created_at} within {@code sleep.cache.snapshot.replay-lookback}
+ * of the watermark, so some of them are already in the snapshot; {@link RecentNights#add} skips
+ * a night whose sleep date is already buffered.
+ *
+ * <p>Restored buffers drop nights that fell out of the averages window while the snapshot was on
+ * disk, which also covers archived nights, as only nights older than the window are archived.
+ * Buffers of users in unfinished purges, or in purges updated since the watermark, less the
+ * cache's {@code max-age} for buffers seeded before it, are not restored: a purge on another
+ * instance does not rewrite this instance's snapshot.
+ */
+@Component
+@Profile("!in-memory & !migrate")
+@ConditionalOnProperty("sleep.cache.snapshot.path")
+public class RecentNightsSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentNightsSnapshot.class);
+
+    static final int MAGIC = 0x534C524E;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + 3 * Long.BYTES;
+    private static final int CAPACITY = SleepLogService.AVERAGES_PERIOD_DAYS;
+    private static final int RECORD_BYTES = Long.BYTES + RecentNights.recordBytes(CAPACITY);
+    // A snapshot is written and read through a single mapping, which cannot exceed 2 GiB
+    static final int MAX_USERS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private final RecentNightsCache recentNightsCache;
+    private final SleepLogRepository sleepLogRepository;
+    private final UserPurgeRepository userPurgeRepository;
+    private final Path path;
+    private final Duration replayLookback;
+    private final int maxReplay;
+
+    public RecentNightsSnapshot(
+            RecentNightsCache recentNightsCache,
+            SleepLogRepository sleepLogRepository,
+            UserPurgeRepository userPurgeRepository,
+            @Value("${sleep.cache.snapshot.path}") Path path,
+            @Value("${sleep.cache.snapshot.replay-lookback:5m}") Duration replayLookback,
+            @Value("${sleep.cache.snapshot.max-replay:100000}") int maxReplay) {
+        this.recentNightsCache = recentNightsCache;
+        this.sleepLogRepository = sleepLogRepository;
+        this.userPurgeRepository = userPurgeRepository;
+        this.path = path;
+        this.replayLookback = replayLookback;
+        this.maxReplay = maxReplay;
+    }
+
+    @Scheduled(initialDelayString = "${sleep.cache.snapshot.interval:PT5M}",
+            fixedDelayString = "${sleep.cache.snapshot.interval:PT5M}")
+    @PreDestroy
+    public synchronized void write() {
+        Optional<SleepLogWatermark> watermark = sleepLogRepository.findWatermark();
+        if (watermark.isEmpty()) {
+            return;
+        }
+        if (recentNightsCache.size() > MAX_USERS) {
+            log.warn("Not writing recent nights snapshot to {}: {} cached users exceed the {} a snapshot can hold",
+                    path, recentNightsCache.size(), MAX_USERS);
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            int users;
+            try (FileChannel channel = FileChannel.open(temp, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+                users = writeTo(channel, watermark.get());
+            }
+            Files.move(temp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+            log.debug("Wrote recent nights snapshot of {} users to {}", users, path);
+        } catch (IOException exception) {
+            log.warn("Could not write recent nights snapshot to {}", path, exception);
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public synchronized void restore() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            String rejection = restoreFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (rejection != null) {
+                log.info("Discarded recent nights snapshot {}: {}", path, rejection);
+            }
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Could not restore recent nights snapshot from {}", path, exception);
+        }
+    }
+
+    private int writeTo(FileChannel channel, SleepLogWatermark watermark) throws IOException {
+        int expectedUsers = Math.min(recentNightsCache.size(), MAX_USERS);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, snapshotBytes(expectedUsers));
+        buffer.position(HEADER_BYTES);
+        int[] users = {0};
+        recentNightsCache.forEachBuffer((userId, nights) -> {
+            if (users[0] < expectedUsers) {
+                buffer.putLong(userId);
+                nights.writeTo(buffer);
+                users[0]++;
+            }
+        });
+
+        buffer.putInt(0, MAGIC)
+                .putInt(4, FORMAT_VERSION)
+                .putInt(8, CAPACITY)
+                .putInt(12, users[0])
+                .putLong(16, watermark.id())
+                .putLong(24, watermark.createdAt().toEpochSecond(ZoneOffset.UTC))
+                .putLong(32, checksum(buffer, users[0]));
+        buffer.force();
+        return users[0];
+    }
+
+    /**
+     * Restores the buffers from a snapshot and replays newer logs into them.
+     *
+     * @return why the snapshot was discarded, or {@code null} if it was restored
+     */
+    private String restoreFrom(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            return "unknown format";
+        }
+        if (buffer.getInt(8) != CAPACITY) {
+            return "written for " + buffer.getInt(8) + " nights per user";
+        }
+        int users = buffer.getInt(12);
+        if (users < 0 || buffer.limit() < snapshotBytes(users) || buffer.getLong(32) != checksum(buffer, users)) {
+            return "corrupt";
+        }
+
+        long watermarkId = buffer.getLong(16);
+        LocalDateTime watermarkCreatedAt = LocalDateTime.ofEpochSecond(buffer.getLong(24), 0, ZoneOffset.UTC);
+        Optional<SleepLogWatermark> current = sleepLogRepository.findWatermark();
+        if (current.isEmpty() || current.get().id() < watermarkId) {
+            return "database is behind the snapshot watermark";
+        }
+        List<SleepLog> replay = sleepLogRepository.findWrittenAfter(watermarkId, watermarkCreatedAt.minus(replayLookback), maxReplay + 1);
+        if (replay.size() > maxReplay) {
+            return "more than " + maxReplay + " logs written since";
+        }
+
+        List<Long> userIds = new ArrayList<>(users);
+        List<RecentNights> buffers = new ArrayList<>(users);
+        buffer.position(HEADER_BYTES);
+        for (int i = 0; i < users; i++) {
+            userIds.add(buffer.getLong());
+            buffers.add(RecentNights.readFrom(buffer, CAPACITY));
+        }
+        Set<Long> purged = userPurgeRepository.findUserIdsPurgedSince(
+                watermarkCreatedAt.minus(recentNightsCache.maxAge()).minus(replayLookback));
+        LocalDate outOfWindow = LocalDate.now().minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        int restored = 0;
+        for (int i = 0; i < users; i++) {
+            if (!purged.contains(userIds.get(i))) {
+                buffers.get(i).evictUpTo(outOfWindow);
+                recentNightsCache.restore(userIds.get(i), buffers.get(i));
+                restored++;
+            }
+        }
+        replay.forEach(recentNightsCache::add);
+        log.info("Restored recent nights of {} users from {}, skipped {} purged users, replayed {} newer logs",
+                restored, path, users - restored, replay.size());
+        return null;
+    }
+
+    static long snapshotBytes(int users) {
+        return HEADER_BYTES + (long) users * RECORD_BYTES;
+    }
+
+    /**
+     * CRC-32 of the records of {@code users} users, which must fit in {@code buffer}.
+     */
+    private static long checksum(ByteBuffer buffer, int users) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(Math.toIntExact(snapshotBytes(users))).position(HEADER_BYTES));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,20 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+
+/**
+ * A value read for a request, and how old it is if it is not fresh.
+ *
+ * @param value the value
+ * @param age   how long ago the value was fresh, {@code null} if it is
+ */
+public record Served<T>(T value, Duration age) {
+
+    public static <T> Served<T> fresh(T value) {
+        return new Served<>(value, null);
+    }
+
+    public boolean stale() {
+        return age != null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.PreDestroy;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps each user's {@link SleepConsistency} up to date as nights are written, so reading it is a
+ * single row lookup rather than a scan of the user's history.
+ *
+ * <p>{@link SleepLogService#createSleepLog} passes every stored night to {@link #record}, which
+ * adds it to the user's row when it is after the latest or before the earliest night, see
+ * {@link SleepConsistency#add}. Rows are compared-and-set by version, and writers that lose the
+ * race retry from the new row. Building a row reads the user's whole history, archived months
+ * included, so it never happens on the write path: a night the row cannot take, because the user
+ * has no row or the night is backfilled between the earliest and the latest one, drops the row and
+ * queues a rebuild on a background thread. At most {@code max-pending-rebuilds} users are queued;
+ * beyond that, their rows are left to the next read, which builds a missing row within the read
+ * timeout, or to {@link RecentNightsRebuildCommand}.
+ *
+ * <p>If a row cannot be updated, it is dropped so that it is rebuilt instead of served without
+ * the night.
+ */
+@Service
+public class SleepConsistencyService {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    // Sleep dates are stored as epoch days in an int by the in-memory engine and as dates by
+    // PostgreSQL, so the whole history is bounded by dates both can hold
+    static final LocalDate HISTORY_FROM = LocalDate.of(1899, 12, 31);
+    static final LocalDate HISTORY_TO = LocalDate.of(9999, 12, 31);
+
+    private static final Logger log = LoggerFactory.getLogger(SleepConsistencyService.class);
+
+    private final SleepLogRepository sleepLogRepository;
+    private final SleepConsistencyRepository sleepConsistencyRepository;
+    private final DatabaseGuard databaseGuard;
+    private final int maxPendingRebuilds;
+    private final Set<Long> pendingRebuilds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sleep-consistency-"));
+
+    public SleepConsistencyService(SleepLogRepository sleepLogRepository, SleepConsistencyRepository sleepConsistencyRepository,
+                                   DatabaseGuard databaseGuard,
+                                   @Value("${sleep.consistency.max-pending-rebuilds:10000}") int maxPendingRebuilds) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.sleepConsistencyRepository = sleepConsistencyRepository;
+        this.databaseGuard = databaseGuard;
+        this.maxPendingRebuilds = maxPendingRebuilds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public SleepConsistency getConsistency(Long userId) {
+        Optional<SleepConsistency> stored = databaseGuard.read(() -> sleepConsistencyRepository.findByUserId(userId));
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        SleepConsistency built = databaseGuard.read(() -> build(userId, 0));
+        databaseGuard.write(() -> sleepConsistencyRepository.save(built));
+        return built;
+    }
+
+    /**
+     * Adds a stored night to the user's consistency. Never throws: a failure drops the user's row.
+     */
+    public void record(SleepLog sleepLog) {
+        Long userId = sleepLog.userId();
+        try {
+            boolean added = databaseGuard.write(() -> add(userId, sleepLog));
+            if (!added) {
+                log.debug("Consistency of user {} cannot take the night of {}, rebuilding it", userId, sleepLog.sleepDate());
+                invalidate(userId);
+                rebuildLater(userId);
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Could not record the night of {} in the consistency of user {}, dropping it", sleepLog.sleepDate(), userId, exception);
+            try {
+                invalidate(userId);
+                rebuildLater(userId);
+            } catch (RuntimeException deleteFailure) {
+                log.warn("Could not drop the consistency of user {}, it lacks the night of {}", userId, sleepLog.sleepDate(), deleteFailure);
+            }
+        }
+    }
+
+    public void invalidate(Long userId) {
+        sleepConsistencyRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Replaces the user's row with one built from their whole history, on the calling thread.
+     *
+     * @return whether it was stored; {@code false} if the row kept changing or the database failed
+     */
+    public boolean rebuild(Long userId) {
+        try {
+            return databaseGuard.write(() -> {
+                for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                    long version = sleepConsistencyRepository.findByUserId(userId).map(SleepConsistency::version).orElse(0L);
+                    if (sleepConsistencyRepository.save(build(userId, version))) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        } catch (RuntimeException exception) {
+            log.warn("Could not rebuild the consistency of user {}", userId, exception);
+            return false;
+        }
+    }
+
+    private boolean add(Long userId, SleepLog sleepLog) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<SleepConsistency> current = sleepConsistencyRepository.findByUserId(userId);
+            if (current.isEmpty() || !current.get().canAdd(sleepLog.sleepDate())) {
+                return false;
+            }
+            if (sleepConsistencyRepository.save(current.get().add(sleepLog))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A user is taken off the pending set before their history is read, so a night logged while
+    // the rebuild runs queues another one rather than going missing from the row
+    private void rebuildLater(Long userId) {
+        if (pendingRebuilds.size() >= maxPendingRebuilds || !pendingRebuilds.add(userId)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                pendingRebuilds.remove(userId);
+                rebuild(userId);
+            });
+        } catch (RejectedExecutionException exception) {
+            pendingRebuilds.remove(userId);
+        }
+    }
+
+    private SleepConsistency build(Long userId, long version) {
+        return SleepConsistency.of(userId, sleepLogRepository.findByUserIdAndDateRange(userId, HISTORY_FROM, HISTORY_TO), version);
+    }
+}
@@ -0,0 +1,67 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramBucket;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramField;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Histograms of a user's bed times, wake times or time in bed.
+ *
+ * <p>Counting is left to the repository, which returns only non-empty buckets; this service fills
+ * in the empty ones. Clock-time histograms always cover the whole day, so the bucket must divide
+ * 24 hours; time-in-bed histograms run from zero to the longest night.
+ */
+@Service
+public class SleepHistogramService {
+
+    static final Duration MIN_BUCKET = Duration.ofMinutes(5);
+    static final Duration MAX_BUCKET = Duration.ofDays(1);
+
+    private final SleepLogRepository sleepLogRepository;
+
+    public SleepHistogramService(SleepLogRepository sleepLogRepository) {
+        this.sleepLogRepository = sleepLogRepository;
+    }
+
+    /**
+     * Counts the user's nights with a sleep date in {@code [from, to]} per bucket, empty buckets included.
+     *
+     * @throws IllegalArgumentException if the range or bucket is invalid
+     */
+    public List<SleepHistogramBucket> getHistogram(Long userId, LocalDate from, LocalDate to,
+                                                   SleepHistogramField field, Duration bucket) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (bucket.compareTo(MIN_BUCKET) < 0 || bucket.compareTo(MAX_BUCKET) > 0 || bucket.getNano() != 0) {
+            throw new IllegalArgumentException("Bucket must be whole seconds between " + MIN_BUCKET + " and " + MAX_BUCKET);
+        }
+        long bucketSeconds = bucket.getSeconds();
+        if (field.isClockTime() && MAX_BUCKET.getSeconds() % bucketSeconds != 0) {
+            throw new IllegalArgumentException("Bucket must divide 24 hours for " + field.parameterName());
+        }
+
+        List<SleepHistogramBucket> counted = sleepLogRepository.countByHistogramBucket(
+                userId, from.minusDays(1), to, field, bucketSeconds);
+
+        long bucketCount = field.isClockTime()
+                ? MAX_BUCKET.getSeconds() / bucketSeconds
+                : counted.isEmpty() ? 0 : counted.get(counted.size() - 1).index() + 1;
+        List<SleepHistogramBucket> buckets = new ArrayList<>((int) bucketCount);
+        int next = 0;
+        for (long index = 0; index < bucketCount; index++) {
+            if (next < counted.size() && counted.get(next).index() == index) {
+                buckets.add(counted.get(next++));
+            } else {
+                buckets.add(new SleepHistogramBucket(index, 0));
+            }
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,146 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.noom.interview.fullstack.sleep.infrastructure.Throttle;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves nights older than {@code sleep.archive.age-days} out of {@code sleep_log}, which keeps the
+ * table and its indexes small enough to stay in memory. Enabled by setting that property.
+ *
+ * <p>The cutoff is rounded down to the first of a month, so only whole months are archived and
+ * the cutoff moves once a month. Every {@code interval} the lease holder pages through the users
+ * with nights before the cutoff and moves each user's nights {@code batch-size} at a time, paced
+ * to {@code max-nights-per-second}; each batch is its own short transaction, so online writes wait
+ * on a few rows of one user at most. After every page the last user id is stored in a
+ * {@link JobCheckpoint}, and a run interrupted for the same cutoff resumes there.
+ *
+ * <p>The age must exceed {@link SleepLogService#AVERAGES_PERIOD_DAYS}, which keeps the averages,
+ * the recent nights cache and its precomputation on {@code sleep_log} alone.
+ */
+@Component
+@Profile("!in-memory & !rebuild & !migrate")
+@ConditionalOnProperty("sleep.archive.age-days")
+public class SleepLogArchiver {
+
+    static final String JOB_NAME = "archive-sleep-logs";
+
+    private static final Logger log = LoggerFactory.getLogger(SleepLogArchiver.class);
+
+    private final SleepLogArchiveRepository archiveRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final int ageDays;
+    private final int batchSize;
+    private final int pageSize;
+    private final double maxNightsPerSecond;
+    private final Duration lease;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public SleepLogArchiver(
+            SleepLogArchiveRepository archiveRepository,
+            JobCheckpointRepository checkpointRepository,
+            @Value("${sleep.archive.age-days}") int ageDays,
+            @Value("${sleep.archive.batch-size:500}") int batchSize,
+            @Value("${sleep.archive.page-size:100}") int pageSize,
+            @Value("${sleep.archive.max-nights-per-second:2000}") double maxNightsPerSecond,
+            @Value("${sleep.archive.lease:5m}") Duration lease) {
+        if (ageDays <= SleepLogService.AVERAGES_PERIOD_DAYS) {
+            throw new IllegalArgumentException("sleep.archive.age-days must exceed " + SleepLogService.AVERAGES_PERIOD_DAYS
+                    + ", got " + ageDays);
+        }
+        this.archiveRepository = archiveRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.ageDays = ageDays;
+        this.batchSize = batchSize;
+        this.pageSize = pageSize;
+        this.maxNightsPerSecond = maxNightsPerSecond;
+        this.lease = lease;
+    }
+
+    @Scheduled(initialDelayString = "${sleep.archive.interval:PT1H}", fixedDelayString = "${sleep.archive.interval:PT1H}")
+    public void runIfDue() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Archives the nights before the cutoff for {@code today}, unless that run is complete or
+     * another instance holds the lease.
+     *
+     * @return the number of nights moved by this call
+     */
+    public long run(LocalDate today) {
+        LocalDate before = cutoff(today);
+        String runKey = before.toString();
+        if (checkpointRepository.find(JOB_NAME).filter(checkpoint -> checkpoint.runKey().equals(runKey) && checkpoint.completed()).isPresent()) {
+            return 0;
+        }
+        Optional<JobCheckpoint> claimed = checkpointRepository.claim(JOB_NAME, owner, lease);
+        if (claimed.isEmpty()) {
+            log.debug("Skipping {}, another instance holds its lease", JOB_NAME);
+            return 0;
+        }
+        try {
+            JobCheckpoint checkpoint = claimed.get().forRun(runKey);
+            return checkpoint.completed() ? 0 : resume(checkpoint, before);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            checkpointRepository.release(JOB_NAME, owner);
+        }
+    }
+
+    LocalDate cutoff(LocalDate today) {
+        return YearMonth.from(today.minusDays(ageDays)).atDay(1);
+    }
+
+    private long resume(JobCheckpoint checkpoint, LocalDate before) throws InterruptedException {
+        if (checkpoint.position() > 0) {
+            log.info("Resuming {} before {} after user {}", JOB_NAME, before, checkpoint.position());
+        }
+        Throttle throttle = new Throttle(maxNightsPerSecond);
+        long started = System.nanoTime();
+        long moved = 0;
+        List<Long> userIds;
+        do {
+            userIds = archiveRepository.findUserIdsWithNightsBefore(before, checkpoint.position(), pageSize);
+            for (Long userId : userIds) {
+                int batch;
+                do {
+                    batch = archiveRepository.archive(userId, before, batchSize);
+                    moved += batch;
+                    throttle.acquire(batch);
+                } while (batch == batchSize);
+            }
+            if (userIds.isEmpty()) {
+                break;
+            }
+            checkpoint = checkpoint.advancedTo(userIds.get(userIds.size() - 1));
+            if (!checkpointRepository.advance(checkpoint, owner, lease)) {
+                log.warn("{} before {} lost its lease after user {}", JOB_NAME, before, checkpoint.position());
+                return moved;
+            }
+        } while (userIds.size() == pageSize);
+
+        checkpointRepository.advance(checkpoint.completedRun(), owner, lease);
+        log.info("{} moved {} nights dated before {} in {} ms", JOB_NAME, moved, before,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        return moved;
+    }
+}
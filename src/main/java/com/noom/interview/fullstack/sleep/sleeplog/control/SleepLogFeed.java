@@ -0,0 +1,273 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fans new sleep logs out to feed subscribers.
+ *
+ * <p>Logs are published by {@link SleepLogInsertListener} in the order their inserts committed.
+ * Every subscriber has its own buffer, drained by a few shared delivery threads, so a slow
+ * subscriber never holds up the others or the publisher: once {@code sleep.feed.buffer-size} logs
+ * wait for it, it is closed and expected to resume.
+ *
+ * <p>The last {@code sleep.feed.replay-size} logs are kept for resuming: a subscriber that passes
+ * the id of the last log it received gets every later one first. If that log is no longer kept,
+ * or notifications may have been lost, the subscriber is sent a reset instead and should re-read
+ * whatever state it derives from the feed.
+ */
+@Component
+@Profile("!reactive")
+public class SleepLogFeed {
+
+    static final int MAX_FILTERED_USERS = 1000;
+
+    /**
+     * Receives the feed of one subscription. Calls are never concurrent.
+     */
+    public interface Subscriber {
+
+        void send(SleepLog sleepLog) throws IOException;
+
+        /**
+         * Tells the subscriber it may have missed logs.
+         */
+        void reset(String reason) throws IOException;
+
+        /**
+         * Keeps an idle connection open, and finds out if it was closed.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Ends the subscription, after its buffer overflowed, a delivery failed or the feed shut down.
+         */
+        void close();
+    }
+
+    private final int bufferSize;
+    private final int replaySize;
+    private final int maxSubscribers;
+    private final ArrayDeque<SleepLog> recent = new ArrayDeque<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor;
+
+    public SleepLogFeed(
+            @Value("${sleep.feed.buffer-size:256}") int bufferSize,
+            @Value("${sleep.feed.replay-size:10000}") int replaySize,
+            @Value("${sleep.feed.max-subscribers:1000}") int maxSubscribers,
+            @Value("${sleep.feed.delivery-threads:2}") int deliveryThreads,
+            @Value("${sleep.feed.heartbeat:15s}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.maxSubscribers = maxSubscribers;
+        this.executor = Executors.newScheduledThreadPool(deliveryThreads, new CustomizableThreadFactory("sleep-feed-"));
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeat.toNanos(), heartbeat.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Subscribes to the logs of {@code userIds}, or of all users if empty.
+     *
+     * @param resumeAfterId id of the last log received before, or {@code null} for new logs only
+     * @throws IllegalArgumentException   if more than {@value #MAX_FILTERED_USERS} users are given
+     * @throws RejectedExecutionException if there are {@code sleep.feed.max-subscribers} already
+     */
+    public Subscription subscribe(Set<Long> userIds, Long resumeAfterId, Subscriber subscriber) {
+        if (userIds.size() > MAX_FILTERED_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_FILTERED_USERS + " users can be followed at once");
+        }
+        synchronized (recent) {
+            if (subscriptions.size() >= maxSubscribers) {
+                throw new RejectedExecutionException("Too many feed subscribers");
+            }
+            Subscription subscription = new Subscription(Set.copyOf(userIds), subscriber);
+            if (resumeAfterId != null) {
+                replay(subscription, resumeAfterId);
+            }
+            subscriptions.add(subscription);
+            return subscription;
+        }
+    }
+
+    public void publish(SleepLog sleepLog) {
+        synchronized (recent) {
+            if (recent.size() == replaySize) {
+                recent.removeFirst();
+            }
+            recent.addLast(sleepLog);
+            for (Subscription subscription : subscriptions) {
+                if (subscription.follows(sleepLog.userId())) {
+                    subscription.offer(new Event(sleepLog, null));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells every subscriber that logs may have been missed, and forgets the logs kept for resuming.
+     */
+    public void reset(String reason) {
+        synchronized (recent) {
+            recent.clear();
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(new Event(null, reason));
+            }
+        }
+    }
+
+    int subscribers() {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        subscriptions.forEach(Subscription::end);
+    }
+
+    private void replay(Subscription subscription, long afterId) {
+        Iterator<SleepLog> newestFirst = recent.descendingIterator();
+        int newer = 0;
+        while (newestFirst.hasNext() && newestFirst.next().id() != afterId) {
+            newer++;
+        }
+        if (newer == recent.size()) {
+            subscription.offer(new Event(null, "log " + afterId + " is no longer kept for resuming"));
+            return;
+        }
+        // The whole replay is buffered at once, so it is not held against the buffer size
+        subscription.capacity += newer;
+        Iterator<SleepLog> oldestFirst = recent.iterator();
+        for (int skip = recent.size() - newer; skip > 0; skip--) {
+            oldestFirst.next();
+        }
+        while (oldestFirst.hasNext()) {
+            SleepLog sleepLog = oldestFirst.next();
+            if (subscription.follows(sleepLog.userId())) {
+                subscription.offer(new Event(sleepLog, null));
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(Event.HEARTBEAT);
+        }
+    }
+
+    /**
+     * A log to send, or a reset if {@code sleepLog} is {@code null} and {@code reason} is not.
+     */
+    private record Event(SleepLog sleepLog, String reason) {
+        static final Event HEARTBEAT = new Event(null, null);
+    }
+
+    public final class Subscription {
+
+        private final Set<Long> userIds;
+        private final Subscriber subscriber;
+        private final ArrayDeque<Event> pending = new ArrayDeque<>();
+        private int capacity = bufferSize;
+        private boolean draining;
+        private boolean overflowed;
+        private boolean ended;
+
+        private Subscription(Set<Long> userIds, Subscriber subscriber) {
+            this.userIds = userIds;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Stops delivering to the subscriber, without calling {@link Subscriber#close()}.
+         */
+        public void cancel() {
+            subscriptions.remove(this);
+            synchronized (this) {
+                ended = true;
+                pending.clear();
+            }
+        }
+
+        private boolean follows(Long userId) {
+            return userIds.isEmpty() || userIds.contains(userId);
+        }
+
+        private void offer(Event event) {
+            synchronized (this) {
+                if (ended || overflowed || (event == Event.HEARTBEAT && !pending.isEmpty())) {
+                    return;
+                }
+                if (pending.size() >= capacity) {
+                    overflowed = true;
+                    pending.clear();
+                } else {
+                    pending.add(event);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException shutDown) {
+                end();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    if (ended) {
+                        return;
+                    }
+                    if (overflowed) {
+                        break;
+                    }
+                    event = pending.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (pending.size() < bufferSize) {
+                        capacity = bufferSize;
+                    }
+                }
+                try {
+                    if (event.sleepLog() != null) {
+                        subscriber.send(event.sleepLog());
+                    } else if (event.reason() != null) {
+                        subscriber.reset(event.reason());
+                    } else {
+                        subscriber.heartbeat();
+                    }
+                } catch (IOException | RuntimeException exception) {
+                    break;
+                }
+            }
+            end();
+        }
+
+        private void end() {
+            cancel();
+            subscriber.close();
+        }
+    }
+}
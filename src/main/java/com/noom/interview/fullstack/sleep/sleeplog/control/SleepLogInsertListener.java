@@ -0,0 +1,78 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.infrastructure.PostgresListener;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes every inserted sleep log to the {@link SleepLogFeed}.
+ *
+ * <p>A trigger on {@code sleep_log} sends each inserted row, as JSON, on the
+ * {@value #CHANNEL} channel when its transaction commits. One connection per instance listens on
+ * it, however many subscribers the feed has. Notifications sent while that connection is being
+ * re-established are lost, so the feed is reset once it is back.
+ */
+@Component
+@Profile("!in-memory & !reactive & !rebuild & !migrate & !cds-training")
+public class SleepLogInsertListener {
+
+    static final String CHANNEL = "sleep_log_inserted";
+
+    private final SleepLogFeed feed;
+    private final ObjectMapper objectMapper;
+    private final PostgresListener listener;
+
+    public SleepLogInsertListener(
+            DataSource dataSource,
+            SleepLogFeed feed,
+            ObjectMapper objectMapper,
+            @Value("${sleep.feed.retry-delay:5s}") Duration retryDelay) {
+        this.feed = feed;
+        this.objectMapper = objectMapper;
+        this.listener = new PostgresListener(dataSource, CHANNEL, this::onNotification,
+                () -> feed.reset("notifications were lost while reconnecting to the database"), retryDelay);
+    }
+
+    @PostConstruct
+    public void start() {
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        listener.stop();
+    }
+
+    void onNotification(String payload) {
+        try {
+            feed.publish(fromRow(objectMapper.readTree(payload)));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("Not a sleep_log row: " + payload, exception);
+        }
+    }
+
+    static SleepLog fromRow(JsonNode row) {
+        return new SleepLog(
+                row.get("id").asLong(),
+                row.get("user_id").asLong(),
+                LocalDate.parse(row.get("sleep_date").asText()),
+                LocalDateTime.parse(row.get("bed_time").asText()),
+                LocalDateTime.parse(row.get("wake_time").asText()),
+                MorningFeeling.valueOf(row.get("morning_feeling").asText()),
+                row.get("created_at").isNull() ? null : LocalDateTime.parse(row.get("created_at").asText())
+        );
+    }
+}
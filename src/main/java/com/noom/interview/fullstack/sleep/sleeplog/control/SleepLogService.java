@@ -1,40 +1,151 @@
 package com.noom.interview.fullstack.sleep.sleeplog.control;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
 import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.RecentNights;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SleepLogService {
 
-    private static final int AVERAGES_PERIOD_DAYS = 30;
+    static final int AVERAGES_PERIOD_DAYS = 30;
 
     private final SleepLogRepository sleepLogRepository;
+    private final RecentNightsCache recentNightsCache;
+    private final PrecomputedNightsRepository precomputedNightsRepository;
+    private final SleepConsistencyService sleepConsistencyService;
+    private final DatabaseGuard databaseGuard;
 
-    public SleepLogService(SleepLogRepository sleepLogRepository) {
+    public SleepLogService(SleepLogRepository sleepLogRepository, RecentNightsCache recentNightsCache,
+                           PrecomputedNightsRepository precomputedNightsRepository, SleepConsistencyService sleepConsistencyService,
+                           DatabaseGuard databaseGuard) {
         this.sleepLogRepository = sleepLogRepository;
+        this.recentNightsCache = recentNightsCache;
+        this.precomputedNightsRepository = precomputedNightsRepository;
+        this.sleepConsistencyService = sleepConsistencyService;
+        this.databaseGuard = databaseGuard;
     }
 
+    /**
+     * Stores a log. A log for today is picked up by {@link #precomputedAverages} on its own;
+     * an earlier one drops the user's precomputed nights. The night is then added to the user's
+     * {@link SleepConsistencyService consistency}.
+     *
+     * <p>Database calls go through the {@link DatabaseGuard}, so they fail with a
+     * {@link com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException} when
+     * the database is unavailable; averages held by the {@link RecentNightsCache} are still answered.
+     */
     public SleepLog createSleepLog(Long userId, CreateSleepLogRequest request) {
         SleepLog sleepLog = SleepLog.fromRequest(userId, request);
-        return sleepLogRepository.save(sleepLog);
+        SleepLog saved = databaseGuard.write(() -> {
+            SleepLog stored = sleepLogRepository.save(sleepLog);
+            if (stored.sleepDate().isBefore(LocalDate.now())) {
+                precomputedNightsRepository.deleteByUserId(userId);
+            }
+            return stored;
+        });
+        recentNightsCache.add(saved);
+        sleepConsistencyService.record(saved);
+        return saved;
     }
 
     public SleepLog getLastNightSleep(Long userId) {
         LocalDate today = LocalDate.now();
-        return sleepLogRepository.findByUserIdAndDate(userId, today)
+        return databaseGuard.read(() -> sleepLogRepository.findByUserIdAndDate(userId, today))
                 .orElseThrow(() -> new SleepLogNotFoundException("No sleep log found for user " + userId + " on " + today));
     }
 
     public SleepAverages getLast30DayAverages(Long userId) {
+        return getLast30DayAverages(userId, false);
+    }
+
+    /**
+     * Returns the 30-day averages, with averages per {@link MorningFeeling} if {@code withMorningFeelingBreakdown} is set.
+     */
+    public SleepAverages getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown) {
+        return getLast30DayAverages(userId, withMorningFeelingBreakdown, SleepStatistic.ALL);
+    }
+
+    /**
+     * Returns only the given statistics of the 30-day averages, see {@link #getLast30DayAverages(Long, boolean)}.
+     */
+    public SleepAverages getLast30DayAverages(Long userId, boolean withMorningFeelingBreakdown, Set<SleepStatistic> statistics) {
         LocalDate to = LocalDate.now();
         LocalDate from = to.minusDays(AVERAGES_PERIOD_DAYS);
-        List<SleepLog> sleepLogs = sleepLogRepository.findByUserIdAndDateRange(userId, from, to);
-        return SleepAverages.fromSleepLogs(sleepLogs, from, to);
+        return recentNightsCache.averages(userId, from, to, withMorningFeelingBreakdown, statistics)
+                .or(() -> precomputedAverages(userId, from, to, withMorningFeelingBreakdown, statistics))
+                .orElseGet(() -> averagesOf(loadAndCacheRecentNights(userId, from, to), from, to, withMorningFeelingBreakdown, statistics));
+    }
+
+    /**
+     * Answers from the nights {@link RecentNightsPrecomputeJob} stored for the window ending on
+     * {@code to}, plus the night of {@code to} if it was logged after they were stored, and seeds
+     * the cache with them. A row computed after that night was logged already holds it, and then
+     * the night is not looked up.
+     */
+    Optional<SleepAverages> precomputedAverages(Long userId, LocalDate from, LocalDate to, boolean withMorningFeelingBreakdown,
+                                                Set<SleepStatistic> statistics) {
+        long stamp = recentNightsCache.stamp(userId);
+        Optional<RecentNights> precomputed = databaseGuard.read(() -> precomputedNightsRepository.findByUserId(userId, to)
+                .map(nights -> {
+                    if (!nights.contains(to)) {
+                        sleepLogRepository.findByUserIdAndDate(userId, to).ifPresent(nights::add);
+                    }
+                    return nights;
+                }));
+        if (precomputed.isEmpty()) {
+            return Optional.empty();
+        }
+        RecentNights nights = precomputed.get();
+        SleepAverages averages = RecentNightsCache.averagesOf(nights, from, to, withMorningFeelingBreakdown, statistics);
+        recentNightsCache.seed(userId, nights, stamp);
+        return Optional.of(averages);
+    }
+
+    static SleepAverages averagesOf(List<SleepLog> sleepLogs, LocalDate from, LocalDate to, boolean withMorningFeelingBreakdown,
+                                    Set<SleepStatistic> statistics) {
+        SleepAverages averages = SleepAverages.fromSleepLogs(sleepLogs, from, to, statistics);
+        return withMorningFeelingBreakdown
+                ? averages.withMorningFeelingBreakdown(MorningFeelingAverages.fromSleepLogs(sleepLogs))
+                : averages;
+    }
+
+    /**
+     * Loads the user's logs in {@code (from, to]} and seeds the {@link RecentNightsCache} with them.
+     */
+    List<SleepLog> loadAndCacheRecentNights(Long userId, LocalDate from, LocalDate to) {
+        long stamp = recentNightsCache.stamp(userId);
+        List<SleepLog> sleepLogs = databaseGuard.read(() -> sleepLogRepository.findByUserIdAndDateRange(userId, from, to));
+        recentNightsCache.seed(userId, sleepLogs, from, to, stamp);
+        return sleepLogs;
+    }
+
+    /**
+     * Like {@link #loadAndCacheRecentNights} for several users at once, with one query, see {@link CacheWarmup}.
+     *
+     * @return the logs in {@code (from, to]} per user, without the users that have none
+     */
+    Map<Long, List<SleepLog>> loadAndCacheRecentNights(List<Long> userIds, LocalDate from, LocalDate to) {
+        Map<Long, Long> stamps = new HashMap<>();
+        userIds.forEach(userId -> stamps.put(userId, recentNightsCache.stamp(userId)));
+        Map<Long, List<SleepLog>> byUser = databaseGuard.read(() -> sleepLogRepository.findByUserIdsAndDateRange(userIds, from, to)).stream()
+                .collect(Collectors.groupingBy(SleepLog::userId));
+        stamps.forEach((userId, stamp) -> recentNightsCache.seed(userId, byUser.getOrDefault(userId, List.of()), from, to, stamp));
+        return byUser;
     }
 }
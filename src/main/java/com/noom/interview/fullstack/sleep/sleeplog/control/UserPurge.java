@@ -0,0 +1,108 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob.State;
+
+/**
+ * One request to delete all data of a set of users, run by {@link UserPurgeService}.
+ * Updated by the purge thread, which stores it as a {@link PurgeJob} whenever it moves on.
+ */
+public final class UserPurge {
+
+    private final String id;
+    private final List<Long> userIds;
+    private final Instant requestedAt;
+    private final AtomicInteger purgedUsers;
+    private final AtomicLong deletedNights;
+    private final AtomicLong pausedNanos;
+    private volatile State state;
+    private volatile String error;
+
+    UserPurge(List<Long> userIds) {
+        this(new PurgeJob(UUID.randomUUID().toString(), List.copyOf(userIds), State.QUEUED, Instant.now(), 0, 0,
+                Duration.ZERO, null));
+    }
+
+    UserPurge(PurgeJob job) {
+        this.id = job.id();
+        this.userIds = job.userIds();
+        this.requestedAt = job.requestedAt();
+        this.purgedUsers = new AtomicInteger(job.purgedUsers());
+        this.deletedNights = new AtomicLong(job.deletedNights());
+        this.pausedNanos = new AtomicLong(job.paused().toNanos());
+        this.state = job.state();
+        this.error = job.error();
+    }
+
+    String id() {
+        return id;
+    }
+
+    List<Long> userIds() {
+        return userIds;
+    }
+
+    State state() {
+        return state;
+    }
+
+    void state(State state) {
+        this.state = state;
+    }
+
+    void deleted(int nights) {
+        deletedNights.addAndGet(nights);
+    }
+
+    void paused(long nanos) {
+        pausedNanos.addAndGet(nanos);
+    }
+
+    void purged() {
+        purgedUsers.incrementAndGet();
+    }
+
+    int purgedUsers() {
+        return purgedUsers.get();
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    PurgeJob job() {
+        return new PurgeJob(id, userIds, state, requestedAt, purgedUsers.get(), deletedNights.get(),
+                Duration.ofNanos(pausedNanos.get()), error);
+    }
+
+    Progress progress() {
+        int purged = purgedUsers.get();
+        return new Progress(id, state, requestedAt, userIds.size(), purged, deletedNights.get(),
+                100.0 * purged / userIds.size(), Duration.ofNanos(pausedNanos.get()), error);
+    }
+
+    /**
+     * A snapshot of a purge's progress.
+     *
+     * @param id            the purge
+     * @param state         where the purge is; {@code PAUSED} while the database is under load
+     * @param requestedAt   when the purge was requested
+     * @param users         users to purge
+     * @param purgedUsers   users whose data is gone
+     * @param deletedNights nights deleted so far, archived ones included
+     * @param percent       share of the users purged
+     * @param paused        time spent waiting for the database load to drop
+     * @param error         why the purge failed, if it did
+     */
+    public record Progress(String id, State state, Instant requestedAt, int users, int purgedUsers, long deletedNights,
+                           double percent, Duration paused, String error) {
+    }
+}
@@ -0,0 +1,291 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseLoad;
+import com.noom.interview.fullstack.sleep.infrastructure.Throttle;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogArchiveRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.UserPurgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes all data of a set of users, for account deletion and erasure requests.
+ *
+ * <p>Purges are stored in the {@link UserPurgeRepository}, so every instance reports their
+ * progress, and run one at a time, oldest first, by whichever instance holds the
+ * {@value #JOB_NAME} lease in the {@link JobCheckpointRepository}. Progress is stored after every
+ * user; a purge whose instance stopped or crashed is resumed with its next user once the lease is
+ * free again, at the latest every {@code sleep.purge.check-interval}. Finished purges are
+ * forgotten after {@code sleep.purge.retention}.
+ *
+ * <p>Each user's logs are deleted {@code sleep.purge.batch-size} at a time, oldest first, so every
+ * statement locks a few rows of one user and online inserts never queue behind it. Batches are
+ * paced to {@code max-nights-per-second}, and before each one the purge pauses while the replicas
+ * lag more than {@code max-replication-lag} or more than {@code max-lock-waits} sessions wait for
+ * a lock.
+ *
+ * <p>Once a user's logs are gone, their archived months, precomputed nights, consistency,
+ * cached buffer and degraded-mode values are dropped too; when the purge is done the cache
+ * snapshot is rewritten without them. Other instances drop their cached buffers within
+ * {@code sleep.cache.recent-nights.max-age} and their degraded-mode values within
+ * {@code sleep.fallback.max-age}. Deleting is idempotent, so a failed purge is retried by
+ * requesting it again.
+ */
+@Component
+@Profile("!reactive")
+public class UserPurgeService {
+
+    static final String JOB_NAME = "purge-users";
+    static final int MAX_USERS = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+
+    private final SleepLogRepository sleepLogRepository;
+    private final PrecomputedNightsRepository precomputedNightsRepository;
+    private final SleepConsistencyRepository sleepConsistencyRepository;
+    private final RecentNightsCache recentNightsCache;
+    private final UserPurgeRepository purgeRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final ObjectProvider<SleepLogArchiveRepository> archiveRepository;
+    private final ObjectProvider<RecentNightsSnapshot> snapshot;
+    private final ObjectProvider<LastKnownGoodReads> lastKnownGoodReads;
+    private final ObjectProvider<DatabaseLoad> databaseLoad;
+    private final int batchSize;
+    private final double maxNightsPerSecond;
+    private final Duration maxReplicationLag;
+    private final int maxLockWaits;
+    private final Duration pause;
+    private final Duration lease;
+    private final Duration retention;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sleep-purge-"));
+
+    public UserPurgeService(
+            SleepLogRepository sleepLogRepository,
+            PrecomputedNightsRepository precomputedNightsRepository,
+            SleepConsistencyRepository sleepConsistencyRepository,
+            RecentNightsCache recentNightsCache,
+            UserPurgeRepository purgeRepository,
+            JobCheckpointRepository checkpointRepository,
+            ObjectProvider<SleepLogArchiveRepository> archiveRepository,
+            ObjectProvider<RecentNightsSnapshot> snapshot,
+            ObjectProvider<LastKnownGoodReads> lastKnownGoodReads,
+            ObjectProvider<DatabaseLoad> databaseLoad,
+            @Value("${sleep.purge.batch-size:500}") int batchSize,
+            @Value("${sleep.purge.max-nights-per-second:5000}") double maxNightsPerSecond,
+            @Value("${sleep.purge.max-replication-lag:5s}") Duration maxReplicationLag,
+            @Value("${sleep.purge.max-lock-waits:5}") int maxLockWaits,
+            @Value("${sleep.purge.pause:1s}") Duration pause,
+            @Value("${sleep.purge.lease:5m}") Duration lease,
+            @Value("${sleep.purge.retention:90d}") Duration retention) {
+        this.sleepLogRepository = sleepLogRepository;
+        this.precomputedNightsRepository = precomputedNightsRepository;
+        this.sleepConsistencyRepository = sleepConsistencyRepository;
+        this.recentNightsCache = recentNightsCache;
+        this.purgeRepository = purgeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.archiveRepository = archiveRepository;
+        this.snapshot = snapshot;
+        this.lastKnownGoodReads = lastKnownGoodReads;
+        this.databaseLoad = databaseLoad;
+        this.batchSize = batchSize;
+        this.maxNightsPerSecond = maxNightsPerSecond;
+        this.maxReplicationLag = maxReplicationLag;
+        this.maxLockWaits = maxLockWaits;
+        this.pause = pause;
+        this.lease = lease;
+        this.retention = retention;
+    }
+
+    /**
+     * Stores a purge of the given users and starts running queued purges in the background.
+     *
+     * @throws IllegalArgumentException if there are no users, more than {@value #MAX_USERS}, or an id is not positive
+     */
+    public UserPurge.Progress start(List<Long> userIds) {
+        UserPurge purge = new UserPurge(validate(userIds));
+        purgeRepository.save(purge.job());
+        runQueuedInBackground();
+        return purge.progress();
+    }
+
+    public Optional<UserPurge.Progress> progress(String purgeId) {
+        return purgeRepository.findById(purgeId).map(UserPurge::new).map(UserPurge::progress);
+    }
+
+    @Scheduled(initialDelayString = "${sleep.purge.check-interval:PT1M}", fixedDelayString = "${sleep.purge.check-interval:PT1M}")
+    public void runIfDue() {
+        runQueuedInBackground();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs queued and interrupted purges, oldest first, unless another instance holds the lease.
+     */
+    void runQueued() {
+        queued.set(false);
+        if (purgeRepository.findOldestUnfinished().isEmpty()) {
+            return;
+        }
+        Optional<JobCheckpoint> claimed = checkpointRepository.claim(JOB_NAME, owner, lease);
+        if (claimed.isEmpty()) {
+            log.debug("Skipping {}, another instance holds its lease", JOB_NAME);
+            return;
+        }
+        try {
+            purgeRepository.deleteFinishedBefore(Instant.now().minus(retention));
+            Optional<PurgeJob> next;
+            while ((next = purgeRepository.findOldestUnfinished()).isPresent()) {
+                if (!run(new UserPurge(next.get()), claimed.get().forRun(next.get().id()))) {
+                    return;
+                }
+            }
+        } finally {
+            checkpointRepository.release(JOB_NAME, owner);
+        }
+    }
+
+    /**
+     * Purges the users not purged yet.
+     *
+     * @return whether to go on with the next purge; {@code false} if this one failed, was
+     *         interrupted or lost the lease
+     */
+    private boolean run(UserPurge purge, JobCheckpoint checkpoint) {
+        if (purge.purgedUsers() > 0) {
+            log.info("Resuming purge {} after {} users", purge.id(), purge.purgedUsers());
+        }
+        save(purge, PurgeJob.State.RUNNING);
+        long started = System.nanoTime();
+        Throttle throttle = new Throttle(maxNightsPerSecond);
+        try {
+            List<Long> userIds = purge.userIds();
+            for (int next = purge.purgedUsers(); next < userIds.size(); next++) {
+                if (!purgeUser(purge, userIds.get(next), throttle, checkpoint)) {
+                    log.warn("Purge {} lost the {} lease after {} users", purge.id(), JOB_NAME, purge.purgedUsers());
+                    return false;
+                }
+                purgeRepository.save(purge.job());
+            }
+            save(purge, PurgeJob.State.COMPLETED);
+            snapshot.ifAvailable(RecentNightsSnapshot::write);
+            log.info("Purge {} deleted {} nights of {} users in {} ms", purge.id(), purge.progress().deletedNights(),
+                    userIds.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+            return true;
+        } catch (InterruptedException exception) {
+            // left unfinished, so this or another instance resumes it
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (RuntimeException exception) {
+            log.warn("Purge {} failed after {} users", purge.id(), purge.purgedUsers(), exception);
+            purge.failed(exception.getMessage());
+            purgeRepository.save(purge.job());
+            return false;
+        }
+    }
+
+    private boolean purgeUser(UserPurge purge, Long userId, Throttle throttle, JobCheckpoint checkpoint) throws InterruptedException {
+        int deleted;
+        do {
+            if (!holdLease(purge, checkpoint) || !waitForLowLoad(purge, checkpoint)) {
+                return false;
+            }
+            deleted = sleepLogRepository.deleteOldestByUserId(userId, batchSize);
+            purge.deleted(deleted);
+            throttle.acquire(deleted);
+        } while (deleted == batchSize);
+        SleepLogArchiveRepository archive = archiveRepository.getIfAvailable();
+        if (archive != null) {
+            purge.deleted(archive.deleteByUserId(userId));
+        }
+        precomputedNightsRepository.deleteByUserId(userId);
+        sleepConsistencyRepository.deleteByUserId(userId);
+        recentNightsCache.invalidate(userId);
+        LastKnownGoodReads reads = lastKnownGoodReads.getIfAvailable();
+        if (reads != null) {
+            reads.invalidate(userId);
+        }
+        purge.purged();
+        return true;
+    }
+
+    private boolean waitForLowLoad(UserPurge purge, JobCheckpoint checkpoint) throws InterruptedException {
+        DatabaseLoad load = databaseLoad.getIfAvailable();
+        if (load == null) {
+            return true;
+        }
+        DatabaseLoad.Sample sample;
+        while ((sample = load.sample()).replicationLag().compareTo(maxReplicationLag) > 0 || sample.lockWaits() > maxLockWaits) {
+            if (purge.state() != PurgeJob.State.PAUSED) {
+                save(purge, PurgeJob.State.PAUSED);
+            }
+            log.debug("Purge {} paused, replication lag {} and {} lock waits", purge.id(), sample.replicationLag(), sample.lockWaits());
+            long pausedAt = System.nanoTime();
+            TimeUnit.NANOSECONDS.sleep(pause.toNanos());
+            purge.paused(System.nanoTime() - pausedAt);
+            if (!holdLease(purge, checkpoint)) {
+                return false;
+            }
+        }
+        if (purge.state() == PurgeJob.State.PAUSED) {
+            save(purge, PurgeJob.State.RUNNING);
+        }
+        return true;
+    }
+
+    private boolean holdLease(UserPurge purge, JobCheckpoint checkpoint) {
+        return checkpointRepository.advance(checkpoint.advancedTo(purge.purgedUsers()), owner, lease);
+    }
+
+    private void save(UserPurge purge, PurgeJob.State state) {
+        purge.state(state);
+        purgeRepository.save(purge.job());
+    }
+
+    private void runQueuedInBackground() {
+        if (queued.compareAndSet(false, true)) {
+            executor.execute(this::runQueued);
+        }
+    }
+
+    private static List<Long> validate(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("userIds must not be empty");
+        }
+        if (userIds.size() > MAX_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_USERS + " users can be purged at once");
+        }
+        if (userIds.stream().anyMatch(userId -> userId == null || userId <= 0)) {
+            throw new IllegalArgumentException("userIds must be positive");
+        }
+        return userIds.stream().distinct().toList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One user's nights of one month, moved out of {@code sleep_log} into {@code sleep_log_archive}.
+ *
+ * <p>The archive row holds the month's {@link SleepAggregate} sums, enough for averages over
+ * whole months, and the nights themselves as a compressed columnar blob, see {@link #encodeNights}.
+ *
+ * @param userId the user
+ * @param month  the month of the nights' sleep dates
+ * @param nights the nights, ordered by sleep date
+ */
+public record ArchivedMonth(long userId, YearMonth month, List<SleepLog> nights) {
+
+    private static final byte FORMAT = 1;
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    /**
+     * Returns this month with {@code newer} added; a newer night replaces an archived one of the same date.
+     */
+    public ArchivedMonth with(List<SleepLog> newer) {
+        Map<LocalDate, SleepLog> byDate = new TreeMap<>();
+        nights.forEach(night -> byDate.put(night.sleepDate(), night));
+        newer.forEach(night -> byDate.put(night.sleepDate(), night));
+        return new ArchivedMonth(userId, month, List.copyOf(byDate.values()));
+    }
+
+    /**
+     * Returns the sums over the month's nights, as stored in the archive row; no histogram is kept.
+     */
+    public SleepAggregate aggregate() {
+        SleepAggregate aggregate = SleepAggregate.withoutTimeInBedHistogram();
+        nights.forEach(aggregate::add);
+        return aggregate;
+    }
+
+    /**
+     * Encodes the nights column by column, each column holding one field of every night, and
+     * deflates the result. Neighbouring values of a column are alike (days of the month, bed time
+     * offsets, durations), which is what makes the columns compress well.
+     *
+     * <p>Times are kept to the microsecond like PostgreSQL {@code TIMESTAMP}s: bed time relative to
+     * the start of the sleep date, time in bed, and creation time relative to the bed time.
+     */
+    public byte[] encodeNights() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(FORMAT);
+            out.writeInt(nights.size());
+            for (SleepLog night : nights) {
+                out.writeLong(night.id());
+            }
+            for (SleepLog night : nights) {
+                out.writeByte(night.sleepDate().getDayOfMonth());
+            }
+            for (SleepLog night : nights) {
+                out.writeLong(ChronoUnit.MICROS.between(night.sleepDate().atStartOfDay(), night.bedTime()));
+            }
+            for (SleepLog night : nights) {
+                out.writeLong(ChronoUnit.MICROS.between(night.bedTime(), night.wakeTime()));
+            }
+            for (SleepLog night : nights) {
+                out.writeByte(night.morningFeeling().ordinal());
+            }
+            for (SleepLog night : nights) {
+                out.writeLong(night.createdAt() == null ? Long.MIN_VALUE : ChronoUnit.MICROS.between(night.bedTime(), night.createdAt()));
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes nights encoded by {@link #encodeNights}.
+     *
+     * @throws IllegalArgumentException if the blob is not a valid encoding
+     */
+    public static ArchivedMonth decode(long userId, YearMonth month, byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(encoded)))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalArgumentException("Unknown archive format for user " + userId + " in " + month);
+            }
+            int count = in.readInt();
+            if (count < 0 || count > month.lengthOfMonth()) {
+                throw new IllegalArgumentException("Invalid night count " + count + " for user " + userId + " in " + month);
+            }
+            long[] ids = new long[count];
+            LocalDate[] sleepDates = new LocalDate[count];
+            LocalDateTime[] bedTimes = new LocalDateTime[count];
+            LocalDateTime[] wakeTimes = new LocalDateTime[count];
+            MorningFeeling[] feelings = new MorningFeeling[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readLong();
+            }
+            for (int i = 0; i < count; i++) {
+                sleepDates[i] = month.atDay(in.readByte());
+            }
+            for (int i = 0; i < count; i++) {
+                bedTimes[i] = sleepDates[i].atStartOfDay().plus(in.readLong(), ChronoUnit.MICROS);
+            }
+            for (int i = 0; i < count; i++) {
+                wakeTimes[i] = bedTimes[i].plus(in.readLong(), ChronoUnit.MICROS);
+            }
+            for (int i = 0; i < count; i++) {
+                feelings[i] = FEELINGS[in.readByte()];
+            }
+            List<SleepLog> nights = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long createdAfterBed = in.readLong();
+                LocalDateTime createdAt = createdAfterBed == Long.MIN_VALUE ? null : bedTimes[i].plus(createdAfterBed, ChronoUnit.MICROS);
+                nights.add(new SleepLog(ids[i], userId, sleepDates[i], bedTimes[i], wakeTimes[i], feelings[i], createdAt));
+            }
+            return new ArchivedMonth(userId, month, nights);
+        } catch (IOException | RuntimeException exception) {
+            throw new IllegalArgumentException("Corrupt archive for user " + userId + " in " + month, exception);
+        }
+    }
+
+    /**
+     * Groups a user's nights by month.
+     */
+    public static List<ArchivedMonth> byMonth(long userId, List<SleepLog> nights) {
+        Map<YearMonth, List<SleepLog>> grouped = new TreeMap<>();
+        nights.stream()
+                .sorted(Comparator.comparing(SleepLog::sleepDate))
+                .forEach(night -> grouped.computeIfAbsent(YearMonth.from(night.sleepDate()), key -> new ArrayList<>()).add(night));
+        return grouped.entrySet().stream()
+                .map(entry -> new ArchivedMonth(userId, entry.getKey(), List.copyOf(entry.getValue())))
+                .toList();
+    }
+}
@@ -0,0 +1,34 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+/**
+ * A sum of doubles that carries the rounding error of every addition along (Neumaier's variant of
+ * Kahan summation), so that summing millions of sines and cosines stays accurate to the last few
+ * bits instead of drifting with the number of terms.
+ *
+ * <p>Partial sums can be merged; the result then depends on the order of the merges, which callers
+ * must keep fixed to get the same result every time. Not thread-safe.
+ */
+final class CompensatedSum {
+
+    private double sum;
+    private double compensation;
+
+    void add(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    void merge(CompensatedSum other) {
+        add(other.sum);
+        add(other.compensation);
+    }
+
+    double value() {
+        return sum + compensation;
+    }
+}
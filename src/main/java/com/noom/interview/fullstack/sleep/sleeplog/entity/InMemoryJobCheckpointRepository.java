@@ -0,0 +1,58 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link JobCheckpointRepository} keeping checkpoints in the JVM heap, active with the {@code in-memory} profile.
+ * Leases only exclude other owners within the same JVM.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryJobCheckpointRepository implements JobCheckpointRepository {
+
+    private final Map<String, Lease> leases = new HashMap<>();
+
+    @Override
+    public synchronized Optional<JobCheckpoint> find(String jobName) {
+        return Optional.ofNullable(leases.get(jobName)).map(Lease::checkpoint);
+    }
+
+    @Override
+    public synchronized Optional<JobCheckpoint> claim(String jobName, String owner, Duration lease) {
+        Lease current = leases.get(jobName);
+        long now = System.nanoTime();
+        if (current != null && current.owner != null && !current.owner.equals(owner) && current.untilNanos - now > 0) {
+            return Optional.empty();
+        }
+        JobCheckpoint checkpoint = current == null ? new JobCheckpoint(jobName, "", 0, false) : current.checkpoint;
+        leases.put(jobName, new Lease(checkpoint, owner, now + lease.toNanos()));
+        return Optional.of(checkpoint);
+    }
+
+    @Override
+    public synchronized boolean advance(JobCheckpoint checkpoint, String owner, Duration lease) {
+        Lease current = leases.get(checkpoint.jobName());
+        if (current == null || !owner.equals(current.owner)) {
+            return false;
+        }
+        leases.put(checkpoint.jobName(), new Lease(checkpoint, owner, System.nanoTime() + lease.toNanos()));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(String jobName, String owner) {
+        Lease current = leases.get(jobName);
+        if (current != null && owner.equals(current.owner)) {
+            leases.put(jobName, new Lease(current.checkpoint, null, 0));
+        }
+    }
+
+    private record Lease(JobCheckpoint checkpoint, String owner, long untilNanos) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link PrecomputedNightsRepository} keeping rows in the JVM heap, active with the {@code in-memory} profile.
+ *
+ * <p>Rows are kept as {@link RecentNights} records, so every read returns a fresh buffer as the
+ * JDBC implementation does. The check for changed logs reads the {@link SleepLogRepository}.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryPrecomputedNightsRepository implements PrecomputedNightsRepository {
+
+    private final SleepLogRepository sleepLogRepository;
+    private final ConcurrentHashMap<Long, Row> rows = new ConcurrentHashMap<>();
+
+    public InMemoryPrecomputedNightsRepository(SleepLogRepository sleepLogRepository) {
+        this.sleepLogRepository = sleepLogRepository;
+    }
+
+    @Override
+    public Optional<RecentNights> findByUserId(Long userId, LocalDate asOf) {
+        Row row = rows.get(userId);
+        if (row == null || !row.asOf.equals(asOf)) {
+            return Optional.empty();
+        }
+        return Optional.of(RecentNights.readFrom(ByteBuffer.wrap(row.record), row.capacity));
+    }
+
+    @Override
+    public int saveAll(List<PrecomputedNights> precomputed, LocalDate from, LocalDate asOf) {
+        int saved = 0;
+        for (PrecomputedNights row : precomputed) {
+            List<SleepLog> current = sleepLogRepository.findByUserIdAndDateRange(row.userId(), from, asOf);
+            long maxLogId = current.stream().mapToLong(SleepLog::id).max().orElse(0);
+            if (current.size() != row.nights().size() || maxLogId != row.maxLogId()) {
+                continue;
+            }
+            ByteBuffer record = ByteBuffer.allocate(RecentNights.recordBytes(row.nights().capacity()));
+            row.nights().writeTo(record);
+            rows.put(row.userId(), new Row(asOf, row.nights().capacity(), record.array()));
+            saved++;
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        rows.remove(userId);
+    }
+
+    @Override
+    public void deleteByUserIds(Collection<Long> userIds) {
+        userIds.forEach(rows::remove);
+    }
+
+    private record Row(LocalDate asOf, int capacity, byte[] record) {
+    }
+}
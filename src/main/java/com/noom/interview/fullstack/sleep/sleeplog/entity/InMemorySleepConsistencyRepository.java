@@ -0,0 +1,37 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SleepConsistencyRepository} keeping rows in the JVM heap, active with the {@code in-memory} profile.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemorySleepConsistencyRepository implements SleepConsistencyRepository {
+
+    private final ConcurrentHashMap<Long, SleepConsistency> rows = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<SleepConsistency> findByUserId(Long userId) {
+        return Optional.ofNullable(rows.get(userId));
+    }
+
+    @Override
+    public boolean save(SleepConsistency consistency) {
+        SleepConsistency stored = consistency.withVersion(consistency.version() + 1);
+        if (consistency.version() == 0) {
+            return rows.putIfAbsent(consistency.userId(), stored) == null;
+        }
+        SleepConsistency current = rows.get(consistency.userId());
+        return current != null && current.version() == consistency.version() && rows.replace(consistency.userId(), current, stored);
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        rows.remove(userId);
+    }
+}
@@ -0,0 +1,235 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SleepLogRepository} keeping all data in the JVM heap, active with the {@code in-memory} profile.
+ *
+ * <p>Meant for edge deployments, load tests and fast integration tests: nothing is persisted.
+ * Each user's nights live in a {@link PackedTimeline}; users are indexed by a {@link LongKeyedMap}.
+ * The map is split into lock stripes by user id, so readers share a stripe and writers only block
+ * users that hash to the same stripe. Like {@code uq_user_sleep_date}, a second log for the same
+ * user and sleep date is rejected.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemorySleepLogRepository implements SleepLogRepository {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong idSequence = new AtomicLong();
+
+    public InMemorySleepLogRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public SleepLog save(SleepLog sleepLog) {
+        Stripe stripe = stripeOf(sleepLog.userId());
+        stripe.lock.writeLock().lock();
+        try {
+            PackedTimeline timeline = stripe.timelines.computeIfAbsent(sleepLog.userId(), PackedTimeline::new);
+            SleepLog saved = timeline.insert(sleepLog, idSequence.incrementAndGet(), LocalDateTime.now());
+            if (saved == null) {
+                throw new DuplicateSleepLogException(
+                        "Sleep log already exists for user " + sleepLog.userId() + " on " + sleepLog.sleepDate(), null);
+            }
+            return saved;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<SleepLog> findByUserIdAndDate(Long userId, LocalDate sleepDate) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.readLock().lock();
+        try {
+            PackedTimeline timeline = stripe.timelines.get(userId);
+            return timeline == null ? Optional.empty() : Optional.ofNullable(timeline.find(sleepDate));
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SleepLog> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.readLock().lock();
+        try {
+            PackedTimeline timeline = stripe.timelines.get(userId);
+            return timeline == null ? List.of() : timeline.findRange(from, to);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SleepLog> findByUserIdsAndDateRange(Collection<Long> userIds, LocalDate from, LocalDate to) {
+        List<SleepLog> result = new ArrayList<>();
+        for (Long userId : userIds) {
+            result.addAll(findByUserIdAndDateRange(userId, from, to));
+        }
+        return result;
+    }
+
+    /**
+     * Scans every timeline; meant for batch jobs, not for request paths.
+     */
+    @Override
+    public List<Long> findActiveUserIds(LocalDate activeSince, long afterUserId, int limit) {
+        List<Long> result = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.timelines.forEachValue(timeline -> {
+                    if (timeline.userId() > afterUserId && timeline.hasNightAfter(activeSince)) {
+                        result.add(timeline.userId());
+                    }
+                });
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        result.sort(null);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @Override
+    public Optional<Long> findMaxUserId() {
+        long[] max = {Long.MIN_VALUE};
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.timelines.forEachValue(timeline -> max[0] = Math.max(max[0], timeline.userId()));
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return max[0] == Long.MIN_VALUE ? Optional.empty() : Optional.of(max[0]);
+    }
+
+    @Override
+    public List<SleepHistogramBucket> countByHistogramBucket(Long userId, LocalDate from, LocalDate to,
+                                                             SleepHistogramField field, long bucketSeconds) {
+        Map<Long, Long> counts = new TreeMap<>();
+        for (SleepLog sleepLog : findByUserIdAndDateRange(userId, from, to)) {
+            counts.merge(field.bucketOf(sleepLog, bucketSeconds), 1L, Long::sum);
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new SleepHistogramBucket(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    public Optional<SleepLogWatermark> findWatermark() {
+        long[] max = {0, Long.MIN_VALUE};
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.timelines.forEachValue(timeline -> {
+                    max[0] = Math.max(max[0], timeline.maxId());
+                    max[1] = Math.max(max[1], timeline.maxCreatedAtSeconds());
+                });
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        if (max[0] == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new SleepLogWatermark(max[0], LocalDateTime.ofEpochSecond(max[1], 0, ZoneOffset.UTC)));
+    }
+
+    /**
+     * Scans every timeline; meant for catching up after a restart, not for request paths.
+     */
+    @Override
+    public List<SleepLog> findWrittenAfter(long afterId, LocalDateTime createdAfter, int limit) {
+        List<SleepLog> result = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.timelines.forEachValue(timeline -> timeline.collectWrittenAfter(afterId, createdAfter, result));
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        result.sort(Comparator.comparing(SleepLog::id));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Scans every timeline, like {@link #findWrittenAfter}.
+     */
+    @Override
+    public List<Long> findUserIdsWrittenSince(LocalDateTime createdAfter, int limit) {
+        long afterSeconds = createdAfter.toEpochSecond(ZoneOffset.UTC);
+        List<long[]> written = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.timelines.forEachValue(timeline -> {
+                    long lastWritten = timeline.maxCreatedAtSeconds();
+                    if (lastWritten > afterSeconds) {
+                        written.add(new long[]{timeline.userId(), lastWritten});
+                    }
+                });
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return written.stream()
+                .sorted(Comparator.comparingLong((long[] user) -> user[1]).reversed())
+                .limit(limit)
+                .map(user -> user[0])
+                .toList();
+    }
+
+    @Override
+    public int deleteOldestByUserId(Long userId, int limit) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.writeLock().lock();
+        try {
+            PackedTimeline timeline = stripe.timelines.get(userId);
+            if (timeline == null) {
+                return 0;
+            }
+            int deleted = timeline.removeOldest(limit);
+            if (timeline.size() == 0) {
+                stripe.timelines.remove(userId);
+            }
+            return deleted;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    private Stripe stripeOf(long userId) {
+        return stripes[(int) (userId ^ (userId >>> 32)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final LongKeyedMap<PackedTimeline> timelines = new LongKeyedMap<>();
+    }
+}
@@ -0,0 +1,58 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link UserPurgeRepository} keeping purges in the JVM heap, active with the {@code in-memory} profile.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryUserPurgeRepository implements UserPurgeRepository {
+
+    private final ConcurrentHashMap<String, Stored> purges = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(PurgeJob purge) {
+        purges.put(purge.id(), new Stored(purge, LocalDateTime.now()));
+    }
+
+    @Override
+    public Optional<PurgeJob> findById(String id) {
+        return Optional.ofNullable(purges.get(id)).map(Stored::purge);
+    }
+
+    @Override
+    public Optional<PurgeJob> findOldestUnfinished() {
+        return purges.values().stream()
+                .map(Stored::purge)
+                .filter(purge -> !purge.finished())
+                .min(Comparator.comparing(PurgeJob::requestedAt));
+    }
+
+    @Override
+    public Set<Long> findUserIdsPurgedSince(LocalDateTime since) {
+        return purges.values().stream()
+                .filter(stored -> !stored.purge.finished() || !stored.updatedAt.isBefore(since))
+                .flatMap(stored -> stored.purge.userIds().stream())
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public int deleteFinishedBefore(Instant before) {
+        int sizeBefore = purges.size();
+        purges.values().removeIf(stored -> stored.purge.finished() && stored.purge.requestedAt().isBefore(before));
+        return sizeBefore - purges.size();
+    }
+
+    private record Stored(PurgeJob purge, LocalDateTime updatedAt) {
+    }
+}
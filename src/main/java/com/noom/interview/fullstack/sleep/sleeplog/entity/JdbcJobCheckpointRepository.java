@@ -0,0 +1,94 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link JobCheckpointRepository} backed by the {@code job_checkpoint} table. Lease times are taken
+ * from the database clock, so instances with skewed clocks agree on when a lease expires.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcJobCheckpointRepository implements JobCheckpointRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcJobCheckpointRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<JobCheckpoint> find(String jobName) {
+        return jdbc.query(FIND_CHECKPOINT, new MapSqlParameterSource("jobName", jobName), this::mapToCheckpoint)
+                .stream().findFirst();
+    }
+
+    @Override
+    public Optional<JobCheckpoint> claim(String jobName, String owner, Duration lease) {
+        return jdbc.query(CLAIM_LEASE, mapToLeaseParams(jobName, owner, lease), this::mapToCheckpoint)
+                .stream().findFirst();
+    }
+
+    @Override
+    public boolean advance(JobCheckpoint checkpoint, String owner, Duration lease) {
+        MapSqlParameterSource params = mapToLeaseParams(checkpoint.jobName(), owner, lease)
+                .addValue("runKey", checkpoint.runKey())
+                .addValue("position", checkpoint.position())
+                .addValue("completed", checkpoint.completed());
+        return jdbc.update(ADVANCE_CHECKPOINT, params) == 1;
+    }
+
+    @Override
+    public void release(String jobName, String owner) {
+        jdbc.update(RELEASE_LEASE, new MapSqlParameterSource()
+                .addValue("jobName", jobName)
+                .addValue("owner", owner));
+    }
+
+    private MapSqlParameterSource mapToLeaseParams(String jobName, String owner, Duration lease) {
+        return new MapSqlParameterSource()
+                .addValue("jobName", jobName)
+                .addValue("owner", owner)
+                .addValue("leaseSeconds", lease.toSeconds());
+    }
+
+    static final String FIND_CHECKPOINT = """
+            SELECT job_name, run_key, position, completed FROM job_checkpoint
+            WHERE job_name = :jobName
+            """;
+
+    // Inserts the first checkpoint or takes over a free lease; returns no row while another owner holds it
+    static final String CLAIM_LEASE = """
+            INSERT INTO job_checkpoint (job_name, run_key, position, completed, lease_owner, lease_until, updated_at)
+            VALUES (:jobName, '', 0, false, :owner, now() + make_interval(secs => :leaseSeconds), now())
+            ON CONFLICT (job_name) DO UPDATE
+            SET lease_owner = excluded.lease_owner, lease_until = excluded.lease_until
+            WHERE job_checkpoint.lease_owner IS NULL
+               OR job_checkpoint.lease_owner = excluded.lease_owner
+               OR job_checkpoint.lease_until < now()
+            RETURNING job_name, run_key, position, completed
+            """;
+
+    static final String ADVANCE_CHECKPOINT = """
+            UPDATE job_checkpoint
+            SET run_key = :runKey, position = :position, completed = :completed,
+                lease_until = now() + make_interval(secs => :leaseSeconds), updated_at = now()
+            WHERE job_name = :jobName AND lease_owner = :owner
+            """;
+
+    static final String RELEASE_LEASE = """
+            UPDATE job_checkpoint SET lease_owner = NULL, lease_until = NULL
+            WHERE job_name = :jobName AND lease_owner = :owner
+            """;
+
+    private JobCheckpoint mapToCheckpoint(ResultSet rs, int rowNum) throws SQLException {
+        return new JobCheckpoint(rs.getString("job_name"), rs.getString("run_key"), rs.getLong("position"), rs.getBoolean("completed"));
+    }
+}
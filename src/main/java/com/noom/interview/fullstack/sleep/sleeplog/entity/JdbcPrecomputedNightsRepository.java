@@ -0,0 +1,111 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link PrecomputedNightsRepository} backed by the {@code precomputed_recent_nights} table.
+ * Each row holds the user's buffer as a {@link RecentNights} record.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcPrecomputedNightsRepository implements PrecomputedNightsRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcPrecomputedNightsRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<RecentNights> findByUserId(Long userId, LocalDate asOf) {
+        return jdbc.query(FIND_BY_USER_ID, mapToFindParams(userId, asOf), this::mapToRecentNights).stream().findFirst();
+    }
+
+    @Override
+    public int saveAll(List<PrecomputedNights> precomputed, LocalDate from, LocalDate asOf) {
+        if (precomputed.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource[] params = precomputed.stream()
+                .map(row -> mapToSaveParams(row, from, asOf))
+                .toArray(MapSqlParameterSource[]::new);
+        int saved = 0;
+        for (int count : jdbc.batchUpdate(SAVE_IF_UNCHANGED, params)) {
+            saved += Math.max(count, 0);
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        jdbc.update(DELETE_BY_USER_ID, new MapSqlParameterSource("userId", userId));
+    }
+
+    @Override
+    public void deleteByUserIds(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            jdbc.update(DELETE_BY_USER_IDS, new MapSqlParameterSource("userIds", userIds));
+        }
+    }
+
+    private MapSqlParameterSource mapToFindParams(Long userId, LocalDate asOf) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("asOf", asOf);
+    }
+
+    private MapSqlParameterSource mapToSaveParams(PrecomputedNights row, LocalDate from, LocalDate asOf) {
+        RecentNights nights = row.nights();
+        ByteBuffer record = ByteBuffer.allocate(RecentNights.recordBytes(nights.capacity()));
+        nights.writeTo(record);
+        return new MapSqlParameterSource()
+                .addValue("userId", row.userId())
+                .addValue("from", from)
+                .addValue("asOf", asOf)
+                .addValue("capacity", nights.capacity())
+                .addValue("recentNights", record.array())
+                .addValue("nights", nights.size())
+                .addValue("maxLogId", row.maxLogId());
+    }
+
+    static final String FIND_BY_USER_ID = """
+            SELECT capacity, recent_nights FROM precomputed_recent_nights
+            WHERE user_id = :userId AND as_of = :asOf
+            """;
+
+    // The aggregate without GROUP BY yields one row, or none once HAVING rejects it, so the row is
+    // only written while the user's logs in the window are still the ones the nights were built from
+    static final String SAVE_IF_UNCHANGED = """
+            INSERT INTO precomputed_recent_nights (user_id, as_of, capacity, recent_nights, computed_at)
+            SELECT :userId, :asOf, :capacity, :recentNights, now()
+            FROM sleep_log
+            WHERE user_id = :userId AND sleep_date > :from AND sleep_date <= :asOf
+            HAVING count(*) = :nights AND coalesce(max(id), 0) = :maxLogId
+            ON CONFLICT (user_id) DO UPDATE
+            SET as_of = excluded.as_of, capacity = excluded.capacity,
+                recent_nights = excluded.recent_nights, computed_at = excluded.computed_at
+            """;
+
+    static final String DELETE_BY_USER_ID = """
+            DELETE FROM precomputed_recent_nights WHERE user_id = :userId
+            """;
+
+    static final String DELETE_BY_USER_IDS = """
+            DELETE FROM precomputed_recent_nights WHERE user_id IN (:userIds)
+            """;
+
+    private RecentNights mapToRecentNights(ResultSet rs, int rowNum) throws SQLException {
+        return RecentNights.readFrom(ByteBuffer.wrap(rs.getBytes("recent_nights")), rs.getInt("capacity"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SleepConsistencyRepository} backed by the {@code sleep_consistency} table, one row per
+ * user with a {@code version} column for the compare-and-set in {@link #save}.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcSleepConsistencyRepository implements SleepConsistencyRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcSleepConsistencyRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<SleepConsistency> findByUserId(Long userId) {
+        return jdbc.query(FIND_BY_USER_ID, new MapSqlParameterSource("userId", userId), this::mapToConsistency).stream().findFirst();
+    }
+
+    @Override
+    public boolean save(SleepConsistency consistency) {
+        String sql = consistency.version() == 0 ? INSERT_IF_ABSENT : UPDATE_IF_UNCHANGED;
+        return jdbc.update(sql, mapToSaveParams(consistency)) == 1;
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        jdbc.update(DELETE_BY_USER_ID, new MapSqlParameterSource("userId", userId));
+    }
+
+    private MapSqlParameterSource mapToSaveParams(SleepConsistency consistency) {
+        return new MapSqlParameterSource()
+                .addValue("userId", consistency.userId())
+                .addValue("version", consistency.version())
+                .addValue("nights", consistency.nights())
+                .addValue("firstDate", consistency.firstDate())
+                .addValue("firstSecondsInBed", consistency.firstSecondsInBed())
+                .addValue("firstStreak", consistency.firstStreak())
+                .addValue("lastDate", consistency.lastDate())
+                .addValue("lastSecondsInBed", consistency.lastSecondsInBed())
+                .addValue("lastStreak", consistency.lastStreak())
+                .addValue("longestStreak", consistency.longestStreak())
+                .addValue("bedTimeSinSum", consistency.bedTimeSinSum())
+                .addValue("bedTimeCosSum", consistency.bedTimeCosSum())
+                .addValue("wakeTimeSinSum", consistency.wakeTimeSinSum())
+                .addValue("wakeTimeCosSum", consistency.wakeTimeCosSum())
+                .addValue("weekdayNights", consistency.weekdayNights())
+                .addValue("weekdayMidSleepSinSum", consistency.weekdayMidSleepSinSum())
+                .addValue("weekdayMidSleepCosSum", consistency.weekdayMidSleepCosSum())
+                .addValue("weekendNights", consistency.weekendNights())
+                .addValue("weekendMidSleepSinSum", consistency.weekendMidSleepSinSum())
+                .addValue("weekendMidSleepCosSum", consistency.weekendMidSleepCosSum())
+                .addValue("consecutivePairs", consistency.consecutivePairs())
+                .addValue("timeInBedChangeSeconds", consistency.timeInBedChangeSeconds());
+    }
+
+    static final String FIND_BY_USER_ID = """
+            SELECT * FROM sleep_consistency WHERE user_id = :userId
+            """;
+
+    static final String INSERT_IF_ABSENT = """
+            INSERT INTO sleep_consistency (user_id, version, nights, first_date, first_seconds_in_bed, first_streak,
+                                           last_date, last_seconds_in_bed, last_streak, longest_streak,
+                                           bed_time_sin_sum, bed_time_cos_sum, wake_time_sin_sum, wake_time_cos_sum,
+                                           weekday_nights, weekday_mid_sleep_sin_sum, weekday_mid_sleep_cos_sum,
+                                           weekend_nights, weekend_mid_sleep_sin_sum, weekend_mid_sleep_cos_sum,
+                                           consecutive_pairs, time_in_bed_change_seconds, updated_at)
+            VALUES (:userId, 1, :nights, :firstDate, :firstSecondsInBed, :firstStreak,
+                    :lastDate, :lastSecondsInBed, :lastStreak, :longestStreak,
+                    :bedTimeSinSum, :bedTimeCosSum, :wakeTimeSinSum, :wakeTimeCosSum,
+                    :weekdayNights, :weekdayMidSleepSinSum, :weekdayMidSleepCosSum,
+                    :weekendNights, :weekendMidSleepSinSum, :weekendMidSleepCosSum,
+                    :consecutivePairs, :timeInBedChangeSeconds, now())
+            ON CONFLICT (user_id) DO NOTHING
+            """;
+
+    static final String UPDATE_IF_UNCHANGED = """
+            UPDATE sleep_consistency
+            SET version = version + 1, nights = :nights,
+                first_date = :firstDate, first_seconds_in_bed = :firstSecondsInBed, first_streak = :firstStreak,
+                last_date = :lastDate, last_seconds_in_bed = :lastSecondsInBed,
+                last_streak = :lastStreak, longest_streak = :longestStreak,
+                bed_time_sin_sum = :bedTimeSinSum, bed_time_cos_sum = :bedTimeCosSum,
+                wake_time_sin_sum = :wakeTimeSinSum, wake_time_cos_sum = :wakeTimeCosSum,
+                weekday_nights = :weekdayNights, weekday_mid_sleep_sin_sum = :weekdayMidSleepSinSum,
+                weekday_mid_sleep_cos_sum = :weekdayMidSleepCosSum,
+                weekend_nights = :weekendNights, weekend_mid_sleep_sin_sum = :weekendMidSleepSinSum,
+                weekend_mid_sleep_cos_sum = :weekendMidSleepCosSum,
+                consecutive_pairs = :consecutivePairs, time_in_bed_change_seconds = :timeInBedChangeSeconds,
+                updated_at = now()
+            WHERE user_id = :userId AND version = :version
+            """;
+
+    static final String DELETE_BY_USER_ID = """
+            DELETE FROM sleep_consistency WHERE user_id = :userId
+            """;
+
+    private SleepConsistency mapToConsistency(ResultSet rs, int rowNum) throws SQLException {
+        Date firstDate = rs.getDate("first_date");
+        Date lastDate = rs.getDate("last_date");
+        return new SleepConsistency(
+                rs.getLong("user_id"),
+                rs.getLong("version"),
+                rs.getInt("nights"),
+                firstDate == null ? null : firstDate.toLocalDate(),
+                rs.getLong("first_seconds_in_bed"),
+                rs.getInt("first_streak"),
+                lastDate == null ? null : lastDate.toLocalDate(),
+                rs.getLong("last_seconds_in_bed"),
+                rs.getInt("last_streak"),
+                rs.getInt("longest_streak"),
+                rs.getDouble("bed_time_sin_sum"),
+                rs.getDouble("bed_time_cos_sum"),
+                rs.getDouble("wake_time_sin_sum"),
+                rs.getDouble("wake_time_cos_sum"),
+                rs.getInt("weekday_nights"),
+                rs.getDouble("weekday_mid_sleep_sin_sum"),
+                rs.getDouble("weekday_mid_sleep_cos_sum"),
+                rs.getInt("weekend_nights"),
+                rs.getDouble("weekend_mid_sleep_sin_sum"),
+                rs.getDouble("weekend_mid_sleep_cos_sum"),
+                rs.getInt("consecutive_pairs"),
+                rs.getLong("time_in_bed_change_seconds"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link SleepLogArchiveRepository} moving rows from {@code sleep_log} into {@code sleep_log_archive}.
+ *
+ * <p>Each call locks at most {@code limit} rows of one user, so online writes to other rows never
+ * wait on it and the user's own writes wait for one small transaction at most.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcSleepLogArchiveRepository implements SleepLogArchiveRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+
+    public JdbcSleepLogArchiveRepository(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public List<Long> findUserIdsWithNightsBefore(LocalDate before, long afterUserId, int limit) {
+        return jdbc.queryForList(FIND_USER_IDS_WITH_NIGHTS_BEFORE, new MapSqlParameterSource()
+                .addValue("before", before)
+                .addValue("afterUserId", afterUserId)
+                .addValue("limit", limit), Long.class);
+    }
+
+    @Override
+    public int archive(Long userId, LocalDate before, int limit) {
+        Integer moved = transactions.execute(status -> {
+            List<SleepLog> nights = jdbc.query(LOCK_NIGHTS_BEFORE, new MapSqlParameterSource()
+                    .addValue("userId", userId)
+                    .addValue("before", before)
+                    .addValue("limit", limit), JdbcSleepLogRepository::mapToSleepLog);
+            if (nights.isEmpty()) {
+                return 0;
+            }
+            List<ArchivedMonth> months = ArchivedMonth.byMonth(userId, nights);
+            Map<YearMonth, ArchivedMonth> archived = lockArchivedMonths(userId, months);
+            MapSqlParameterSource[] upserts = months.stream()
+                    .map(month -> archived.containsKey(month.month()) ? archived.get(month.month()).with(month.nights()) : month)
+                    .map(this::mapToUpsertParams)
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbc.batchUpdate(UPSERT_ARCHIVED_MONTH, upserts);
+            jdbc.update(DELETE_NIGHTS, new MapSqlParameterSource("ids", nights.stream().map(SleepLog::id).toList()));
+            return nights.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    @Override
+    public int deleteByUserId(Long userId) {
+        return jdbc.queryForList(DELETE_BY_USER_ID, new MapSqlParameterSource("userId", userId), Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private Map<YearMonth, ArchivedMonth> lockArchivedMonths(Long userId, List<ArchivedMonth> months) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("months", months.stream().map(month -> month.month().atDay(1)).toList());
+        return jdbc.query(LOCK_ARCHIVED_MONTHS, params, (rs, rowNum) -> mapToArchivedMonth(rs, userId)).stream()
+                .collect(Collectors.toMap(ArchivedMonth::month, Function.identity()));
+    }
+
+    private MapSqlParameterSource mapToUpsertParams(ArchivedMonth month) {
+        SleepAggregate aggregate = month.aggregate();
+        return new MapSqlParameterSource()
+                .addValue("userId", month.userId())
+                .addValue("month", month.month().atDay(1))
+                .addValue("nights", aggregate.count())
+                .addValue("totalSecondsInBed", aggregate.totalSecondsInBed())
+                .addValue("bedTimeSinSum", aggregate.bedTimeSinSum())
+                .addValue("bedTimeCosSum", aggregate.bedTimeCosSum())
+                .addValue("wakeTimeSinSum", aggregate.wakeTimeSinSum())
+                .addValue("wakeTimeCosSum", aggregate.wakeTimeCosSum())
+                .addValue("badNights", aggregate.morningFeelingCount(MorningFeeling.BAD))
+                .addValue("okNights", aggregate.morningFeelingCount(MorningFeeling.OK))
+                .addValue("goodNights", aggregate.morningFeelingCount(MorningFeeling.GOOD))
+                .addValue("archivedNights", month.encodeNights());
+    }
+
+    // A loose index scan over uq_user_sleep_date like JdbcSleepLogRepository.FIND_ACTIVE_USER_IDS
+    static final String FIND_USER_IDS_WITH_NIGHTS_BEFORE = """
+            WITH RECURSIVE user_ids AS (
+                (SELECT user_id FROM sleep_log WHERE user_id > :afterUserId ORDER BY user_id LIMIT 1)
+                UNION ALL
+                SELECT (SELECT later.user_id FROM sleep_log later
+                        WHERE later.user_id > user_ids.user_id ORDER BY later.user_id LIMIT 1)
+                FROM user_ids
+                WHERE user_ids.user_id IS NOT NULL
+            )
+            SELECT user_id FROM user_ids
+            WHERE user_id IS NOT NULL
+              AND EXISTS (SELECT 1 FROM sleep_log old
+                          WHERE old.user_id = user_ids.user_id AND old.sleep_date < :before)
+            LIMIT :limit
+            """;
+
+    static final String LOCK_NIGHTS_BEFORE = """
+            SELECT * FROM sleep_log
+            WHERE user_id = :userId AND sleep_date < :before
+            ORDER BY sleep_date
+            LIMIT :limit
+            FOR UPDATE
+            """;
+
+    static final String LOCK_ARCHIVED_MONTHS = """
+            SELECT month, archived_nights FROM sleep_log_archive
+            WHERE user_id = :userId AND month IN (:months)
+            FOR UPDATE
+            """;
+
+    static final String UPSERT_ARCHIVED_MONTH = """
+            INSERT INTO sleep_log_archive (user_id, month, nights, total_seconds_in_bed,
+                                           bed_time_sin_sum, bed_time_cos_sum, wake_time_sin_sum, wake_time_cos_sum,
+                                           bad_nights, ok_nights, good_nights, archived_nights, archived_at)
+            VALUES (:userId, :month, :nights, :totalSecondsInBed,
+                    :bedTimeSinSum, :bedTimeCosSum, :wakeTimeSinSum, :wakeTimeCosSum,
+                    :badNights, :okNights, :goodNights, :archivedNights, now())
+            ON CONFLICT (user_id, month) DO UPDATE
+            SET nights = excluded.nights, total_seconds_in_bed = excluded.total_seconds_in_bed,
+                bed_time_sin_sum = excluded.bed_time_sin_sum, bed_time_cos_sum = excluded.bed_time_cos_sum,
+                wake_time_sin_sum = excluded.wake_time_sin_sum, wake_time_cos_sum = excluded.wake_time_cos_sum,
+                bad_nights = excluded.bad_nights, ok_nights = excluded.ok_nights, good_nights = excluded.good_nights,
+                archived_nights = excluded.archived_nights, archived_at = excluded.archived_at
+            """;
+
+    static final String DELETE_NIGHTS = """
+            DELETE FROM sleep_log WHERE id IN (:ids)
+            """;
+
+    static final String DELETE_BY_USER_ID = """
+            DELETE FROM sleep_log_archive WHERE user_id = :userId RETURNING nights
+            """;
+
+    private ArchivedMonth mapToArchivedMonth(ResultSet rs, long userId) throws SQLException {
+        return ArchivedMonth.decode(userId, YearMonth.from(rs.getDate("month").toLocalDate()), rs.getBytes("archived_nights"));
+    }
+}
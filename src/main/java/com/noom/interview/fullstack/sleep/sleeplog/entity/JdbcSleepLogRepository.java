@@ -0,0 +1,365 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SleepLogRepository} backed by PostgreSQL through {@link NamedParameterJdbcTemplate}.
+ * This is the default storage engine.
+ *
+ * <p>Range queries and histograms also read the months moved to {@code sleep_log_archive} by
+ * {@link JdbcSleepLogArchiveRepository}, so callers see no difference between hot and archived nights.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcSleepLogRepository implements SleepLogRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcSleepLogRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public SleepLog save(SleepLog sleepLog) {
+        try {
+            return jdbc.queryForObject(INSERT_SLEEP_LOG, mapToInsertParams(sleepLog), JdbcSleepLogRepository::mapToSleepLog);
+        } catch (DuplicateKeyException exception) {
+            throw new DuplicateSleepLogException(
+                    "Sleep log already exists for user " + sleepLog.userId() + " on " + sleepLog.sleepDate(), exception);
+        }
+    }
+
+    @Override
+    public Optional<SleepLog> findByUserIdAndDate(Long userId, LocalDate sleepDate) {
+        try {
+            SleepLog sleepLog = jdbc.queryForObject(FIND_BY_USER_ID_AND_DATE, mapToFindByUserParams(userId, sleepDate), JdbcSleepLogRepository::mapToSleepLog);
+            return Optional.ofNullable(sleepLog);
+        } catch (EmptyResultDataAccessException exception) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<SleepLog> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to) {
+        return jdbc.query(FIND_BY_USER_ID_AND_DATE_RANGE, mapToFindByUserDateRangeParams(userId, from, to),
+                (ResultSet rs) -> mapToSleepLogsWithArchived(rs, from, to));
+    }
+
+    @Override
+    public List<SleepLog> findByUserIdsAndDateRange(Collection<Long> userIds, LocalDate from, LocalDate to) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query(FIND_BY_USER_IDS_AND_DATE_RANGE, mapToFindByUsersDateRangeParams(userIds, from, to), JdbcSleepLogRepository::mapToSleepLog);
+    }
+
+    @Override
+    public List<Long> findActiveUserIds(LocalDate activeSince, long afterUserId, int limit) {
+        return jdbc.queryForList(FIND_ACTIVE_USER_IDS, mapToActiveUserParams(activeSince, afterUserId, limit), Long.class);
+    }
+
+    @Override
+    public Optional<Long> findMaxUserId() {
+        return Optional.ofNullable(jdbc.queryForObject(FIND_MAX_USER_ID, new MapSqlParameterSource(), Long.class));
+    }
+
+    @Override
+    public List<SleepHistogramBucket> countByHistogramBucket(Long userId, LocalDate from, LocalDate to,
+                                                             SleepHistogramField field, long bucketSeconds) {
+        String sql = field.isClockTime() ? COUNT_BY_CLOCK_TIME_BUCKET : COUNT_BY_TIME_IN_BED_BUCKET;
+        return jdbc.query(sql, mapToHistogramParams(userId, from, to, field, bucketSeconds),
+                (ResultSet rs) -> mapToHistogramBucketsWithArchived(rs, userId, from, to, field, bucketSeconds));
+    }
+
+    @Override
+    public Optional<SleepLogWatermark> findWatermark() {
+        return jdbc.queryForObject(FIND_WATERMARK, new MapSqlParameterSource(), this::mapToWatermark);
+    }
+
+    @Override
+    public List<SleepLog> findWrittenAfter(long afterId, LocalDateTime createdAfter, int limit) {
+        return jdbc.query(FIND_WRITTEN_AFTER, mapToWrittenAfterParams(afterId, createdAfter, limit), JdbcSleepLogRepository::mapToSleepLog);
+    }
+
+    @Override
+    public List<Long> findUserIdsWrittenSince(LocalDateTime createdAfter, int limit) {
+        return jdbc.queryForList(FIND_USER_IDS_WRITTEN_SINCE, new MapSqlParameterSource()
+                .addValue("createdAfter", createdAfter)
+                .addValue("limit", limit), Long.class);
+    }
+
+    @Override
+    public int deleteOldestByUserId(Long userId, int limit) {
+        return jdbc.update(DELETE_OLDEST_BY_USER_ID, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("limit", limit));
+    }
+
+    private MapSqlParameterSource mapToInsertParams(SleepLog sleepLog) {
+        return new MapSqlParameterSource()
+                .addValue("userId", sleepLog.userId())
+                .addValue("sleepDate", sleepLog.sleepDate())
+                .addValue("bedTime", sleepLog.bedTime())
+                .addValue("wakeTime", sleepLog.wakeTime())
+                .addValue("morningFeeling", sleepLog.morningFeeling().name());
+    }
+
+    private MapSqlParameterSource mapToFindByUserParams(Long userId, LocalDate sleepDate) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("sleepDate", sleepDate);
+    }
+
+    private MapSqlParameterSource mapToFindByUserDateRangeParams(Long userId, LocalDate from, LocalDate to) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("from", from)
+                .addValue("to", to);
+    }
+
+    private MapSqlParameterSource mapToFindByUsersDateRangeParams(Collection<Long> userIds, LocalDate from, LocalDate to) {
+        return new MapSqlParameterSource()
+                .addValue("userIds", userIds)
+                .addValue("from", from)
+                .addValue("to", to);
+    }
+
+    private MapSqlParameterSource mapToActiveUserParams(LocalDate activeSince, long afterUserId, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("activeSince", activeSince)
+                .addValue("afterUserId", afterUserId)
+                .addValue("limit", limit);
+    }
+
+    private MapSqlParameterSource mapToHistogramParams(Long userId, LocalDate from, LocalDate to,
+                                                       SleepHistogramField field, long bucketSeconds) {
+        return mapToFindByUserDateRangeParams(userId, from, to)
+                .addValue("wakeTime", field == SleepHistogramField.WAKE_TIME)
+                .addValue("originSecond", field.isClockTime() ? field.origin().toSecondOfDay() : 0)
+                .addValue("bucketSeconds", bucketSeconds);
+    }
+
+    private MapSqlParameterSource mapToWrittenAfterParams(long afterId, LocalDateTime createdAfter, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("createdAfter", createdAfter)
+                .addValue("limit", limit);
+    }
+
+    static final String INSERT_SLEEP_LOG = """
+            INSERT INTO sleep_log (user_id, sleep_date, bed_time, wake_time, morning_feeling)
+            VALUES (:userId, :sleepDate, :bedTime, :wakeTime, :morningFeeling)
+            RETURNING *
+            """;
+
+    static final String FIND_BY_USER_ID_AND_DATE = """
+            SELECT * FROM sleep_log
+            WHERE user_id = :userId AND sleep_date = :sleepDate
+            """;
+
+    // Archived months come back as one row each, keyed by their first day; a month starting more
+    // than 31 days before the range cannot overlap it. One statement, so a month being archived
+    // meanwhile is seen either in sleep_log or in the archive, never in both or neither.
+    static final String FIND_BY_USER_ID_AND_DATE_RANGE = """
+            SELECT id, user_id, sleep_date, bed_time, wake_time, morning_feeling, created_at, NULL::bytea AS archived_nights
+            FROM sleep_log
+            WHERE user_id = :userId AND sleep_date > :from AND sleep_date <= :to
+            UNION ALL
+            SELECT NULL, user_id, month, NULL, NULL, NULL, NULL, archived_nights
+            FROM sleep_log_archive
+            WHERE user_id = :userId AND month > CAST(:from AS date) - 31 AND month <= :to
+            """;
+
+    static final String FIND_BY_USER_IDS_AND_DATE_RANGE = """
+            SELECT * FROM sleep_log
+            WHERE user_id IN (:userIds) AND sleep_date > :from AND sleep_date <= :to
+            """;
+
+    // PostgreSQL 13 has no skip scan, so the distinct user ids are walked one index descent at a
+    // time (a loose index scan); the recursion yields them in ascending order and stops at the limit
+    static final String FIND_ACTIVE_USER_IDS = """
+            WITH RECURSIVE user_ids AS (
+                (SELECT user_id FROM sleep_log WHERE user_id > :afterUserId ORDER BY user_id LIMIT 1)
+                UNION ALL
+                SELECT (SELECT later.user_id FROM sleep_log later
+                        WHERE later.user_id > user_ids.user_id ORDER BY later.user_id LIMIT 1)
+                FROM user_ids
+                WHERE user_ids.user_id IS NOT NULL
+            )
+            SELECT user_id FROM user_ids
+            WHERE user_id IS NOT NULL
+              AND EXISTS (SELECT 1 FROM sleep_log recent
+                          WHERE recent.user_id = user_ids.user_id AND recent.sleep_date > :activeSince)
+            LIMIT :limit
+            """;
+
+    static final String FIND_MAX_USER_ID = """
+            SELECT max(user_id) FROM sleep_log
+            """;
+
+    // Second of day shifted to the field's origin and wrapped into [0, 86400), so a bucket never
+    // straddles the origin and buckets on either side of midnight are adjacent for bed times
+    // Archived months overlapping the range are returned whole and counted by the caller,
+    // see FIND_BY_USER_ID_AND_DATE_RANGE
+    static final String COUNT_BY_CLOCK_TIME_BUCKET = """
+            SELECT ((floor(extract(EPOCH FROM CAST(CASE WHEN :wakeTime THEN wake_time ELSE bed_time END AS time)))::bigint
+                        - :originSecond + 86400) % 86400) / :bucketSeconds AS bucket,
+                   count(*) AS nights, NULL::date AS month, NULL::bytea AS archived_nights
+            FROM sleep_log
+            WHERE user_id = :userId AND sleep_date > :from AND sleep_date <= :to
+            GROUP BY bucket
+            UNION ALL
+            SELECT NULL, NULL, month, archived_nights
+            FROM sleep_log_archive
+            WHERE user_id = :userId AND month > CAST(:from AS date) - 31 AND month <= :to
+            """;
+
+    static final String COUNT_BY_TIME_IN_BED_BUCKET = """
+            SELECT least(floor(extract(EPOCH FROM wake_time - bed_time))::bigint, 86400) / :bucketSeconds AS bucket,
+                   count(*) AS nights, NULL::date AS month, NULL::bytea AS archived_nights
+            FROM sleep_log
+            WHERE user_id = :userId AND sleep_date > :from AND sleep_date <= :to
+            GROUP BY bucket
+            UNION ALL
+            SELECT NULL, NULL, month, archived_nights
+            FROM sleep_log_archive
+            WHERE user_id = :userId AND month > CAST(:from AS date) - 31 AND month <= :to
+            """;
+
+    static final String FIND_WATERMARK = """
+            SELECT max(id) AS id, max(created_at) AS created_at FROM sleep_log
+            """;
+
+    // A UNION rather than OR, so that each condition is answered by its own index
+    static final String FIND_WRITTEN_AFTER = """
+            SELECT * FROM (
+                SELECT * FROM sleep_log WHERE id > :afterId
+                UNION
+                SELECT * FROM sleep_log WHERE created_at > :createdAfter
+            ) AS written
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    // Walks idx_sleep_log_created_at over the recent writes only; most recently active first, so
+    // the limit keeps the users likeliest to come back
+    static final String FIND_USER_IDS_WRITTEN_SINCE = """
+            SELECT user_id FROM sleep_log
+            WHERE created_at > :createdAfter
+            GROUP BY user_id
+            ORDER BY max(created_at) DESC
+            LIMIT :limit
+            """;
+
+    // Keyed on (user_id, sleep_date) so both sides walk uq_user_sleep_date and each statement locks
+    // at most :limit rows of one user
+    static final String DELETE_OLDEST_BY_USER_ID = """
+            DELETE FROM sleep_log
+            WHERE user_id = :userId
+              AND sleep_date IN (SELECT sleep_date FROM sleep_log WHERE user_id = :userId ORDER BY sleep_date LIMIT :limit)
+            """;
+
+    static SleepLog mapToSleepLog(ResultSet rs, int rowNum) throws SQLException {
+        return new SleepLog(
+                rs.getLong(Column.ID),
+                rs.getLong(Column.USER_ID),
+                rs.getDate(Column.SLEEP_DATE).toLocalDate(),
+                rs.getTimestamp(Column.BED_TIME).toLocalDateTime(),
+                rs.getTimestamp(Column.WAKE_TIME).toLocalDateTime(),
+                MorningFeeling.valueOf(rs.getString(Column.MORNING_FEELING)),
+                rs.getTimestamp(Column.CREATED_AT).toLocalDateTime()
+        );
+    }
+
+    private List<SleepLog> mapToSleepLogsWithArchived(ResultSet rs, LocalDate from, LocalDate to) throws SQLException {
+        List<SleepLog> sleepLogs = new ArrayList<>();
+        List<SleepLog> archivedNights = new ArrayList<>();
+        while (rs.next()) {
+            byte[] archived = rs.getBytes(Column.ARCHIVED_NIGHTS);
+            if (archived == null) {
+                sleepLogs.add(mapToSleepLog(rs, sleepLogs.size()));
+            } else {
+                archivedNights.addAll(archivedNights(rs.getLong(Column.USER_ID), rs.getDate(Column.SLEEP_DATE).toLocalDate(), archived, from, to));
+            }
+        }
+        return withArchivedNights(sleepLogs, archivedNights);
+    }
+
+    /**
+     * Decodes the nights of an archived month row of {@link #FIND_BY_USER_ID_AND_DATE_RANGE} that
+     * fall in the range.
+     */
+    static List<SleepLog> archivedNights(long userId, LocalDate month, byte[] archived, LocalDate from, LocalDate to) {
+        return ArchivedMonth.decode(userId, YearMonth.from(month), archived).nights().stream()
+                .filter(night -> night.sleepDate().isAfter(from) && !night.sleepDate().isAfter(to))
+                .toList();
+    }
+
+    // A night logged for an archived date stays in sleep_log until it is archived in turn, and
+    // replaces the archived one meanwhile, as it will then
+    static List<SleepLog> withArchivedNights(List<SleepLog> sleepLogs, List<SleepLog> archivedNights) {
+        if (!archivedNights.isEmpty()) {
+            Set<LocalDate> hotDates = sleepLogs.stream().map(SleepLog::sleepDate).collect(Collectors.toSet());
+            archivedNights.stream().filter(night -> !hotDates.contains(night.sleepDate())).forEach(sleepLogs::add);
+        }
+        return sleepLogs;
+    }
+
+    private List<SleepHistogramBucket> mapToHistogramBucketsWithArchived(ResultSet rs, Long userId, LocalDate from, LocalDate to,
+                                                                          SleepHistogramField field, long bucketSeconds) throws SQLException {
+        Map<Long, Long> counts = new TreeMap<>();
+        while (rs.next()) {
+            byte[] archived = rs.getBytes(Column.ARCHIVED_NIGHTS);
+            if (archived == null) {
+                counts.merge(rs.getLong("bucket"), rs.getLong("nights"), Long::sum);
+            } else {
+                YearMonth month = YearMonth.from(rs.getDate("month").toLocalDate());
+                ArchivedMonth.decode(userId, month, archived).nights().stream()
+                        .filter(night -> night.sleepDate().isAfter(from) && !night.sleepDate().isAfter(to))
+                        .forEach(night -> counts.merge(field.bucketOf(night, bucketSeconds), 1L, Long::sum));
+            }
+        }
+        return counts.entrySet().stream()
+                .map(count -> new SleepHistogramBucket(count.getKey(), count.getValue()))
+                .toList();
+    }
+
+    private Optional<SleepLogWatermark> mapToWatermark(ResultSet rs, int rowNum) throws SQLException {
+        long id = rs.getLong(Column.ID);
+        if (rs.wasNull()) {
+            return Optional.empty();
+        }
+        return Optional.of(new SleepLogWatermark(id, rs.getTimestamp(Column.CREATED_AT).toLocalDateTime()));
+    }
+
+    static class Column {
+        static final String ID = "id";
+        static final String USER_ID = "user_id";
+        static final String SLEEP_DATE = "sleep_date";
+        static final String BED_TIME = "bed_time";
+        static final String WAKE_TIME = "wake_time";
+        static final String MORNING_FEELING = "morning_feeling";
+        static final String CREATED_AT = "created_at";
+        static final String ARCHIVED_NIGHTS = "archived_nights";
+    }
+}
@@ -0,0 +1,122 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link UserPurgeRepository} backed by the {@code user_purge} table, one row per purge with its
+ * users in a {@code BIGINT[]}.
+ */
+@Repository
+@Profile("!in-memory")
+public class JdbcUserPurgeRepository implements UserPurgeRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcUserPurgeRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void save(PurgeJob purge) {
+        jdbc.update(UPSERT_PURGE, mapToSaveParams(purge));
+    }
+
+    @Override
+    public Optional<PurgeJob> findById(String id) {
+        return jdbc.query(FIND_BY_ID, new MapSqlParameterSource("id", id), this::mapToPurge).stream().findFirst();
+    }
+
+    @Override
+    public Optional<PurgeJob> findOldestUnfinished() {
+        return jdbc.query(FIND_OLDEST_UNFINISHED, this::mapToPurge).stream().findFirst();
+    }
+
+    @Override
+    public Set<Long> findUserIdsPurgedSince(LocalDateTime since) {
+        return new HashSet<>(jdbc.queryForList(FIND_USER_IDS_PURGED_SINCE, new MapSqlParameterSource("since", since), Long.class));
+    }
+
+    @Override
+    public int deleteFinishedBefore(Instant before) {
+        return jdbc.update(DELETE_FINISHED_BEFORE, new MapSqlParameterSource("before", Timestamp.from(before)));
+    }
+
+    private MapSqlParameterSource mapToSaveParams(PurgeJob purge) {
+        // Bound as text: NamedParameterJdbcTemplate would expand a collection into a list of parameters
+        String userIds = purge.userIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        return new MapSqlParameterSource()
+                .addValue("id", purge.id())
+                .addValue("userIds", userIds)
+                .addValue("state", purge.state().name())
+                .addValue("requestedAt", Timestamp.from(purge.requestedAt()))
+                .addValue("purgedUsers", purge.purgedUsers())
+                .addValue("deletedNights", purge.deletedNights())
+                .addValue("pausedMillis", purge.paused().toMillis())
+                .addValue("error", purge.error());
+    }
+
+    static final String UPSERT_PURGE = """
+            INSERT INTO user_purge (id, user_ids, state, requested_at, purged_users, deleted_nights, paused_millis, error, updated_at)
+            VALUES (:id, string_to_array(:userIds, ',')::BIGINT[], :state, :requestedAt, :purgedUsers, :deletedNights,
+                    :pausedMillis, :error, now())
+            ON CONFLICT (id) DO UPDATE
+            SET state = excluded.state, purged_users = excluded.purged_users, deleted_nights = excluded.deleted_nights,
+                paused_millis = excluded.paused_millis, error = excluded.error, updated_at = now()
+            """;
+
+    static final String FIND_BY_ID = """
+            SELECT * FROM user_purge WHERE id = :id
+            """;
+
+    // Served by the partial index idx_user_purge_unfinished
+    static final String FIND_OLDEST_UNFINISHED = """
+            SELECT * FROM user_purge
+            WHERE state NOT IN ('COMPLETED', 'FAILED')
+            ORDER BY requested_at
+            LIMIT 1
+            """;
+
+    static final String FIND_USER_IDS_PURGED_SINCE = """
+            SELECT DISTINCT unnest(user_ids) FROM user_purge
+            WHERE state NOT IN ('COMPLETED', 'FAILED') OR updated_at >= :since
+            """;
+
+    static final String DELETE_FINISHED_BEFORE = """
+            DELETE FROM user_purge
+            WHERE state IN ('COMPLETED', 'FAILED') AND requested_at < :before
+            """;
+
+    private PurgeJob mapToPurge(ResultSet rs, int rowNum) throws SQLException {
+        Array userIds = rs.getArray("user_ids");
+        try {
+            return new PurgeJob(
+                    rs.getString("id"),
+                    List.copyOf(Arrays.asList((Long[]) userIds.getArray())),
+                    PurgeJob.State.valueOf(rs.getString("state")),
+                    rs.getTimestamp("requested_at").toInstant(),
+                    rs.getInt("purged_users"),
+                    rs.getLong("deleted_nights"),
+                    Duration.ofMillis(rs.getLong("paused_millis")),
+                    rs.getString("error"));
+        } finally {
+            userIds.free();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+/**
+ * Progress of a resumable batch job.
+ *
+ * @param jobName   the job
+ * @param runKey    identifies the run the progress belongs to, such as the date it computes for
+ * @param position  job-specific position up to which the run is done, such as the last user id
+ * @param completed whether the run finished
+ */
+public record JobCheckpoint(String jobName, String runKey, long position, boolean completed) {
+
+    /**
+     * Returns this checkpoint if it belongs to {@code runKey}, otherwise a fresh start of that run.
+     */
+    public JobCheckpoint forRun(String runKey) {
+        return this.runKey.equals(runKey) ? this : new JobCheckpoint(jobName, runKey, 0, false);
+    }
+
+    public JobCheckpoint advancedTo(long position) {
+        return new JobCheckpoint(jobName, runKey, position, false);
+    }
+
+    public JobCheckpoint completedRun() {
+        return new JobCheckpoint(jobName, runKey, position, true);
+    }
+}
@@ -0,0 +1,32 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Storage for {@link JobCheckpoint}s, with a lease so that only one instance runs a job at a time.
+ *
+ * <p>A lease expires unless the holder advances the checkpoint in time, so a job whose instance
+ * crashed is taken over and resumed from its last checkpoint.
+ */
+public interface JobCheckpointRepository {
+
+    Optional<JobCheckpoint> find(String jobName);
+
+    /**
+     * Takes the job's lease for {@code owner} if it is free, expired or already held by {@code owner}.
+     *
+     * @return the job's checkpoint, a new one with an empty run key if there was none,
+     *         or empty if another owner holds the lease
+     */
+    Optional<JobCheckpoint> claim(String jobName, String owner, Duration lease);
+
+    /**
+     * Stores the checkpoint and extends the lease.
+     *
+     * @return {@code false} if {@code owner} no longer holds the lease; nothing is stored then
+     */
+    boolean advance(JobCheckpoint checkpoint, String owner, Duration lease);
+
+    void release(String jobName, String owner);
+}
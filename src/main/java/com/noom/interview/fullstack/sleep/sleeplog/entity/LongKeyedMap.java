@@ -0,0 +1,122 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to values.
+ *
+ * <p>Keys are stored in a {@code long[]} with linear probing, so a lookup neither boxes the key
+ * nor allocates an entry object. Not thread-safe; callers guard it with their own lock.
+ *
+ * @param <V> the value type; {@code null} values are not supported
+ */
+final class LongKeyedMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongKeyedMap() {
+        this.keys = new long[MIN_CAPACITY];
+        this.values = new Object[MIN_CAPACITY];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value for {@code key}, creating and storing it with {@code factory} if absent.
+     */
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        V value = factory.apply(key);
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+            resize();
+        }
+        return value;
+    }
+
+    /**
+     * Removes the value for {@code key}. The entries after it in the probe sequence are moved back
+     * into the freed slot where needed, so no tombstones are left behind.
+     */
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            return;
+        }
+        values[slot] = null;
+        size--;
+        for (int next = (slot + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next], mask);
+            // the entry may move back unless its home slot lies cyclically in (slot, next]
+            boolean reachable = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (!reachable) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                values[next] = null;
+                slot = next;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
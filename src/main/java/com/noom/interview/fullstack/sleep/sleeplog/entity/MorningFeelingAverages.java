@@ -0,0 +1,64 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Averages over the nights after which the user woke with one particular {@link MorningFeeling}.
+ *
+ * <p>Bed and wake times are circular means, as in {@link SleepAverages}.
+ *
+ * @param nights                number of nights with this feeling
+ * @param averageTotalTimeInBed average duration between bed time and wake time
+ * @param averageBedTime        average clock time the user went to bed
+ * @param averageWakeTime       average clock time the user woke up
+ */
+public record MorningFeelingAverages(
+        long nights,
+        Duration averageTotalTimeInBed,
+        LocalTime averageBedTime,
+        LocalTime averageWakeTime
+) {
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    /**
+     * Splits {@code sleepLogs} by morning feeling in one pass. Feelings without nights are omitted.
+     */
+    public static Map<MorningFeeling, MorningFeelingAverages> fromSleepLogs(List<SleepLog> sleepLogs) {
+        SleepAggregate[] byFeeling = new SleepAggregate[FEELINGS.length];
+        for (SleepLog sleepLog : sleepLogs) {
+            int feeling = sleepLog.morningFeeling().ordinal();
+            if (byFeeling[feeling] == null) {
+                byFeeling[feeling] = SleepAggregate.withoutTimeInBedHistogram();
+            }
+            byFeeling[feeling].add(sleepLog);
+        }
+        return fromAggregates(byFeeling);
+    }
+
+    /**
+     * Converts aggregates indexed by {@link MorningFeeling#ordinal()}; {@code null} or empty ones are omitted.
+     */
+    static Map<MorningFeeling, MorningFeelingAverages> fromAggregates(SleepAggregate[] byFeeling) {
+        Map<MorningFeeling, MorningFeelingAverages> breakdown = new EnumMap<>(MorningFeeling.class);
+        for (MorningFeeling feeling : FEELINGS) {
+            SleepAggregate aggregate = byFeeling[feeling.ordinal()];
+            if (aggregate != null && aggregate.count() > 0) {
+                breakdown.put(feeling, fromAggregate(aggregate));
+            }
+        }
+        return breakdown;
+    }
+
+    private static MorningFeelingAverages fromAggregate(SleepAggregate aggregate) {
+        long count = aggregate.count();
+        return new MorningFeelingAverages(
+                count,
+                Duration.ofSeconds(aggregate.totalSecondsInBed()).dividedBy(count),
+                SleepAverages.angleToTime(Math.atan2(aggregate.bedTimeSinSum() / count, aggregate.bedTimeCosSum() / count)),
+                SleepAverages.angleToTime(Math.atan2(aggregate.wakeTimeSinSum() / count, aggregate.wakeTimeCosSum() / count)));
+    }
+}
@@ -0,0 +1,186 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One user's nights stored column-wise in primitive arrays, ordered by sleep date.
+ *
+ * <p>Per night this keeps the sleep date as an epoch day, bed and wake time as second offsets
+ * from the start of the sleep date (bed time is usually negative), the morning feeling ordinal,
+ * the generated id and the creation time in epoch seconds: 29 bytes in total, against roughly
+ * 300 bytes for a {@link SleepLog} record with its boxed and {@code java.time} fields.
+ * Times are kept with second precision.
+ *
+ * <p>Not thread-safe; {@link InMemorySleepLogRepository} guards each timeline with a lock.
+ */
+final class PackedTimeline {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long SECONDS_IN_DAY = 86_400;
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    private final long userId;
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] bedOffsets = new int[INITIAL_CAPACITY];
+    private int[] wakeOffsets = new int[INITIAL_CAPACITY];
+    private byte[] feelings = new byte[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] createdAtSeconds = new long[INITIAL_CAPACITY];
+    private int size;
+
+    PackedTimeline(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Inserts a night keeping the arrays ordered by sleep date.
+     *
+     * @return the stored log with the given id and creation time, or {@code null} if
+     *         a night with the same sleep date already exists
+     */
+    SleepLog insert(SleepLog sleepLog, long id, LocalDateTime createdAt) {
+        int epochDay = (int) sleepLog.sleepDate().toEpochDay();
+        int index = Arrays.binarySearch(epochDays, 0, size, epochDay);
+        if (index >= 0) {
+            return null;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity();
+        shiftRight(insertAt);
+
+        long dayStart = sleepLog.sleepDate().toEpochDay() * SECONDS_IN_DAY;
+        epochDays[insertAt] = epochDay;
+        bedOffsets[insertAt] = (int) (sleepLog.bedTime().toEpochSecond(ZoneOffset.UTC) - dayStart);
+        wakeOffsets[insertAt] = (int) (sleepLog.wakeTime().toEpochSecond(ZoneOffset.UTC) - dayStart);
+        feelings[insertAt] = (byte) sleepLog.morningFeeling().ordinal();
+        ids[insertAt] = id;
+        createdAtSeconds[insertAt] = createdAt.toEpochSecond(ZoneOffset.UTC);
+        size++;
+        return toSleepLog(insertAt);
+    }
+
+    SleepLog find(LocalDate sleepDate) {
+        int index = Arrays.binarySearch(epochDays, 0, size, (int) sleepDate.toEpochDay());
+        return index >= 0 ? toSleepLog(index) : null;
+    }
+
+    /**
+     * Returns the nights with a sleep date in {@code (from, to]}, ordered by sleep date.
+     */
+    List<SleepLog> findRange(LocalDate from, LocalDate to) {
+        int start = firstIndexAfter((int) from.toEpochDay());
+        int end = firstIndexAfter((int) to.toEpochDay());
+        List<SleepLog> result = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            result.add(toSleepLog(i));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the nights with an id above {@code afterId} or created after {@code createdAfter} to {@code result}.
+     */
+    void collectWrittenAfter(long afterId, LocalDateTime createdAfter, List<SleepLog> result) {
+        long createdAfterSeconds = createdAfter.toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < size; i++) {
+            if (ids[i] > afterId || createdAtSeconds[i] > createdAfterSeconds) {
+                result.add(toSleepLog(i));
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code count} nights with the earliest sleep dates.
+     *
+     * @return the number of nights removed
+     */
+    int removeOldest(int count) {
+        int removed = Math.min(count, size);
+        int length = size - removed;
+        System.arraycopy(epochDays, removed, epochDays, 0, length);
+        System.arraycopy(bedOffsets, removed, bedOffsets, 0, length);
+        System.arraycopy(wakeOffsets, removed, wakeOffsets, 0, length);
+        System.arraycopy(feelings, removed, feelings, 0, length);
+        System.arraycopy(ids, removed, ids, 0, length);
+        System.arraycopy(createdAtSeconds, removed, createdAtSeconds, 0, length);
+        size = length;
+        return removed;
+    }
+
+    long userId() {
+        return userId;
+    }
+
+    boolean hasNightAfter(LocalDate date) {
+        return size > 0 && epochDays[size - 1] > date.toEpochDay();
+    }
+
+    long maxId() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, ids[i]);
+        }
+        return max;
+    }
+
+    long maxCreatedAtSeconds() {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, createdAtSeconds[i]);
+        }
+        return max;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int firstIndexAfter(int epochDay) {
+        int index = Arrays.binarySearch(epochDays, 0, size, epochDay);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private SleepLog toSleepLog(int index) {
+        long dayStart = (long) epochDays[index] * SECONDS_IN_DAY;
+        return new SleepLog(
+                ids[index],
+                userId,
+                LocalDate.ofEpochDay(epochDays[index]),
+                LocalDateTime.ofEpochSecond(dayStart + bedOffsets[index], 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(dayStart + wakeOffsets[index], 0, ZoneOffset.UTC),
+                FEELINGS[feelings[index]],
+                LocalDateTime.ofEpochSecond(createdAtSeconds[index], 0, ZoneOffset.UTC)
+        );
+    }
+
+    private void ensureCapacity() {
+        if (size < epochDays.length) {
+            return;
+        }
+        int capacity = epochDays.length * 2;
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        bedOffsets = Arrays.copyOf(bedOffsets, capacity);
+        wakeOffsets = Arrays.copyOf(wakeOffsets, capacity);
+        feelings = Arrays.copyOf(feelings, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        createdAtSeconds = Arrays.copyOf(createdAtSeconds, capacity);
+    }
+
+    private void shiftRight(int from) {
+        int length = size - from;
+        if (length == 0) {
+            return;
+        }
+        System.arraycopy(epochDays, from, epochDays, from + 1, length);
+        System.arraycopy(bedOffsets, from, bedOffsets, from + 1, length);
+        System.arraycopy(wakeOffsets, from, wakeOffsets, from + 1, length);
+        System.arraycopy(feelings, from, feelings, from + 1, length);
+        System.arraycopy(ids, from, ids, from + 1, length);
+        System.arraycopy(createdAtSeconds, from, createdAtSeconds, from + 1, length);
+    }
+}
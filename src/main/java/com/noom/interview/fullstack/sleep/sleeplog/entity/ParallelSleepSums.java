@@ -0,0 +1,172 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The sums behind {@link SleepAverages} over a large list of nights, computed on a fork-join pool.
+ *
+ * <p>The list is cut into slices of {@link #SLICE_SIZE} nights; each range of slices is split in
+ * two halves that are summed in parallel, then the right half is merged into the left one. The
+ * slices and the merge order depend only on the number of nights, never on the parallelism of the
+ * pool, and sines and cosines are summed with {@link CompensatedSum}, so the same nights always
+ * give the same averages, to the bit. Time in bed is summed exactly, in seconds and nanoseconds.
+ *
+ * <p>Only the sums of the requested statistics are computed; the {@link SleepAggregate} for the
+ * {@link SleepDistribution} is only built if it is requested.
+ */
+final class ParallelSleepSums {
+
+    static final int SLICE_SIZE = 4096;
+
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    private final boolean timeInBed;
+    private final boolean bedTimes;
+    private final boolean wakeTimes;
+    private long count;
+    private long secondsInBed;
+    private long nanosInBed;
+    private final CompensatedSum bedTimeSinSum = new CompensatedSum();
+    private final CompensatedSum bedTimeCosSum = new CompensatedSum();
+    private final CompensatedSum wakeTimeSinSum = new CompensatedSum();
+    private final CompensatedSum wakeTimeCosSum = new CompensatedSum();
+    private final long[] morningFeelingCounts = new long[FEELINGS.length];
+    private final SleepAggregate aggregate;
+
+    private ParallelSleepSums(Set<SleepStatistic> statistics) {
+        this.timeInBed = statistics.contains(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED);
+        this.bedTimes = statistics.contains(SleepStatistic.AVERAGE_BED_TIME);
+        this.wakeTimes = statistics.contains(SleepStatistic.AVERAGE_WAKE_TIME);
+        this.aggregate = statistics.contains(SleepStatistic.DISTRIBUTION) ? new SleepAggregate() : null;
+    }
+
+    static ParallelSleepSums of(List<SleepLog> sleepLogs, Set<SleepStatistic> statistics, ForkJoinPool pool) {
+        List<SleepLog> indexed = sleepLogs instanceof RandomAccess ? sleepLogs : new ArrayList<>(sleepLogs);
+        return pool.invoke(new Slices(indexed, statistics, 0, indexed.size()));
+    }
+
+    long count() {
+        return count;
+    }
+
+    Duration totalTimeInBed() {
+        return Duration.ofSeconds(secondsInBed, nanosInBed);
+    }
+
+    double bedTimeSinSum() {
+        return bedTimeSinSum.value();
+    }
+
+    double bedTimeCosSum() {
+        return bedTimeCosSum.value();
+    }
+
+    double wakeTimeSinSum() {
+        return wakeTimeSinSum.value();
+    }
+
+    double wakeTimeCosSum() {
+        return wakeTimeCosSum.value();
+    }
+
+    /**
+     * Returns the count per {@link MorningFeeling}, omitting feelings that did not occur.
+     */
+    Map<MorningFeeling, Long> morningFeelingFrequencies() {
+        Map<MorningFeeling, Long> frequencies = new EnumMap<>(MorningFeeling.class);
+        for (MorningFeeling feeling : FEELINGS) {
+            if (morningFeelingCounts[feeling.ordinal()] > 0) {
+                frequencies.put(feeling, morningFeelingCounts[feeling.ordinal()]);
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * Returns the aggregate of all nights, {@code null} unless the distribution was requested.
+     */
+    SleepAggregate aggregate() {
+        return aggregate;
+    }
+
+    private void add(SleepLog sleepLog) {
+        count++;
+        if (timeInBed) {
+            Duration night = Duration.between(sleepLog.bedTime(), sleepLog.wakeTime());
+            secondsInBed += night.getSeconds();
+            nanosInBed += night.getNano();
+        }
+        if (bedTimes) {
+            double angle = SleepAverages.timeToAngle(sleepLog.bedTime().toLocalTime());
+            bedTimeSinSum.add(Math.sin(angle));
+            bedTimeCosSum.add(Math.cos(angle));
+        }
+        if (wakeTimes) {
+            double angle = SleepAverages.timeToAngle(sleepLog.wakeTime().toLocalTime());
+            wakeTimeSinSum.add(Math.sin(angle));
+            wakeTimeCosSum.add(Math.cos(angle));
+        }
+        morningFeelingCounts[sleepLog.morningFeeling().ordinal()]++;
+        if (aggregate != null) {
+            aggregate.add(sleepLog);
+        }
+    }
+
+    private void merge(ParallelSleepSums other) {
+        count += other.count;
+        secondsInBed += other.secondsInBed;
+        nanosInBed += other.nanosInBed;
+        bedTimeSinSum.merge(other.bedTimeSinSum);
+        bedTimeCosSum.merge(other.bedTimeCosSum);
+        wakeTimeSinSum.merge(other.wakeTimeSinSum);
+        wakeTimeCosSum.merge(other.wakeTimeCosSum);
+        for (int i = 0; i < morningFeelingCounts.length; i++) {
+            morningFeelingCounts[i] += other.morningFeelingCounts[i];
+        }
+        if (aggregate != null) {
+            aggregate.merge(other.aggregate);
+        }
+    }
+
+    private static final class Slices extends RecursiveTask<ParallelSleepSums> {
+
+        private final List<SleepLog> sleepLogs;
+        private final Set<SleepStatistic> statistics;
+        private final int from;
+        private final int to;
+
+        Slices(List<SleepLog> sleepLogs, Set<SleepStatistic> statistics, int from, int to) {
+            this.sleepLogs = sleepLogs;
+            this.statistics = statistics;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ParallelSleepSums compute() {
+            if (to - from <= SLICE_SIZE) {
+                ParallelSleepSums sums = new ParallelSleepSums(statistics);
+                for (int i = from; i < to; i++) {
+                    sums.add(sleepLogs.get(i));
+                }
+                return sums;
+            }
+            int slices = (to - from + SLICE_SIZE - 1) / SLICE_SIZE;
+            int middle = from + slices / 2 * SLICE_SIZE;
+            Slices left = new Slices(sleepLogs, statistics, from, middle);
+            left.fork();
+            ParallelSleepSums right = new Slices(sleepLogs, statistics, middle, to).compute();
+            ParallelSleepSums sums = left.join();
+            sums.merge(right);
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.util.List;
+
+/**
+ * One user's {@link RecentNights} computed ahead of time for a window, with what is needed to
+ * tell whether the user's nights in that window changed since.
+ *
+ * @param userId   the user
+ * @param nights   the user's nights in the window
+ * @param maxLogId highest {@link SleepLog#id()} among those nights, 0 if there are none
+ */
+public record PrecomputedNights(long userId, RecentNights nights, long maxLogId) {
+
+    /**
+     * Buffers {@code sleepLogs}, which must be exactly the user's logs in the window.
+     */
+    public static PrecomputedNights of(long userId, List<SleepLog> sleepLogs, int capacity) {
+        RecentNights nights = new RecentNights(capacity);
+        long maxLogId = 0;
+        for (SleepLog sleepLog : sleepLogs) {
+            nights.add(sleepLog);
+            maxLogId = Math.max(maxLogId, sleepLog.id());
+        }
+        return new PrecomputedNights(userId, nights, maxLogId);
+    }
+}
@@ -0,0 +1,34 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage for {@link PrecomputedNights}, one row per user for the window ending on a given date.
+ *
+ * <p>Implementations are selected by profile like {@link SleepLogRepository}:
+ * {@link JdbcPrecomputedNightsRepository} by default, {@link InMemoryPrecomputedNightsRepository}
+ * with the {@code in-memory} profile.
+ */
+public interface PrecomputedNightsRepository {
+
+    /**
+     * Returns the user's nights precomputed for the window ending on {@code asOf}, if any.
+     */
+    Optional<RecentNights> findByUserId(Long userId, LocalDate asOf);
+
+    /**
+     * Stores the nights of the window {@code (from, asOf]}, replacing each user's previous row.
+     * A user whose logs in the window no longer match the number of nights and highest id is
+     * skipped, so a log written while the nights were computed is never hidden.
+     *
+     * @return the number of users stored
+     */
+    int saveAll(List<PrecomputedNights> precomputed, LocalDate from, LocalDate asOf);
+
+    void deleteByUserId(Long userId);
+
+    void deleteByUserIds(Collection<Long> userIds);
+}
@@ -0,0 +1,27 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A stored request to delete all data of a set of users, with how far it got.
+ *
+ * @param id            the purge
+ * @param userIds       users to purge, in the order they are purged
+ * @param state         where the purge is
+ * @param requestedAt   when the purge was requested
+ * @param purgedUsers   how many of {@code userIds} are purged; a resumed purge continues with the next one
+ * @param deletedNights nights deleted so far, archived ones included
+ * @param paused        time spent waiting for the database load to drop
+ * @param error         why the purge failed, if it did
+ */
+public record PurgeJob(String id, List<Long> userIds, State state, Instant requestedAt, int purgedUsers,
+                       long deletedNights, Duration paused, String error) {
+
+    public enum State { QUEUED, RUNNING, PAUSED, COMPLETED, FAILED }
+
+    public boolean finished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
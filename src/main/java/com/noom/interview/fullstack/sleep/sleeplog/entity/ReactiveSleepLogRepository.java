@@ -0,0 +1,112 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link JdbcSleepLogRepository}, backed by R2DBC.
+ *
+ * <p>Runs the exact same SQL as the JDBC repository, so both runtime modes
+ * read and write the same schema with the same semantics. Range reads include the months moved
+ * to {@code sleep_log_archive} by blocking instances.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveSleepLogRepository {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DatabaseClient db;
+
+    public ReactiveSleepLogRepository(ConnectionFactory connectionFactory) {
+        this.db = DatabaseClient.create(connectionFactory);
+    }
+
+    public Mono<SleepLog> save(SleepLog sleepLog) {
+        return db.sql(JdbcSleepLogRepository.INSERT_SLEEP_LOG)
+                .bind("userId", sleepLog.userId())
+                .bind("sleepDate", sleepLog.sleepDate())
+                .bind("bedTime", sleepLog.bedTime())
+                .bind("wakeTime", sleepLog.wakeTime())
+                .bind("morningFeeling", sleepLog.morningFeeling().name())
+                .map(this::mapToSleepLog)
+                .one()
+                .onErrorMap(ReactiveSleepLogRepository::isUniqueViolation, exception -> new DuplicateSleepLogException(
+                        "Sleep log already exists for user " + sleepLog.userId() + " on " + sleepLog.sleepDate(), exception));
+    }
+
+    public Mono<SleepLog> findByUserIdAndDate(Long userId, LocalDate sleepDate) {
+        return db.sql(JdbcSleepLogRepository.FIND_BY_USER_ID_AND_DATE)
+                .bind("userId", userId)
+                .bind("sleepDate", sleepDate)
+                .map(this::mapToSleepLog)
+                .one();
+    }
+
+    public Flux<SleepLog> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to) {
+        return db.sql(JdbcSleepLogRepository.FIND_BY_USER_ID_AND_DATE_RANGE)
+                .bind("userId", userId)
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> mapToRangeRow(row, from, to))
+                .all()
+                .collectList()
+                .flatMapIterable(ReactiveSleepLogRepository::withArchivedNights);
+    }
+
+    private static boolean isUniqueViolation(Throwable exception) {
+        Throwable cause = exception instanceof DataIntegrityViolationException ? exception.getCause() : exception;
+        return cause instanceof R2dbcException r2dbcException && UNIQUE_VIOLATION.equals(r2dbcException.getSqlState());
+    }
+
+    private static List<SleepLog> withArchivedNights(List<RangeRow> rows) {
+        List<SleepLog> sleepLogs = new ArrayList<>(rows.size());
+        List<SleepLog> archivedNights = new ArrayList<>();
+        for (RangeRow row : rows) {
+            if (row.sleepLog() != null) {
+                sleepLogs.add(row.sleepLog());
+            } else {
+                archivedNights.addAll(row.archivedNights());
+            }
+        }
+        return JdbcSleepLogRepository.withArchivedNights(sleepLogs, archivedNights);
+    }
+
+    // A row of FIND_BY_USER_ID_AND_DATE_RANGE: a night of sleep_log, or the nights of an archived month
+    private RangeRow mapToRangeRow(Row row, LocalDate from, LocalDate to) {
+        byte[] archived = row.get(JdbcSleepLogRepository.Column.ARCHIVED_NIGHTS, byte[].class);
+        if (archived == null) {
+            return new RangeRow(mapToSleepLog(row), List.of());
+        }
+        return new RangeRow(null, JdbcSleepLogRepository.archivedNights(row.get(JdbcSleepLogRepository.Column.USER_ID, Long.class),
+                row.get(JdbcSleepLogRepository.Column.SLEEP_DATE, LocalDate.class), archived, from, to));
+    }
+
+    private record RangeRow(SleepLog sleepLog, List<SleepLog> archivedNights) {
+    }
+
+    private SleepLog mapToSleepLog(Row row) {
+        return new SleepLog(
+                row.get(JdbcSleepLogRepository.Column.ID, Long.class),
+                row.get(JdbcSleepLogRepository.Column.USER_ID, Long.class),
+                row.get(JdbcSleepLogRepository.Column.SLEEP_DATE, LocalDate.class),
+                row.get(JdbcSleepLogRepository.Column.BED_TIME, LocalDateTime.class),
+                row.get(JdbcSleepLogRepository.Column.WAKE_TIME, LocalDateTime.class),
+                MorningFeeling.valueOf(row.get(JdbcSleepLogRepository.Column.MORNING_FEELING, String.class)),
+                row.get(JdbcSleepLogRepository.Column.CREATED_AT, LocalDateTime.class)
+        );
+    }
+}
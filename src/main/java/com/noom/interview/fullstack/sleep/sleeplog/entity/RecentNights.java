@@ -0,0 +1,264 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded ring buffer of one user's most recent nights, ordered by sleep date, with a
+ * {@link SleepAggregate} kept in step with its contents.
+ *
+ * <p>Nights are stored as primitives (epoch day, bed and wake second of day, seconds in bed,
+ * feeling ordinal). Adding or evicting a night updates the running sums, so averages over the
+ * buffered nights are available in constant time. The sums are kept without a
+ * {@link TimeInBedHistogram}, which would outweigh the nights themselves; time-in-bed quantiles
+ * are read from the buffered nights instead, in the histogram's buckets so they match
+ * {@link SleepAverages#fromSleepLogs}.
+ *
+ * <p>A buffer can be written to and read back from a fixed-size binary record, see {@link #writeTo}.
+ *
+ * <p>Not thread-safe.
+ */
+public final class RecentNights {
+
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+    private static final int NIGHT_BYTES = 4 * Integer.BYTES + 1;
+    private static final byte[] EMPTY_NIGHT = new byte[NIGHT_BYTES];
+
+    private final int capacity;
+    private final int[] epochDays;
+    private final int[] bedSecondsOfDay;
+    private final int[] wakeSecondsOfDay;
+    private final int[] secondsInBed;
+    private final byte[] feelings;
+    private final SleepAggregate aggregate = SleepAggregate.withoutTimeInBedHistogram();
+    private int head;
+    private int size;
+
+    public RecentNights(int capacity) {
+        this.capacity = capacity;
+        this.epochDays = new int[capacity];
+        this.bedSecondsOfDay = new int[capacity];
+        this.wakeSecondsOfDay = new int[capacity];
+        this.secondsInBed = new int[capacity];
+        this.feelings = new byte[capacity];
+    }
+
+    /**
+     * Adds a night at its position by sleep date. When the buffer is full, the oldest night is
+     * evicted to make room; a night older than everything in a full buffer is ignored.
+     * A night whose sleep date is already buffered is ignored as well.
+     */
+    public void add(SleepLog sleepLog) {
+        add((int) sleepLog.sleepDate().toEpochDay(),
+                sleepLog.bedTime().toLocalTime().toSecondOfDay(),
+                sleepLog.wakeTime().toLocalTime().toSecondOfDay(),
+                (int) Duration.between(sleepLog.bedTime(), sleepLog.wakeTime()).getSeconds(),
+                (byte) sleepLog.morningFeeling().ordinal());
+    }
+
+    private void add(int epochDay, int bedSecondOfDay, int wakeSecondOfDay, int nightSecondsInBed, byte feeling) {
+        int insertAt = size;
+        while (insertAt > 0 && epochDays[physical(insertAt - 1)] > epochDay) {
+            insertAt--;
+        }
+        if (insertAt > 0 && epochDays[physical(insertAt - 1)] == epochDay) {
+            return;
+        }
+        // only evict once the night is known to be added
+        if (size == capacity) {
+            if (insertAt == 0) {
+                return;
+            }
+            evictOldest();
+            insertAt--;
+        }
+        for (int i = size; i > insertAt; i--) {
+            copy(physical(i - 1), physical(i));
+        }
+
+        int slot = physical(insertAt);
+        epochDays[slot] = epochDay;
+        bedSecondsOfDay[slot] = bedSecondOfDay;
+        wakeSecondsOfDay[slot] = wakeSecondOfDay;
+        secondsInBed[slot] = nightSecondsInBed;
+        feelings[slot] = feeling;
+        size++;
+        aggregate.add(bedSecondOfDay, wakeSecondOfDay, nightSecondsInBed, FEELINGS[feeling]);
+    }
+
+    /**
+     * Whether a night with the given sleep date is buffered.
+     */
+    public boolean contains(LocalDate sleepDate) {
+        long epochDay = sleepDate.toEpochDay();
+        for (int i = size - 1; i >= 0 && epochDays[physical(i)] >= epochDay; i--) {
+            if (epochDays[physical(i)] == epochDay) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evicts every night with a sleep date on or before {@code date}.
+     */
+    public void evictUpTo(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        while (size > 0 && epochDays[head] <= epochDay) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Averages over the buffered nights, after evicting those on or before {@code from}.
+     */
+    public SleepAverages averages(LocalDate from, LocalDate to) {
+        return averages(from, to, SleepStatistic.ALL);
+    }
+
+    /**
+     * Averages over the buffered nights with only the given statistics, after evicting those on or before {@code from}.
+     */
+    public SleepAverages averages(LocalDate from, LocalDate to, Set<SleepStatistic> statistics) {
+        evictUpTo(from);
+        SleepDistribution distribution = null;
+        if (size > 0 && statistics.contains(SleepStatistic.DISTRIBUTION)) {
+            distribution = SleepDistribution.fromAggregate(aggregate,
+                    timeInBedQuantile(0.1), timeInBedQuantile(0.5), timeInBedQuantile(0.9));
+        }
+        return SleepAverages.fromAggregate(aggregate, from, to, statistics, distribution);
+    }
+
+    /**
+     * Averages per morning feeling over the buffered nights, in one pass; call after {@link #averages},
+     * which evicts nights outside the range.
+     */
+    public Map<MorningFeeling, MorningFeelingAverages> morningFeelingBreakdown() {
+        SleepAggregate[] byFeeling = new SleepAggregate[FEELINGS.length];
+        for (int i = 0; i < size; i++) {
+            int slot = physical(i);
+            int feeling = feelings[slot];
+            if (byFeeling[feeling] == null) {
+                byFeeling[feeling] = SleepAggregate.withoutTimeInBedHistogram();
+            }
+            byFeeling[feeling].add(bedSecondsOfDay[slot], wakeSecondsOfDay[slot], secondsInBed[slot], FEELINGS[feeling]);
+        }
+        return MorningFeelingAverages.fromAggregates(byFeeling);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Size in bytes of the record written by {@link #writeTo} for a buffer of the given capacity.
+     */
+    public static int recordBytes(int capacity) {
+        return Integer.BYTES + capacity * NIGHT_BYTES;
+    }
+
+    /**
+     * Writes the buffer as a fixed-size record: the number of nights, then every slot ordered by
+     * sleep date as epoch day, bed and wake second of day, seconds in bed and feeling ordinal.
+     * Unused slots are zero-filled so every record of the same capacity has the same length.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(size);
+        for (int i = 0; i < capacity; i++) {
+            if (i < size) {
+                int slot = physical(i);
+                buffer.putInt(epochDays[slot])
+                        .putInt(bedSecondsOfDay[slot])
+                        .putInt(wakeSecondsOfDay[slot])
+                        .putInt(secondsInBed[slot])
+                        .put(feelings[slot]);
+            } else {
+                buffer.put(EMPTY_NIGHT);
+            }
+        }
+    }
+
+    /**
+     * Reads a record written by {@link #writeTo} for a buffer of the same capacity.
+     *
+     * @throws IllegalArgumentException if the record is not a valid buffer of that capacity
+     */
+    public static RecentNights readFrom(ByteBuffer buffer, int capacity) {
+        RecentNights nights = new RecentNights(capacity);
+        int size = buffer.getInt();
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Invalid night count " + size + " for capacity " + capacity);
+        }
+        for (int i = 0; i < capacity; i++) {
+            int epochDay = buffer.getInt();
+            int bedSecondOfDay = buffer.getInt();
+            int wakeSecondOfDay = buffer.getInt();
+            int nightSecondsInBed = buffer.getInt();
+            byte feeling = buffer.get();
+            if (i >= size) {
+                continue;
+            }
+            if (feeling < 0 || feeling >= FEELINGS.length || nightSecondsInBed <= 0
+                    || !isSecondOfDay(bedSecondOfDay) || !isSecondOfDay(wakeSecondOfDay)) {
+                throw new IllegalArgumentException("Invalid night at position " + i);
+            }
+            nights.add(epochDay, bedSecondOfDay, wakeSecondOfDay, nightSecondsInBed, feeling);
+        }
+        return nights;
+    }
+
+    private static boolean isSecondOfDay(int second) {
+        return second >= 0 && second < 86_400;
+    }
+
+    /**
+     * Returns what {@link TimeInBedHistogram#quantile} would for the buffered nights: the lowest
+     * bucket whose nights, together with those of the buckets below, reach the rank. Quadratic in
+     * the number of nights, which stays small, and free of allocation.
+     */
+    private Duration timeInBedQuantile(double q) {
+        long rank = Math.max(1, (long) Math.ceil(q * size));
+        int lowest = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int bucket = TimeInBedHistogram.bucket(secondsInBed[physical(i)]);
+            if (bucket >= lowest) {
+                continue;
+            }
+            int atOrBelow = 0;
+            for (int j = 0; j < size; j++) {
+                if (TimeInBedHistogram.bucket(secondsInBed[physical(j)]) <= bucket) {
+                    atOrBelow++;
+                }
+            }
+            if (atOrBelow >= rank) {
+                lowest = bucket;
+            }
+        }
+        return TimeInBedHistogram.centre(lowest);
+    }
+
+    private void evictOldest() {
+        aggregate.remove(bedSecondsOfDay[head], wakeSecondsOfDay[head], secondsInBed[head], FEELINGS[feelings[head]]);
+        head = physical(1);
+        size--;
+    }
+
+    private void copy(int from, int to) {
+        epochDays[to] = epochDays[from];
+        bedSecondsOfDay[to] = bedSecondsOfDay[from];
+        wakeSecondsOfDay[to] = wakeSecondsOfDay[from];
+        secondsInBed[to] = secondsInBed[from];
+        feelings[to] = feelings[from];
+    }
+
+    private int physical(int logicalIndex) {
+        return (head + logicalIndex) % capacity;
+    }
+}
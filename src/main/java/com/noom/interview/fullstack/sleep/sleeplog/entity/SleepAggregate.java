@@ -0,0 +1,189 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Running sums from which {@link SleepAverages} can be derived without the individual logs.
+ *
+ * <p>Keeps the night count, the total time in bed in seconds, the sine and cosine sums of bed
+ * and wake times on the 24-hour circle (see {@link SleepAverages}), a count per
+ * {@link MorningFeeling} and a {@link TimeInBedHistogram}. Nights can be added, removed and whole aggregates merged, so the same
+ * state serves sliding windows, caches and precomputed rollups.
+ *
+ * <p>The histogram holds a counter per ten minutes of the day, several times the rest of the
+ * state; aggregates that never serve a distribution, or that are kept per user for long, are
+ * created with {@link #withoutTimeInBedHistogram()}.
+ *
+ * <p>Not thread-safe.
+ */
+public final class SleepAggregate {
+
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    private long count;
+    private long totalSecondsInBed;
+    private double bedTimeSinSum;
+    private double bedTimeCosSum;
+    private double wakeTimeSinSum;
+    private double wakeTimeCosSum;
+    private final long[] morningFeelingCounts = new long[FEELINGS.length];
+    private final TimeInBedHistogram timeInBedHistogram;
+
+    public SleepAggregate() {
+        this(new TimeInBedHistogram());
+    }
+
+    private SleepAggregate(TimeInBedHistogram timeInBedHistogram) {
+        this.timeInBedHistogram = timeInBedHistogram;
+    }
+
+    /**
+     * Creates an aggregate that keeps only the sums and counts, without a {@link TimeInBedHistogram}.
+     */
+    public static SleepAggregate withoutTimeInBedHistogram() {
+        return new SleepAggregate(null);
+    }
+
+    public void add(SleepLog sleepLog) {
+        add(sleepLog.bedTime().toLocalTime().toSecondOfDay(),
+                sleepLog.wakeTime().toLocalTime().toSecondOfDay(),
+                Duration.between(sleepLog.bedTime(), sleepLog.wakeTime()).getSeconds(),
+                sleepLog.morningFeeling());
+    }
+
+    /**
+     * Adds one night.
+     *
+     * @param bedSecondOfDay  bed time as seconds since midnight
+     * @param wakeSecondOfDay wake time as seconds since midnight
+     * @param secondsInBed    time between bed time and wake time
+     * @param morningFeeling  how the user felt in the morning
+     */
+    public void add(int bedSecondOfDay, int wakeSecondOfDay, long secondsInBed, MorningFeeling morningFeeling) {
+        double bedAngle = SleepAverages.secondOfDayToAngle(bedSecondOfDay);
+        double wakeAngle = SleepAverages.secondOfDayToAngle(wakeSecondOfDay);
+        count++;
+        totalSecondsInBed += secondsInBed;
+        bedTimeSinSum += Math.sin(bedAngle);
+        bedTimeCosSum += Math.cos(bedAngle);
+        wakeTimeSinSum += Math.sin(wakeAngle);
+        wakeTimeCosSum += Math.cos(wakeAngle);
+        morningFeelingCounts[morningFeeling.ordinal()]++;
+        if (timeInBedHistogram != null) {
+            timeInBedHistogram.add(secondsInBed);
+        }
+    }
+
+    /**
+     * Removes a night previously added with the same values.
+     *
+     * <p>When the last night is removed, the trigonometric sums are reset to exactly zero so that
+     * floating-point residue does not accumulate across refills.
+     */
+    public void remove(int bedSecondOfDay, int wakeSecondOfDay, long secondsInBed, MorningFeeling morningFeeling) {
+        if (--count == 0) {
+            clear();
+            return;
+        }
+        double bedAngle = SleepAverages.secondOfDayToAngle(bedSecondOfDay);
+        double wakeAngle = SleepAverages.secondOfDayToAngle(wakeSecondOfDay);
+        totalSecondsInBed -= secondsInBed;
+        bedTimeSinSum -= Math.sin(bedAngle);
+        bedTimeCosSum -= Math.cos(bedAngle);
+        wakeTimeSinSum -= Math.sin(wakeAngle);
+        wakeTimeCosSum -= Math.cos(wakeAngle);
+        morningFeelingCounts[morningFeeling.ordinal()]--;
+        if (timeInBedHistogram != null) {
+            timeInBedHistogram.remove(secondsInBed);
+        }
+    }
+
+    /**
+     * Adds every night of {@code other}.
+     *
+     * @throws IllegalArgumentException if this aggregate keeps a histogram and {@code other} does not
+     */
+    public void merge(SleepAggregate other) {
+        if (timeInBedHistogram != null && other.timeInBedHistogram == null) {
+            throw new IllegalArgumentException("Cannot merge an aggregate without a time-in-bed histogram into one with");
+        }
+        count += other.count;
+        totalSecondsInBed += other.totalSecondsInBed;
+        bedTimeSinSum += other.bedTimeSinSum;
+        bedTimeCosSum += other.bedTimeCosSum;
+        wakeTimeSinSum += other.wakeTimeSinSum;
+        wakeTimeCosSum += other.wakeTimeCosSum;
+        for (int i = 0; i < morningFeelingCounts.length; i++) {
+            morningFeelingCounts[i] += other.morningFeelingCounts[i];
+        }
+        if (timeInBedHistogram != null) {
+            timeInBedHistogram.merge(other.timeInBedHistogram);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        totalSecondsInBed = 0;
+        bedTimeSinSum = 0;
+        bedTimeCosSum = 0;
+        wakeTimeSinSum = 0;
+        wakeTimeCosSum = 0;
+        Arrays.fill(morningFeelingCounts, 0);
+        if (timeInBedHistogram != null) {
+            timeInBedHistogram.clear();
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long totalSecondsInBed() {
+        return totalSecondsInBed;
+    }
+
+    public double bedTimeSinSum() {
+        return bedTimeSinSum;
+    }
+
+    public double bedTimeCosSum() {
+        return bedTimeCosSum;
+    }
+
+    public double wakeTimeSinSum() {
+        return wakeTimeSinSum;
+    }
+
+    public double wakeTimeCosSum() {
+        return wakeTimeCosSum;
+    }
+
+    /**
+     * Returns the live histogram of time in bed; callers must not modify it. {@code null} for an
+     * aggregate created {@link #withoutTimeInBedHistogram() without} one.
+     */
+    public TimeInBedHistogram timeInBedHistogram() {
+        return timeInBedHistogram;
+    }
+
+    public long morningFeelingCount(MorningFeeling morningFeeling) {
+        return morningFeelingCounts[morningFeeling.ordinal()];
+    }
+
+    /**
+     * Returns the count per {@link MorningFeeling}, omitting feelings that did not occur,
+     * like {@link SleepAverages#fromSleepLogs} does.
+     */
+    public Map<MorningFeeling, Long> morningFeelingFrequencies() {
+        Map<MorningFeeling, Long> frequencies = new EnumMap<>(MorningFeeling.class);
+        for (MorningFeeling feeling : FEELINGS) {
+            if (morningFeelingCounts[feeling.ordinal()] > 0) {
+                frequencies.put(feeling, morningFeelingCounts[feeling.ordinal()]);
+            }
+        }
+        return frequencies;
+    }
+}
@@ -6,6 +6,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -13,7 +15,11 @@ import java.util.stream.Collectors;
  * Aggregated sleep statistics over a date range.
  *
  * <p>Holds average bed time, average wake time, average total time in bed,
- * and morning feeling frequency counts computed from a list of {@link SleepLog} entries.
+ * and morning feeling frequency counts computed from a list of {@link SleepLog} entries,
+ * plus the {@link SleepDistribution} of those nights when there are any. Averages per
+ * {@link MorningFeeling} are only included when asked for, see {@link #withMorningFeelingBreakdown}.
+ * Callers that need only some of the statistics can ask for those, see {@link SleepStatistic};
+ * the others are then {@code null}.
  *
  * <p><b>Mathematical Note:</b>
  * This class uses two different types of averaging:
@@ -32,6 +38,8 @@ import java.util.stream.Collectors;
  * @param averageBedTime            average clock time the user went to bed (circular average, see below)
  * @param averageWakeTime           average clock time the user woke up (circular average, see below)
  * @param morningFeelingFrequencies count of each {@link MorningFeeling} value in the range
+ * @param distribution              quantiles and circular dispersion, {@code null} for an empty range
+ * @param byMorningFeeling          averages per morning feeling, {@code null} unless requested
  */
 public record SleepAverages(
         LocalDate from,
@@ -39,8 +47,42 @@ public record SleepAverages(
         Duration averageTotalTimeInBed,
         LocalTime averageBedTime,
         LocalTime averageWakeTime,
-        Map<MorningFeeling, Long> morningFeelingFrequencies
+        Map<MorningFeeling, Long> morningFeelingFrequencies,
+        SleepDistribution distribution,
+        Map<MorningFeeling, MorningFeelingAverages> byMorningFeeling
 ) {
+    /**
+     * Number of nights from which {@link #fromSleepLogs(List, LocalDate, LocalDate, Set)} sums them
+     * in parallel: two slices, the fewest that can be split. Smaller ranges, like the 30-day one,
+     * stay on the calling thread and off the shared pool. See {@code SleepAveragesBenchmark}.
+     */
+    public static final int PARALLEL_THRESHOLD = 2 * ParallelSleepSums.SLICE_SIZE;
+
+    /**
+     * Creates averages without a distribution.
+     */
+    public SleepAverages(LocalDate from, LocalDate to, Duration averageTotalTimeInBed, LocalTime averageBedTime,
+                         LocalTime averageWakeTime, Map<MorningFeeling, Long> morningFeelingFrequencies) {
+        this(from, to, averageTotalTimeInBed, averageBedTime, averageWakeTime, morningFeelingFrequencies, null, null);
+    }
+
+    /**
+     * Creates averages without a breakdown by morning feeling.
+     */
+    public SleepAverages(LocalDate from, LocalDate to, Duration averageTotalTimeInBed, LocalTime averageBedTime,
+                         LocalTime averageWakeTime, Map<MorningFeeling, Long> morningFeelingFrequencies,
+                         SleepDistribution distribution) {
+        this(from, to, averageTotalTimeInBed, averageBedTime, averageWakeTime, morningFeelingFrequencies, distribution, null);
+    }
+
+    /**
+     * Returns a copy with the given averages per morning feeling.
+     */
+    public SleepAverages withMorningFeelingBreakdown(Map<MorningFeeling, MorningFeelingAverages> breakdown) {
+        return new SleepAverages(from, to, averageTotalTimeInBed, averageBedTime, averageWakeTime, morningFeelingFrequencies,
+                distribution, breakdown);
+    }
+
     /**
      * Creates a {@link SleepAverages} from a list of sleep logs.
      *
@@ -52,16 +94,145 @@ public record SleepAverages(
      * @return aggregated sleep statistics
      */
     public static SleepAverages fromSleepLogs(List<SleepLog> sleepLogs, LocalDate from, LocalDate to) {
+        return fromSleepLogs(sleepLogs, from, to, SleepStatistic.ALL);
+    }
+
+    /**
+     * Creates a {@link SleepAverages} with only the given statistics; the others are {@code null}.
+     *
+     * <p>Unrequested statistics cost nothing: in particular the trigonometry of bed and wake times
+     * is only done for the clock times asked for, and the {@link SleepDistribution} only built if asked for.
+     *
+     * <p>From {@link #PARALLEL_THRESHOLD} nights on, they are summed on the common fork-join pool,
+     * see {@link #fromSleepLogs(List, LocalDate, LocalDate, Set, ForkJoinPool)}.
+     *
+     * @param sleepLogs  the sleep log entries to aggregate
+     * @param from       start of the date range (exclusive)
+     * @param to         end of the date range (inclusive)
+     * @param statistics the statistics to compute
+     * @return aggregated sleep statistics
+     */
+    public static SleepAverages fromSleepLogs(List<SleepLog> sleepLogs, LocalDate from, LocalDate to, Set<SleepStatistic> statistics) {
+        if (sleepLogs.size() >= PARALLEL_THRESHOLD) {
+            return fromSleepLogs(sleepLogs, from, to, statistics, ForkJoinPool.commonPool());
+        }
+        return fromSleepLogsSequentially(sleepLogs, from, to, statistics);
+    }
+
+    /**
+     * Creates a {@link SleepAverages} with only the given statistics, summing the nights in slices
+     * on the given pool, for ranges of many thousands of nights such as multi-year or cohort ones.
+     *
+     * <p>The slices and the order in which their sums are combined depend only on the number of
+     * nights, and the clock time sums are compensated for rounding, so the result does not depend
+     * on the parallelism of the pool. It may differ from the sequential path in the last bits of
+     * those sums, which rarely moves an average clock time by a second.
+     *
+     * @param sleepLogs  the sleep log entries to aggregate
+     * @param from       start of the date range (exclusive)
+     * @param to         end of the date range (inclusive)
+     * @param statistics the statistics to compute
+     * @param pool       the pool the slices are summed on
+     * @return aggregated sleep statistics
+     */
+    public static SleepAverages fromSleepLogs(List<SleepLog> sleepLogs, LocalDate from, LocalDate to, Set<SleepStatistic> statistics,
+                                              ForkJoinPool pool) {
+        if (sleepLogs.isEmpty()) {
+            return empty(from, to, statistics);
+        }
+
+        ParallelSleepSums sums = ParallelSleepSums.of(sleepLogs, statistics, pool);
+        long count = sums.count();
+        return new SleepAverages(from, to,
+                statistics.contains(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED) ? sums.totalTimeInBed().dividedBy(count) : null,
+                statistics.contains(SleepStatistic.AVERAGE_BED_TIME)
+                        ? angleToTime(Math.atan2(sums.bedTimeSinSum() / count, sums.bedTimeCosSum() / count)) : null,
+                statistics.contains(SleepStatistic.AVERAGE_WAKE_TIME)
+                        ? angleToTime(Math.atan2(sums.wakeTimeSinSum() / count, sums.wakeTimeCosSum() / count)) : null,
+                statistics.contains(SleepStatistic.MORNING_FEELING_FREQUENCIES) ? sums.morningFeelingFrequencies() : null,
+                statistics.contains(SleepStatistic.DISTRIBUTION) ? SleepDistribution.fromAggregate(sums.aggregate()) : null);
+    }
+
+    /**
+     * The sequential path of {@link #fromSleepLogs(List, LocalDate, LocalDate, Set)}, whatever the number of nights.
+     */
+    static SleepAverages fromSleepLogsSequentially(List<SleepLog> sleepLogs, LocalDate from, LocalDate to,
+                                                   Set<SleepStatistic> statistics) {
         if (sleepLogs.isEmpty()) {
-            return new SleepAverages(from, to, Duration.ZERO, null, null, Map.of());
+            return empty(from, to, statistics);
         }
 
-        Duration averageTotalTimeInBed = averageSleepDuration(sleepLogs);
-        LocalTime averageBedTime = averageClockTime(sleepLogs, SleepLog::bedTime);
-        LocalTime averageWakeTime = averageClockTime(sleepLogs, SleepLog::wakeTime);
-        Map<MorningFeeling, Long> morningFeelingFrequencies = computeMorningFeelingFrequencies(sleepLogs);
+        SleepDistribution distribution = null;
+        if (statistics.contains(SleepStatistic.DISTRIBUTION)) {
+            SleepAggregate aggregate = new SleepAggregate();
+            sleepLogs.forEach(aggregate::add);
+            distribution = SleepDistribution.fromAggregate(aggregate);
+        }
 
-        return new SleepAverages(from, to, averageTotalTimeInBed, averageBedTime, averageWakeTime, morningFeelingFrequencies);
+        return new SleepAverages(from, to,
+                statistics.contains(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED) ? averageSleepDuration(sleepLogs) : null,
+                statistics.contains(SleepStatistic.AVERAGE_BED_TIME) ? averageClockTime(sleepLogs, SleepLog::bedTime) : null,
+                statistics.contains(SleepStatistic.AVERAGE_WAKE_TIME) ? averageClockTime(sleepLogs, SleepLog::wakeTime) : null,
+                statistics.contains(SleepStatistic.MORNING_FEELING_FREQUENCIES) ? computeMorningFeelingFrequencies(sleepLogs) : null,
+                distribution);
+    }
+
+    /**
+     * Creates a {@link SleepAverages} from running sums instead of individual logs.
+     *
+     * <p>Produces the same statistics as {@link #fromSleepLogs} for the nights that were added
+     * to the aggregate, in constant time.
+     *
+     * @param aggregate the sums over the nights in the range
+     * @param from      start of the date range (exclusive)
+     * @param to        end of the date range (inclusive)
+     * @return aggregated sleep statistics
+     */
+    public static SleepAverages fromAggregate(SleepAggregate aggregate, LocalDate from, LocalDate to) {
+        return fromAggregate(aggregate, from, to, SleepStatistic.ALL);
+    }
+
+    /**
+     * Creates a {@link SleepAverages} from running sums with only the given statistics, like
+     * {@link #fromSleepLogs(List, LocalDate, LocalDate, Set)} does.
+     */
+    public static SleepAverages fromAggregate(SleepAggregate aggregate, LocalDate from, LocalDate to, Set<SleepStatistic> statistics) {
+        return fromAggregate(aggregate, from, to, statistics,
+                statistics.contains(SleepStatistic.DISTRIBUTION) ? SleepDistribution.fromAggregate(aggregate) : null);
+    }
+
+    /**
+     * Like {@link #fromAggregate(SleepAggregate, LocalDate, LocalDate, Set)}, with the distribution
+     * worked out by the caller for aggregates kept without a histogram.
+     */
+    static SleepAverages fromAggregate(SleepAggregate aggregate, LocalDate from, LocalDate to, Set<SleepStatistic> statistics,
+                                       SleepDistribution distribution) {
+        long count = aggregate.count();
+        if (count == 0) {
+            return empty(from, to, statistics);
+        }
+
+        return new SleepAverages(from, to,
+                statistics.contains(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED)
+                        ? Duration.ofSeconds(aggregate.totalSecondsInBed()).dividedBy(count) : null,
+                statistics.contains(SleepStatistic.AVERAGE_BED_TIME)
+                        ? angleToTime(Math.atan2(aggregate.bedTimeSinSum() / count, aggregate.bedTimeCosSum() / count)) : null,
+                statistics.contains(SleepStatistic.AVERAGE_WAKE_TIME)
+                        ? angleToTime(Math.atan2(aggregate.wakeTimeSinSum() / count, aggregate.wakeTimeCosSum() / count)) : null,
+                statistics.contains(SleepStatistic.MORNING_FEELING_FREQUENCIES) ? aggregate.morningFeelingFrequencies() : null,
+                distribution);
+    }
+
+    /**
+     * Averages of an empty range: zero time in bed, no clock times and no feelings, for the
+     * statistics asked for.
+     */
+    private static SleepAverages empty(LocalDate from, LocalDate to, Set<SleepStatistic> statistics) {
+        return new SleepAverages(from, to,
+                statistics.contains(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED) ? Duration.ZERO : null,
+                null,
+                null,
+                statistics.contains(SleepStatistic.MORNING_FEELING_FREQUENCIES) ? Map.of() : null);
     }
 
     /**
@@ -134,8 +305,15 @@ public record SleepAverages(
      * @param time the clock time to convert
      * @return the angle in radians, ranging from 0 (inclusive) to 2π (exclusive)
      */
-    private static double timeToAngle(LocalTime time) {
-        return (time.toSecondOfDay() / (double) SECONDS_IN_DAY) * TWO_PI;
+    static double timeToAngle(LocalTime time) {
+        return secondOfDayToAngle(time.toSecondOfDay());
+    }
+
+    /**
+     * Same as {@link #timeToAngle}, for a time already expressed as seconds since midnight.
+     */
+    static double secondOfDayToAngle(int secondOfDay) {
+        return (secondOfDay / (double) SECONDS_IN_DAY) * TWO_PI;
     }
 
     /**
@@ -152,7 +330,7 @@ public record SleepAverages(
      * @return the {@link LocalTime} that corresponds to that angle, rounded to
      *         the nearest second
      */
-    private static LocalTime angleToTime(double angle) {
+    static LocalTime angleToTime(double angle) {
         if (angle < 0) {
             angle += TWO_PI;
         }
@@ -0,0 +1,237 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * How regular a user's sleep is over their whole history, kept as running sums that are updated
+ * night by night instead of being recomputed from every log.
+ *
+ * <ul>
+ *   <li><b>Streaks</b> are runs of consecutive sleep dates. The runs at both ends of the history are
+ *       tracked, {@code lastStreak} being the one that may still be going on.</li>
+ *   <li><b>Circular variance</b> of bed and wake times is {@code 1 - R}, where {@code R} is the mean
+ *       resultant length on the 24-hour clock (see {@link SleepAverages#timeToAngle}): 0 when every
+ *       night is at the same clock time, approaching 1 as the times spread around the clock.</li>
+ *   <li><b>Social jet lag</b> is the shift of the circular mean mid-sleep time (halfway between bed
+ *       and wake time) of free nights, those ending on a Saturday or Sunday, against the other nights.</li>
+ *   <li><b>Night-to-night change</b> is the mean absolute difference in time in bed between nights on
+ *       consecutive dates.</li>
+ * </ul>
+ *
+ * <p>A night dated after the latest one or before the earliest one is {@link #add}ed in constant
+ * time, so logging night by night and importing history newest first are both cheap. A night
+ * between the two may join two runs and needs the state rebuilt with {@link #of}. Since sleep
+ * dates are unique per user, a night already included can never be added again.
+ *
+ * @param userId                     the user
+ * @param version                    version of the stored row, {@code 0} if it is not stored
+ * @param nights                     number of nights
+ * @param firstDate                  earliest sleep date, {@code null} without nights
+ * @param firstSecondsInBed          time in bed on {@code firstDate}
+ * @param firstStreak                length of the run of consecutive dates starting on {@code firstDate}
+ * @param lastDate                   latest sleep date, {@code null} without nights
+ * @param lastSecondsInBed           time in bed on {@code lastDate}
+ * @param lastStreak                 length of the run of consecutive dates ending on {@code lastDate}
+ * @param longestStreak              length of the longest run of consecutive dates
+ * @param bedTimeSinSum              sum of the sines of bed times
+ * @param bedTimeCosSum              sum of the cosines of bed times
+ * @param wakeTimeSinSum             sum of the sines of wake times
+ * @param wakeTimeCosSum             sum of the cosines of wake times
+ * @param weekdayNights              number of nights ending on Monday to Friday
+ * @param weekdayMidSleepSinSum      sum of the sines of their mid-sleep times
+ * @param weekdayMidSleepCosSum      sum of the cosines of their mid-sleep times
+ * @param weekendNights              number of nights ending on Saturday or Sunday
+ * @param weekendMidSleepSinSum      sum of the sines of their mid-sleep times
+ * @param weekendMidSleepCosSum      sum of the cosines of their mid-sleep times
+ * @param consecutivePairs           number of pairs of nights on consecutive dates
+ * @param timeInBedChangeSeconds     sum of the absolute differences in time in bed within those pairs
+ */
+public record SleepConsistency(
+        long userId,
+        long version,
+        int nights,
+        LocalDate firstDate,
+        long firstSecondsInBed,
+        int firstStreak,
+        LocalDate lastDate,
+        long lastSecondsInBed,
+        int lastStreak,
+        int longestStreak,
+        double bedTimeSinSum,
+        double bedTimeCosSum,
+        double wakeTimeSinSum,
+        double wakeTimeCosSum,
+        int weekdayNights,
+        double weekdayMidSleepSinSum,
+        double weekdayMidSleepCosSum,
+        int weekendNights,
+        double weekendMidSleepSinSum,
+        double weekendMidSleepCosSum,
+        int consecutivePairs,
+        long timeInBedChangeSeconds
+) {
+    private static final double SECONDS_PER_RADIAN = Duration.ofDays(1).toSeconds() / (2 * Math.PI);
+
+    public static SleepConsistency empty(long userId, long version) {
+        return new SleepConsistency(userId, version, 0, null, 0, 0, null, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Builds the consistency of all the user's nights, in any order, for a row stored at {@code version}.
+     */
+    public static SleepConsistency of(long userId, List<SleepLog> sleepLogs, long version) {
+        SleepConsistency consistency = empty(userId, version);
+        for (SleepLog sleepLog : sleepLogs.stream().sorted(Comparator.comparing(SleepLog::sleepDate)).toList()) {
+            consistency = consistency.add(sleepLog);
+        }
+        return consistency;
+    }
+
+    public SleepConsistency withVersion(long version) {
+        return new SleepConsistency(userId, version, nights, firstDate, firstSecondsInBed, firstStreak,
+                lastDate, lastSecondsInBed, lastStreak, longestStreak,
+                bedTimeSinSum, bedTimeCosSum, wakeTimeSinSum, wakeTimeCosSum,
+                weekdayNights, weekdayMidSleepSinSum, weekdayMidSleepCosSum,
+                weekendNights, weekendMidSleepSinSum, weekendMidSleepCosSum,
+                consecutivePairs, timeInBedChangeSeconds);
+    }
+
+    /**
+     * Whether a night dated {@code sleepDate} can be {@link #add}ed: it is after the latest night
+     * or before the earliest one.
+     */
+    public boolean canAdd(LocalDate sleepDate) {
+        return nights == 0 || sleepDate.isAfter(lastDate) || sleepDate.isBefore(firstDate);
+    }
+
+    /**
+     * Returns the consistency with one more night, dated after or before every night already included.
+     *
+     * @throws IllegalArgumentException if the night is dated within the included nights
+     */
+    public SleepConsistency add(SleepLog sleepLog) {
+        LocalDate sleepDate = sleepLog.sleepDate();
+        if (!canAdd(sleepDate)) {
+            throw new IllegalArgumentException("Night of " + sleepDate + " is within " + firstDate + " and " + lastDate);
+        }
+        long secondsInBed = Duration.between(sleepLog.bedTime(), sleepLog.wakeTime()).getSeconds();
+        boolean latest = nights == 0 || sleepDate.isAfter(lastDate);
+        boolean earliest = nights == 0 || sleepDate.isBefore(firstDate);
+        boolean extendsLast = nights > 0 && sleepDate.equals(lastDate.plusDays(1));
+        boolean extendsFirst = nights > 0 && sleepDate.equals(firstDate.minusDays(1));
+        // Once every night belongs to one run, extending either end extends the other one too
+        boolean oneRun = nights > 0 && lastStreak == nights;
+        int newLastStreak = extendsLast || extendsFirst && oneRun ? lastStreak + 1 : latest ? 1 : lastStreak;
+        int newFirstStreak = extendsFirst || extendsLast && oneRun ? firstStreak + 1 : earliest ? 1 : firstStreak;
+        long neighbourSecondsInBed = extendsLast ? lastSecondsInBed : firstSecondsInBed;
+        boolean consecutive = extendsLast || extendsFirst;
+        double bedAngle = SleepAverages.timeToAngle(sleepLog.bedTime().toLocalTime());
+        double wakeAngle = SleepAverages.timeToAngle(sleepLog.wakeTime().toLocalTime());
+        double midSleepAngle = SleepAverages.timeToAngle(midSleep(sleepLog.bedTime(), sleepLog.wakeTime()));
+        boolean weekend = isFreeNight(sleepDate);
+        return new SleepConsistency(
+                userId,
+                version,
+                nights + 1,
+                earliest ? sleepDate : firstDate,
+                earliest ? secondsInBed : firstSecondsInBed,
+                newFirstStreak,
+                latest ? sleepDate : lastDate,
+                latest ? secondsInBed : lastSecondsInBed,
+                newLastStreak,
+                Math.max(longestStreak, Math.max(newFirstStreak, newLastStreak)),
+                bedTimeSinSum + Math.sin(bedAngle),
+                bedTimeCosSum + Math.cos(bedAngle),
+                wakeTimeSinSum + Math.sin(wakeAngle),
+                wakeTimeCosSum + Math.cos(wakeAngle),
+                weekend ? weekdayNights : weekdayNights + 1,
+                weekend ? weekdayMidSleepSinSum : weekdayMidSleepSinSum + Math.sin(midSleepAngle),
+                weekend ? weekdayMidSleepCosSum : weekdayMidSleepCosSum + Math.cos(midSleepAngle),
+                weekend ? weekendNights + 1 : weekendNights,
+                weekend ? weekendMidSleepSinSum + Math.sin(midSleepAngle) : weekendMidSleepSinSum,
+                weekend ? weekendMidSleepCosSum + Math.cos(midSleepAngle) : weekendMidSleepCosSum,
+                consecutive ? consecutivePairs + 1 : consecutivePairs,
+                consecutive ? timeInBedChangeSeconds + Math.abs(secondsInBed - neighbourSecondsInBed) : timeInBedChangeSeconds);
+    }
+
+    /**
+     * Returns the streak still going on {@code today}: the last run, if it ends today or yesterday
+     * (today's night may not be logged yet), otherwise zero.
+     */
+    public int currentStreak(LocalDate today) {
+        return lastDate != null && !lastDate.isBefore(today.minusDays(1)) ? lastStreak : 0;
+    }
+
+    /**
+     * Circular variance of bed times, rounded to three decimals, or {@code null} without nights.
+     */
+    public Double bedTimeCircularVariance() {
+        return circularVariance(bedTimeSinSum, bedTimeCosSum, nights);
+    }
+
+    /**
+     * Circular variance of wake times, rounded to three decimals, or {@code null} without nights.
+     */
+    public Double wakeTimeCircularVariance() {
+        return circularVariance(wakeTimeSinSum, wakeTimeCosSum, nights);
+    }
+
+    /**
+     * Circular mean mid-sleep time of nights ending on Monday to Friday, {@code null} without any.
+     */
+    public LocalTime weekdayMidSleep() {
+        return weekdayNights == 0 ? null : SleepAverages.angleToTime(Math.atan2(weekdayMidSleepSinSum, weekdayMidSleepCosSum));
+    }
+
+    /**
+     * Circular mean mid-sleep time of nights ending on Saturday or Sunday, {@code null} without any.
+     */
+    public LocalTime weekendMidSleep() {
+        return weekendNights == 0 ? null : SleepAverages.angleToTime(Math.atan2(weekendMidSleepSinSum, weekendMidSleepCosSum));
+    }
+
+    /**
+     * Shift of the weekend mid-sleep time against the weekday one, the shorter way around the
+     * clock, to the second; positive when the user sleeps later on weekends. {@code null} unless
+     * there are both weekday and weekend nights.
+     */
+    public Duration socialJetLag() {
+        if (weekdayNights == 0 || weekendNights == 0) {
+            return null;
+        }
+        double shift = Math.atan2(weekendMidSleepSinSum, weekendMidSleepCosSum) - Math.atan2(weekdayMidSleepSinSum, weekdayMidSleepCosSum);
+        double wrapped = Math.atan2(Math.sin(shift), Math.cos(shift));
+        return Duration.ofSeconds(Math.round(wrapped * SECONDS_PER_RADIAN));
+    }
+
+    /**
+     * Mean absolute change in time in bed from one night to the next, to the second, or
+     * {@code null} without nights on consecutive dates.
+     */
+    public Duration averageTimeInBedChange() {
+        return consecutivePairs == 0 ? null : Duration.ofSeconds(Math.round(timeInBedChangeSeconds / (double) consecutivePairs));
+    }
+
+    static LocalTime midSleep(LocalDateTime bedTime, LocalDateTime wakeTime) {
+        return bedTime.plus(Duration.between(bedTime, wakeTime).dividedBy(2)).toLocalTime();
+    }
+
+    private static boolean isFreeNight(LocalDate sleepDate) {
+        DayOfWeek day = sleepDate.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    private static Double circularVariance(double sinSum, double cosSum, int count) {
+        if (count == 0) {
+            return null;
+        }
+        double resultantLength = Math.min(1, Math.hypot(sinSum, cosSum) / count);
+        return Math.round((1 - resultantLength) * 1000) / 1000.0;
+    }
+}
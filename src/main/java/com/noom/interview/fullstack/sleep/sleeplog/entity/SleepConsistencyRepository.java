@@ -0,0 +1,24 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.util.Optional;
+
+/**
+ * Stores one {@link SleepConsistency} per user.
+ *
+ * <p>Rows are versioned: {@link #save} only writes if the row is still at the version it was read
+ * at, so concurrent writers for the same user never lose each other's nights.
+ */
+public interface SleepConsistencyRepository {
+
+    Optional<SleepConsistency> findByUserId(Long userId);
+
+    /**
+     * Stores the consistency if the user's row is still at {@link SleepConsistency#version()}, or,
+     * for version {@code 0}, if the user has no row yet.
+     *
+     * @return whether it was stored; {@code false} if another writer got there first
+     */
+    boolean save(SleepConsistency consistency);
+
+    void deleteByUserId(Long userId);
+}
@@ -0,0 +1,73 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+
+/**
+ * Spread of a user's nights over a date range, complementing the means in {@link SleepAverages}.
+ *
+ * <p>Time-in-bed quantiles come from a {@link TimeInBedHistogram} and are within five minutes of
+ * the exact values. Bed and wake times are described by circular statistics on the 24-hour clock:
+ * the mean resultant length is 1 when every night is at the same clock time and approaches 0 as
+ * the times spread around the clock; the circular standard deviation, {@code sqrt(-2 ln R)}
+ * converted to time, is {@code null} when the times cancel out completely.
+ *
+ * @param timeInBedP10             10th percentile of time in bed
+ * @param timeInBedMedian          median time in bed
+ * @param timeInBedP90             90th percentile of time in bed
+ * @param bedTimeResultantLength   mean resultant length of bed times, rounded to three decimals
+ * @param bedTimeCircularStdDev    circular standard deviation of bed times, to the second
+ * @param wakeTimeResultantLength  mean resultant length of wake times, rounded to three decimals
+ * @param wakeTimeCircularStdDev   circular standard deviation of wake times, to the second
+ */
+public record SleepDistribution(
+        Duration timeInBedP10,
+        Duration timeInBedMedian,
+        Duration timeInBedP90,
+        double bedTimeResultantLength,
+        Duration bedTimeCircularStdDev,
+        double wakeTimeResultantLength,
+        Duration wakeTimeCircularStdDev
+) {
+    private static final double SECONDS_PER_RADIAN = Duration.ofDays(1).toSeconds() / (2 * Math.PI);
+
+    /**
+     * Creates the distribution of the nights in {@code aggregate}, or {@code null} if it is empty.
+     */
+    public static SleepDistribution fromAggregate(SleepAggregate aggregate) {
+        if (aggregate.count() == 0) {
+            return null;
+        }
+        TimeInBedHistogram histogram = aggregate.timeInBedHistogram();
+        return fromAggregate(aggregate, histogram.quantile(0.1), histogram.quantile(0.5), histogram.quantile(0.9));
+    }
+
+    /**
+     * Creates the distribution of the nights in a non-empty {@code aggregate} kept without a histogram,
+     * with time-in-bed quantiles worked out by the caller.
+     */
+    static SleepDistribution fromAggregate(SleepAggregate aggregate, Duration timeInBedP10, Duration timeInBedMedian,
+                                           Duration timeInBedP90) {
+        long count = aggregate.count();
+        double bedResultantLength = resultantLength(aggregate.bedTimeSinSum(), aggregate.bedTimeCosSum(), count);
+        double wakeResultantLength = resultantLength(aggregate.wakeTimeSinSum(), aggregate.wakeTimeCosSum(), count);
+        return new SleepDistribution(
+                timeInBedP10,
+                timeInBedMedian,
+                timeInBedP90,
+                Math.round(bedResultantLength * 1000) / 1000.0,
+                circularStdDev(bedResultantLength),
+                Math.round(wakeResultantLength * 1000) / 1000.0,
+                circularStdDev(wakeResultantLength));
+    }
+
+    private static double resultantLength(double sinSum, double cosSum, long count) {
+        return Math.min(1, Math.hypot(sinSum, cosSum) / count);
+    }
+
+    private static Duration circularStdDev(double resultantLength) {
+        if (resultantLength < 1e-9) {
+            return null;
+        }
+        return Duration.ofSeconds(Math.round(Math.sqrt(-2 * Math.log(resultantLength)) * SECONDS_PER_RADIAN));
+    }
+}
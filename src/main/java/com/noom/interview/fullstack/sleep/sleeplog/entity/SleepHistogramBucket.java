@@ -0,0 +1,10 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+/**
+ * Number of nights in one histogram bucket.
+ *
+ * @param index position of the bucket from the field's origin, see {@link SleepHistogramField}
+ * @param count nights in the bucket
+ */
+public record SleepHistogramBucket(long index, long count) {
+}
@@ -0,0 +1,71 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * What a sleep histogram counts nights by.
+ *
+ * <p>Bed and wake times are bucketed by clock time on a 24-hour circle starting at the field's
+ * origin: noon for bed times, so that an evening-to-morning bed time range is contiguous and
+ * buckets around midnight are neighbours, and midnight for wake times. Time in bed is bucketed
+ * from zero; nights of 24 hours or more count as 24 hours.
+ */
+public enum SleepHistogramField {
+    BED_TIME("bedTime", LocalTime.NOON),
+    WAKE_TIME("wakeTime", LocalTime.MIDNIGHT),
+    TIME_IN_BED("timeInBed", null);
+
+    private static final long SECONDS_IN_DAY = Duration.ofDays(1).toSeconds();
+
+    private final String parameterName;
+    private final LocalTime origin;
+
+    SleepHistogramField(String parameterName, LocalTime origin) {
+        this.parameterName = parameterName;
+        this.origin = origin;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code parameterName} names no field
+     */
+    public static SleepHistogramField fromParameterName(String parameterName) {
+        return Arrays.stream(values())
+                .filter(field -> field.parameterName.equals(parameterName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown histogram field " + parameterName + ", expected bedTime, wakeTime or timeInBed"));
+    }
+
+    public String parameterName() {
+        return parameterName;
+    }
+
+    public boolean isClockTime() {
+        return origin != null;
+    }
+
+    /**
+     * Clock time at which bucket 0 starts; {@code null} for {@link #TIME_IN_BED}.
+     */
+    public LocalTime origin() {
+        return origin;
+    }
+
+    /**
+     * Index of the bucket holding {@code sleepLog}, the same way {@link JdbcSleepLogRepository} computes it.
+     */
+    public long bucketOf(SleepLog sleepLog, long bucketSeconds) {
+        return switch (this) {
+            case BED_TIME -> clockBucket(sleepLog.bedTime().toLocalTime(), bucketSeconds);
+            case WAKE_TIME -> clockBucket(sleepLog.wakeTime().toLocalTime(), bucketSeconds);
+            case TIME_IN_BED -> Math.min(Duration.between(sleepLog.bedTime(), sleepLog.wakeTime()).getSeconds(), SECONDS_IN_DAY)
+                    / bucketSeconds;
+        };
+    }
+
+    private long clockBucket(LocalTime time, long bucketSeconds) {
+        return Math.floorMod(time.toSecondOfDay() - origin.toSecondOfDay(), SECONDS_IN_DAY) / bucketSeconds;
+    }
+}
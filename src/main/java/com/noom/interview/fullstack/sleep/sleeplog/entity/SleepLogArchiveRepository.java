@@ -0,0 +1,35 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves old nights out of {@code sleep_log} into per-user-month {@link ArchivedMonth}s.
+ *
+ * <p>Only {@link JdbcSleepLogArchiveRepository} exists: the {@code in-memory} engine keeps
+ * everything in the heap and has nothing to gain from archiving. Reads of archived nights go
+ * through {@link SleepLogRepository}, which combines them with the hot ones.
+ */
+public interface SleepLogArchiveRepository {
+
+    /**
+     * Returns up to {@code limit} ids, ascending and above {@code afterUserId}, of users with a
+     * night in {@code sleep_log} dated before {@code before}.
+     */
+    List<Long> findUserIdsWithNightsBefore(LocalDate before, long afterUserId, int limit);
+
+    /**
+     * Moves up to {@code limit} of the user's oldest nights dated before {@code before} into the
+     * archive, merging them into months archived earlier, in one short transaction.
+     *
+     * @return the number of nights moved; fewer than {@code limit} once none are left
+     */
+    int archive(Long userId, LocalDate before, int limit);
+
+    /**
+     * Deletes every month archived for the user.
+     *
+     * @return the number of nights those months held
+     */
+    int deleteByUserId(Long userId);
+}
@@ -1,105 +1,82 @@
 package com.noom.interview.fullstack.sleep.sleeplog.entity;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
-import org.springframework.dao.DuplicateKeyException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.stereotype.Repository;
 
-@Repository
-public class SleepLogRepository {
+/**
+ * Storage for {@link SleepLog} entries.
+ *
+ * <p>Implementations are selected by profile: {@link JdbcSleepLogRepository} by default,
+ * {@link InMemorySleepLogRepository} with the {@code in-memory} profile. Every implementation
+ * allows at most one log per user and sleep date.
+ */
+public interface SleepLogRepository {
 
-    private final NamedParameterJdbcTemplate jdbc;
+    /**
+     * Stores a new sleep log and returns it with its generated {@code id} and {@code createdAt}.
+     *
+     * @throws DuplicateSleepLogException if the user already has a log for the same sleep date
+     */
+    SleepLog save(SleepLog sleepLog);
 
-    public SleepLogRepository(NamedParameterJdbcTemplate jdbc) {
-        this.jdbc = jdbc;
-    }
+    Optional<SleepLog> findByUserIdAndDate(Long userId, LocalDate sleepDate);
 
-    public SleepLog save(SleepLog sleepLog) {
-        try {
-            return jdbc.queryForObject(INSERT_SLEEP_LOG, mapToInsertParams(sleepLog), this::mapToSleepLog);
-        } catch (DuplicateKeyException exception) {
-            throw new DuplicateSleepLogException(
-                    "Sleep log already exists for user " + sleepLog.userId() + " on " + sleepLog.sleepDate(), exception);
-        }
-    }
+    /**
+     * Returns the user's logs with a sleep date in {@code (from, to]}.
+     */
+    List<SleepLog> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to);
 
-    public Optional<SleepLog> findByUserIdAndDate(Long userId, LocalDate sleepDate) {
-        try {
-            SleepLog sleepLog = jdbc.queryForObject(FIND_BY_USER_ID_AND_DATE, mapToFindByUserParams(userId, sleepDate), this::mapToSleepLog);
-            return Optional.ofNullable(sleepLog);
-        } catch (EmptyResultDataAccessException exception) {
-            return Optional.empty();
-        }
-    }
+    /**
+     * Returns the logs of all the given users with a sleep date in {@code (from, to]}, in no particular order.
+     */
+    List<SleepLog> findByUserIdsAndDateRange(Collection<Long> userIds, LocalDate from, LocalDate to);
 
-    public List<SleepLog> findByUserIdAndDateRange(Long userId, LocalDate from, LocalDate to) {
-        return jdbc.query(FIND_BY_USER_ID_AND_DATE_RANGE, mapToFindByUserDateRangeParams(userId, from, to), this::mapToSleepLog);
-    }
+    /**
+     * Returns up to {@code limit} ids, ascending and above {@code afterUserId}, of users with a
+     * night dated after {@code activeSince}. Meant for batch jobs paging through users.
+     */
+    List<Long> findActiveUserIds(LocalDate activeSince, long afterUserId, int limit);
 
-    private MapSqlParameterSource mapToInsertParams(SleepLog sleepLog) {
-        return new MapSqlParameterSource()
-                .addValue("userId", sleepLog.userId())
-                .addValue("sleepDate", sleepLog.sleepDate())
-                .addValue("bedTime", sleepLog.bedTime())
-                .addValue("wakeTime", sleepLog.wakeTime())
-                .addValue("morningFeeling", sleepLog.morningFeeling().name());
-    }
+    /**
+     * Returns the highest user id with a log, or empty if there are no logs.
+     */
+    Optional<Long> findMaxUserId();
 
-    private MapSqlParameterSource mapToFindByUserParams(Long userId, LocalDate sleepDate) {
-        return new MapSqlParameterSource()
-                .addValue("userId", userId)
-                .addValue("sleepDate", sleepDate);
-    }
+    /**
+     * Counts the user's nights with a sleep date in {@code (from, to]} per bucket of
+     * {@code bucketSeconds} of {@code field}, see {@link SleepHistogramField#bucketOf}.
+     * Only non-empty buckets are returned, ordered by index.
+     */
+    List<SleepHistogramBucket> countByHistogramBucket(Long userId, LocalDate from, LocalDate to,
+                                                      SleepHistogramField field, long bucketSeconds);
 
-    private MapSqlParameterSource mapToFindByUserDateRangeParams(Long userId, LocalDate from, LocalDate to) {
-        return new MapSqlParameterSource()
-                .addValue("userId", userId)
-                .addValue("from", from)
-                .addValue("to", to);
-    }
+    /**
+     * Returns the highest id and latest creation time stored, or empty if there are no logs.
+     */
+    Optional<SleepLogWatermark> findWatermark();
 
-    private static final String INSERT_SLEEP_LOG = """
-            INSERT INTO sleep_log (user_id, sleep_date, bed_time, wake_time, morning_feeling)
-            VALUES (:userId, :sleepDate, :bedTime, :wakeTime, :morningFeeling)
-            RETURNING *
-            """;
+    /**
+     * Returns up to {@code limit} logs with an id above {@code afterId} or created after
+     * {@code createdAfter}, ordered by id.
+     */
+    List<SleepLog> findWrittenAfter(long afterId, LocalDateTime createdAfter, int limit);
 
-    private static final String FIND_BY_USER_ID_AND_DATE = """
-            SELECT * FROM sleep_log
-            WHERE user_id = :userId AND sleep_date = :sleepDate
-            """;
+    /**
+     * Returns up to {@code limit} ids of users with a log created after {@code createdAfter}, the
+     * most recently written first. Meant for warming caches with the users likeliest to come back.
+     */
+    List<Long> findUserIdsWrittenSince(LocalDateTime createdAfter, int limit);
 
-    private static final String FIND_BY_USER_ID_AND_DATE_RANGE = """
-            SELECT * FROM sleep_log
-            WHERE user_id = :userId AND sleep_date > :from AND sleep_date <= :to
-            """;
-
-    private SleepLog mapToSleepLog(ResultSet rs, int rowNum) throws SQLException {
-        return new SleepLog(
-                rs.getLong(Column.ID),
-                rs.getLong(Column.USER_ID),
-                rs.getDate(Column.SLEEP_DATE).toLocalDate(),
-                rs.getTimestamp(Column.BED_TIME).toLocalDateTime(),
-                rs.getTimestamp(Column.WAKE_TIME).toLocalDateTime(),
-                MorningFeeling.valueOf(rs.getString(Column.MORNING_FEELING)),
-                rs.getTimestamp(Column.CREATED_AT).toLocalDateTime()
-        );
-    }
-    private static class Column {
-        static final String ID = "id";
-        static final String USER_ID = "user_id";
-        static final String SLEEP_DATE = "sleep_date";
-        static final String BED_TIME = "bed_time";
-        static final String WAKE_TIME = "wake_time";
-        static final String MORNING_FEELING = "morning_feeling";
-        static final String CREATED_AT = "created_at";
-    }
+    /**
+     * Deletes up to {@code limit} of the user's logs, oldest sleep dates first. Nights already
+     * archived are left to {@link SleepLogArchiveRepository#deleteByUserId}.
+     *
+     * @return the number of logs deleted; fewer than {@code limit} once none are left
+     */
+    int deleteOldestByUserId(Long userId, int limit);
 }
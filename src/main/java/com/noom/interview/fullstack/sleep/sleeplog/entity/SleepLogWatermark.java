@@ -0,0 +1,16 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position in the stream of stored sleep logs: the highest generated id and the latest creation time.
+ *
+ * <p>Ids are taken from a sequence when a row is inserted, but rows become visible when their
+ * transaction commits, so a row with a lower id can appear after one with a higher id. Readers
+ * catching up from a watermark should therefore also look back by creation time.
+ *
+ * @param id        highest {@link SleepLog#id()} stored
+ * @param createdAt latest {@link SleepLog#createdAt()} stored
+ */
+public record SleepLogWatermark(long id, LocalDateTime createdAt) {
+}
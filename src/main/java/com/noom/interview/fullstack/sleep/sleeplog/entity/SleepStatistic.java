@@ -0,0 +1,31 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The statistics of {@link SleepAverages} that can be computed on their own.
+ *
+ * <p>Each one is named after its field in the averages response.
+ */
+public enum SleepStatistic {
+
+    AVERAGE_TOTAL_TIME_IN_BED("averageTotalTimeInBed"),
+    AVERAGE_BED_TIME("averageBedTime"),
+    AVERAGE_WAKE_TIME("averageWakeTime"),
+    MORNING_FEELING_FREQUENCIES("morningFeelingFrequencies"),
+    DISTRIBUTION("distribution");
+
+    public static final Set<SleepStatistic> ALL = Collections.unmodifiableSet(EnumSet.allOf(SleepStatistic.class));
+
+    private final String fieldName;
+
+    SleepStatistic(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+}
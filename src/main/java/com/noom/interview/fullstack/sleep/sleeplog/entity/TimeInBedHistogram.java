@@ -0,0 +1,81 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of time in bed from which quantiles are read.
+ *
+ * <p>Nights are counted in ten-minute buckets centred on whole multiples of ten minutes, from
+ * zero to 24 hours; longer nights share the last bucket. A quantile is the centre of the bucket
+ * holding the night of that rank, so it is within five minutes of the exact value.
+ *
+ * <p>Unlike t-digest or KLL sketches, the histogram supports removing a night as well as adding
+ * and merging, which sliding windows need, and its size does not depend on the number of nights,
+ * so histograms per user and month can be merged for any range or cohort.
+ *
+ * <p>Not thread-safe.
+ */
+public final class TimeInBedHistogram {
+
+    static final int BUCKET_SECONDS = 600;
+    static final int BUCKETS = (int) (Duration.ofDays(1).toSeconds() / BUCKET_SECONDS) + 1;
+
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+
+    public void add(long secondsInBed) {
+        counts[bucket(secondsInBed)]++;
+        count++;
+    }
+
+    public void remove(long secondsInBed) {
+        counts[bucket(secondsInBed)]--;
+        count--;
+    }
+
+    public void merge(TimeInBedHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the time in bed at quantile {@code q}, or {@code null} if the histogram is empty.
+     *
+     * @param q quantile between 0 and 1, e.g. 0.5 for the median
+     */
+    public Duration quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return centre(i);
+            }
+        }
+        return centre(BUCKETS - 1);
+    }
+
+    static int bucket(long secondsInBed) {
+        long bucket = (secondsInBed + BUCKET_SECONDS / 2) / BUCKET_SECONDS;
+        return (int) Math.min(Math.max(bucket, 0), BUCKETS - 1);
+    }
+
+    static Duration centre(int bucket) {
+        return Duration.ofSeconds((long) bucket * BUCKET_SECONDS);
+    }
+}
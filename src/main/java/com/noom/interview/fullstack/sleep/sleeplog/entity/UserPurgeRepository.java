@@ -0,0 +1,38 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Storage for {@link PurgeJob}s, shared by all instances so that any of them reports a purge's
+ * progress and a purge outlives the instance that ran it.
+ */
+public interface UserPurgeRepository {
+
+    /**
+     * Inserts the purge or overwrites its stored progress.
+     */
+    void save(PurgeJob purge);
+
+    Optional<PurgeJob> findById(String id);
+
+    /**
+     * Returns the earliest requested purge that is neither completed nor failed.
+     */
+    Optional<PurgeJob> findOldestUnfinished();
+
+    /**
+     * Returns the users of purges that are unfinished or were last updated at or after {@code since},
+     * by the database clock.
+     */
+    Set<Long> findUserIdsPurgedSince(LocalDateTime since);
+
+    /**
+     * Deletes completed and failed purges requested before {@code before}.
+     *
+     * @return the number of purges deleted
+     */
+    int deleteFinishedBefore(Instant before);
+}
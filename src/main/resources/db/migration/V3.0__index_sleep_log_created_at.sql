@@ -0,0 +1 @@
+CREATE INDEX idx_sleep_log_created_at ON sleep_log (created_at);
@@ -0,0 +1,9 @@
+CREATE TABLE job_checkpoint (
+    job_name    VARCHAR(64)     PRIMARY KEY,
+    run_key     VARCHAR(64)     NOT NULL,
+    position    BIGINT          NOT NULL,
+    completed   BOOLEAN         NOT NULL,
+    lease_owner VARCHAR(128),
+    lease_until TIMESTAMP,
+    updated_at  TIMESTAMP       DEFAULT NOW()
+);
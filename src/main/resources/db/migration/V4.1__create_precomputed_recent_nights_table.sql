@@ -0,0 +1,7 @@
+CREATE TABLE precomputed_recent_nights (
+    user_id       BIGINT        PRIMARY KEY,
+    as_of         DATE          NOT NULL,
+    capacity      INT           NOT NULL,
+    recent_nights BYTEA         NOT NULL,
+    computed_at   TIMESTAMP     DEFAULT NOW()
+);
@@ -0,0 +1,17 @@
+CREATE TABLE sleep_log_archive (
+    user_id              BIGINT            NOT NULL,
+    month                DATE              NOT NULL,
+    nights               INT               NOT NULL,
+    total_seconds_in_bed BIGINT            NOT NULL,
+    bed_time_sin_sum     DOUBLE PRECISION  NOT NULL,
+    bed_time_cos_sum     DOUBLE PRECISION  NOT NULL,
+    wake_time_sin_sum    DOUBLE PRECISION  NOT NULL,
+    wake_time_cos_sum    DOUBLE PRECISION  NOT NULL,
+    bad_nights           INT               NOT NULL,
+    ok_nights            INT               NOT NULL,
+    good_nights          INT               NOT NULL,
+    archived_nights      BYTEA             NOT NULL,
+    archived_at          TIMESTAMP         DEFAULT NOW(),
+
+    PRIMARY KEY (user_id, month)
+);
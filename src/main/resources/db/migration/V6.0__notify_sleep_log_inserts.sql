@@ -0,0 +1,10 @@
+CREATE FUNCTION notify_sleep_log_inserted() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('sleep_log_inserted', row_to_json(NEW)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sleep_log_inserted
+    AFTER INSERT ON sleep_log
+    FOR EACH ROW EXECUTE FUNCTION notify_sleep_log_inserted();
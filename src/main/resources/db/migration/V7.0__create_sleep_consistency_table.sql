@@ -0,0 +1,25 @@
+CREATE TABLE sleep_consistency (
+    user_id                    BIGINT            PRIMARY KEY,
+    version                    BIGINT            NOT NULL,
+    nights                     INT               NOT NULL,
+    first_date                 DATE,
+    first_seconds_in_bed       BIGINT            NOT NULL,
+    first_streak               INT               NOT NULL,
+    last_date                  DATE,
+    last_seconds_in_bed        BIGINT            NOT NULL,
+    last_streak                INT               NOT NULL,
+    longest_streak             INT               NOT NULL,
+    bed_time_sin_sum           DOUBLE PRECISION  NOT NULL,
+    bed_time_cos_sum           DOUBLE PRECISION  NOT NULL,
+    wake_time_sin_sum          DOUBLE PRECISION  NOT NULL,
+    wake_time_cos_sum          DOUBLE PRECISION  NOT NULL,
+    weekday_nights             INT               NOT NULL,
+    weekday_mid_sleep_sin_sum  DOUBLE PRECISION  NOT NULL,
+    weekday_mid_sleep_cos_sum  DOUBLE PRECISION  NOT NULL,
+    weekend_nights             INT               NOT NULL,
+    weekend_mid_sleep_sin_sum  DOUBLE PRECISION  NOT NULL,
+    weekend_mid_sleep_cos_sum  DOUBLE PRECISION  NOT NULL,
+    consecutive_pairs          INT               NOT NULL,
+    time_in_bed_change_seconds BIGINT            NOT NULL,
+    updated_at                 TIMESTAMP         DEFAULT NOW()
+);
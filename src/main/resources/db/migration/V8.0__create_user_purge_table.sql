@@ -0,0 +1,13 @@
+CREATE TABLE user_purge (
+    id             VARCHAR(36)  PRIMARY KEY,
+    user_ids       BIGINT[]     NOT NULL,
+    state          VARCHAR(16)  NOT NULL,
+    requested_at   TIMESTAMP    NOT NULL,
+    purged_users   INT          NOT NULL,
+    deleted_nights BIGINT       NOT NULL,
+    paused_millis  BIGINT       NOT NULL,
+    error          TEXT,
+    updated_at     TIMESTAMP    DEFAULT NOW()
+);
+
+CREATE INDEX idx_user_purge_unfinished ON user_purge (requested_at) WHERE state NOT IN ('COMPLETED', 'FAILED');
@@ -0,0 +1,47 @@
+package com.noom.interview.fullstack.sleep;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import com.sun.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures heap bytes allocated per call of an operation on the current thread.
+ *
+ * <p>The operation is first run often enough for the JIT to compile it, since escape analysis
+ * removes many allocations only in compiled code. It is then measured over several rounds and the
+ * median per-call figure is returned, so a single GC or deoptimization does not skew the result.
+ * Tests are skipped on JVMs that cannot report per-thread allocation.
+ */
+public final class AllocationMeter {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int ROUNDS = 5;
+    private static final int CALLS_PER_ROUND = 2_000;
+
+    private AllocationMeter() {
+    }
+
+    public static long bytesPerCall(Runnable operation) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "Per-thread allocation measurement is not available");
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            operation.run();
+        }
+        long[] perCall = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                operation.run();
+            }
+            perCall[round] = (threads.getThreadAllocatedBytes(threadId) - before) / CALLS_PER_ROUND;
+        }
+        Arrays.sort(perCall);
+        return perCall[ROUNDS / 2];
+    }
+}
@@ -0,0 +1,23 @@
+package com.noom.interview.fullstack.sleep;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("in-memory")
+class InMemorySleepApplicationTests {
+
+    @Autowired
+    private SleepLogRepository repository;
+
+    @Test
+    void contextLoadsWithoutDatabase() {
+        assertThat(repository).isInstanceOf(InMemorySleepLogRepository.class);
+    }
+}
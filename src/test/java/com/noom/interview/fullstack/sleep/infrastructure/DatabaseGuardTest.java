@@ -0,0 +1,125 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DatabaseGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private final DatabaseGuard guard = new DatabaseGuard(Duration.ofMillis(100), 2, 3, OPEN_DURATION);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        guard.shutdown();
+    }
+
+    @Test
+    void read_returnsResultAndPassesOnOtherExceptions() {
+        assertThat(guard.read(() -> 42)).isEqualTo(42);
+        assertThatThrownBy(() -> guard.read(() -> {
+            throw new DuplicateKeyException("duplicate");
+        })).isInstanceOf(DuplicateKeyException.class);
+        assertThat(guard.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void read_slowerThanTimeout_isAbandoned() {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> guard.read(this::blocked))
+                .isInstanceOf(DatabaseUnavailableException.class)
+                .hasMessageContaining("took longer than");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void read_tooManyInFlight_isRefusedAtOnce() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> guard.read(this::blocked)).isInstanceOf(DatabaseUnavailableException.class);
+        }
+
+        assertThatThrownBy(() -> guard.read(() -> 42))
+                .isInstanceOf(DatabaseUnavailableException.class)
+                .hasMessage("Too many database reads in flight");
+    }
+
+    @Test
+    void read_refusedForLackOfPermits_doesNotOpenBreaker() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> guard.read(this::blocked)).isInstanceOf(DatabaseUnavailableException.class);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> guard.read(() -> 42)).hasMessage("Too many database reads in flight");
+        }
+
+        assertThat(guard.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(guard.write(() -> 42)).isEqualTo(42);
+    }
+
+    @Test
+    void failures_openBreaker_untilTrialSucceeds() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.read(DatabaseGuardTest::failing)).isInstanceOf(DatabaseUnavailableException.class);
+        }
+
+        assertThat(guard.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> guard.read(() -> 42)).hasMessageContaining("suspended");
+        assertThatThrownBy(() -> guard.write(() -> 42)).hasMessageContaining("suspended");
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThatThrownBy(() -> guard.read(DatabaseGuardTest::failing)).hasMessage("Database call failed");
+        assertThat(guard.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThat(guard.write(() -> 42)).isEqualTo(42);
+        assertThat(guard.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void read_addsDatabaseTimeOfReadThreadToCaller() {
+        ThreadDatabaseTime.take();
+
+        assertThat(guard.read(() -> {
+            ThreadDatabaseTime.add(1_000);
+            return Thread.currentThread();
+        })).isNotSameAs(Thread.currentThread());
+        assertThatThrownBy(() -> guard.read(() -> {
+            ThreadDatabaseTime.add(500);
+            return failing();
+        })).isInstanceOf(DatabaseUnavailableException.class);
+
+        assertThat(ThreadDatabaseTime.take()).isEqualTo(1_500);
+    }
+
+    @Test
+    void zeroReadTimeout_readsOnCallingThread() {
+        DatabaseGuard direct = new DatabaseGuard(Duration.ZERO, 2, 3, OPEN_DURATION);
+
+        assertThat(direct.read(Thread::currentThread)).isSameAs(Thread.currentThread());
+    }
+
+    private Integer blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return 42;
+    }
+
+    private static Integer failing() {
+        throw new DataAccessResourceFailureException("connection refused");
+    }
+}
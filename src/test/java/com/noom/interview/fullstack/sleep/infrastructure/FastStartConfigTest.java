@@ -0,0 +1,31 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import com.noom.interview.fullstack.sleep.sleeplog.boundary.SleepLogController;
+import com.noom.interview.fullstack.sleep.sleeplog.control.LastKnownGoodReads;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogInsertListener;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastStartConfigTest {
+
+    @Test
+    void isEager_controllersAndAdvice() {
+        assertThat(FastStartConfig.isEager(SleepLogController.class)).isTrue();
+        assertThat(FastStartConfig.isEager(GlobalExceptionHandler.class)).isTrue();
+    }
+
+    @Test
+    void isEager_beansWithScheduledOrStartupMethods() {
+        assertThat(FastStartConfig.isEager(LastKnownGoodReads.class)).isTrue();
+        assertThat(FastStartConfig.isEager(SleepLogInsertListener.class)).isTrue();
+    }
+
+    @Test
+    void isEager_otherBeans_areLazy() {
+        assertThat(FastStartConfig.isEager(SleepLogService.class)).isFalse();
+        assertThat(FastStartConfig.isEager(SqlStatisticsEndpoint.class)).isFalse();
+        assertThat(FastStartConfig.isEager(null)).isFalse();
+    }
+}
@@ -0,0 +1,53 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HeavyHitterFilterTest {
+
+    private final HeavyHitterTracker tracker = new HeavyHitterTracker(5, Duration.ofMinutes(1), 2048, 4, 32);
+    private final HeavyHitterFilter filter = new HeavyHitterFilter(tracker);
+    private final DatabaseGuard guard = new DatabaseGuard(Duration.ofSeconds(5), 2, 3, Duration.ofSeconds(10));
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void doFilter_guardedRead_countsDatabaseTimeOfReadThread() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sleep-log/averages");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/sleep-log/averages");
+        request.addHeader(HeavyHitterFilter.USER_ID_HEADER, "7");
+        Thread[] readThread = new Thread[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> guard.read(() -> {
+            readThread[0] = Thread.currentThread();
+            ThreadDatabaseTime.add(5_000_000);
+            return null;
+        }));
+
+        assertThat(readThread[0]).isNotSameAs(Thread.currentThread());
+        assertThat(tracker.users().estimate("7").databaseNanos()).isEqualTo(5_000_000);
+        assertThat(tracker.endpoints().estimate("GET /api/sleep-log/averages").databaseNanos()).isEqualTo(5_000_000);
+    }
+
+    @Test
+    void doFilter_noMatchingRoute_countsUnderOneEndpoint() throws Exception {
+        for (String uri : new String[] {"/wp-login.php", "/.env", "/admin/config.php"}) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), (req, res) -> { });
+        }
+
+        assertThat(tracker.endpoints().top(10, HeavyHitters.Metric.REQUESTS))
+                .extracting(HeavyHitters.Estimate::key, HeavyHitters.Estimate::requests)
+                .containsExactly(tuple("GET " + HeavyHitterFilter.UNMATCHED, 3L));
+    }
+}
@@ -0,0 +1,82 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.noom.interview.fullstack.sleep.infrastructure.HeavyHitters.Estimate;
+import com.noom.interview.fullstack.sleep.infrastructure.HeavyHitters.Metric;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHittersTest {
+
+    private final HeavyHitters heavyHitters = new HeavyHitters(3, 1024, 4, 16);
+
+    @Test
+    void top_skewedTraffic_findsHeavyKeysAmongManyLightOnes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            Random random = new Random(worker);
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    String key = random.nextInt(10) == 0 ? "heavy-" + random.nextInt(3) : "light-" + random.nextInt(100_000);
+                    heavyHitters.record(key, 1_000);
+                }
+            }));
+        }
+        for (Future<?> future : workers) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Estimate> top = heavyHitters.top(3, Metric.REQUESTS);
+
+        assertThat(top).extracting(Estimate::key).containsExactlyInAnyOrder("heavy-0", "heavy-1", "heavy-2");
+        assertThat(top).allSatisfy(estimate -> assertThat(estimate.requests()).isGreaterThanOrEqualTo(6_000));
+    }
+
+    @Test
+    void estimate_neverUndercounts() {
+        for (int i = 0; i < 5_000; i++) {
+            heavyHitters.record("key-" + (i % 500), 10);
+        }
+
+        for (int key = 0; key < 500; key++) {
+            Estimate estimate = heavyHitters.estimate("key-" + key);
+            assertThat(estimate.requests()).isGreaterThanOrEqualTo(10);
+            assertThat(estimate.databaseNanos()).isGreaterThanOrEqualTo(100);
+        }
+    }
+
+    @Test
+    void top_byDatabaseTime_ranksByTimeNotRequests() {
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("chatty", 1_000);
+        }
+        heavyHitters.record("slow", 5_000_000);
+
+        assertThat(heavyHitters.top(1, Metric.DATABASE_TIME)).extracting(Estimate::key).containsExactly("slow");
+        assertThat(heavyHitters.top(1, Metric.REQUESTS)).extracting(Estimate::key).containsExactly("chatty");
+    }
+
+    @Test
+    void rotate_dropsSlotsOlderThanWindow() {
+        heavyHitters.record("early", 0);
+        heavyHitters.rotate();
+        heavyHitters.record("late", 0);
+        heavyHitters.rotate();
+
+        assertThat(heavyHitters.top(10, Metric.REQUESTS)).extracting(Estimate::key).containsExactlyInAnyOrder("early", "late");
+
+        heavyHitters.rotate();
+
+        assertThat(heavyHitters.top(10, Metric.REQUESTS)).extracting(Estimate::key).containsExactly("late");
+        assertThat(heavyHitters.estimate("early").requests()).isZero();
+    }
+}
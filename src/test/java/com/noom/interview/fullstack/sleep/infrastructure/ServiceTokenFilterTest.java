@@ -0,0 +1,64 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceTokenFilterTest {
+
+    private final ServiceTokenFilter filter = new ServiceTokenFilter("secret");
+
+    @Test
+    void doFilter_protectedPathWithToken_passesRequestOn() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/user-purges/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer secret");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void doFilter_protectedPathWithoutValidToken_returnsUnauthorized() throws Exception {
+        for (String authorization : new String[] {null, "secret", "Bearer secre", "Bearer secret2", "Basic c2VjcmV0"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/admin/user-purges");
+            if (authorization != null) {
+                request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+            }
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, response, chain);
+
+            assertThat(response.getStatus()).as(authorization).isEqualTo(401);
+            assertThat(chain.getRequest()).isNull();
+        }
+    }
+
+    @Test
+    void doFilter_noTokenConfigured_refusesEveryRequest() throws Exception {
+        ServiceTokenFilter unconfigured = new ServiceTokenFilter("");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/user-purges/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer ");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        unconfigured.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void doFilter_publicPath_needsNoToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sleep-log/averages");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+}
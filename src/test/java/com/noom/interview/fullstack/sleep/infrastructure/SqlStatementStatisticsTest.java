@@ -0,0 +1,113 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.noom.interview.fullstack.sleep.infrastructure.SqlStatementStatistics.Order;
+import com.noom.interview.fullstack.sleep.infrastructure.SqlStatementStatistics.SqlStatementSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SqlStatementStatisticsTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SqlStatementStatistics statistics = new SqlStatementStatistics(Duration.ofMillis(200), 3);
+
+    @Test
+    void fingerprint_collapsesWhitespaceAndLiterals() {
+        String fingerprint = SqlStatementStatistics.fingerprint("""
+                SELECT *  FROM sleep_log
+                WHERE user_id = 42 AND morning_feeling = 'GOOD' AND note = 'it''s' AND ratio > 0.5
+                """);
+
+        assertThat(fingerprint)
+                .isEqualTo("SELECT * FROM sleep_log WHERE user_id = ? AND morning_feeling = ? AND note = ? AND ratio > ?");
+    }
+
+    @Test
+    void fingerprint_keepsNamedParametersAndIdentifiers() {
+        assertThat(SqlStatementStatistics.fingerprint("SELECT v1 FROM t2 WHERE user_id = :userId"))
+                .isEqualTo("SELECT v1 FROM t2 WHERE user_id = :userId");
+    }
+
+    @Test
+    void record_groupsStatementsByFingerprint() {
+        statistics.record("SELECT * FROM sleep_log WHERE user_id = 1", null, 2 * MILLISECOND, 0, 1, false);
+        statistics.record("SELECT * FROM sleep_log   WHERE user_id = 2", null, 4 * MILLISECOND, MILLISECOND, 3, false);
+
+        List<SqlStatementSnapshot> top = statistics.top(10, Order.TOTAL_TIME);
+
+        assertThat(top).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.statement()).isEqualTo("SELECT * FROM sleep_log WHERE user_id = ?");
+            assertThat(snapshot.calls()).isEqualTo(2);
+            assertThat(snapshot.rows()).isEqualTo(4);
+            assertThat(snapshot.totalMillis()).isEqualTo(6.0);
+            assertThat(snapshot.meanMillis()).isEqualTo(3.0);
+            assertThat(snapshot.maxMillis()).isEqualTo(4.0);
+            assertThat(snapshot.connectionWaitMillis()).isEqualTo(1.0);
+        });
+    }
+
+    @Test
+    void record_countsFailuresAndSlowCalls() {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", 7L);
+        statistics.record("SELECT 1 WHERE :userId > 0", params, 250 * MILLISECOND, 0, 0, true);
+        statistics.record("SELECT 1 WHERE :userId > 0", params, 10 * MILLISECOND, 0, 1, false);
+
+        SqlStatementSnapshot snapshot = statistics.top(1, Order.CALLS).get(0);
+
+        assertThat(snapshot.failures()).isEqualTo(1);
+        assertThat(snapshot.slowCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void top_ranksByRequestedOrder() {
+        statistics.record("SELECT a", null, 100 * MILLISECOND, 0, 0, false);
+        statistics.record("SELECT b", null, 30 * MILLISECOND, 50 * MILLISECOND, 0, false);
+        statistics.record("SELECT b", null, 30 * MILLISECOND, 0, 0, false);
+        statistics.record("SELECT b", null, 30 * MILLISECOND, 0, 0, false);
+        statistics.record("SELECT b", null, 30 * MILLISECOND, 0, 0, false);
+
+        assertThat(statistics.top(1, Order.TOTAL_TIME)).extracting(SqlStatementSnapshot::statement).containsExactly("SELECT b");
+        assertThat(statistics.top(1, Order.MAX_TIME)).extracting(SqlStatementSnapshot::statement).containsExactly("SELECT a");
+        assertThat(statistics.top(2, Order.CALLS)).extracting(SqlStatementSnapshot::statement).containsExactly("SELECT b", "SELECT a");
+        assertThat(statistics.top(1, Order.CONNECTION_WAIT)).extracting(SqlStatementSnapshot::statement).containsExactly("SELECT b");
+    }
+
+    @Test
+    void record_beyondMaxStatements_countsUnderOther() {
+        for (String sql : List.of("SELECT a", "SELECT b", "SELECT c", "SELECT d", "SELECT e")) {
+            statistics.record(sql, null, MILLISECOND, 0, 0, false);
+        }
+
+        assertThat(statistics.top(10, Order.CALLS))
+                .extracting(SqlStatementSnapshot::statement, SqlStatementSnapshot::calls)
+                .contains(tuple(SqlStatementStatistics.OTHER, 2L))
+                .hasSize(4);
+    }
+
+    @Test
+    void reset_clearsStatements() {
+        statistics.record("SELECT a", null, MILLISECOND, 0, 0, false);
+
+        statistics.reset();
+
+        assertThat(statistics.top(10, Order.TOTAL_TIME)).isEmpty();
+    }
+
+    @Test
+    void describe_masksBindValues() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("userId", 42L)
+                .addValue("userIds", List.of(1L, 2L, 3L))
+                .addValue("to", null);
+
+        assertThat(SqlStatementStatistics.describe(parameters))
+                .hasToString("{userId=?, userIds=<3 values>, to=null}");
+    }
+}
@@ -0,0 +1,34 @@
+package com.noom.interview.fullstack.sleep.infrastructure;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleTest {
+
+    @Test
+    void acquire_pacesPermitsToRate() throws Exception {
+        Throttle throttle = new Throttle(100);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 4; i++) {
+            throttle.acquire(10);
+        }
+
+        // the first 10 permits start at once, the next 30 take 100 ms each
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(290));
+    }
+
+    @Test
+    void acquire_zeroRate_neverWaits() throws Exception {
+        Throttle throttle = new Throttle(0);
+        long start = System.nanoTime();
+
+        throttle.acquire(1_000_000);
+        throttle.acquire(1_000_000);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+}
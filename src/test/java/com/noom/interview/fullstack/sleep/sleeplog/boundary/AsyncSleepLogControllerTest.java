@@ -0,0 +1,107 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.AsyncSleepLogService;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogNotFoundException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"unittest", "async"})
+class AsyncSleepLogControllerTest {
+
+    @TestConfiguration
+    static class MockServiceConfig {
+        @Bean
+        @Primary
+        public AsyncSleepLogService asyncSleepLogService() {
+            return Mockito.mock(AsyncSleepLogService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AsyncSleepLogService sleepLogService;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
+    private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
+
+    @BeforeEach
+    void setUp() {
+        reset(sleepLogService);
+    }
+
+    @Test
+    void getLastNightSleep_logExists_returns200ThroughAsyncDispatch() throws Exception {
+        SleepLog sleepLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        when(sleepLogService.getLastNightSleep(USER_ID)).thenReturn(CompletableFuture.completedFuture(sleepLog));
+
+        MvcResult result = mockMvc.perform(get("/api/sleep-log/last-night")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sleepDate").value("2026-02-20"))
+                .andExpect(jsonPath("$.totalTimeInBed").value("PT7H30M"));
+    }
+
+    @Test
+    void getLastNightSleep_noLog_returns404() throws Exception {
+        when(sleepLogService.getLastNightSleep(USER_ID))
+                .thenReturn(CompletableFuture.failedFuture(new SleepLogNotFoundException("No sleep log found")));
+
+        MvcResult result = mockMvc.perform(get("/api/sleep-log/last-night")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("No sleep log found"));
+    }
+
+    @Test
+    void getLast30DayAverages_timeout_returns503() throws Exception {
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        MvcResult result = mockMvc.perform(get("/api/sleep-log/averages")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Request timed out"));
+    }
+}
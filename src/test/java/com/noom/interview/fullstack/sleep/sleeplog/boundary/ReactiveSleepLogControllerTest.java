@@ -0,0 +1,107 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.infrastructure.GlobalExceptionHandler;
+import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
+import com.noom.interview.fullstack.sleep.sleeplog.control.ReactiveSleepLogService;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogNotFoundException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class ReactiveSleepLogControllerTest {
+
+    private final ReactiveSleepLogService sleepLogService = Mockito.mock(ReactiveSleepLogService.class);
+
+    private WebTestClient webTestClient;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
+    private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
+
+    @BeforeEach
+    void setUp() {
+        // Same date/duration rendering as the Spring Boot managed ObjectMapper
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+        webTestClient = WebTestClient
+                .bindToController(new ReactiveSleepLogController(sleepLogService))
+                .controllerAdvice(new GlobalExceptionHandler())
+                .httpMessageCodecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+    }
+
+    @Test
+    void postSleepLog_validRequest_returns201() {
+        SleepLog savedLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        CreateSleepLogRequest request = new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD);
+        when(sleepLogService.createSleepLog(eq(USER_ID), eq(request))).thenReturn(Mono.just(savedLog));
+
+        webTestClient.post().uri("/api/sleep-log")
+                .header("X-User-Id", USER_ID.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.sleepDate").isEqualTo("2026-02-20")
+                .jsonPath("$.morningFeeling").isEqualTo("GOOD")
+                .jsonPath("$.totalTimeInBed").isEqualTo("PT7H30M");
+    }
+
+    @Test
+    void postSleepLog_duplicate_returns409() {
+        when(sleepLogService.createSleepLog(any(), any()))
+                .thenReturn(Mono.error(new DuplicateSleepLogException("Sleep log already exists", new RuntimeException())));
+
+        webTestClient.post().uri("/api/sleep-log")
+                .header("X-User-Id", USER_ID.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Sleep log already exists");
+    }
+
+    @Test
+    void postSleepLog_missingUserIdHeader_returns400() {
+        webTestClient.post().uri("/api/sleep-log")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getLastNightSleep_noLog_returns404() {
+        when(sleepLogService.getLastNightSleep(USER_ID))
+                .thenReturn(Mono.error(new SleepLogNotFoundException("No sleep log found")));
+
+        webTestClient.get().uri("/api/sleep-log/last-night")
+                .header("X-User-Id", USER_ID.toString())
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("No sleep log found");
+    }
+}
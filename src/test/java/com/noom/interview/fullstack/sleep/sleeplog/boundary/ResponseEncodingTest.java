@@ -0,0 +1,94 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.infrastructure.CborConfig;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payload size of CBOR against JSON, for a single night, 30-day averages with every optional part,
+ * and a 30-night history as a batch response would carry it.
+ *
+ * <p>Both mappers have the Spring Boot managed settings. At the time of writing CBOR takes about
+ * 57% of the JSON bytes for nights and 72% for averages, whose field names and doubles do not
+ * shrink; the budgets leave some room. Encode time is measured by {@code ResponseEncodingBenchmark}.
+ */
+class ResponseEncodingTest {
+
+    private static final double NIGHT_SIZE_RATIO = 2 / 3.0;
+    private static final double AVERAGES_SIZE_RATIO = 0.8;
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private List<SleepLog> nights;
+
+    @BeforeEach
+    void setUp() {
+        json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+        cbor = CborConfig.cborObjectMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS));
+        nights = new ArrayList<>();
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            LocalDateTime bedTime = TODAY.minusDays(daysAgo + 1).atTime(22, 0).plusMinutes(daysAgo * 7 % 120);
+            nights.add(new SleepLog((long) daysAgo, 1L, TODAY.minusDays(daysAgo), bedTime,
+                    bedTime.plusHours(7).plusMinutes(daysAgo * 11 % 90), MorningFeeling.values()[daysAgo % 3], null));
+        }
+    }
+
+    @Test
+    void sleepLogResponse_cborIsSmaller() {
+        SleepLogResponse response = SleepLogResponse.fromSleepLog(nights.get(nights.size() - 1));
+
+        assertThat(write(cbor, response).length).isLessThanOrEqualTo((int) (write(json, response).length * NIGHT_SIZE_RATIO));
+    }
+
+    @Test
+    void sleepAveragesResponse_cborIsSmaller() {
+        SleepAveragesResponse response = SleepAveragesResponse.fromSleepAverages(
+                SleepAverages.fromSleepLogs(nights, TODAY.minusDays(30), TODAY)
+                        .withMorningFeelingBreakdown(MorningFeelingAverages.fromSleepLogs(nights)));
+
+        assertThat(write(cbor, response).length).isLessThanOrEqualTo((int) (write(json, response).length * AVERAGES_SIZE_RATIO));
+    }
+
+    @Test
+    void history_cborIsSmaller() {
+        List<SleepLogResponse> history = nights.stream().map(SleepLogResponse::fromSleepLog).toList();
+
+        assertThat(write(cbor, history).length).isLessThanOrEqualTo((int) (write(json, history).length * NIGHT_SIZE_RATIO));
+    }
+
+    @Test
+    void createSleepLogRequest_cborRoundTrips() throws IOException {
+        CreateSleepLogRequest request = new CreateSleepLogRequest(nights.get(0).bedTime(), nights.get(0).wakeTime(), MorningFeeling.OK);
+
+        assertThat(cbor.readValue(write(cbor, request), CreateSleepLogRequest.class)).isEqualTo(request);
+    }
+
+    private static byte[] write(ObjectMapper objectMapper, Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepConsistencyService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("unittest")
+class SleepConsistencyControllerTest {
+
+    @TestConfiguration
+    static class MockServiceConfig {
+        @Bean
+        @Primary
+        public SleepConsistencyService sleepConsistencyService() {
+            return Mockito.mock(SleepConsistencyService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SleepConsistencyService sleepConsistencyService;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        reset(sleepConsistencyService);
+    }
+
+    @Test
+    void getConsistency_returnsStreaksAndVariability() throws Exception {
+        when(sleepConsistencyService.getConsistency(USER_ID)).thenReturn(SleepConsistency.of(USER_ID, List.of(
+                night(TODAY.minusDays(4), 8), night(TODAY.minusDays(1), 7), night(TODAY, 9)), 1));
+
+        mockMvc.perform(get("/api/sleep-log/consistency")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nights").value(3))
+                .andExpect(jsonPath("$.lastNight").value(TODAY.toString()))
+                .andExpect(jsonPath("$.currentStreak").value(2))
+                .andExpect(jsonPath("$.longestStreak").value(2))
+                .andExpect(jsonPath("$.bedTimeCircularVariance").value(0.0))
+                .andExpect(jsonPath("$.averageTimeInBedChange").value("PT2H"));
+    }
+
+    @Test
+    void getConsistency_withoutNights_returnsNullStatistics() throws Exception {
+        when(sleepConsistencyService.getConsistency(USER_ID)).thenReturn(SleepConsistency.empty(USER_ID, 1));
+
+        mockMvc.perform(get("/api/sleep-log/consistency")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nights").value(0))
+                .andExpect(jsonPath("$.currentStreak").value(0))
+                .andExpect(jsonPath("$.bedTimeCircularVariance").isEmpty())
+                .andExpect(jsonPath("$.socialJetLag").isEmpty());
+    }
+
+    private static SleepLog night(LocalDate sleepDate, int hours) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atTime(23, 0);
+        return new SleepLog(null, USER_ID, sleepDate, bedTime, bedTime.plusHours(hours), MorningFeeling.GOOD, null);
+    }
+}
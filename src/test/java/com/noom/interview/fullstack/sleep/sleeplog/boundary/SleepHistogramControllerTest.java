@@ -0,0 +1,112 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepHistogramService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramBucket;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("unittest")
+class SleepHistogramControllerTest {
+
+    @TestConfiguration
+    static class MockServiceConfig {
+        @Bean
+        @Primary
+        public SleepHistogramService sleepHistogramService() {
+            return Mockito.mock(SleepHistogramService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SleepHistogramService sleepHistogramService;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate FROM = LocalDate.of(2026, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 30);
+
+    @BeforeEach
+    void setUp() {
+        reset(sleepHistogramService);
+    }
+
+    @Test
+    void getHistogram_bedTime_returnsBucketsFromNoon() throws Exception {
+        when(sleepHistogramService.getHistogram(USER_ID, FROM, TO, SleepHistogramField.BED_TIME, Duration.ofHours(6)))
+                .thenReturn(List.of(new SleepHistogramBucket(0, 0), new SleepHistogramBucket(1, 20),
+                        new SleepHistogramBucket(2, 10), new SleepHistogramBucket(3, 0)));
+
+        mockMvc.perform(get("/api/sleep-log/histogram")
+                        .header("X-User-Id", USER_ID)
+                        .param("from", "2026-03-01")
+                        .param("to", "2026-03-30")
+                        .param("field", "bedTime")
+                        .param("bucket", "6h"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.field").value("bedTime"))
+                .andExpect(jsonPath("$.bucket").value("PT6H"))
+                .andExpect(jsonPath("$.buckets.length()").value(4))
+                .andExpect(jsonPath("$.buckets[1].start").value("18:00"))
+                .andExpect(jsonPath("$.buckets[1].end").value("00:00"))
+                .andExpect(jsonPath("$.buckets[1].count").value(20))
+                .andExpect(jsonPath("$.buckets[3].end").value("12:00"));
+    }
+
+    @Test
+    void getHistogram_timeInBed_returnsDurationBounds() throws Exception {
+        when(sleepHistogramService.getHistogram(USER_ID, FROM, TO, SleepHistogramField.TIME_IN_BED, Duration.ofMinutes(30)))
+                .thenReturn(List.of(new SleepHistogramBucket(0, 0), new SleepHistogramBucket(1, 2)));
+
+        mockMvc.perform(get("/api/sleep-log/histogram")
+                        .header("X-User-Id", USER_ID)
+                        .param("from", "2026-03-01")
+                        .param("to", "2026-03-30")
+                        .param("field", "timeInBed")
+                        .param("bucket", "30m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets[1].start").value("PT30M"))
+                .andExpect(jsonPath("$.buckets[1].end").value("PT1H"));
+    }
+
+    @Test
+    void getHistogram_unknownField_returns400() throws Exception {
+        mockMvc.perform(get("/api/sleep-log/histogram")
+                        .header("X-User-Id", USER_ID)
+                        .param("field", "snoring"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void getHistogram_invalidBucket_returns400() throws Exception {
+        mockMvc.perform(get("/api/sleep-log/histogram")
+                        .header("X-User-Id", USER_ID)
+                        .param("field", "wakeTime")
+                        .param("bucket", "soon"))
+                .andExpect(status().isBadRequest());
+    }
+}
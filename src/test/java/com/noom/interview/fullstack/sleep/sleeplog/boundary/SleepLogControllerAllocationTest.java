@@ -0,0 +1,112 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.AllocationMeter;
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.sleeplog.control.LastKnownGoodReads;
+import com.noom.interview.fullstack.sleep.sleeplog.control.RecentNightsCache;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepConsistencyService;
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation budgets per call of each {@link SleepLogController} endpoint.
+ *
+ * <p>Each call goes through the controller, the service with its cache, the in-memory repository
+ * and JSON (de)serialization with the same settings as the Spring Boot managed
+ * {@link ObjectMapper}. The servlet container and MockMvc are left out: their allocations are not
+ * ours to budget and would drown a regression in our code. Budgets are about twice the measured
+ * figures; when a change legitimately needs more, raise the budget in the same change.
+ */
+class SleepLogControllerAllocationTest {
+
+    private static final long CREATE_BUDGET_BYTES = 32 * 1024;
+    private static final long LAST_NIGHT_BUDGET_BYTES = 12 * 1024;
+    private static final long AVERAGES_BUDGET_BYTES = 16 * 1024;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private SleepLogController controller;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        InMemorySleepLogRepository repository = new InMemorySleepLogRepository();
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            LocalDateTime bedTime = TODAY.minusDays(daysAgo + 1).atTime(23, daysAgo);
+            repository.save(new SleepLog(null, USER_ID, TODAY.minusDays(daysAgo), bedTime, bedTime.plusHours(8),
+                    MorningFeeling.values()[daysAgo % 3], null));
+        }
+        RecentNightsCache recentNightsCache = new RecentNightsCache(1000, Duration.ofMinutes(30), Duration.ofMinutes(5));
+        DatabaseGuard databaseGuard = new DatabaseGuard(Duration.ZERO, 16, 5, Duration.ofSeconds(10));
+        SleepLogService sleepLogService = new SleepLogService(repository, recentNightsCache, new InMemoryPrecomputedNightsRepository(repository),
+                new SleepConsistencyService(repository, new InMemorySleepConsistencyRepository(), databaseGuard, 0), databaseGuard);
+        controller = new SleepLogController(sleepLogService, new LastKnownGoodReads(sleepLogService, 1000, Duration.ofHours(24)));
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Test
+    void createSleepLog_staysWithinBudget() {
+        int[] calls = {0};
+        long bytes = AllocationMeter.bytesPerCall(() -> {
+            int call = calls[0]++;
+            long userId = 1_000 + call / 3_650;
+            LocalDateTime bedTime = TODAY.minusDays(call % 3_650 + 1).atTime(23, 0);
+            byte[] body = ("{\"bedTime\":\"" + bedTime + "\",\"wakeTime\":\"" + bedTime.plusHours(8)
+                    + "\",\"morningFeeling\":\"GOOD\"}").getBytes();
+            CreateSleepLogRequest request = read(body, CreateSleepLogRequest.class);
+            write(controller.createSleepLog(userId, request).getBody());
+        });
+
+        assertThat(bytes).isLessThanOrEqualTo(CREATE_BUDGET_BYTES);
+    }
+
+    @Test
+    void getLastNightSleep_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> write(controller.getLastNightSleep(USER_ID).getBody()));
+
+        assertThat(bytes).isLessThanOrEqualTo(LAST_NIGHT_BUDGET_BYTES);
+    }
+
+    @Test
+    void getLast30DayAverages_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> write(controller.getLast30DayAverages(USER_ID, null, null).getBody()));
+
+        assertThat(bytes).isLessThanOrEqualTo(AVERAGES_BUDGET_BYTES);
+    }
+
+    private <T> T read(byte[] json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void write(Object body) {
+        try {
+            objectMapper.writeValueAsBytes(body);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
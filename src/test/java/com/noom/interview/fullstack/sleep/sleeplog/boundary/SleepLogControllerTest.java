@@ -4,15 +4,22 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.Map;
+import java.util.Set;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException;
 import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepDistribution;
 import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogNotFoundException;
 import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogService;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,15 +29,19 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -57,6 +68,9 @@ class SleepLogControllerTest {
     @Autowired
     private SleepLogService sleepLogService;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
     private static final Long USER_ID = 1L;
     private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
     private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
@@ -138,6 +152,40 @@ class SleepLogControllerTest {
                 .andExpect(jsonPath("$.totalTimeInBed").value("PT7H30M"));
     }
 
+    @Test
+    void getLastNightSleep_acceptCbor_writesTimesAsIntegers() throws Exception {
+        SleepLog sleepLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        when(sleepLogService.getLastNightSleep(USER_ID)).thenReturn(sleepLog);
+
+        byte[] body = mockMvc.perform(get("/api/sleep-log/last-night")
+                        .header("X-User-Id", USER_ID)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = cborConverter.getObjectMapper().readTree(body);
+        assertThat(response.get("sleepDate").asLong()).isEqualTo(WAKE_TIME.toLocalDate().toEpochDay());
+        assertThat(response.get("bedTime").asLong()).isEqualTo(BED_TIME.toEpochSecond(ZoneOffset.UTC));
+        assertThat(response.get("totalTimeInBed").asLong()).isEqualTo(Duration.ofMinutes(450).toSeconds());
+        assertThat(response.get("wakeTime").asLong()).isEqualTo(WAKE_TIME.toEpochSecond(ZoneOffset.UTC));
+        assertThat(response.get("morningFeeling").asText()).isEqualTo("GOOD");
+    }
+
+    @Test
+    void postSleepLog_cborBody_returns201() throws Exception {
+        SleepLog savedLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        CreateSleepLogRequest request = new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD);
+        when(sleepLogService.createSleepLog(eq(USER_ID), eq(request))).thenReturn(savedLog);
+
+        mockMvc.perform(post("/api/sleep-log")
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cborConverter.getObjectMapper().writeValueAsBytes(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.totalTimeInBed").value("PT7H30M"));
+    }
+
     @Test
     void getLastNightSleep_noLog_returns404() throws Exception {
         when(sleepLogService.getLastNightSleep(USER_ID))
@@ -156,7 +204,7 @@ class SleepLogControllerTest {
                 Duration.ofHours(8), LocalTime.of(23, 15), LocalTime.of(7, 15),
                 Map.of(MorningFeeling.GOOD, 15L, MorningFeeling.OK, 10L, MorningFeeling.BAD, 3L)
         );
-        when(sleepLogService.getLast30DayAverages(USER_ID)).thenReturn(averages);
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL)).thenReturn(averages);
 
         mockMvc.perform(get("/api/sleep-log/averages")
                         .header("X-User-Id", USER_ID))
@@ -177,7 +225,7 @@ class SleepLogControllerTest {
                 LocalDate.of(2026, 1, 22), LocalDate.of(2026, 2, 21),
                 Duration.ZERO, null, null, Map.of()
         );
-        when(sleepLogService.getLast30DayAverages(USER_ID)).thenReturn(emptyAverages);
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL)).thenReturn(emptyAverages);
 
         mockMvc.perform(get("/api/sleep-log/averages")
                         .header("X-User-Id", USER_ID))
@@ -187,6 +235,127 @@ class SleepLogControllerTest {
                 .andExpect(jsonPath("$.averageTotalTimeInBed").value("PT0S"))
                 .andExpect(jsonPath("$.averageBedTime").isEmpty())
                 .andExpect(jsonPath("$.averageWakeTime").isEmpty())
-                .andExpect(jsonPath("$.morningFeelingFrequencies").isEmpty());
+                .andExpect(jsonPath("$.morningFeelingFrequencies").isEmpty())
+                .andExpect(jsonPath("$.distribution").doesNotExist())
+                .andExpect(jsonPath("$.byMorningFeeling").doesNotExist());
+    }
+
+    @Test
+    void getLast30DayAverages_withDistribution_returnsQuantilesAndDispersion() throws Exception {
+        SleepAverages averages = new SleepAverages(
+                LocalDate.of(2026, 1, 22), LocalDate.of(2026, 2, 21),
+                Duration.ofHours(8), LocalTime.of(23, 15), LocalTime.of(7, 15),
+                Map.of(MorningFeeling.GOOD, 15L),
+                new SleepDistribution(Duration.ofHours(6), Duration.ofHours(8), Duration.ofHours(9),
+                        0.95, Duration.ofMinutes(72), 0.9, Duration.ofMinutes(105))
+        );
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL)).thenReturn(averages);
+
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distribution.timeInBedP10").value("PT6H"))
+                .andExpect(jsonPath("$.distribution.timeInBedMedian").value("PT8H"))
+                .andExpect(jsonPath("$.distribution.timeInBedP90").value("PT9H"))
+                .andExpect(jsonPath("$.distribution.bedTimeResultantLength").value(0.95))
+                .andExpect(jsonPath("$.distribution.bedTimeCircularStdDev").value("PT1H12M"))
+                .andExpect(jsonPath("$.distribution.wakeTimeCircularStdDev").value("PT1H45M"));
+    }
+
+    @Test
+    void getLast30DayAverages_morningFeelingBreakdown_returnsAveragesPerFeeling() throws Exception {
+        SleepAverages averages = new SleepAverages(
+                LocalDate.of(2026, 1, 22), LocalDate.of(2026, 2, 21),
+                Duration.ofHours(8), LocalTime.of(23, 15), LocalTime.of(7, 15),
+                Map.of(MorningFeeling.GOOD, 15L, MorningFeeling.BAD, 3L)
+        ).withMorningFeelingBreakdown(Map.of(
+                MorningFeeling.GOOD, new MorningFeelingAverages(15, Duration.ofHours(8).plusMinutes(30), LocalTime.of(23, 0), LocalTime.of(7, 30)),
+                MorningFeeling.BAD, new MorningFeelingAverages(3, Duration.ofHours(6), LocalTime.of(0, 45), LocalTime.of(6, 45))));
+        when(sleepLogService.getLast30DayAverages(USER_ID, true, SleepStatistic.ALL)).thenReturn(averages);
+
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .param("breakdown", "morningFeeling")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byMorningFeeling.GOOD.nights").value(15))
+                .andExpect(jsonPath("$.byMorningFeeling.GOOD.averageTotalTimeInBed").value("PT8H30M"))
+                .andExpect(jsonPath("$.byMorningFeeling.BAD.averageBedTime").value("00:45:00"))
+                .andExpect(jsonPath("$.byMorningFeeling.BAD.averageWakeTime").value("06:45:00"))
+                .andExpect(jsonPath("$.byMorningFeeling.OK").doesNotExist());
+    }
+
+    @Test
+    void getLast30DayAverages_unknownBreakdown_returns400() throws Exception {
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .param("breakdown", "weekday")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unsupported breakdown 'weekday', expected morningFeeling"));
+    }
+
+    @Test
+    void getLast30DayAverages_fields_returnsOnlySelectedStatistics() throws Exception {
+        SleepAverages averages = new SleepAverages(
+                LocalDate.of(2026, 1, 22), LocalDate.of(2026, 2, 21),
+                null, LocalTime.of(23, 15), null,
+                Map.of(MorningFeeling.GOOD, 15L)
+        );
+        when(sleepLogService.getLast30DayAverages(USER_ID, false,
+                Set.of(SleepStatistic.AVERAGE_BED_TIME, SleepStatistic.MORNING_FEELING_FREQUENCIES))).thenReturn(averages);
+
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .param("fields", "averageBedTime,morningFeelingFrequencies")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value("2026-01-22"))
+                .andExpect(jsonPath("$.averageBedTime").value("23:15:00"))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD").value(15))
+                .andExpect(jsonPath("$.averageTotalTimeInBed").doesNotExist())
+                .andExpect(jsonPath("$.averageWakeTime").doesNotExist())
+                .andExpect(jsonPath("$.distribution").doesNotExist());
+    }
+
+    @Test
+    void getLast30DayAverages_unknownField_returns400() throws Exception {
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .param("fields", "averageBedTime,medianBedTime")
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unsupported field 'medianBedTime', expected any of averageTotalTimeInBed, "
+                        + "averageBedTime, averageWakeTime, morningFeelingFrequencies, distribution"));
+    }
+
+    @Test
+    void getLast30DayAverages_databaseUnavailable_servesLastKnownGoodAsStale() throws Exception {
+        Long userId = 77L;
+        SleepAverages averages = new SleepAverages(
+                LocalDate.of(2026, 1, 22), LocalDate.of(2026, 2, 21),
+                Duration.ofHours(8), LocalTime.of(23, 15), LocalTime.of(7, 15),
+                Map.of(MorningFeeling.GOOD, 15L)
+        );
+        when(sleepLogService.getLast30DayAverages(userId, false, SleepStatistic.ALL))
+                .thenReturn(averages)
+                .thenThrow(new DatabaseUnavailableException("Database call failed"));
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .header("X-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Warning"));
+
+        mockMvc.perform(get("/api/sleep-log/averages")
+                        .header("X-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Warning", "110 - \"Response is Stale\""))
+                .andExpect(header().exists("Age"))
+                .andExpect(jsonPath("$.averageBedTime").value("23:15:00"));
+    }
+
+    @Test
+    void getLastNightSleep_databaseUnavailableWithoutLastKnownGood_returns503() throws Exception {
+        when(sleepLogService.getLastNightSleep(78L)).thenThrow(new DatabaseUnavailableException("Database call failed"));
+
+        mockMvc.perform(get("/api/sleep-log/last-night")
+                        .header("X-User-Id", 78L))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Database is unavailable, try again later"));
     }
 }
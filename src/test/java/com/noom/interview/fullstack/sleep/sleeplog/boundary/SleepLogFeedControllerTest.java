@@ -0,0 +1,92 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.SleepLogFeed;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("unittest")
+class SleepLogFeedControllerTest {
+
+    private static final LocalDate SLEEP_DATE = LocalDate.of(2012, 2, 1);
+    private static final String SERVICE_TOKEN = "Bearer test-service-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SleepLogFeed sleepLogFeed;
+
+    @Test
+    void subscribe_lastEventId_streamsLaterLogsOfFollowedUsers() throws Exception {
+        sleepLogFeed.publish(sleepLog(9_000_001L, 90L));
+        sleepLogFeed.publish(sleepLog(9_000_002L, 91L));
+        sleepLogFeed.publish(sleepLog(9_000_003L, 90L));
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/sleep-log-feed")
+                        .header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN)
+                        .param("userId", "90")
+                        .header("Last-Event-ID", "9000001"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        String events = awaitContent(response, "id:9000003");
+        assertThat(events).contains("event:sleep-log", "\"userId\":90", "\"morningFeeling\":\"GOOD\"");
+        assertThat(events).doesNotContain("id:9000002");
+        assertThat(response.getContentType()).startsWith("text/event-stream");
+    }
+
+    @Test
+    void subscribe_unknownResumeToken_sendsReset() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/sleep-log-feed")
+                        .header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN)
+                        .param("resumeToken", "8999999"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        assertThat(awaitContent(response, "event:reset")).contains("no longer kept for resuming");
+    }
+
+    @Test
+    void subscribe_withoutServiceToken_returnsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/sleep-log-feed"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/sleep-log-feed")
+                        .header("X-User-Id", "90")
+                        .param("userId", "90"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!response.getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+        return response.getContentAsString();
+    }
+
+    private static SleepLog sleepLog(Long id, Long userId) {
+        return new SleepLog(id, userId, SLEEP_DATE, SLEEP_DATE.minusDays(1).atTime(23, 0), SLEEP_DATE.atTime(7, 0),
+                MorningFeeling.GOOD, SLEEP_DATE.atTime(7, 5));
+    }
+}
@@ -0,0 +1,126 @@
+package com.noom.interview.fullstack.sleep.sleeplog.boundary;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.UserPurge;
+import com.noom.interview.fullstack.sleep.sleeplog.control.UserPurgeService;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("unittest")
+class UserPurgeControllerTest {
+
+    @TestConfiguration
+    static class MockServiceConfig {
+        @Bean
+        @Primary
+        public UserPurgeService userPurgeService() {
+            return Mockito.mock(UserPurgeService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserPurgeService userPurgeService;
+
+    private static final String PURGE_ID = "3f1c2b7e-0000-4000-8000-000000000001";
+    private static final String SERVICE_TOKEN = "Bearer test-service-token";
+
+    @BeforeEach
+    void setUp() {
+        reset(userPurgeService);
+    }
+
+    @Test
+    void purgeUsers_queuesPurgeAndReturnsAccepted() throws Exception {
+        when(userPurgeService.start(List.of(7L, 8L))).thenReturn(progress(PurgeJob.State.QUEUED, 0, 0));
+
+        mockMvc.perform(post("/api/admin/user-purges")
+                        .header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\": [7, 8]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/admin/user-purges/" + PURGE_ID))
+                .andExpect(jsonPath("$.id").value(PURGE_ID))
+                .andExpect(jsonPath("$.state").value("QUEUED"))
+                .andExpect(jsonPath("$.users").value(2));
+    }
+
+    @Test
+    void purgeUsers_invalidUserIds_returnsBadRequest() throws Exception {
+        when(userPurgeService.start(List.of())).thenThrow(new IllegalArgumentException("userIds must not be empty"));
+
+        mockMvc.perform(post("/api/admin/user-purges")
+                        .header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("userIds must not be empty"));
+    }
+
+    @Test
+    void getPurge_returnsProgress() throws Exception {
+        when(userPurgeService.progress(PURGE_ID)).thenReturn(Optional.of(progress(PurgeJob.State.RUNNING, 1, 120)));
+
+        mockMvc.perform(get("/api/admin/user-purges/" + PURGE_ID).header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.purgedUsers").value(1))
+                .andExpect(jsonPath("$.deletedNights").value(120))
+                .andExpect(jsonPath("$.percent").value(50.0));
+    }
+
+    @Test
+    void getPurge_unknownPurge_returnsNotFound() throws Exception {
+        when(userPurgeService.progress("unknown")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/admin/user-purges/unknown").header(HttpHeaders.AUTHORIZATION, SERVICE_TOKEN))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void purgeUsers_withoutServiceToken_returnsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/admin/user-purges")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\": [7, 8]}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").exists());
+        mockMvc.perform(get("/api/admin/user-purges/" + PURGE_ID).header(HttpHeaders.AUTHORIZATION, "Bearer wrong-token"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(userPurgeService);
+    }
+
+    private static UserPurge.Progress progress(PurgeJob.State state, int purgedUsers, long deletedNights) {
+        return new UserPurge.Progress(PURGE_ID, state, Instant.parse("2026-10-19T08:00:00Z"), 2, purgedUsers, deletedNights,
+                50.0 * purgedUsers, Duration.ZERO, null);
+    }
+}
@@ -0,0 +1,102 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncSleepLogServiceTest {
+
+    @Mock
+    private SleepLogService sleepLogService;
+
+    private final RecentNightsCache recentNightsCache = new RecentNightsCache(1000, Duration.ofMinutes(30), Duration.ofMinutes(5));
+
+    private static final Executor DIRECT = Runnable::run;
+    private static final Executor NEVER_RUNS = task -> {};
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
+    private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
+
+    @Test
+    void createSleepLog_completesWithSavedLog() throws Exception {
+        AsyncSleepLogService service = new AsyncSleepLogService(sleepLogService, recentNightsCache, DIRECT, DIRECT, TIMEOUT);
+        CreateSleepLogRequest request = new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD);
+        SleepLog savedLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        when(sleepLogService.createSleepLog(USER_ID, request)).thenReturn(savedLog);
+
+        assertThat(service.createSleepLog(USER_ID, request).get()).isEqualTo(savedLog);
+    }
+
+    @Test
+    void getLastNightSleep_notFound_completesExceptionally() {
+        AsyncSleepLogService service = new AsyncSleepLogService(sleepLogService, recentNightsCache, DIRECT, DIRECT, TIMEOUT);
+        when(sleepLogService.getLastNightSleep(USER_ID)).thenThrow(new SleepLogNotFoundException("No sleep log found"));
+
+        assertThatThrownBy(() -> service.getLastNightSleep(USER_ID).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SleepLogNotFoundException.class);
+    }
+
+    @Test
+    void getLast30DayAverages_fetchesOnDbExecutorAndAggregatesOnAggregationExecutor() throws Exception {
+        LocalDate today = LocalDate.now();
+        List<String> executedOn = new CopyOnWriteArrayList<>();
+        Executor dbExecutor = task -> { executedOn.add("db"); task.run(); };
+        Executor aggregationExecutor = task -> { executedOn.add("aggregation"); task.run(); };
+        AsyncSleepLogService service = new AsyncSleepLogService(sleepLogService, recentNightsCache, dbExecutor, aggregationExecutor, TIMEOUT);
+        when(sleepLogService.loadAndCacheRecentNights(USER_ID, today.minusDays(30), today)).thenReturn(List.of(
+                new SleepLog(1L, USER_ID, today.minusDays(1),
+                        LocalDateTime.of(2026, 2, 19, 23, 0), LocalDateTime.of(2026, 2, 20, 7, 0), MorningFeeling.GOOD, LocalDateTime.now())
+        ));
+
+        SleepAverages result = service.getLast30DayAverages(USER_ID).get();
+
+        assertThat(executedOn).containsExactly("db", "aggregation");
+        assertThat(result.averageTotalTimeInBed()).isEqualTo(Duration.ofHours(8));
+        assertThat(result.averageBedTime()).isEqualTo(LocalTime.of(23, 0));
+    }
+
+    @Test
+    void getLastNightSleep_dbTooSlow_failsWithTimeout() {
+        AsyncSleepLogService service = new AsyncSleepLogService(sleepLogService, recentNightsCache, NEVER_RUNS, DIRECT, TIMEOUT);
+
+        CompletableFuture<SleepLog> future = service.getLastNightSleep(USER_ID);
+
+        assertThatThrownBy(future::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void getLastNightSleep_executorSaturated_throwsRejectedExecution() {
+        Executor saturated = task -> { throw new RejectedExecutionException("queue full"); };
+        AsyncSleepLogService service = new AsyncSleepLogService(sleepLogService, recentNightsCache, saturated, DIRECT, TIMEOUT);
+
+        assertThatThrownBy(() -> service.getLastNightSleep(USER_ID))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmupTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+    private static final DatabaseGuard DIRECT = new DatabaseGuard(Duration.ZERO, 16, 5, Duration.ofSeconds(10));
+
+    @Mock
+    private ObjectProvider<LastKnownGoodReads> lastKnownGoodReadsProvider;
+
+    @Mock
+    private SleepLogService unavailableService;
+
+    @Mock
+    private SleepLogRepository blockedRepository;
+
+    private SleepLogRepository repository;
+    private RecentNightsCache recentNightsCache;
+    private SleepLogService sleepLogService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemorySleepLogRepository();
+        recentNightsCache = new RecentNightsCache(100, Duration.ofMinutes(30), Duration.ofMinutes(5));
+        sleepLogService = new SleepLogService(repository, recentNightsCache, new InMemoryPrecomputedNightsRepository(repository),
+                new SleepConsistencyService(repository, new InMemorySleepConsistencyRepository(), DIRECT, 0), DIRECT);
+        for (long userId = 1; userId <= 3; userId++) {
+            for (int daysAgo = 2; daysAgo >= (userId == 1 ? 0 : 1); daysAgo--) {
+                LocalDate sleepDate = TODAY.minusDays(daysAgo);
+                repository.save(new SleepLog(null, userId, sleepDate, sleepDate.minusDays(1).atTime(23, 0),
+                        sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+            }
+        }
+    }
+
+    @Test
+    void run_seedsCachesOfRecentWritersInBatches() {
+        LastKnownGoodReads reads = new LastKnownGoodReads(unavailableService, 100, Duration.ofHours(24));
+        when(lastKnownGoodReadsProvider.getIfAvailable()).thenReturn(reads);
+        DatabaseUnavailableException unavailable = new DatabaseUnavailableException("Database call failed");
+        when(unavailableService.getLastNightSleep(1L)).thenThrow(unavailable);
+        when(unavailableService.getLast30DayAverages(2L, true, SleepStatistic.ALL)).thenThrow(unavailable);
+        CacheWarmup warmup = warmup(repository, 10, Duration.ofMinutes(1));
+
+        warmup.start();
+        awaitFinished(warmup);
+        warmup.shutdown();
+
+        Health health = warmup.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("state", CacheWarmup.State.COMPLETED)
+                .containsEntry("usersFound", 3)
+                .containsEntry("usersWarmed", 3);
+        assertThat(recentNightsCache.size()).isEqualTo(3);
+        assertThat(recentNightsCache.averages(2L, FROM, TODAY)).get()
+                .isEqualTo(SleepLogService.averagesOf(repository.findByUserIdAndDateRange(2L, FROM, TODAY), FROM, TODAY, false, SleepStatistic.ALL));
+        assertThat(reads.getLastNightSleep(1L).stale()).isTrue();
+        assertThat(reads.getLast30DayAverages(2L, true, SleepStatistic.ALL).stale()).isTrue();
+    }
+
+    @Test
+    void health_whileRunning_isOutOfServiceUntilMaxDuration() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        when(blockedRepository.findUserIdsWrittenSince(any(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return List.of();
+        });
+        CacheWarmup holding = warmup(blockedRepository, 10, Duration.ofHours(1));
+        CacheWarmup expired = warmup(blockedRepository, 10, Duration.ZERO);
+        try {
+            assertThat(holding.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+            holding.start();
+            expired.start();
+            started.await();
+
+            assertThat(holding.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+            assertThat(holding.health().getDetails()).containsEntry("state", CacheWarmup.State.RUNNING);
+            assertThat(expired.health().getStatus()).isEqualTo(Status.UP);
+        } finally {
+            release.countDown();
+            holding.shutdown();
+            expired.shutdown();
+        }
+    }
+
+    @Test
+    void start_zeroMaxUsers_isDisabledAndUp() {
+        CacheWarmup warmup = warmup(blockedRepository, 0, Duration.ofMinutes(1));
+
+        warmup.start();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.health().getDetails()).containsEntry("state", CacheWarmup.State.DISABLED);
+        verifyNoInteractions(blockedRepository);
+    }
+
+    @Test
+    void run_repositoryFails_reportsFailedAndUp() {
+        when(blockedRepository.findUserIdsWrittenSince(any(), anyInt())).thenThrow(new IllegalStateException("Connection refused"));
+        CacheWarmup warmup = warmup(blockedRepository, 10, Duration.ofMinutes(1));
+
+        warmup.start();
+        awaitFinished(warmup);
+        warmup.shutdown();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.health().getDetails()).containsEntry("state", CacheWarmup.State.FAILED);
+    }
+
+    @Test
+    void run_userIdQueryTimesOut_reportsFailedAndUp() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(blockedRepository.findUserIdsWrittenSince(any(), anyInt())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        DatabaseGuard guard = new DatabaseGuard(Duration.ofMillis(50), 16, 5, Duration.ofSeconds(10));
+        CacheWarmup warmup = new CacheWarmup(blockedRepository, sleepLogService, lastKnownGoodReadsProvider, guard,
+                10, Duration.ofDays(1), 2, 0, Duration.ofMinutes(1));
+        try {
+            warmup.start();
+            awaitFinished(warmup);
+
+            assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+            assertThat(warmup.health().getDetails()).containsEntry("state", CacheWarmup.State.FAILED);
+        } finally {
+            release.countDown();
+            warmup.shutdown();
+        }
+    }
+
+    private CacheWarmup warmup(SleepLogRepository sleepLogRepository, int maxUsers, Duration maxDuration) {
+        return new CacheWarmup(sleepLogRepository, sleepLogService, lastKnownGoodReadsProvider, DIRECT, maxUsers, Duration.ofDays(1), 2, 0, maxDuration);
+    }
+
+    private static void awaitFinished(CacheWarmup warmup) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (warmup.health().getDetails().get("state") == CacheWarmup.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
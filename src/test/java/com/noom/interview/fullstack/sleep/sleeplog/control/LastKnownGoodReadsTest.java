@@ -0,0 +1,112 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Set;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LastKnownGoodReadsTest {
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final DatabaseUnavailableException UNAVAILABLE = new DatabaseUnavailableException("Database call failed");
+
+    @Mock
+    private SleepLogService sleepLogService;
+
+    private LastKnownGoodReads reads;
+
+    @BeforeEach
+    void setUp() {
+        reads = new LastKnownGoodReads(sleepLogService, 1000, Duration.ofHours(24));
+    }
+
+    @Test
+    void getLast30DayAverages_databaseUnavailable_servesLastValueAsStale() {
+        SleepAverages averages = averages().withMorningFeelingBreakdown(
+                Map.of(MorningFeeling.OK, new MorningFeelingAverages(3, Duration.ofHours(8), LocalTime.of(23, 0), LocalTime.of(7, 0))));
+        when(sleepLogService.getLast30DayAverages(USER_ID, true, SleepStatistic.ALL))
+                .thenReturn(averages)
+                .thenThrow(UNAVAILABLE);
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, Set.of(SleepStatistic.AVERAGE_BED_TIME))).thenThrow(UNAVAILABLE);
+
+        assertThat(reads.getLast30DayAverages(USER_ID, true, SleepStatistic.ALL)).isEqualTo(Served.fresh(averages));
+        Served<SleepAverages> stale = reads.getLast30DayAverages(USER_ID, true, SleepStatistic.ALL);
+        Served<SleepAverages> narrower = reads.getLast30DayAverages(USER_ID, false, Set.of(SleepStatistic.AVERAGE_BED_TIME));
+
+        assertThat(stale.stale()).isTrue();
+        assertThat(stale.value()).isEqualTo(averages);
+        assertThat(narrower.value().averageBedTime()).isEqualTo(averages.averageBedTime());
+        assertThat(narrower.value().byMorningFeeling()).isNull();
+    }
+
+    @Test
+    void getLast30DayAverages_storedValueLacksRequestedParts_rethrows() {
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, Set.of(SleepStatistic.AVERAGE_BED_TIME))).thenReturn(averages());
+        when(sleepLogService.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL)).thenThrow(UNAVAILABLE);
+        when(sleepLogService.getLast30DayAverages(USER_ID, true, Set.of(SleepStatistic.AVERAGE_BED_TIME))).thenThrow(UNAVAILABLE);
+
+        reads.getLast30DayAverages(USER_ID, false, Set.of(SleepStatistic.AVERAGE_BED_TIME));
+
+        assertThatThrownBy(() -> reads.getLast30DayAverages(USER_ID, false, SleepStatistic.ALL)).isSameAs(UNAVAILABLE);
+        assertThatThrownBy(() -> reads.getLast30DayAverages(USER_ID, true, Set.of(SleepStatistic.AVERAGE_BED_TIME)))
+                .isSameAs(UNAVAILABLE);
+    }
+
+    @Test
+    void getLastNightSleep_databaseUnavailable_servesTodaysNightOnly() {
+        SleepLog today = sleepLog(1L, USER_ID, TODAY);
+        SleepLog yesterday = sleepLog(2L, 2L, TODAY.minusDays(1));
+        when(sleepLogService.getLastNightSleep(USER_ID)).thenReturn(today).thenThrow(UNAVAILABLE);
+        when(sleepLogService.getLastNightSleep(2L)).thenReturn(yesterday).thenThrow(UNAVAILABLE);
+        reads.getLastNightSleep(USER_ID);
+        reads.getLastNightSleep(2L);
+
+        Served<SleepLog> stale = reads.getLastNightSleep(USER_ID);
+
+        assertThat(stale.stale()).isTrue();
+        assertThat(stale.value()).isEqualTo(today);
+        assertThatThrownBy(() -> reads.getLastNightSleep(2L)).isSameAs(UNAVAILABLE);
+    }
+
+    @Test
+    void evictExpired_dropsValuesOlderThanMaxAge() throws Exception {
+        reads = new LastKnownGoodReads(sleepLogService, 1000, Duration.ofMillis(10));
+        when(sleepLogService.getLastNightSleep(USER_ID)).thenReturn(sleepLog(1L, USER_ID, TODAY)).thenThrow(UNAVAILABLE);
+        reads.getLastNightSleep(USER_ID);
+        Thread.sleep(20);
+
+        reads.evictExpired();
+
+        assertThat(reads.size()).isZero();
+        assertThatThrownBy(() -> reads.getLastNightSleep(USER_ID)).isSameAs(UNAVAILABLE);
+    }
+
+    private static SleepAverages averages() {
+        return new SleepAverages(TODAY.minusDays(30), TODAY, Duration.ofHours(8), LocalTime.of(23, 0), LocalTime.of(7, 0),
+                Map.of(MorningFeeling.OK, 3L));
+    }
+
+    private static SleepLog sleepLog(Long id, Long userId, LocalDate sleepDate) {
+        return new SleepLog(id, userId, sleepDate, sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0),
+                MorningFeeling.OK, sleepDate.atTime(7, 5));
+    }
+}
@@ -0,0 +1,106 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.ReactiveSleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveSleepLogServiceTest {
+
+    @Mock
+    private ReactiveSleepLogRepository sleepLogRepository;
+
+    @InjectMocks
+    private ReactiveSleepLogService sleepLogService;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
+    private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
+
+    @Test
+    void createSleepLog_validInput_returnsSavedLog() {
+        SleepLog savedLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
+        when(sleepLogRepository.save(any(SleepLog.class))).thenReturn(Mono.just(savedLog));
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest(BED_TIME, WAKE_TIME, MorningFeeling.GOOD);
+
+        StepVerifier.create(sleepLogService.createSleepLog(USER_ID, request))
+                .assertNext(result -> assertThat(result.id()).isEqualTo(1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void createSleepLog_wakeTimeBeforeBedTime_emitsIllegalArgument() {
+        CreateSleepLogRequest request = new CreateSleepLogRequest(WAKE_TIME, BED_TIME, MorningFeeling.OK);
+
+        StepVerifier.create(sleepLogService.createSleepLog(USER_ID, request))
+                .expectErrorMatches(error -> error instanceof IllegalArgumentException
+                        && error.getMessage().equals("Wake time must be after bed time"))
+                .verify();
+        verify(sleepLogRepository, never()).save(any());
+    }
+
+    @Test
+    void getLastNightSleep_noLog_emitsSleepLogNotFoundException() {
+        when(sleepLogRepository.findByUserIdAndDate(USER_ID, LocalDate.now())).thenReturn(Mono.empty());
+
+        StepVerifier.create(sleepLogService.getLastNightSleep(USER_ID))
+                .expectError(SleepLogNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getLast30DayAverages_withLogs_returnsCorrectAverages() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        when(sleepLogRepository.findByUserIdAndDateRange(USER_ID, from, today)).thenReturn(Flux.just(
+                new SleepLog(1L, USER_ID, today.minusDays(2),
+                        LocalDateTime.of(2026, 2, 18, 23, 0), LocalDateTime.of(2026, 2, 19, 7, 0), MorningFeeling.GOOD, LocalDateTime.now()),
+                new SleepLog(2L, USER_ID, today.minusDays(1),
+                        LocalDateTime.of(2026, 2, 19, 23, 30), LocalDateTime.of(2026, 2, 20, 7, 30), MorningFeeling.OK, LocalDateTime.now())
+        ));
+
+        StepVerifier.create(sleepLogService.getLast30DayAverages(USER_ID))
+                .assertNext(result -> {
+                    assertThat(result.from()).isEqualTo(from);
+                    assertThat(result.to()).isEqualTo(today);
+                    assertThat(result.averageTotalTimeInBed()).isEqualTo(Duration.ofHours(8));
+                    assertThat(result.averageBedTime()).isEqualTo(LocalTime.of(23, 15));
+                    assertThat(result.averageWakeTime()).isEqualTo(LocalTime.of(7, 15));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getLast30DayAverages_noLogs_returnsEmptyResponse() {
+        LocalDate today = LocalDate.now();
+        when(sleepLogRepository.findByUserIdAndDateRange(USER_ID, today.minusDays(30), today)).thenReturn(Flux.empty());
+
+        StepVerifier.create(sleepLogService.getLast30DayAverages(USER_ID))
+                .assertNext(result -> {
+                    assertThat(result.averageTotalTimeInBed()).isEqualTo(Duration.ZERO);
+                    assertThat(result.morningFeelingFrequencies()).isEmpty();
+                })
+                .verifyComplete();
+    }
+}
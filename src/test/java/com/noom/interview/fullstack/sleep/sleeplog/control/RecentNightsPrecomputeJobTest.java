@@ -0,0 +1,112 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryJobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNights;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentNightsPrecomputeJobTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int ACTIVE_USERS = 24;
+    private static final long INACTIVE_USER_ID = 100L;
+
+    private SleepLogRepository repository;
+    private InMemoryPrecomputedNightsRepository precomputedNightsRepository;
+    private JobCheckpointRepository checkpointRepository;
+    private RecentNightsPrecomputeJob job;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemorySleepLogRepository();
+        precomputedNightsRepository = new InMemoryPrecomputedNightsRepository(repository);
+        checkpointRepository = new InMemoryJobCheckpointRepository();
+        job = new RecentNightsPrecomputeJob(repository, new RecentNightsPrecomputer(repository, precomputedNightsRepository),
+                checkpointRepository, 14, 4, 2, LEASE);
+        for (long userId = 1; userId <= ACTIVE_USERS; userId++) {
+            for (int daysAgo = 10; daysAgo >= 1; daysAgo--) {
+                save(userId, TODAY.minusDays(daysAgo), MorningFeeling.values()[(int) (userId + daysAgo) % 3]);
+            }
+        }
+        save(INACTIVE_USER_ID, TODAY.minusDays(20), MorningFeeling.OK);
+    }
+
+    @Test
+    void run_storesNightsOfActiveUsers() {
+        assertThat(job.run(TODAY)).isEqualTo(ACTIVE_USERS);
+
+        LocalDate from = TODAY.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        SleepAverages expected = SleepAverages.fromSleepLogs(repository.findByUserIdAndDateRange(7L, from, TODAY), from, TODAY);
+        assertThat(precomputedNightsRepository.findByUserId(7L, TODAY)
+                .map(nights -> RecentNightsCache.averagesOf(nights, from, TODAY, false, SleepStatistic.ALL)))
+                .contains(expected);
+        assertThat(precomputedNightsRepository.findByUserId(INACTIVE_USER_ID, TODAY)).isEmpty();
+        assertThat(checkpointRepository.find(RecentNightsPrecomputeJob.JOB_NAME))
+                .hasValueSatisfying(checkpoint -> assertThat(checkpoint.completed()).isTrue());
+    }
+
+    @Test
+    void run_alreadyCompletedForDate_doesNothing() {
+        job.run(TODAY);
+
+        assertThat(job.run(TODAY)).isZero();
+    }
+
+    @Test
+    void run_nextDate_startsOver() {
+        job.run(TODAY.minusDays(1));
+
+        assertThat(job.run(TODAY)).isEqualTo(ACTIVE_USERS);
+    }
+
+    @Test
+    void run_unfinishedRun_resumesAfterCheckpoint() {
+        checkpointRepository.claim(RecentNightsPrecomputeJob.JOB_NAME, "crashed", LEASE);
+        checkpointRepository.advance(new JobCheckpoint(RecentNightsPrecomputeJob.JOB_NAME, TODAY.toString(), 16, false), "crashed", LEASE);
+        checkpointRepository.release(RecentNightsPrecomputeJob.JOB_NAME, "crashed");
+
+        assertThat(job.run(TODAY)).isEqualTo(ACTIVE_USERS - 16);
+        assertThat(precomputedNightsRepository.findByUserId(16L, TODAY)).isEmpty();
+        assertThat(precomputedNightsRepository.findByUserId(17L, TODAY)).isPresent();
+    }
+
+    @Test
+    void run_leaseHeldByAnotherInstance_skips() {
+        checkpointRepository.claim(RecentNightsPrecomputeJob.JOB_NAME, "other", LEASE);
+
+        assertThat(job.run(TODAY)).isZero();
+        assertThat(precomputedNightsRepository.findByUserId(1L, TODAY)).isEmpty();
+    }
+
+    @Test
+    void saveAll_logsChangedSinceLoad_skipsUser() {
+        LocalDate from = TODAY.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        PrecomputedNights stale = PrecomputedNights.of(3L, repository.findByUserIdAndDateRange(3L, from, TODAY), SleepLogService.AVERAGES_PERIOD_DAYS);
+        save(3L, TODAY.minusDays(12), MorningFeeling.BAD);
+
+        assertThat(precomputedNightsRepository.saveAll(List.of(stale), from, TODAY)).isZero();
+        assertThat(precomputedNightsRepository.findByUserId(3L, TODAY)).isEmpty();
+    }
+
+    private void save(Long userId, LocalDate sleepDate, MorningFeeling feeling) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atTime(23, 0);
+        repository.save(new SleepLog(null, userId, sleepDate, bedTime, bedTime.plusHours(8), feeling, null));
+    }
+}
@@ -0,0 +1,146 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryJobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecentNightsRebuildCommandTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int USERS = 40;
+    private static final DatabaseGuard DIRECT = new DatabaseGuard(Duration.ZERO, 16, 5, Duration.ofSeconds(10));
+
+    private SleepLogRepository repository;
+    private InMemoryPrecomputedNightsRepository precomputedNightsRepository;
+    private InMemorySleepConsistencyRepository sleepConsistencyRepository;
+    private JobCheckpointRepository checkpointRepository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemorySleepLogRepository();
+        precomputedNightsRepository = new InMemoryPrecomputedNightsRepository(repository);
+        sleepConsistencyRepository = new InMemorySleepConsistencyRepository();
+        checkpointRepository = new InMemoryJobCheckpointRepository();
+        for (long userId = 1; userId <= USERS; userId++) {
+            for (int daysAgo = 5; daysAgo >= 1; daysAgo--) {
+                save(userId, TODAY.minusDays(daysAgo), MorningFeeling.values()[(int) (userId + daysAgo) % 3]);
+            }
+        }
+    }
+
+    @Test
+    void rebuild_rebuildsEveryUserAcrossPartitions() {
+        RecentNightsRebuildCommand.Progress progress = command(1, 0).rebuild();
+
+        assertThat(progress.users()).isEqualTo(USERS);
+        assertThat(progress.completedPartitions()).isEqualTo(progress.partitions()).isEqualTo(3);
+        assertThat(progress.percent()).isEqualTo(100);
+        LocalDate from = TODAY.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+        for (long userId = 1; userId <= USERS; userId++) {
+            SleepAverages expected = SleepAverages.fromSleepLogs(repository.findByUserIdAndDateRange(userId, from, TODAY), from, TODAY);
+            assertThat(precomputedNightsRepository.findByUserId(userId, TODAY)
+                    .map(nights -> RecentNightsCache.averagesOf(nights, from, TODAY, false, SleepStatistic.ALL)))
+                    .contains(expected);
+        }
+    }
+
+    @Test
+    void rebuild_rebuildsConsistencyOfEveryUser() {
+        sleepConsistencyRepository.save(SleepConsistency.empty(1L, 0));
+
+        command(1, 0).rebuild();
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertThat(sleepConsistencyRepository.findByUserId(userId).map(consistency -> consistency.withVersion(0)))
+                    .contains(SleepConsistency.of(userId, repository.findByUserIdAndDateRange(
+                            userId, SleepConsistencyService.HISTORY_FROM, SleepConsistencyService.HISTORY_TO), 0));
+        }
+    }
+
+    @Test
+    void rebuild_userIdRange_rebuildsOnlyThatRange() {
+        RecentNightsRebuildCommand.Progress progress = command(11, 20).rebuild();
+
+        assertThat(progress.users()).isEqualTo(10);
+        assertThat(precomputedNightsRepository.findByUserId(10L, TODAY)).isEmpty();
+        assertThat(precomputedNightsRepository.findByUserId(11L, TODAY)).isPresent();
+        assertThat(precomputedNightsRepository.findByUserId(21L, TODAY)).isEmpty();
+    }
+
+    @Test
+    void rebuild_sameArgumentsAgain_skipsCompletedPartitions() {
+        command(1, 0).rebuild();
+
+        RecentNightsRebuildCommand.Progress progress = command(1, 0).rebuild();
+
+        assertThat(progress.users()).isZero();
+        assertThat(progress.completedPartitions()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuild_interruptedPartition_resumesAfterCheckpoint() {
+        String runKey = TODAY + "/30/1-" + USERS + "/3";
+        String jobName = RecentNightsRebuildCommand.JOB_NAME + "-0";
+        checkpointRepository.claim(jobName, "crashed", LEASE);
+        checkpointRepository.advance(new JobCheckpoint(jobName, runKey, 10, false), "crashed", LEASE);
+        checkpointRepository.release(jobName, "crashed");
+
+        RecentNightsRebuildCommand.Progress progress = command(1, 0).rebuild();
+
+        assertThat(progress.users()).isEqualTo(USERS - 10);
+        assertThat(precomputedNightsRepository.findByUserId(10L, TODAY)).isEmpty();
+        assertThat(precomputedNightsRepository.findByUserId(11L, TODAY)).isPresent();
+    }
+
+    @Test
+    void run_partitionHeldByAnotherInstance_failsAndCompletesTheOthers() {
+        checkpointRepository.claim(RecentNightsRebuildCommand.JOB_NAME + "-1", "other", LEASE);
+        RecentNightsRebuildCommand command = command(1, 0);
+
+        assertThatThrownBy(command::run).isInstanceOf(IllegalStateException.class).hasMessageContaining("2 of 3 partitions");
+        assertThat(precomputedNightsRepository.findByUserId(1L, TODAY)).isPresent();
+        assertThat(precomputedNightsRepository.findByUserId(USERS + 0L, TODAY)).isPresent();
+    }
+
+    @Test
+    void partitionSplit_coversRangeWithoutOverlap() {
+        assertThat(RecentNightsRebuildCommand.Partition.split(1, 10, 3)).containsExactly(
+                new RecentNightsRebuildCommand.Partition(0, 1, 4),
+                new RecentNightsRebuildCommand.Partition(1, 5, 8),
+                new RecentNightsRebuildCommand.Partition(2, 9, 10));
+        assertThat(RecentNightsRebuildCommand.Partition.split(5, 6, 4)).containsExactly(
+                new RecentNightsRebuildCommand.Partition(0, 5, 5),
+                new RecentNightsRebuildCommand.Partition(1, 6, 6));
+    }
+
+    private RecentNightsRebuildCommand command(long fromUserId, long toUserId) {
+        return new RecentNightsRebuildCommand(repository, new RecentNightsPrecomputer(repository, precomputedNightsRepository),
+                new SleepConsistencyService(repository, sleepConsistencyRepository, DIRECT, 0),
+                checkpointRepository, TODAY.toString(), 30, fromUserId, toUserId, 3, 4, 0, LEASE, Duration.ofMinutes(1), true);
+    }
+
+    private void save(Long userId, LocalDate sleepDate, MorningFeeling feeling) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atTime(23, 0);
+        repository.save(new SleepLog(null, userId, sleepDate, bedTime, bedTime.plusHours(8), feeling, null));
+    }
+}
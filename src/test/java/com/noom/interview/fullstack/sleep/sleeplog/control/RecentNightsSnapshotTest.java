@@ -0,0 +1,171 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryUserPurgeRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentNightsSnapshotTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(30);
+    private static final DatabaseGuard DIRECT = new DatabaseGuard(Duration.ZERO, 16, 5, Duration.ofSeconds(10));
+
+    @TempDir
+    private Path directory;
+
+    private Path path;
+    private SleepLogRepository repository;
+    private InMemoryUserPurgeRepository purgeRepository;
+
+    @BeforeEach
+    void setUp() {
+        path = directory.resolve("recent-nights.snapshot");
+        repository = new InMemorySleepLogRepository();
+        purgeRepository = new InMemoryUserPurgeRepository();
+        for (int daysAgo = 10; daysAgo >= 1; daysAgo--) {
+            save(1L, TODAY.minusDays(daysAgo), MorningFeeling.values()[daysAgo % 3]);
+            save(2L, TODAY.minusDays(daysAgo), MorningFeeling.OK);
+        }
+    }
+
+    @Test
+    void restore_replaysLogsWrittenAfterSnapshot() {
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(1L);
+        snapshot(cache).write();
+        save(1L, TODAY, MorningFeeling.GOOD);
+
+        RecentNightsCache restored = newCache();
+        snapshot(restored).restore();
+
+        SleepAverages expected = SleepAverages.fromSleepLogs(repository.findByUserIdAndDateRange(1L, FROM, TODAY), FROM, TODAY);
+        assertThat(restored.size()).isEqualTo(1);
+        assertThat(restored.averages(1L, FROM, TODAY)).contains(expected);
+    }
+
+    @Test
+    void restore_fullBufferWithReplayedNights_keepsEveryNight() {
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            save(3L, TODAY.minusDays(daysAgo), MorningFeeling.values()[daysAgo % 3]);
+        }
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(3L);
+        snapshot(cache).write();
+
+        RecentNightsCache restored = newCache();
+        snapshot(restored).restore();
+
+        List<SleepLog> nights = repository.findByUserIdAndDateRange(3L, FROM, TODAY);
+        assertThat(nights).hasSize(30);
+        SleepAverages expected = SleepAverages.fromSleepLogs(nights, FROM, TODAY);
+        assertThat(restored.averages(3L, FROM, TODAY)).contains(expected);
+    }
+
+    @Test
+    void restore_userPurgedAfterSnapshot_isNotRestored() {
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(1L);
+        service(cache).getLast30DayAverages(2L);
+        snapshot(cache).write();
+        purgeRepository.save(new PurgeJob("purge", List.of(1L), PurgeJob.State.COMPLETED, Instant.now(), 1, 10, Duration.ZERO, null));
+
+        RecentNightsCache restored = newCache();
+        snapshot(restored).restore();
+
+        assertThat(restored.size()).isEqualTo(1);
+        assertThat(restored.averages(1L, FROM, TODAY)).isEmpty();
+        assertThat(restored.averages(2L, FROM, TODAY)).isPresent();
+    }
+
+    @Test
+    void restore_databaseBehindWatermark_discardsSnapshot() {
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(1L);
+        snapshot(cache).write();
+
+        RecentNightsCache restored = newCache();
+        new RecentNightsSnapshot(restored, new InMemorySleepLogRepository(), purgeRepository, path, Duration.ofMinutes(5), 1000).restore();
+
+        assertThat(restored.size()).isZero();
+    }
+
+    @Test
+    void restore_tooManyNewerLogs_discardsSnapshot() {
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(1L);
+        snapshot(cache).write();
+
+        RecentNightsCache restored = newCache();
+        new RecentNightsSnapshot(restored, repository, purgeRepository, path, Duration.ofMinutes(5), 10).restore();
+
+        assertThat(restored.size()).isZero();
+    }
+
+    @Test
+    void restore_corruptFile_discardsSnapshot() throws Exception {
+        RecentNightsCache cache = newCache();
+        service(cache).getLast30DayAverages(1L);
+        snapshot(cache).write();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        RecentNightsCache restored = newCache();
+        snapshot(restored).restore();
+
+        assertThat(restored.size()).isZero();
+    }
+
+    @Test
+    void restore_noSnapshot_leavesCacheEmpty() {
+        RecentNightsCache restored = newCache();
+        snapshot(restored).restore();
+
+        assertThat(restored.size()).isZero();
+    }
+
+    @Test
+    void snapshotBytes_millionsOfUsers_doesNotOverflow() {
+        assertThat(RecentNightsSnapshot.snapshotBytes(5_000_000)).isGreaterThan(Integer.MAX_VALUE);
+        assertThat(RecentNightsSnapshot.snapshotBytes(RecentNightsSnapshot.MAX_USERS)).isLessThanOrEqualTo(Integer.MAX_VALUE);
+        assertThat(RecentNightsSnapshot.snapshotBytes(RecentNightsSnapshot.MAX_USERS + 1)).isGreaterThan(Integer.MAX_VALUE);
+    }
+
+    private RecentNightsSnapshot snapshot(RecentNightsCache cache) {
+        return new RecentNightsSnapshot(cache, repository, purgeRepository, path, Duration.ofMinutes(5), 1000);
+    }
+
+    private SleepLogService service(RecentNightsCache cache) {
+        return new SleepLogService(repository, cache, new InMemoryPrecomputedNightsRepository(repository),
+                new SleepConsistencyService(repository, new InMemorySleepConsistencyRepository(), DIRECT, 0), DIRECT);
+    }
+
+    private static RecentNightsCache newCache() {
+        return new RecentNightsCache(1000, Duration.ofMinutes(30), Duration.ofMinutes(5));
+    }
+
+    private void save(Long userId, LocalDate sleepDate, MorningFeeling feeling) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atTime(23, 0);
+        repository.save(new SleepLog(null, userId, sleepDate, bedTime, bedTime.plusHours(8), feeling, null));
+    }
+}
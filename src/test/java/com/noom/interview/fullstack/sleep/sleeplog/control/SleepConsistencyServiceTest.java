@@ -0,0 +1,167 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SleepConsistencyServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final DatabaseGuard DIRECT = new DatabaseGuard(Duration.ZERO, 16, 5, Duration.ofSeconds(10));
+
+    @Mock
+    private SleepConsistencyRepository contendedRepository;
+
+    private SleepLogRepository sleepLogRepository;
+    private InMemorySleepConsistencyRepository sleepConsistencyRepository;
+    private SleepConsistencyService service;
+
+    @BeforeEach
+    void setUp() {
+        sleepLogRepository = new InMemorySleepLogRepository();
+        sleepConsistencyRepository = new InMemorySleepConsistencyRepository();
+        service = new SleepConsistencyService(sleepLogRepository, sleepConsistencyRepository, DIRECT, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void record_nightsInEitherDirection_updatesRowInPlace() {
+        save(TODAY.minusDays(2));
+        service.getConsistency(1L);
+        record(TODAY.minusDays(1));
+        record(TODAY.minusDays(5));
+        record(TODAY);
+
+        SleepConsistency stored = sleepConsistencyRepository.findByUserId(1L).orElseThrow();
+        assertThat(stored.version()).isEqualTo(4);
+        assertThat(stored.nights()).isEqualTo(4);
+        assertThat(stored.currentStreak(TODAY)).isEqualTo(3);
+        assertThat(stored.longestStreak()).isEqualTo(3);
+        assertThat(stored.withVersion(0)).isEqualTo(SleepConsistency.of(1L, sleepLogRepository.findByUserIdAndDateRange(
+                1L, SleepConsistencyService.HISTORY_FROM, SleepConsistencyService.HISTORY_TO), 0));
+    }
+
+    @Test
+    void record_withoutRow_buildsItInBackground() {
+        record(TODAY.minusDays(1));
+        record(TODAY);
+
+        SleepConsistency stored = awaitNights(2);
+        assertThat(stored.withVersion(0)).isEqualTo(SleepConsistency.of(1L, sleepLogRepository.findByUserIdAndDateRange(
+                1L, SleepConsistencyService.HISTORY_FROM, SleepConsistencyService.HISTORY_TO), 0));
+    }
+
+    @Test
+    void record_nightBetweenEarliestAndLatest_rebuildsInBackground() {
+        save(TODAY.minusDays(4));
+        save(TODAY);
+        service.getConsistency(1L);
+        record(TODAY.minusDays(2));
+        record(TODAY.minusDays(3));
+        record(TODAY.minusDays(1));
+
+        SleepConsistency stored = awaitNights(5);
+        assertThat(stored.nights()).isEqualTo(5);
+        assertThat(stored.firstStreak()).isEqualTo(5);
+        assertThat(stored.lastStreak()).isEqualTo(5);
+        assertThat(stored.consecutivePairs()).isEqualTo(4);
+    }
+
+    @Test
+    void record_pendingRebuildsFull_leavesRowToNextRead() {
+        SleepConsistencyService unqueued = new SleepConsistencyService(sleepLogRepository, sleepConsistencyRepository, DIRECT, 0);
+        save(TODAY.minusDays(2));
+        save(TODAY);
+        unqueued.getConsistency(1L);
+
+        unqueued.record(save(TODAY.minusDays(1)));
+
+        assertThat(sleepConsistencyRepository.findByUserId(1L)).isEmpty();
+        assertThat(unqueued.getConsistency(1L).nights()).isEqualTo(3);
+        assertThat(sleepConsistencyRepository.findByUserId(1L)).isPresent();
+    }
+
+    @Test
+    void record_rowKeepsChanging_dropsIt() {
+        SleepConsistencyService contended = new SleepConsistencyService(sleepLogRepository, contendedRepository, DIRECT, 0);
+        SleepLog sleepLog = save(TODAY);
+        when(contendedRepository.findByUserId(1L)).thenReturn(Optional.of(SleepConsistency.empty(1L, 7)));
+        when(contendedRepository.save(any())).thenReturn(false);
+
+        contended.record(sleepLog);
+
+        verify(contendedRepository, times(SleepConsistencyService.MAX_ATTEMPTS)).save(any());
+        verify(contendedRepository).deleteByUserId(1L);
+    }
+
+    @Test
+    void getConsistency_withoutRow_buildsAndStoresIt() {
+        save(TODAY.minusDays(1));
+        save(TODAY);
+
+        SleepConsistency consistency = service.getConsistency(1L);
+
+        assertThat(consistency.nights()).isEqualTo(2);
+        assertThat(consistency.currentStreak(TODAY)).isEqualTo(2);
+        assertThat(sleepConsistencyRepository.findByUserId(1L)).hasValueSatisfying(stored -> assertThat(stored.version()).isEqualTo(1));
+    }
+
+    @Test
+    void rebuild_staleRow_replacesItFromHistory() {
+        sleepConsistencyRepository.save(SleepConsistency.empty(1L, 0));
+        save(TODAY.minusDays(1));
+        save(TODAY);
+
+        assertThat(service.rebuild(1L)).isTrue();
+
+        SleepConsistency stored = sleepConsistencyRepository.findByUserId(1L).orElseThrow();
+        assertThat(stored.version()).isEqualTo(2);
+        assertThat(stored.nights()).isEqualTo(2);
+    }
+
+    private SleepConsistency awaitNights(int nights) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        Optional<SleepConsistency> stored = sleepConsistencyRepository.findByUserId(1L);
+        while (stored.filter(consistency -> consistency.nights() == nights).isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+            stored = sleepConsistencyRepository.findByUserId(1L);
+        }
+        return stored.orElseThrow();
+    }
+
+    private void record(LocalDate sleepDate) {
+        service.record(save(sleepDate));
+    }
+
+    private SleepLog save(LocalDate sleepDate) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atTime(23, 0);
+        return sleepLogRepository.save(new SleepLog(null, 1L, sleepDate, bedTime, bedTime.plusHours(8), MorningFeeling.GOOD, null));
+    }
+}
@@ -0,0 +1,99 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramBucket;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepHistogramField;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SleepHistogramServiceTest {
+
+    @Mock
+    private SleepLogRepository sleepLogRepository;
+
+    private SleepHistogramService sleepHistogramService;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate FROM = LocalDate.of(2026, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 30);
+
+    @BeforeEach
+    void setUp() {
+        sleepHistogramService = new SleepHistogramService(sleepLogRepository);
+    }
+
+    @Test
+    void getHistogram_clockTime_coversWholeDayWithEmptyBuckets() {
+        when(sleepLogRepository.countByHistogramBucket(USER_ID, FROM.minusDays(1), TO, SleepHistogramField.BED_TIME, 900))
+                .thenReturn(List.of(new SleepHistogramBucket(47, 3), new SleepHistogramBucket(48, 2)));
+
+        List<SleepHistogramBucket> result = sleepHistogramService.getHistogram(
+                USER_ID, FROM, TO, SleepHistogramField.BED_TIME, Duration.ofMinutes(15));
+
+        assertThat(result).hasSize(96);
+        assertThat(result).extracting(SleepHistogramBucket::index).startsWith(0L, 1L).endsWith(95L);
+        assertThat(result.get(47).count()).isEqualTo(3);
+        assertThat(result.get(48).count()).isEqualTo(2);
+        assertThat(result).extracting(SleepHistogramBucket::count).containsOnly(0L, 2L, 3L);
+    }
+
+    @Test
+    void getHistogram_timeInBed_endsAtLongestNight() {
+        when(sleepLogRepository.countByHistogramBucket(USER_ID, FROM.minusDays(1), TO, SleepHistogramField.TIME_IN_BED, 3600))
+                .thenReturn(List.of(new SleepHistogramBucket(6, 1), new SleepHistogramBucket(8, 4)));
+
+        List<SleepHistogramBucket> result = sleepHistogramService.getHistogram(
+                USER_ID, FROM, TO, SleepHistogramField.TIME_IN_BED, Duration.ofHours(1));
+
+        assertThat(result).extracting(SleepHistogramBucket::count).containsExactly(0L, 0L, 0L, 0L, 0L, 0L, 1L, 0L, 4L);
+    }
+
+    @Test
+    void getHistogram_timeInBed_noNights_returnsNoBuckets() {
+        when(sleepLogRepository.countByHistogramBucket(any(), any(), any(), any(), anyLong())).thenReturn(List.of());
+
+        assertThat(sleepHistogramService.getHistogram(USER_ID, FROM, TO, SleepHistogramField.TIME_IN_BED, Duration.ofMinutes(30)))
+                .isEmpty();
+    }
+
+    @Test
+    void getHistogram_clockBucketNotDividingDay_throws() {
+        assertThatThrownBy(() -> sleepHistogramService.getHistogram(
+                USER_ID, FROM, TO, SleepHistogramField.WAKE_TIME, Duration.ofMinutes(7)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("divide 24 hours");
+        verifyNoInteractions(sleepLogRepository);
+    }
+
+    @Test
+    void getHistogram_bucketOutOfRange_throws() {
+        assertThatThrownBy(() -> sleepHistogramService.getHistogram(
+                USER_ID, FROM, TO, SleepHistogramField.TIME_IN_BED, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sleepHistogramService.getHistogram(
+                USER_ID, FROM, TO, SleepHistogramField.TIME_IN_BED, Duration.ofHours(25)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getHistogram_fromAfterTo_throws() {
+        assertThatThrownBy(() -> sleepHistogramService.getHistogram(
+                USER_ID, TO, FROM, SleepHistogramField.BED_TIME, Duration.ofMinutes(15)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryJobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpoint;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.JobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogArchiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SleepLogArchiverTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final LocalDate BEFORE = LocalDate.of(2025, 9, 1);
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Mock
+    private SleepLogArchiveRepository archiveRepository;
+
+    private JobCheckpointRepository checkpointRepository;
+    private SleepLogArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository = new InMemoryJobCheckpointRepository();
+        archiver = new SleepLogArchiver(archiveRepository, checkpointRepository, 400, 3, 2, 0, LEASE);
+    }
+
+    @Test
+    void cutoff_isFirstOfMonthOfAge() {
+        assertThat(archiver.cutoff(TODAY)).isEqualTo(BEFORE);
+        assertThat(archiver.cutoff(LocalDate.of(2026, 10, 5))).isEqualTo(LocalDate.of(2025, 8, 1));
+    }
+
+    @Test
+    void run_movesEveryUsersNightsInBatchesAndCompletes() {
+        when(archiveRepository.findUserIdsWithNightsBefore(BEFORE, 0, 2)).thenReturn(List.of(1L, 4L));
+        when(archiveRepository.findUserIdsWithNightsBefore(BEFORE, 4, 2)).thenReturn(List.of(9L));
+        when(archiveRepository.archive(1L, BEFORE, 3)).thenReturn(3, 3, 1);
+        when(archiveRepository.archive(4L, BEFORE, 3)).thenReturn(2);
+        when(archiveRepository.archive(9L, BEFORE, 3)).thenReturn(3, 0);
+
+        assertThat(archiver.run(TODAY)).isEqualTo(12);
+
+        assertThat(checkpointRepository.find(SleepLogArchiver.JOB_NAME))
+                .hasValueSatisfying(checkpoint -> {
+                    assertThat(checkpoint.runKey()).isEqualTo(BEFORE.toString());
+                    assertThat(checkpoint.completed()).isTrue();
+                });
+        assertThat(archiver.run(TODAY)).isZero();
+    }
+
+    @Test
+    void run_interruptedRun_resumesAfterCheckpoint() {
+        checkpointRepository.claim(SleepLogArchiver.JOB_NAME, "crashed", LEASE);
+        checkpointRepository.advance(new JobCheckpoint(SleepLogArchiver.JOB_NAME, BEFORE.toString(), 4, false), "crashed", LEASE);
+        checkpointRepository.release(SleepLogArchiver.JOB_NAME, "crashed");
+        when(archiveRepository.findUserIdsWithNightsBefore(BEFORE, 4, 2)).thenReturn(List.of(9L));
+        when(archiveRepository.archive(9L, BEFORE, 3)).thenReturn(1);
+
+        assertThat(archiver.run(TODAY)).isEqualTo(1);
+
+        verify(archiveRepository, never()).archive(1L, BEFORE, 3);
+    }
+
+    @Test
+    void run_leaseHeldByAnotherInstance_skips() {
+        checkpointRepository.claim(SleepLogArchiver.JOB_NAME, "other", LEASE);
+
+        assertThat(archiver.run(TODAY)).isZero();
+
+        verifyNoInteractions(archiveRepository);
+    }
+
+    @Test
+    void constructor_ageWithinAveragesPeriod_throws() {
+        assertThatThrownBy(() -> new SleepLogArchiver(archiveRepository, checkpointRepository,
+                SleepLogService.AVERAGES_PERIOD_DAYS, 3, 2, 0, LEASE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
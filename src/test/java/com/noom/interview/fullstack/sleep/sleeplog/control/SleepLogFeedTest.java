@@ -0,0 +1,187 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SleepLogFeedTest {
+
+    private static final int BUFFER_SIZE = 4;
+    private static final int REPLAY_SIZE = 5;
+
+    private SleepLogFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new SleepLogFeed(BUFFER_SIZE, REPLAY_SIZE, 3, 2, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void publish_deliversToSubscribersFollowingTheUser() throws Exception {
+        RecordingSubscriber all = new RecordingSubscriber();
+        RecordingSubscriber user1 = new RecordingSubscriber();
+        feed.subscribe(Set.of(), null, all);
+        feed.subscribe(Set.of(1L), null, user1);
+
+        publish(1, 3);
+
+        await(() -> all.received.size() == 3 && user1.received.size() == 2);
+        assertThat(all.received).containsExactly("1", "2", "3");
+        assertThat(user1.received).containsExactly("1", "3");
+    }
+
+    @Test
+    void subscribe_resumeToken_replaysLaterLogsFirst() throws Exception {
+        publish(1, 6);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        feed.subscribe(Set.of(1L), 3L, subscriber);
+        publish(7, 7);
+
+        await(() -> subscriber.received.size() == 2);
+        assertThat(subscriber.received).containsExactly("5", "7");
+    }
+
+    @Test
+    void subscribe_resumeTokenNoLongerKept_sendsReset() throws Exception {
+        publish(1, REPLAY_SIZE + 1);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        feed.subscribe(Set.of(), 1L, subscriber);
+        publish(REPLAY_SIZE + 2, REPLAY_SIZE + 2);
+
+        await(() -> subscriber.received.size() == 2);
+        assertThat(subscriber.received).containsExactly("reset", String.valueOf(REPLAY_SIZE + 2));
+    }
+
+    @Test
+    void reset_notifiesSubscribersAndForgetsLogsKeptForResuming() throws Exception {
+        publish(1, 2);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        feed.subscribe(Set.of(), null, subscriber);
+
+        feed.reset("notifications were lost");
+
+        await(() -> subscriber.received.size() == 1);
+        assertThat(subscriber.received).containsExactly("reset");
+        RecordingSubscriber resumed = new RecordingSubscriber();
+        feed.subscribe(Set.of(), 2L, resumed);
+        await(() -> resumed.received.size() == 1);
+        assertThat(resumed.received).containsExactly("reset");
+    }
+
+    @Test
+    void publish_subscriberFallsBehind_closesItWithoutHoldingUpOthers() throws Exception {
+        RecordingSubscriber slow = new RecordingSubscriber();
+        slow.blocked = new CountDownLatch(1);
+        RecordingSubscriber fast = new RecordingSubscriber();
+        feed.subscribe(Set.of(), null, slow);
+        feed.subscribe(Set.of(), null, fast);
+
+        for (int id = 1; id <= BUFFER_SIZE + 2; id++) {
+            publish(id, id);
+            int published = id;
+            await(() -> fast.received.size() == published);
+        }
+        slow.blocked.countDown();
+
+        await(() -> slow.closed);
+        assertThat(slow.received).containsExactly("1");
+        assertThat(feed.subscribers()).isEqualTo(1);
+    }
+
+    @Test
+    void subscribe_tooManySubscribers_isRejected() {
+        for (int i = 0; i < 3; i++) {
+            feed.subscribe(Set.of(), null, new RecordingSubscriber());
+        }
+
+        assertThatThrownBy(() -> feed.subscribe(Set.of(), null, new RecordingSubscriber()))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void cancel_stopsDelivery() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SleepLogFeed.Subscription subscription = feed.subscribe(Set.of(), null, subscriber);
+
+        subscription.cancel();
+        publish(1, 1);
+
+        assertThat(feed.subscribers()).isZero();
+        Thread.sleep(50);
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.closed).isFalse();
+    }
+
+    /**
+     * Publishes logs {@code first} to {@code last}, of user 1 if odd and user 2 if even.
+     */
+    private void publish(long first, long last) {
+        for (long id = first; id <= last; id++) {
+            LocalDate sleepDate = LocalDate.of(2024, 1, 1).plusDays(id);
+            feed.publish(new SleepLog(id, 2 - id % 2, sleepDate, sleepDate.minusDays(1).atTime(23, 0),
+                    sleepDate.atTime(7, 0), MorningFeeling.OK, null));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static class RecordingSubscriber implements SleepLogFeed.Subscriber {
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch blocked;
+        volatile boolean closed;
+
+        @Override
+        public void send(SleepLog sleepLog) {
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.add(String.valueOf(sleepLog.id()));
+        }
+
+        @Override
+        public void reset(String reason) {
+            received.add("reset");
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("unittest")
+class SleepLogInsertListenerTest {
+
+    @Autowired
+    private SleepLogRepository repository;
+
+    @Autowired
+    private SleepLogFeed feed;
+
+    @Test
+    void save_publishesInsertedLogToFeed() throws Exception {
+        List<SleepLog> received = new CopyOnWriteArrayList<>();
+        SleepLogFeed.Subscription subscription = feed.subscribe(Set.of(88L), null, new SleepLogFeed.Subscriber() {
+            @Override
+            public void send(SleepLog sleepLog) {
+                received.add(sleepLog);
+            }
+
+            @Override
+            public void reset(String reason) {
+            }
+
+            @Override
+            public void heartbeat() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        LocalDate sleepDate = LocalDate.of(2011, 5, 1);
+
+        try {
+            SleepLog saved = repository.save(new SleepLog(null, 88L, sleepDate, sleepDate.minusDays(1).atTime(22, 45),
+                    sleepDate.atTime(6, 30), MorningFeeling.BAD, null));
+            repository.save(new SleepLog(null, 89L, sleepDate, sleepDate.minusDays(1).atTime(23, 0),
+                    sleepDate.atTime(7, 0), MorningFeeling.OK, null));
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (received.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(received).containsExactly(saved);
+        } finally {
+            subscription.cancel();
+        }
+    }
+}
@@ -4,23 +4,32 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseGuard;
 import com.noom.interview.fullstack.sleep.sleeplog.boundary.CreateSleepLogRequest;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeelingAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNights;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PrecomputedNightsRepository;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
 import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,13 +38,25 @@ class SleepLogServiceTest {
     @Mock
     private SleepLogRepository sleepLogRepository;
 
-    @InjectMocks
+    @Mock
+    private PrecomputedNightsRepository precomputedNightsRepository;
+
+    @Mock
+    private SleepConsistencyService sleepConsistencyService;
+
     private SleepLogService sleepLogService;
 
     private static final Long USER_ID = 1L;
     private static final LocalDateTime BED_TIME = LocalDateTime.of(2026, 2, 19, 23, 30);
     private static final LocalDateTime WAKE_TIME = LocalDateTime.of(2026, 2, 20, 7, 0);
 
+    @BeforeEach
+    void setUp() {
+        RecentNightsCache recentNightsCache = new RecentNightsCache(1000, Duration.ofMinutes(30), Duration.ofMinutes(5));
+        sleepLogService = new SleepLogService(sleepLogRepository, recentNightsCache, precomputedNightsRepository, sleepConsistencyService,
+                new DatabaseGuard(Duration.ofSeconds(5), 16, 5, Duration.ofSeconds(10)));
+    }
+
     @Test
     void createSleepLog_validInput_returnsSavedLog() {
         SleepLog savedLog = new SleepLog(1L, USER_ID, WAKE_TIME.toLocalDate(), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now());
@@ -47,6 +68,7 @@ class SleepLogServiceTest {
         assertThat(result.id()).isEqualTo(1L);
         assertThat(result.userId()).isEqualTo(USER_ID);
         assertThat(result.morningFeeling()).isEqualTo(MorningFeeling.GOOD);
+        verify(sleepConsistencyService).record(savedLog);
     }
 
     @Test
@@ -152,4 +174,122 @@ class SleepLogServiceTest {
         assertThat(result.averageWakeTime()).isNull();
         assertThat(result.morningFeelingFrequencies()).isEmpty();
     }
+
+    @Test
+    void getLast30DayAverages_calledTwice_queriesRepositoryOnce() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, USER_ID, today.minusDays(1), BED_TIME, WAKE_TIME, MorningFeeling.GOOD, LocalDateTime.now())
+        );
+        when(sleepLogRepository.findByUserIdAndDateRange(USER_ID, from, today)).thenReturn(sleepLogs);
+
+        SleepAverages first = sleepLogService.getLast30DayAverages(USER_ID);
+        SleepAverages second = sleepLogService.getLast30DayAverages(USER_ID);
+
+        assertThat(second).isEqualTo(first);
+        verify(sleepLogRepository, times(1)).findByUserIdAndDateRange(USER_ID, from, today);
+    }
+
+    @Test
+    void getLast30DayAverages_afterCreate_includesNewLogWithoutRequery() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        LocalDateTime bedTime = today.minusDays(1).atTime(23, 0);
+        LocalDateTime wakeTime = today.atTime(7, 0);
+        when(sleepLogRepository.findByUserIdAndDateRange(USER_ID, from, today)).thenReturn(List.of(
+                new SleepLog(1L, USER_ID, today.minusDays(1), bedTime.minusDays(1), wakeTime.minusDays(1), MorningFeeling.BAD, LocalDateTime.now())
+        ));
+        sleepLogService.getLast30DayAverages(USER_ID);
+
+        SleepLog savedLog = new SleepLog(2L, USER_ID, today, bedTime, wakeTime, MorningFeeling.GOOD, LocalDateTime.now());
+        when(sleepLogRepository.save(any(SleepLog.class))).thenReturn(savedLog);
+        sleepLogService.createSleepLog(USER_ID, new CreateSleepLogRequest(bedTime, wakeTime, MorningFeeling.GOOD));
+
+        SleepAverages result = sleepLogService.getLast30DayAverages(USER_ID);
+
+        assertThat(result.morningFeelingFrequencies()).containsEntry(MorningFeeling.BAD, 1L);
+        assertThat(result.morningFeelingFrequencies()).containsEntry(MorningFeeling.GOOD, 1L);
+        verify(sleepLogRepository, times(1)).findByUserIdAndDateRange(USER_ID, from, today);
+    }
+
+    @Test
+    void getLast30DayAverages_withMorningFeelingBreakdown_matchesBetweenRepositoryAndCache() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, USER_ID, today.minusDays(3), today.minusDays(4).atTime(23, 0), today.minusDays(3).atTime(5, 0), MorningFeeling.BAD, LocalDateTime.now()),
+                new SleepLog(2L, USER_ID, today.minusDays(2), today.minusDays(3).atTime(22, 0), today.minusDays(2).atTime(7, 0), MorningFeeling.GOOD, LocalDateTime.now()),
+                new SleepLog(3L, USER_ID, today.minusDays(1), today.minusDays(2).atTime(23, 0), today.minusDays(1).atTime(8, 0), MorningFeeling.GOOD, LocalDateTime.now())
+        );
+        when(sleepLogRepository.findByUserIdAndDateRange(USER_ID, from, today)).thenReturn(sleepLogs);
+
+        SleepAverages fromRepository = sleepLogService.getLast30DayAverages(USER_ID, true);
+        SleepAverages fromCache = sleepLogService.getLast30DayAverages(USER_ID, true);
+
+        assertThat(fromRepository.byMorningFeeling()).containsOnlyKeys(MorningFeeling.BAD, MorningFeeling.GOOD);
+        MorningFeelingAverages good = fromRepository.byMorningFeeling().get(MorningFeeling.GOOD);
+        assertThat(good.nights()).isEqualTo(2);
+        assertThat(good.averageTotalTimeInBed()).isEqualTo(Duration.ofHours(9));
+        assertThat(good.averageBedTime()).isEqualTo(LocalTime.of(22, 30));
+        assertThat(good.averageWakeTime()).isEqualTo(LocalTime.of(7, 30));
+        assertThat(fromRepository.byMorningFeeling().get(MorningFeeling.BAD).averageTotalTimeInBed()).isEqualTo(Duration.ofHours(6));
+        assertThat(fromCache).isEqualTo(fromRepository);
+        assertThat(sleepLogService.getLast30DayAverages(USER_ID).byMorningFeeling()).isNull();
+        verify(sleepLogRepository, times(1)).findByUserIdAndDateRange(USER_ID, from, today);
+    }
+
+    @Test
+    void getLast30DayAverages_precomputed_addsTodaysNightWithoutRangeQuery() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        List<SleepLog> precomputedLogs = List.of(
+                new SleepLog(1L, USER_ID, today.minusDays(2), today.minusDays(3).atTime(23, 0), today.minusDays(2).atTime(7, 0), MorningFeeling.OK, LocalDateTime.now()),
+                new SleepLog(2L, USER_ID, today.minusDays(1), today.minusDays(2).atTime(23, 0), today.minusDays(1).atTime(7, 0), MorningFeeling.OK, LocalDateTime.now())
+        );
+        SleepLog lastNight = new SleepLog(3L, USER_ID, today, today.minusDays(1).atTime(22, 0), today.atTime(7, 0), MorningFeeling.GOOD, LocalDateTime.now());
+        when(precomputedNightsRepository.findByUserId(USER_ID, today))
+                .thenReturn(Optional.of(PrecomputedNights.of(USER_ID, precomputedLogs, 30).nights()));
+        when(sleepLogRepository.findByUserIdAndDate(USER_ID, today)).thenReturn(Optional.of(lastNight));
+
+        SleepAverages result = sleepLogService.getLast30DayAverages(USER_ID, true);
+
+        List<SleepLog> allLogs = List.of(precomputedLogs.get(0), precomputedLogs.get(1), lastNight);
+        assertThat(result).isEqualTo(SleepLogService.averagesOf(allLogs, from, today, true, SleepStatistic.ALL));
+        assertThat(sleepLogService.getLast30DayAverages(USER_ID, true)).isEqualTo(result);
+        verify(sleepLogRepository, never()).findByUserIdAndDateRange(any(), any(), any());
+    }
+
+    @Test
+    void getLast30DayAverages_precomputedAfterTodaysNight_keepsEveryNight() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(30);
+        List<SleepLog> precomputedLogs = new ArrayList<>();
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            LocalDate sleepDate = today.minusDays(daysAgo);
+            precomputedLogs.add(new SleepLog(30L - daysAgo, USER_ID, sleepDate, sleepDate.minusDays(1).atTime(23, daysAgo),
+                    sleepDate.atTime(7, 0), MorningFeeling.values()[daysAgo % 3], LocalDateTime.now()));
+        }
+        when(precomputedNightsRepository.findByUserId(USER_ID, today))
+                .thenReturn(Optional.of(PrecomputedNights.of(USER_ID, precomputedLogs, 30).nights()));
+
+        SleepAverages result = sleepLogService.getLast30DayAverages(USER_ID, true);
+
+        assertThat(result).isEqualTo(SleepLogService.averagesOf(precomputedLogs, from, today, true, SleepStatistic.ALL));
+        verify(sleepLogRepository, never()).findByUserIdAndDate(any(), any());
+        verify(sleepLogRepository, never()).findByUserIdAndDateRange(any(), any(), any());
+    }
+
+    @Test
+    void createSleepLog_earlierNight_dropsPrecomputedNights() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime bedTime = today.minusDays(3).atTime(23, 0);
+        LocalDateTime wakeTime = today.minusDays(2).atTime(7, 0);
+        when(sleepLogRepository.save(any(SleepLog.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        sleepLogService.createSleepLog(USER_ID, new CreateSleepLogRequest(today.minusDays(1).atTime(23, 0), today.atTime(7, 0), MorningFeeling.GOOD));
+        sleepLogService.createSleepLog(USER_ID, new CreateSleepLogRequest(bedTime, wakeTime, MorningFeeling.BAD));
+
+        verify(precomputedNightsRepository, times(1)).deleteByUserId(USER_ID);
+    }
 }
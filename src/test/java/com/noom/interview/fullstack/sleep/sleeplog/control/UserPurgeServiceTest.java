@@ -0,0 +1,234 @@
+package com.noom.interview.fullstack.sleep.sleeplog.control;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseLoad;
+import com.noom.interview.fullstack.sleep.infrastructure.DatabaseUnavailableException;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryJobCheckpointRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryPrecomputedNightsRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepConsistencyRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemorySleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.InMemoryUserPurgeRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.MorningFeeling;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.PurgeJob;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepAverages;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepConsistency;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLog;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogArchiveRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepLogRepository;
+import com.noom.interview.fullstack.sleep.sleeplog.entity.SleepStatistic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPurgeServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(SleepLogService.AVERAGES_PERIOD_DAYS);
+    private static final Duration PAUSE = Duration.ofMillis(10);
+
+    @Mock
+    private ObjectProvider<SleepLogArchiveRepository> archiveRepositoryProvider;
+
+    @Mock
+    private SleepLogArchiveRepository archiveRepository;
+
+    @Mock
+    private ObjectProvider<RecentNightsSnapshot> snapshotProvider;
+
+    @Mock
+    private ObjectProvider<LastKnownGoodReads> lastKnownGoodReadsProvider;
+
+    @Mock
+    private SleepLogService sleepLogService;
+
+    @Mock
+    private ObjectProvider<DatabaseLoad> databaseLoadProvider;
+
+    @Mock
+    private DatabaseLoad databaseLoad;
+
+    private SleepLogRepository repository;
+    private InMemoryPrecomputedNightsRepository precomputedNightsRepository;
+    private InMemorySleepConsistencyRepository sleepConsistencyRepository;
+    private RecentNightsCache recentNightsCache;
+    private InMemoryUserPurgeRepository purgeRepository;
+    private InMemoryJobCheckpointRepository checkpointRepository;
+    private UserPurgeService userPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemorySleepLogRepository();
+        precomputedNightsRepository = new InMemoryPrecomputedNightsRepository(repository);
+        sleepConsistencyRepository = new InMemorySleepConsistencyRepository();
+        recentNightsCache = new RecentNightsCache(100, Duration.ofMinutes(30), Duration.ofMinutes(5));
+        purgeRepository = new InMemoryUserPurgeRepository();
+        checkpointRepository = new InMemoryJobCheckpointRepository();
+        userPurgeService = new UserPurgeService(repository, precomputedNightsRepository, sleepConsistencyRepository, recentNightsCache,
+                purgeRepository, checkpointRepository, archiveRepositoryProvider, snapshotProvider, lastKnownGoodReadsProvider,
+                databaseLoadProvider, 2, 0, Duration.ofSeconds(5), 5, PAUSE, Duration.ofMinutes(5), Duration.ofDays(90));
+        for (long userId = 1; userId <= 3; userId++) {
+            for (int daysAgo = 5; daysAgo >= 1; daysAgo--) {
+                LocalDate sleepDate = TODAY.minusDays(daysAgo);
+                repository.save(new SleepLog(null, userId, sleepDate, sleepDate.minusDays(1).atTime(23, 0),
+                        sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userPurgeService.shutdown();
+    }
+
+    @Test
+    void runQueued_deletesNightsInBatchesAndDerivedData() {
+        when(archiveRepositoryProvider.getIfAvailable()).thenReturn(archiveRepository);
+        when(archiveRepository.deleteByUserId(1L)).thenReturn(40);
+        when(archiveRepository.deleteByUserId(2L)).thenReturn(0);
+        LastKnownGoodReads reads = new LastKnownGoodReads(sleepLogService, 100, Duration.ofHours(24));
+        when(lastKnownGoodReadsProvider.getIfAvailable()).thenReturn(reads);
+        new RecentNightsPrecomputer(repository, precomputedNightsRepository).precompute(List.of(1L, 2L, 3L), TODAY);
+        recentNightsCache.seed(1L, repository.findByUserIdAndDateRange(1L, FROM, TODAY), FROM, TODAY, recentNightsCache.stamp(1L));
+        assertThat(precomputedNightsRepository.findByUserId(1L, TODAY)).isPresent();
+        assertThat(recentNightsCache.averages(1L, FROM, TODAY)).isPresent();
+        sleepConsistencyRepository.save(SleepConsistency.of(1L, repository.findByUserIdAndDateRange(1L, FROM, TODAY), 0));
+        sleepConsistencyRepository.save(SleepConsistency.of(3L, repository.findByUserIdAndDateRange(3L, FROM, TODAY), 0));
+        for (long userId : new long[] {1L, 3L}) {
+            List<SleepLog> nights = repository.findByUserIdAndDateRange(userId, FROM, TODAY);
+            reads.remember(userId, SleepAverages.fromSleepLogs(nights, FROM, TODAY), SleepStatistic.ALL);
+            reads.remember(nights.get(nights.size() - 1));
+        }
+        String purgeId = queue(List.of(1L, 2L));
+
+        userPurgeService.runQueued();
+
+        UserPurge.Progress progress = userPurgeService.progress(purgeId).orElseThrow();
+        assertThat(progress.state()).isEqualTo(PurgeJob.State.COMPLETED);
+        assertThat(progress.purgedUsers()).isEqualTo(2);
+        assertThat(progress.deletedNights()).isEqualTo(5 + 40 + 5);
+        assertThat(progress.percent()).isEqualTo(100);
+        assertThat(repository.findByUserIdAndDateRange(1L, FROM, TODAY)).isEmpty();
+        assertThat(repository.findByUserIdAndDateRange(2L, FROM, TODAY)).isEmpty();
+        assertThat(repository.findByUserIdAndDateRange(3L, FROM, TODAY)).hasSize(5);
+        assertThat(precomputedNightsRepository.findByUserId(1L, TODAY)).isEmpty();
+        assertThat(precomputedNightsRepository.findByUserId(3L, TODAY)).isPresent();
+        assertThat(sleepConsistencyRepository.findByUserId(1L)).isEmpty();
+        assertThat(sleepConsistencyRepository.findByUserId(3L)).isPresent();
+        assertThat(recentNightsCache.averages(1L, FROM, TODAY)).isEmpty();
+        assertThat(reads.size()).isEqualTo(2);
+        DatabaseUnavailableException unavailable = new DatabaseUnavailableException("Database call failed");
+        when(sleepLogService.getLast30DayAverages(1L, false, SleepStatistic.ALL)).thenThrow(unavailable);
+        when(sleepLogService.getLast30DayAverages(3L, false, SleepStatistic.ALL)).thenThrow(unavailable);
+        assertThatThrownBy(() -> reads.getLast30DayAverages(1L, false, SleepStatistic.ALL)).isSameAs(unavailable);
+        assertThat(reads.getLast30DayAverages(3L, false, SleepStatistic.ALL).stale()).isTrue();
+    }
+
+    @Test
+    void runQueued_databaseUnderLoad_pausesUntilLoadDrops() {
+        when(databaseLoadProvider.getIfAvailable()).thenReturn(databaseLoad);
+        when(databaseLoad.sample()).thenReturn(
+                new DatabaseLoad.Sample(Duration.ofSeconds(30), 0),
+                new DatabaseLoad.Sample(Duration.ZERO, 20),
+                new DatabaseLoad.Sample(Duration.ZERO, 0));
+        String purgeId = queue(List.of(1L));
+
+        userPurgeService.runQueued();
+
+        UserPurge.Progress progress = userPurgeService.progress(purgeId).orElseThrow();
+        assertThat(progress.state()).isEqualTo(PurgeJob.State.COMPLETED);
+        assertThat(progress.paused()).isGreaterThanOrEqualTo(PAUSE.multipliedBy(2));
+        assertThat(repository.findByUserIdAndDateRange(1L, FROM, TODAY)).isEmpty();
+    }
+
+    @Test
+    void runQueued_interruptedPurge_resumesWithNextUser() {
+        PurgeJob interrupted = new PurgeJob("interrupted", List.of(1L, 2L), PurgeJob.State.RUNNING,
+                Instant.now().minusSeconds(60), 1, 5, Duration.ZERO, null);
+        purgeRepository.save(interrupted);
+        String queuedId = queue(List.of(3L));
+
+        userPurgeService.runQueued();
+
+        assertThat(userPurgeService.progress("interrupted")).hasValueSatisfying(progress -> {
+            assertThat(progress.state()).isEqualTo(PurgeJob.State.COMPLETED);
+            assertThat(progress.purgedUsers()).isEqualTo(2);
+            assertThat(progress.deletedNights()).isEqualTo(5 + 5);
+        });
+        assertThat(userPurgeService.progress(queuedId).orElseThrow().state()).isEqualTo(PurgeJob.State.COMPLETED);
+        assertThat(repository.findByUserIdAndDateRange(1L, FROM, TODAY)).as("already purged, not purged again").hasSize(5);
+        assertThat(repository.findByUserIdAndDateRange(2L, FROM, TODAY)).isEmpty();
+        assertThat(repository.findByUserIdAndDateRange(3L, FROM, TODAY)).isEmpty();
+    }
+
+    @Test
+    void runQueued_anotherInstanceHoldsLease_leavesPurgeQueued() {
+        String purgeId = queue(List.of(1L));
+        checkpointRepository.claim(UserPurgeService.JOB_NAME, "other-instance", Duration.ofMinutes(5));
+
+        userPurgeService.runQueued();
+
+        assertThat(userPurgeService.progress(purgeId).orElseThrow().state()).isEqualTo(PurgeJob.State.QUEUED);
+        assertThat(repository.findByUserIdAndDateRange(1L, FROM, TODAY)).hasSize(5);
+    }
+
+    @Test
+    void runQueued_deletesFinishedPurgesPastRetention() {
+        purgeRepository.save(new PurgeJob("old", List.of(1L), PurgeJob.State.COMPLETED,
+                Instant.now().minus(Duration.ofDays(91)), 1, 5, Duration.ZERO, null));
+        String purgeId = queue(List.of(2L));
+
+        userPurgeService.runQueued();
+
+        assertThat(userPurgeService.progress("old")).isEmpty();
+        assertThat(userPurgeService.progress(purgeId)).isPresent();
+    }
+
+    @Test
+    void start_runsPurgeInBackground() throws Exception {
+        UserPurge.Progress started = userPurgeService.start(List.of(2L, 2L));
+
+        assertThat(started.users()).isEqualTo(1);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (userPurgeService.progress(started.id()).orElseThrow().state() != PurgeJob.State.COMPLETED
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(userPurgeService.progress(started.id())).hasValueSatisfying(progress -> {
+            assertThat(progress.state()).isEqualTo(PurgeJob.State.COMPLETED);
+            assertThat(progress.deletedNights()).isEqualTo(5);
+        });
+    }
+
+    @Test
+    void start_invalidUserIds_throwsIllegalArgumentException() {
+        assertThatThrownBy(() -> userPurgeService.start(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> userPurgeService.start(List.of(1L, 0L))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> userPurgeService.start(Collections.nCopies(UserPurgeService.MAX_USERS + 1, 1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void progress_unknownPurge_isEmpty() {
+        assertThat(userPurgeService.progress("unknown")).isEmpty();
+    }
+
+    private String queue(List<Long> userIds) {
+        PurgeJob purge = new UserPurge(userIds).job();
+        purgeRepository.save(purge);
+        return purge.id();
+    }
+}
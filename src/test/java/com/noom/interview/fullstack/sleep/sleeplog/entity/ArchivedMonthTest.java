@@ -0,0 +1,83 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchivedMonthTest {
+
+    private static final long USER_ID = 7L;
+    private static final YearMonth MONTH = YearMonth.of(2024, 2);
+
+    @Test
+    void decode_encodedNights_returnsSameNights() {
+        List<SleepLog> nights = List.of(
+                new SleepLog(11L, USER_ID, MONTH.atDay(1), LocalDateTime.of(2024, 1, 31, 23, 15, 30, 123_456_000),
+                        LocalDateTime.of(2024, 2, 1, 7, 2, 0, 999_000), MorningFeeling.GOOD, LocalDateTime.of(2024, 2, 1, 8, 0, 1, 500_000)),
+                new SleepLog(12L, USER_ID, MONTH.atDay(2), LocalDateTime.of(2024, 2, 2, 0, 40),
+                        LocalDateTime.of(2024, 2, 2, 6, 10), MorningFeeling.BAD, null),
+                new SleepLog(40L, USER_ID, MONTH.atEndOfMonth(), LocalDateTime.of(2024, 2, 28, 22, 0),
+                        LocalDateTime.of(2024, 2, 29, 9, 30), MorningFeeling.OK, LocalDateTime.of(2024, 3, 5, 12, 0)));
+
+        ArchivedMonth decoded = ArchivedMonth.decode(USER_ID, MONTH, new ArchivedMonth(USER_ID, MONTH, nights).encodeNights());
+
+        assertThat(decoded).isEqualTo(new ArchivedMonth(USER_ID, MONTH, nights));
+    }
+
+    @Test
+    void encodeNights_fullMonth_isSmallerThanItsRows() {
+        List<SleepLog> nights = MONTH.atDay(1).datesUntil(MONTH.plusMonths(1).atDay(1))
+                .map(date -> new SleepLog(1000L + date.getDayOfMonth(), USER_ID, date, date.minusDays(1).atTime(23, 0),
+                        date.atTime(7, 0), MorningFeeling.OK, date.atTime(7, 5)))
+                .toList();
+
+        // a row holds seven 8-byte fields before any tuple or index overhead
+        assertThat(new ArchivedMonth(USER_ID, MONTH, nights).encodeNights().length).isLessThan(nights.size() * 7 * 8 / 4);
+    }
+
+    @Test
+    void with_newerNightOfSameDate_replacesArchivedOne() {
+        SleepLog archived = night(1L, MONTH.atDay(3), MorningFeeling.BAD);
+        SleepLog kept = night(2L, MONTH.atDay(4), MorningFeeling.OK);
+        SleepLog newer = night(3L, MONTH.atDay(3), MorningFeeling.GOOD);
+        SleepLog added = night(4L, MONTH.atDay(1), MorningFeeling.GOOD);
+
+        ArchivedMonth merged = new ArchivedMonth(USER_ID, MONTH, List.of(archived, kept)).with(List.of(newer, added));
+
+        assertThat(merged.nights()).containsExactly(added, newer, kept);
+        assertThat(merged.aggregate().count()).isEqualTo(3);
+        assertThat(merged.aggregate().morningFeelingCount(MorningFeeling.GOOD)).isEqualTo(2);
+    }
+
+    @Test
+    void byMonth_groupsNightsByMonthInDateOrder() {
+        SleepLog march = night(3L, LocalDate.of(2024, 3, 1), MorningFeeling.OK);
+        SleepLog lateFebruary = night(2L, MONTH.atDay(20), MorningFeeling.OK);
+        SleepLog earlyFebruary = night(1L, MONTH.atDay(2), MorningFeeling.OK);
+
+        assertThat(ArchivedMonth.byMonth(USER_ID, List.of(march, lateFebruary, earlyFebruary))).containsExactly(
+                new ArchivedMonth(USER_ID, MONTH, List.of(earlyFebruary, lateFebruary)),
+                new ArchivedMonth(USER_ID, YearMonth.of(2024, 3), List.of(march)));
+    }
+
+    @Test
+    void decode_corruptBlob_throwsIllegalArgumentException() {
+        byte[] encoded = new ArchivedMonth(USER_ID, MONTH, List.of(night(1L, MONTH.atDay(1), MorningFeeling.OK))).encodeNights();
+
+        assertThatThrownBy(() -> ArchivedMonth.decode(USER_ID, MONTH, Arrays.copyOf(encoded, encoded.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ArchivedMonth.decode(USER_ID, MONTH, new byte[] {1, 2, 3}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SleepLog night(Long id, LocalDate sleepDate, MorningFeeling feeling) {
+        return new SleepLog(id, USER_ID, sleepDate, sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), feeling, null);
+    }
+}
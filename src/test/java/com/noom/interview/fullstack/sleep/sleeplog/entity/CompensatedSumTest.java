@@ -0,0 +1,49 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompensatedSumTest {
+
+    @Test
+    void add_keepsTermsBelowTheLastBitOfTheSum() {
+        CompensatedSum sum = new CompensatedSum();
+        double naive = 1.0;
+        sum.add(1.0);
+        for (int i = 0; i < 1_000_000; i++) {
+            sum.add(1e-16);
+            naive += 1e-16;
+        }
+
+        assertThat(naive).isEqualTo(1.0);
+        assertThat(sum.value()).isEqualTo(1.0 + 1e-10);
+    }
+
+    @Test
+    void add_largeTermCancellingTheSum_keepsSmallTerms() {
+        CompensatedSum sum = new CompensatedSum();
+
+        sum.add(1.0);
+        sum.add(1e100);
+        sum.add(1.0);
+        sum.add(-1e100);
+
+        assertThat(sum.value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void merge_addsSumAndCompensationOfOther() {
+        CompensatedSum left = new CompensatedSum();
+        CompensatedSum right = new CompensatedSum();
+        left.add(1.0);
+        for (int i = 0; i < 1_000; i++) {
+            right.add(1.0);
+            right.add(1e-16);
+        }
+
+        left.merge(right);
+
+        assertThat(left.value()).isEqualTo(1001.0 + 1e-13);
+    }
+}
@@ -0,0 +1,245 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemorySleepLogRepositoryTest {
+
+    private final InMemorySleepLogRepository repository = new InMemorySleepLogRepository();
+
+    @Test
+    void save_returnsWithGeneratedFieldsAndSameValues() {
+        var sleepLog = new SleepLog(
+                null, 1L, LocalDate.of(2026, 2, 19),
+                LocalDateTime.of(2026, 2, 18, 23, 30),
+                LocalDateTime.of(2026, 2, 19, 7, 0),
+                MorningFeeling.GOOD, null
+        );
+
+        var saved = repository.save(sleepLog);
+
+        assertThat(saved.id()).isNotNull();
+        assertThat(saved.userId()).isEqualTo(1L);
+        assertThat(saved.sleepDate()).isEqualTo(LocalDate.of(2026, 2, 19));
+        assertThat(saved.bedTime()).isEqualTo(LocalDateTime.of(2026, 2, 18, 23, 30));
+        assertThat(saved.wakeTime()).isEqualTo(LocalDateTime.of(2026, 2, 19, 7, 0));
+        assertThat(saved.morningFeeling()).isEqualTo(MorningFeeling.GOOD);
+        assertThat(saved.createdAt()).isNotNull();
+    }
+
+    @Test
+    void save_duplicateUserAndDate_throwsDuplicateSleepLogException() {
+        var date = LocalDate.of(2026, 3, 1);
+        repository.save(new SleepLog(null, 2L, date,
+                LocalDateTime.of(2026, 2, 28, 22, 0), LocalDateTime.of(2026, 3, 1, 6, 30), MorningFeeling.OK, null));
+
+        var duplicate = new SleepLog(null, 2L, date,
+                LocalDateTime.of(2026, 2, 28, 23, 0), LocalDateTime.of(2026, 3, 1, 7, 0), MorningFeeling.BAD, null);
+
+        assertThatThrownBy(() -> repository.save(duplicate))
+                .isInstanceOf(DuplicateSleepLogException.class);
+    }
+
+    @Test
+    void save_sameDateForDifferentUsers_isAllowed() {
+        var date = LocalDate.of(2026, 3, 1);
+        repository.save(new SleepLog(null, 3L, date,
+                LocalDateTime.of(2026, 2, 28, 22, 0), LocalDateTime.of(2026, 3, 1, 6, 30), MorningFeeling.OK, null));
+        repository.save(new SleepLog(null, 4L, date,
+                LocalDateTime.of(2026, 2, 28, 22, 0), LocalDateTime.of(2026, 3, 1, 6, 30), MorningFeeling.OK, null));
+
+        assertThat(repository.findByUserIdAndDate(3L, date)).isPresent();
+        assertThat(repository.findByUserIdAndDate(4L, date)).isPresent();
+    }
+
+    @Test
+    void findByUserIdAndDate_noLog_returnsEmpty() {
+        Optional<SleepLog> found = repository.findByUserIdAndDate(999L, LocalDate.of(2026, 1, 1));
+
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    void findByUserIdAndDateRange_outOfOrderInserts_returnsSortedAndBoundedRange() {
+        Long userId = 20L;
+        for (int day : new int[]{25, 15, 20, 14}) {
+            repository.save(new SleepLog(null, userId, LocalDate.of(2026, 1, day),
+                    LocalDateTime.of(2026, 1, day - 1, 23, 0), LocalDateTime.of(2026, 1, day, 7, 0), MorningFeeling.GOOD, null));
+        }
+
+        List<SleepLog> results = repository.findByUserIdAndDateRange(userId, LocalDate.of(2026, 1, 14), LocalDate.of(2026, 1, 25));
+
+        assertThat(results).extracting(SleepLog::sleepDate).containsExactly(
+                LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 20), LocalDate.of(2026, 1, 25));
+    }
+
+    @Test
+    void findByUserIdAndDateRange_noLogsInRange_returnsEmptyList() {
+        List<SleepLog> results = repository.findByUserIdAndDateRange(999L, LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30));
+
+        assertThat(results).isEmpty();
+    }
+
+    @Test
+    void save_concurrentWritersForSameNight_exactlyOneSucceeds() throws Exception {
+        int writers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        AtomicInteger duplicates = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            tasks.add(() -> {
+                for (int day = 1; day <= 28; day++) {
+                    try {
+                        repository.save(new SleepLog(null, 7L, LocalDate.of(2026, 2, day),
+                                LocalDateTime.of(2026, 2, day, 1, 0), LocalDateTime.of(2026, 2, day, 8, 0), MorningFeeling.OK, null));
+                    } catch (DuplicateSleepLogException exception) {
+                        duplicates.incrementAndGet();
+                    }
+                    repository.findByUserIdAndDateRange(7L, LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 28));
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(repository.findByUserIdAndDateRange(7L, LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 28))).hasSize(28);
+        assertThat(duplicates.get()).isEqualTo(28 * (writers - 1));
+    }
+
+    @Test
+    void findWrittenAfter_watermark_returnsOnlyNewerLogs() {
+        Long userId = 30L;
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 5, 1),
+                LocalDateTime.of(2026, 4, 30, 23, 0), LocalDateTime.of(2026, 5, 1, 7, 0), MorningFeeling.GOOD, null));
+        SleepLogWatermark watermark = repository.findWatermark().orElseThrow();
+        SleepLog newer = repository.save(new SleepLog(null, userId, LocalDate.of(2026, 5, 2),
+                LocalDateTime.of(2026, 5, 1, 23, 0), LocalDateTime.of(2026, 5, 2, 7, 0), MorningFeeling.OK, null));
+
+        List<SleepLog> results = repository.findWrittenAfter(watermark.id(), watermark.createdAt().plusDays(1), 100);
+
+        assertThat(results).extracting(SleepLog::id).containsExactly(newer.id());
+        assertThat(repository.findWatermark()).get().extracting(SleepLogWatermark::id).isEqualTo(newer.id());
+    }
+
+    @Test
+    void findUserIdsWrittenSince_returnsRecentWritersMostRecentFirst() {
+        repository.save(new SleepLog(null, 31L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.GOOD, null));
+        SleepLogWatermark watermark = repository.findWatermark().orElseThrow();
+        repository.save(new SleepLog(null, 32L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.OK, null));
+        repository.save(new SleepLog(null, 33L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.BAD, null));
+
+        List<Long> userIds = repository.findUserIdsWrittenSince(watermark.createdAt().minusDays(1), 100);
+
+        assertThat(userIds).contains(31L, 32L, 33L).doesNotHaveDuplicates();
+        assertThat(repository.findUserIdsWrittenSince(watermark.createdAt().minusDays(1), 1)).hasSize(1);
+        assertThat(repository.findUserIdsWrittenSince(watermark.createdAt().plusDays(1), 100)).isEmpty();
+    }
+
+    @Test
+    void countByHistogramBucket_countsPerBucketAndWrapsBedTimesAroundMidnight() {
+        Long userId = 50L;
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 1),
+                LocalDateTime.of(2026, 5, 31, 23, 50), LocalDateTime.of(2026, 6, 1, 7, 0), MorningFeeling.GOOD, null));
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 2),
+                LocalDateTime.of(2026, 6, 2, 0, 10), LocalDateTime.of(2026, 6, 2, 7, 20), MorningFeeling.OK, null));
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 3),
+                LocalDateTime.of(2026, 6, 2, 22, 5), LocalDateTime.of(2026, 6, 3, 6, 55), MorningFeeling.BAD, null));
+        LocalDate from = LocalDate.of(2026, 5, 31);
+        LocalDate to = LocalDate.of(2026, 6, 3);
+
+        // bed-time buckets start at noon: 22:05 -> 40, 23:50 -> 47, 00:10 -> 48
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.BED_TIME, 900))
+                .containsExactly(new SleepHistogramBucket(40, 1), new SleepHistogramBucket(47, 1), new SleepHistogramBucket(48, 1));
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.WAKE_TIME, 900))
+                .containsExactly(new SleepHistogramBucket(27, 1), new SleepHistogramBucket(28, 1), new SleepHistogramBucket(29, 1));
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.TIME_IN_BED, 900))
+                .containsExactly(new SleepHistogramBucket(28, 2), new SleepHistogramBucket(35, 1));
+        assertThat(repository.countByHistogramBucket(userId, to, to.plusDays(1), SleepHistogramField.BED_TIME, 900))
+                .isEmpty();
+    }
+
+    @Test
+    void findActiveUserIds_pagesThroughUsersWithRecentNightsInIdOrder() {
+        LocalDate activeSince = LocalDate.of(2026, 8, 1);
+        for (long userId = 74; userId >= 70; userId--) {
+            LocalDate sleepDate = userId == 72 ? activeSince : activeSince.plusDays(userId - 69);
+            repository.save(new SleepLog(null, userId, sleepDate,
+                    sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+        }
+
+        assertThat(repository.findActiveUserIds(activeSince, 0, 2)).containsExactly(70L, 71L);
+        assertThat(repository.findActiveUserIds(activeSince, 71, 2)).containsExactly(73L, 74L);
+        assertThat(repository.findByUserIdsAndDateRange(List.of(71L, 73L), activeSince, activeSince.plusDays(30)))
+                .extracting(SleepLog::userId).containsExactlyInAnyOrder(71L, 73L);
+    }
+
+    @Test
+    void findMaxUserId_returnsHighestUserWithLogs() {
+        assertThat(repository.findMaxUserId()).isEmpty();
+
+        for (long userId : new long[]{12L, 70L, 3L}) {
+            repository.save(new SleepLog(null, userId, LocalDate.of(2026, 9, 1),
+                    LocalDateTime.of(2026, 8, 31, 23, 0), LocalDateTime.of(2026, 9, 1, 7, 0), MorningFeeling.GOOD, null));
+        }
+
+        assertThat(repository.findMaxUserId()).contains(70L);
+    }
+
+    @Test
+    void deleteOldestByUserId_deletesOldestNightsFirstInBatches() {
+        Long userId = 5L;
+        LocalDate first = LocalDate.of(2026, 9, 1);
+        for (int i = 0; i < 5; i++) {
+            LocalDate sleepDate = first.plusDays(i);
+            repository.save(new SleepLog(null, userId, sleepDate,
+                    sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+        }
+
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(2);
+        assertThat(repository.findByUserIdAndDateRange(userId, first.minusDays(1), first.plusDays(10)))
+                .extracting(SleepLog::sleepDate).containsExactly(first.plusDays(2), first.plusDays(3), first.plusDays(4));
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(2);
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(1);
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isZero();
+        assertThat(repository.findMaxUserId()).isEmpty();
+    }
+
+    @Test
+    void deleteOldestByUserId_manyUsers_leavesOtherUsersReachable() {
+        LocalDate sleepDate = LocalDate.of(2026, 9, 1);
+        for (long userId = 1; userId <= 2000; userId++) {
+            repository.save(new SleepLog(null, userId, sleepDate,
+                    sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+        }
+
+        for (long userId = 2; userId <= 2000; userId += 2) {
+            assertThat(repository.deleteOldestByUserId(userId, 10)).isEqualTo(1);
+        }
+
+        for (long userId = 1; userId <= 2000; userId++) {
+            assertThat(repository.findByUserIdAndDate(userId, sleepDate).isPresent()).as("user %d", userId).isEqualTo(userId % 2 == 1);
+        }
+        assertThat(repository.findMaxUserId()).contains(1999L);
+    }
+}
@@ -0,0 +1,108 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("unittest")
+class JdbcSleepLogArchiveRepositoryTest {
+
+    private static final LocalDate FROM = LocalDate.of(2009, 12, 31);
+    private static final LocalDate TO = LocalDate.of(2010, 12, 31);
+    private static final LocalDate BEFORE = LocalDate.of(2010, 3, 1);
+
+    @Autowired
+    private SleepLogRepository repository;
+
+    @Autowired
+    private SleepLogArchiveRepository archiveRepository;
+
+    @Test
+    void archive_movesNightsBeforeCutoff_rangeQueriesStillReturnThem() {
+        Long userId = 80L;
+        List<SleepLog> saved = saveNights(userId, LocalDate.of(2010, 1, 29), 5);
+        saved.addAll(saveNights(userId, LocalDate.of(2010, 3, 10), 1));
+
+        assertThat(archiveRepository.archive(userId, BEFORE, 500)).isEqualTo(5);
+
+        assertThat(repository.findByUserIdAndDateRange(userId, FROM, TO)).containsExactlyInAnyOrderElementsOf(saved);
+        assertThat(repository.findByUserIdAndDateRange(userId, LocalDate.of(2010, 1, 30), LocalDate.of(2010, 2, 1)))
+                .containsExactlyInAnyOrderElementsOf(saved.subList(2, 4));
+        assertThat(repository.findByUserIdAndDate(userId, LocalDate.of(2010, 3, 10))).isPresent();
+        assertThat(archiveRepository.archive(userId, BEFORE, 500)).isZero();
+    }
+
+    @Test
+    void archive_inBatches_mergesIntoArchivedMonths() {
+        Long userId = 81L;
+        List<SleepLog> saved = saveNights(userId, LocalDate.of(2010, 1, 1), 10);
+
+        assertThat(archiveRepository.archive(userId, BEFORE, 4)).isEqualTo(4);
+        assertThat(archiveRepository.archive(userId, BEFORE, 4)).isEqualTo(4);
+        assertThat(archiveRepository.archive(userId, BEFORE, 4)).isEqualTo(2);
+
+        assertThat(repository.findByUserIdAndDateRange(userId, FROM, TO)).containsExactlyInAnyOrderElementsOf(saved);
+    }
+
+    @Test
+    void archive_histogramsCountArchivedAndHotNights() {
+        Long userId = 82L;
+        saveNights(userId, LocalDate.of(2010, 2, 20), 20);
+        List<List<SleepHistogramBucket>> before = histograms(userId);
+
+        archiveRepository.archive(userId, BEFORE, 500);
+
+        assertThat(histograms(userId)).isEqualTo(before);
+    }
+
+    @Test
+    void findUserIdsWithNightsBefore_pagesThroughUsersWithOldNights() {
+        LocalDate before = LocalDate.of(2005, 1, 1);
+        for (long userId = 83; userId <= 86; userId++) {
+            saveNights(userId, userId == 85 ? before : before.minusDays(userId), 1);
+        }
+
+        assertThat(archiveRepository.findUserIdsWithNightsBefore(before, 82, 2)).containsExactly(83L, 84L);
+        assertThat(archiveRepository.findUserIdsWithNightsBefore(before, 84, 2)).containsExactly(86L);
+    }
+
+    @Test
+    void deleteByUserId_deletesArchivedMonthsOnly() {
+        Long userId = 87L;
+        saveNights(userId, LocalDate.of(2010, 1, 30), 3);
+        saveNights(userId, LocalDate.of(2010, 3, 10), 1);
+        archiveRepository.archive(userId, BEFORE, 500);
+
+        assertThat(archiveRepository.deleteByUserId(userId)).isEqualTo(3);
+
+        assertThat(repository.findByUserIdAndDateRange(userId, FROM, TO)).extracting(SleepLog::sleepDate)
+                .containsExactly(LocalDate.of(2010, 3, 10));
+        assertThat(archiveRepository.deleteByUserId(userId)).isZero();
+    }
+
+    private List<List<SleepHistogramBucket>> histograms(Long userId) {
+        List<List<SleepHistogramBucket>> histograms = new ArrayList<>();
+        for (SleepHistogramField field : SleepHistogramField.values()) {
+            histograms.add(repository.countByHistogramBucket(userId, FROM, TO, field, 1800));
+        }
+        return histograms;
+    }
+
+    private List<SleepLog> saveNights(Long userId, LocalDate first, int count) {
+        List<SleepLog> saved = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDate sleepDate = first.plusDays(i);
+            saved.add(repository.save(new SleepLog(null, userId, sleepDate, sleepDate.minusDays(1).atTime(22, 10 * i % 60),
+                    sleepDate.atTime(6 + i % 3, 0), MorningFeeling.values()[i % 3], null)));
+        }
+        return saved;
+    }
+}
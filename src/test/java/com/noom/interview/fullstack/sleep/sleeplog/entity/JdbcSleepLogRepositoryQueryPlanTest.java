@@ -0,0 +1,377 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the execution plan of every {@link JdbcSleepLogRepository} statement, and of the reads of
+ * {@link JdbcSleepLogArchiveRepository}, against a database seeded with two million nights and a
+ * year of archived months per user, using {@code EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON)}.
+ *
+ * <p>Each statement must be answered through the expected index, without a sequential scan, and
+ * within a bound on the shared buffers it touches. The table is not partitioned, so there is no
+ * partition pruning to check. Seeding takes a while, so these tests are tagged {@code query-plan}
+ * and run with {@code ./gradlew queryPlanTest} instead of {@code test}.
+ *
+ * <p>{@link #everyStatement_hasPlanCheck} fails when a SQL constant is added to the repository
+ * without a plan check here.
+ */
+@Tag("query-plan")
+@Testcontainers
+class JdbcSleepLogRepositoryQueryPlanTest {
+
+    private static final int USERS = 20_000;
+    private static final int NIGHTS = 100;
+    private static final long USER_ID = USERS / 2;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private static final Set<String> CHECKED_STATEMENTS = Set.of(
+            "INSERT_SLEEP_LOG",
+            "FIND_BY_USER_ID_AND_DATE",
+            "FIND_BY_USER_ID_AND_DATE_RANGE",
+            "FIND_BY_USER_IDS_AND_DATE_RANGE",
+            "FIND_ACTIVE_USER_IDS",
+            "FIND_MAX_USER_ID",
+            "COUNT_BY_CLOCK_TIME_BUCKET",
+            "COUNT_BY_TIME_IN_BED_BUCKET",
+            "FIND_WATERMARK",
+            "FIND_WRITTEN_AFTER",
+            "FIND_USER_IDS_WRITTEN_SINCE",
+            "DELETE_OLDEST_BY_USER_ID"
+    );
+
+    // Nights are inserted date by date, as they arrive in production, so one user's nights are
+    // spread over many heap pages.
+    private static final String SEED_SLEEP_LOGS = """
+            INSERT INTO sleep_log (user_id, sleep_date, bed_time, wake_time, morning_feeling, created_at)
+            SELECT user_id,
+                   night::date,
+                   night - INTERVAL '1 hour' + random() * INTERVAL '2 hours',
+                   night + INTERVAL '6 hours' + random() * INTERVAL '3 hours',
+                   (ARRAY['BAD', 'OK', 'GOOD'])[1 + floor(random() * 3)::int],
+                   night + INTERVAL '9 hours' + user_id * INTERVAL '1 millisecond'
+            FROM generate_series((CURRENT_DATE - :nights)::timestamp, (CURRENT_DATE - 1)::timestamp, INTERVAL '1 day') AS night,
+                 generate_series(1, :users) AS user_id
+            ORDER BY night, user_id
+            """;
+
+    // A year of months archived before the oldest night, month by month as the archiver moves
+    // them; the blobs are placeholders, EXPLAIN never decodes them
+    private static final String SEED_ARCHIVED_MONTHS = """
+            INSERT INTO sleep_log_archive (user_id, month, nights, total_seconds_in_bed,
+                                           bed_time_sin_sum, bed_time_cos_sum, wake_time_sin_sum, wake_time_cos_sum,
+                                           bad_nights, ok_nights, good_nights, archived_nights)
+            SELECT user_id, (date_trunc('month', CURRENT_DATE - :nights) - months_ago * INTERVAL '1 month')::date,
+                   30, 30 * 8 * 3600, 0, 0, 0, 0, 10, 10, 10, decode(repeat('00', 200), 'hex')
+            FROM generate_series(1, 12) AS months_ago,
+                 generate_series(1, :users) AS user_id
+            ORDER BY months_ago DESC, user_id
+            """;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    private static NamedParameterJdbcTemplate jdbc;
+    private static TransactionTemplate transactions;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void seed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        // Nobody listens here, and a notification per seeded row would only fill the queue
+        jdbc.getJdbcTemplate().execute("ALTER TABLE sleep_log DISABLE TRIGGER sleep_log_inserted");
+        jdbc.update(SEED_SLEEP_LOGS, new MapSqlParameterSource().addValue("nights", NIGHTS).addValue("users", USERS));
+        jdbc.getJdbcTemplate().execute("ALTER TABLE sleep_log ENABLE TRIGGER sleep_log_inserted");
+        jdbc.update(SEED_ARCHIVED_MONTHS, new MapSqlParameterSource().addValue("nights", NIGHTS).addValue("users", USERS));
+        jdbc.getJdbcTemplate().execute("VACUUM ANALYZE sleep_log");
+        jdbc.getJdbcTemplate().execute("VACUUM ANALYZE sleep_log_archive");
+    }
+
+    @Test
+    void everyStatement_hasPlanCheck() {
+        Set<String> statements = Arrays.stream(JdbcSleepLogRepository.class.getDeclaredFields())
+                .filter(field -> Modifier.isStatic(field.getModifiers()) && field.getType() == String.class)
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+
+        assertThat(CHECKED_STATEMENTS).containsExactlyInAnyOrderElementsOf(statements);
+    }
+
+    @Test
+    void insertSleepLog_touchesOnlyIndexPages() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("sleepDate", TODAY)
+                .addValue("bedTime", TODAY.minusDays(1).atTime(23, 0))
+                .addValue("wakeTime", TODAY.atTime(7, 0))
+                .addValue("morningFeeling", MorningFeeling.GOOD.name());
+
+        JsonNode plan = transactions.execute(status -> {
+            status.setRollbackOnly();
+            return explain(JdbcSleepLogRepository.INSERT_SLEEP_LOG, params);
+        });
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(50);
+    }
+
+    @Test
+    void findByUserIdAndDate_usesUniqueIndex() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("sleepDate", TODAY.minusDays(10));
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_BY_USER_ID_AND_DATE, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void findByUserIdAndDateRange_usesUniqueAndArchiveIndexes() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("from", TODAY.minusDays(30))
+                .addValue("to", TODAY);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_BY_USER_ID_AND_DATE_RANGE, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date", "sleep_log_archive_pkey");
+        // one heap page per night at most, plus the index descents into both tables
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(56);
+    }
+
+    @Test
+    void findByUserIdsAndDateRange_usesUniqueIndex() {
+        List<Long> userIds = LongStream.range(USER_ID, USER_ID + 100).boxed().toList();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userIds", userIds)
+                .addValue("from", TODAY.minusDays(30))
+                .addValue("to", TODAY);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_BY_USER_IDS_AND_DATE_RANGE, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        // the same bound as one user's range, per user
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(userIds.size() * 48L);
+    }
+
+    @Test
+    void findActiveUserIds_descendsIndexOncePerUser() {
+        int limit = 1000;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("activeSince", TODAY.minusDays(14))
+                .addValue("afterUserId", USER_ID)
+                .addValue("limit", limit);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_ACTIVE_USER_IDS, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        // two index descents per user returned, one to find it and one to check it is active
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(limit * 10L);
+    }
+
+    @Test
+    void findMaxUserId_readsIndexEnd() {
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_MAX_USER_ID, new MapSqlParameterSource());
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void countByClockTimeBucket_usesUniqueAndArchiveIndexes() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("from", TODAY.minusDays(NIGHTS))
+                .addValue("to", TODAY)
+                .addValue("wakeTime", false)
+                .addValue("originSecond", 12 * 3600)
+                .addValue("bucketSeconds", 900L);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.COUNT_BY_CLOCK_TIME_BUCKET, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date", "sleep_log_archive_pkey");
+        // every night of the user, one heap page each at most, and the archived months overlapping the range
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(NIGHTS + 24);
+    }
+
+    @Test
+    void countByTimeInBedBucket_usesUniqueAndArchiveIndexes() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("from", TODAY.minusDays(NIGHTS))
+                .addValue("to", TODAY)
+                .addValue("bucketSeconds", 900L);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.COUNT_BY_TIME_IN_BED_BUCKET, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date", "sleep_log_archive_pkey");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(NIGHTS + 24);
+    }
+
+    @Test
+    void findWatermark_readsIndexEnds() {
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_WATERMARK, new MapSqlParameterSource());
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("sleep_log_pkey", "idx_sleep_log_created_at");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    void findWrittenAfter_usesIdAndCreatedAtIndexes() {
+        SleepLogWatermark watermark = new JdbcSleepLogRepository(jdbc).findWatermark().orElseThrow();
+        LocalDateTime createdAfter = watermark.createdAt().minusSeconds(1);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", watermark.id() - 100)
+                .addValue("createdAfter", createdAfter)
+                .addValue("limit", 1000);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_WRITTEN_AFTER, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("sleep_log_pkey", "idx_sleep_log_created_at");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void findUserIdsWrittenSince_readsOnlyRecentWrites() {
+        SleepLogWatermark watermark = new JdbcSleepLogRepository(jdbc).findWatermark().orElseThrow();
+        // the last night of about half of the users
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("createdAfter", watermark.createdAt().minusSeconds(USERS / 2000))
+                .addValue("limit", 1000);
+
+        JsonNode plan = explain(JdbcSleepLogRepository.FIND_USER_IDS_WRITTEN_SINCE, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("idx_sleep_log_created_at");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(USERS / 10);
+    }
+
+    @Test
+    void deleteOldestByUserId_usesUniqueIndex() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("limit", 500);
+
+        JsonNode plan = transactions.execute(status -> {
+            status.setRollbackOnly();
+            return explain(JdbcSleepLogRepository.DELETE_OLDEST_BY_USER_ID, params);
+        });
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        // the user's index entries on both sides and each deleted night's heap page, read and then dirtied
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(3L * NIGHTS + 16);
+    }
+
+    @Test
+    void findUserIdsWithNightsBefore_descendsIndexOncePerUser() {
+        int limit = 100;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("before", TODAY.minusDays(NIGHTS / 2))
+                .addValue("afterUserId", USER_ID)
+                .addValue("limit", limit);
+
+        JsonNode plan = explain(JdbcSleepLogArchiveRepository.FIND_USER_IDS_WITH_NIGHTS_BEFORE, params);
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(limit * 10L);
+    }
+
+    @Test
+    void lockNightsBefore_usesUniqueIndex() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", USER_ID)
+                .addValue("before", TODAY.minusDays(NIGHTS / 2))
+                .addValue("limit", 500);
+
+        JsonNode plan = transactions.execute(status -> {
+            status.setRollbackOnly();
+            return explain(JdbcSleepLogArchiveRepository.LOCK_NIGHTS_BEFORE, params);
+        });
+
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+        assertThat(indexNames(plan)).contains("uq_user_sleep_date");
+        // half of the user's nights, one heap page each at most
+        assertThat(sharedBlocks(plan)).isLessThanOrEqualTo(NIGHTS / 2 + 16);
+    }
+
+    private static JsonNode explain(String sql, MapSqlParameterSource params) {
+        String json = jdbc.queryForObject("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql, params, String.class);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception exception) {
+            throw new IllegalStateException("Unreadable plan: " + json, exception);
+        }
+    }
+
+    /**
+     * Shared buffers hit or read by the whole plan; the root node's counts include its children.
+     */
+    private static long sharedBlocks(JsonNode plan) {
+        return plan.path("Shared Hit Blocks").asLong() + plan.path("Shared Read Blocks").asLong();
+    }
+
+    private static List<String> nodeTypes(JsonNode plan) {
+        return nodes(plan).stream().map(node -> node.path("Node Type").asText()).toList();
+    }
+
+    private static List<String> indexNames(JsonNode plan) {
+        return nodes(plan).stream()
+                .map(node -> node.path("Index Name").asText(null))
+                .filter(name -> name != null)
+                .toList();
+    }
+
+    private static List<JsonNode> nodes(JsonNode plan) {
+        List<JsonNode> nodes = new ArrayList<>();
+        collect(plan, nodes);
+        return nodes;
+    }
+
+    private static void collect(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, nodes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import javax.sql.DataSource;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the reactive repository against the database the {@code unittest} profile starts, with
+ * months archived by the blocking repositories.
+ */
+@SpringBootTest
+@ActiveProfiles("unittest")
+class ReactiveSleepLogRepositoryTest {
+
+    private static final LocalDate FROM = LocalDate.of(2011, 12, 31);
+    private static final LocalDate TO = LocalDate.of(2012, 12, 31);
+    private static final LocalDate BEFORE = LocalDate.of(2012, 3, 1);
+
+    @Autowired
+    private SleepLogRepository repository;
+
+    @Autowired
+    private SleepLogArchiveRepository archiveRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ReactiveSleepLogRepository reactiveRepository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        String url;
+        try (Connection connection = dataSource.getConnection()) {
+            url = connection.getMetaData().getURL();
+        }
+        String withoutParameters = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
+        reactiveRepository = new ReactiveSleepLogRepository(ConnectionFactories.get(
+                ConnectionFactoryOptions.parse(withoutParameters.replaceFirst("^jdbc:", "r2dbc:")).mutate()
+                        .option(ConnectionFactoryOptions.USER, "user")
+                        .option(ConnectionFactoryOptions.PASSWORD, "password")
+                        .build()));
+    }
+
+    @Test
+    void findByUserIdAndDateRange_archivedMonth_decodesArchivedNights() {
+        Long userId = 90L;
+        saveNights(userId, LocalDate.of(2012, 1, 29), 5);
+        saveNights(userId, LocalDate.of(2012, 3, 10), 1);
+        archiveRepository.archive(userId, BEFORE, 500);
+        List<SleepLog> expected = repository.findByUserIdAndDateRange(userId, FROM, TO);
+
+        List<SleepLog> sleepLogs = reactiveRepository.findByUserIdAndDateRange(userId, FROM, TO).collectList().block();
+
+        assertThat(expected).hasSize(6);
+        assertThat(sleepLogs).extracting(SleepLog::sleepDate, SleepLog::bedTime, SleepLog::wakeTime, SleepLog::morningFeeling)
+                .containsExactlyInAnyOrderElementsOf(expected.stream()
+                        .map(sleepLog -> tuple(sleepLog.sleepDate(), sleepLog.bedTime(), sleepLog.wakeTime(), sleepLog.morningFeeling()))
+                        .toList());
+        assertThat(reactiveRepository.findByUserIdAndDateRange(userId, LocalDate.of(2012, 1, 30), LocalDate.of(2012, 2, 1))
+                .map(SleepLog::sleepDate).collectList().block())
+                .containsExactlyInAnyOrder(LocalDate.of(2012, 1, 31), LocalDate.of(2012, 2, 1));
+    }
+
+    private void saveNights(Long userId, LocalDate first, int count) {
+        for (int i = 0; i < count; i++) {
+            LocalDate sleepDate = first.plusDays(i);
+            repository.save(new SleepLog(null, userId, sleepDate, sleepDate.minusDays(1).atTime(22, 10 * i % 60),
+                    sleepDate.atTime(6 + i % 3, 0), MorningFeeling.values()[i % 3], null));
+        }
+    }
+}
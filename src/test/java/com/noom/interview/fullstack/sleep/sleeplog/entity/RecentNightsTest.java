@@ -0,0 +1,170 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecentNightsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 31);
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    @Test
+    void averages_matchFromSleepLogs() {
+        List<SleepLog> sleepLogs = new ArrayList<>();
+        RecentNights recentNights = new RecentNights(30);
+        for (int i = 29; i >= 0; i--) {
+            SleepLog sleepLog = night(TODAY.minusDays(i), LocalTime.of(22, 0).plusMinutes(7L * i), 420 + 3 * i, FEELINGS[i % 3]);
+            sleepLogs.add(sleepLog);
+            recentNights.add(sleepLog);
+        }
+        LocalDate from = TODAY.minusDays(30);
+
+        assertThat(recentNights.averages(from, TODAY)).isEqualTo(SleepAverages.fromSleepLogs(sleepLogs, from, TODAY));
+    }
+
+    @Test
+    void morningFeelingBreakdown_afterEviction_matchesFromSleepLogs() {
+        List<SleepLog> inRange = new ArrayList<>();
+        RecentNights recentNights = new RecentNights(40);
+        for (int i = 39; i >= 0; i--) {
+            SleepLog sleepLog = night(TODAY.minusDays(i), LocalTime.of(21, 30).plusMinutes(11L * i), 390 + 5 * i, FEELINGS[(i * 7) % 3]);
+            recentNights.add(sleepLog);
+            if (i < 30) {
+                inRange.add(sleepLog);
+            }
+        }
+
+        recentNights.averages(TODAY.minusDays(30), TODAY);
+
+        assertThat(recentNights.morningFeelingBreakdown()).isEqualTo(MorningFeelingAverages.fromSleepLogs(inRange));
+        assertThat(recentNights.morningFeelingBreakdown().values()).extracting(MorningFeelingAverages::nights).containsExactly(10L, 10L, 10L);
+    }
+
+    @Test
+    void add_outOfOrder_keepsNightsOrderedForEviction() {
+        RecentNights recentNights = new RecentNights(30);
+        recentNights.add(night(TODAY, LocalTime.of(23, 0), 480, MorningFeeling.GOOD));
+        recentNights.add(night(TODAY.minusDays(2), LocalTime.of(22, 0), 480, MorningFeeling.BAD));
+        recentNights.add(night(TODAY.minusDays(1), LocalTime.of(23, 0), 480, MorningFeeling.OK));
+
+        SleepAverages result = recentNights.averages(TODAY.minusDays(2), TODAY);
+
+        assertThat(recentNights.size()).isEqualTo(2);
+        assertThat(result.averageBedTime()).isEqualTo(LocalTime.of(23, 0));
+        assertThat(result.morningFeelingFrequencies()).doesNotContainKey(MorningFeeling.BAD);
+    }
+
+    @Test
+    void add_sameSleepDate_isIgnored() {
+        RecentNights recentNights = new RecentNights(30);
+        recentNights.add(night(TODAY, LocalTime.of(23, 0), 480, MorningFeeling.GOOD));
+        recentNights.add(night(TODAY, LocalTime.of(21, 0), 600, MorningFeeling.BAD));
+
+        SleepAverages result = recentNights.averages(TODAY.minusDays(30), TODAY);
+
+        assertThat(recentNights.size()).isEqualTo(1);
+        assertThat(result.averageTotalTimeInBed()).isEqualTo(Duration.ofHours(8));
+        assertThat(result.morningFeelingFrequencies()).containsOnlyKeys(MorningFeeling.GOOD);
+    }
+
+    @Test
+    void add_full_evictsOldestNight() {
+        RecentNights recentNights = new RecentNights(2);
+        recentNights.add(night(TODAY.minusDays(2), LocalTime.of(22, 0), 480, MorningFeeling.BAD));
+        recentNights.add(night(TODAY.minusDays(1), LocalTime.of(23, 0), 480, MorningFeeling.OK));
+        recentNights.add(night(TODAY, LocalTime.of(23, 0), 480, MorningFeeling.GOOD));
+
+        SleepAverages result = recentNights.averages(TODAY.minusDays(30), TODAY);
+
+        assertThat(recentNights.size()).isEqualTo(2);
+        assertThat(result.morningFeelingFrequencies()).containsOnlyKeys(MorningFeeling.OK, MorningFeeling.GOOD);
+    }
+
+    @Test
+    void add_fullWithSameSleepDate_keepsEveryNight() {
+        List<SleepLog> sleepLogs = new ArrayList<>();
+        RecentNights recentNights = new RecentNights(30);
+        for (int i = 29; i >= 0; i--) {
+            SleepLog sleepLog = night(TODAY.minusDays(i), LocalTime.of(22, 0).plusMinutes(7L * i), 420 + 3 * i, FEELINGS[i % 3]);
+            sleepLogs.add(sleepLog);
+            recentNights.add(sleepLog);
+        }
+        recentNights.add(night(TODAY.minusDays(10), LocalTime.of(21, 0), 600, MorningFeeling.BAD));
+        recentNights.add(night(TODAY, LocalTime.of(21, 0), 600, MorningFeeling.BAD));
+        LocalDate from = TODAY.minusDays(30);
+
+        assertThat(recentNights.size()).isEqualTo(30);
+        assertThat(recentNights.averages(from, TODAY)).isEqualTo(SleepAverages.fromSleepLogs(sleepLogs, from, TODAY));
+    }
+
+    @Test
+    void averages_unorderedRepeatedTimesInBedAfterEviction_distributionMatchesFromSleepLogs() {
+        List<SleepLog> inRange = new ArrayList<>();
+        RecentNights recentNights = new RecentNights(30);
+        for (int i = 29; i >= 0; i--) {
+            SleepLog sleepLog = night(TODAY.minusDays(i), LocalTime.of(23, 0), 360 + (i * 13) % 5 * 40 + i % 4, FEELINGS[i % 3]);
+            if (i < 17) {
+                inRange.add(sleepLog);
+            }
+            recentNights.add(sleepLog);
+        }
+        LocalDate from = TODAY.minusDays(17);
+
+        SleepAverages result = recentNights.averages(from, TODAY);
+
+        assertThat(result).isEqualTo(SleepAverages.fromSleepLogs(inRange, from, TODAY));
+        assertThat(result.distribution().timeInBedMedian()).isNotNull();
+    }
+
+    @Test
+    void averages_allNightsEvicted_returnsZeroedAverages() {
+        RecentNights recentNights = new RecentNights(30);
+        recentNights.add(night(TODAY.minusDays(1), LocalTime.of(23, 0), 480, MorningFeeling.GOOD));
+
+        SleepAverages result = recentNights.averages(TODAY, TODAY.plusDays(30));
+
+        assertThat(recentNights.size()).isZero();
+        assertThat(result.averageTotalTimeInBed()).isEqualTo(Duration.ZERO);
+        assertThat(result.averageBedTime()).isNull();
+        assertThat(result.morningFeelingFrequencies()).isEmpty();
+    }
+
+    @Test
+    void writeTo_readFrom_roundTripsNightsAndAverages() {
+        RecentNights recentNights = new RecentNights(30);
+        recentNights.add(night(TODAY.minusDays(1), LocalTime.of(23, 0), 480, MorningFeeling.OK));
+        recentNights.add(night(TODAY, LocalTime.of(22, 15), 505, MorningFeeling.GOOD));
+        ByteBuffer buffer = ByteBuffer.allocate(RecentNights.recordBytes(30));
+
+        recentNights.writeTo(buffer);
+        RecentNights read = RecentNights.readFrom(buffer.flip(), 30);
+
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(read.size()).isEqualTo(2);
+        assertThat(read.averages(TODAY.minusDays(30), TODAY)).isEqualTo(recentNights.averages(TODAY.minusDays(30), TODAY));
+    }
+
+    @Test
+    void readFrom_invalidNightCount_throwsIllegalArgument() {
+        ByteBuffer buffer = ByteBuffer.allocate(RecentNights.recordBytes(30));
+        buffer.putInt(0, 31);
+
+        assertThatThrownBy(() -> RecentNights.readFrom(buffer, 30))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SleepLog night(LocalDate sleepDate, LocalTime bedTime, int minutesInBed, MorningFeeling feeling) {
+        LocalDateTime bed = sleepDate.minusDays(1).atTime(bedTime);
+        return new SleepLog(null, 1L, sleepDate, bed, bed.plusMinutes(minutesInBed), feeling, null);
+    }
+}
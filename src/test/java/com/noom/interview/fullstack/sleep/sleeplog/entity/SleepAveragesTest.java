@@ -4,7 +4,13 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 
@@ -25,6 +31,7 @@ class SleepAveragesTest {
         assertThat(result.averageBedTime()).isNull();
         assertThat(result.averageWakeTime()).isNull();
         assertThat(result.morningFeelingFrequencies()).isEmpty();
+        assertThat(result.distribution()).isNull();
     }
 
     @Test
@@ -181,4 +188,137 @@ class SleepAveragesTest {
         assertThat(result.from()).isEqualTo(customFrom);
         assertThat(result.to()).isEqualTo(customTo);
     }
+
+    @Test
+    void fromSleepLogs_distribution_hasTimeInBedQuantiles() {
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, 1L, LocalDate.of(2026, 1, 10),
+                        LocalDateTime.of(2026, 1, 9, 23, 0), LocalDateTime.of(2026, 1, 10, 5, 0), MorningFeeling.BAD, LocalDateTime.now()),
+                new SleepLog(2L, 1L, LocalDate.of(2026, 1, 11),
+                        LocalDateTime.of(2026, 1, 10, 23, 0), LocalDateTime.of(2026, 1, 11, 7, 0), MorningFeeling.OK, LocalDateTime.now()),
+                new SleepLog(3L, 1L, LocalDate.of(2026, 1, 12),
+                        LocalDateTime.of(2026, 1, 11, 23, 0), LocalDateTime.of(2026, 1, 12, 9, 0), MorningFeeling.GOOD, LocalDateTime.now())
+        );
+
+        SleepDistribution result = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO).distribution();
+
+        assertThat(result.timeInBedP10()).isEqualTo(Duration.ofHours(6));
+        assertThat(result.timeInBedMedian()).isEqualTo(Duration.ofHours(8));
+        assertThat(result.timeInBedP90()).isEqualTo(Duration.ofHours(10));
+    }
+
+    @Test
+    void fromSleepLogs_distribution_sameBedTimeEveryNight_hasNoDispersion() {
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, 1L, LocalDate.of(2026, 1, 10),
+                        LocalDateTime.of(2026, 1, 9, 23, 0), LocalDateTime.of(2026, 1, 10, 6, 0), MorningFeeling.OK, LocalDateTime.now()),
+                new SleepLog(2L, 1L, LocalDate.of(2026, 1, 11),
+                        LocalDateTime.of(2026, 1, 10, 23, 0), LocalDateTime.of(2026, 1, 11, 8, 0), MorningFeeling.OK, LocalDateTime.now())
+        );
+
+        SleepDistribution result = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO).distribution();
+
+        assertThat(result.bedTimeResultantLength()).isEqualTo(1.0);
+        assertThat(result.bedTimeCircularStdDev()).isEqualTo(Duration.ZERO);
+        assertThat(result.wakeTimeResultantLength()).isLessThan(1.0);
+        // 06:00 and 08:00: R = cos(15°), sqrt(-2 ln R) ≈ 0.2633 rad ≈ 1h00m21s
+        assertThat(result.wakeTimeCircularStdDev()).isBetween(Duration.ofMinutes(60), Duration.ofMinutes(61));
+    }
+
+    @Test
+    void fromSleepLogs_distribution_opposedBedTimes_hasUndefinedStdDev() {
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, 1L, LocalDate.of(2026, 1, 10),
+                        LocalDateTime.of(2026, 1, 10, 6, 0), LocalDateTime.of(2026, 1, 10, 7, 0), MorningFeeling.OK, LocalDateTime.now()),
+                new SleepLog(2L, 1L, LocalDate.of(2026, 1, 11),
+                        LocalDateTime.of(2026, 1, 11, 18, 0), LocalDateTime.of(2026, 1, 11, 19, 0), MorningFeeling.OK, LocalDateTime.now())
+        );
+
+        SleepDistribution result = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO).distribution();
+
+        assertThat(result.bedTimeResultantLength()).isZero();
+        assertThat(result.bedTimeCircularStdDev()).isNull();
+    }
+
+    @Test
+    void fromSleepLogs_someStatistics_computesOnlyThose() {
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, 1L, LocalDate.of(2026, 1, 10),
+                        LocalDateTime.of(2026, 1, 9, 23, 0), LocalDateTime.of(2026, 1, 10, 6, 0), MorningFeeling.OK, LocalDateTime.now()),
+                new SleepLog(2L, 1L, LocalDate.of(2026, 1, 11),
+                        LocalDateTime.of(2026, 1, 10, 23, 30), LocalDateTime.of(2026, 1, 11, 8, 0), MorningFeeling.GOOD, LocalDateTime.now())
+        );
+        SleepAverages all = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO);
+
+        SleepAverages result = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO,
+                EnumSet.of(SleepStatistic.AVERAGE_BED_TIME, SleepStatistic.MORNING_FEELING_FREQUENCIES));
+
+        assertThat(result).isEqualTo(new SleepAverages(FROM, TO, null, all.averageBedTime(), null, all.morningFeelingFrequencies()));
+    }
+
+    @Test
+    void fromAggregate_someStatistics_matchesFromSleepLogs() {
+        List<SleepLog> sleepLogs = List.of(
+                new SleepLog(1L, 1L, LocalDate.of(2026, 1, 10),
+                        LocalDateTime.of(2026, 1, 9, 22, 15), LocalDateTime.of(2026, 1, 10, 6, 0), MorningFeeling.BAD, LocalDateTime.now()),
+                new SleepLog(2L, 1L, LocalDate.of(2026, 1, 11),
+                        LocalDateTime.of(2026, 1, 11, 0, 30), LocalDateTime.of(2026, 1, 11, 7, 45), MorningFeeling.OK, LocalDateTime.now())
+        );
+        SleepAggregate aggregate = new SleepAggregate();
+        sleepLogs.forEach(aggregate::add);
+        Set<SleepStatistic> statistics = EnumSet.of(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED, SleepStatistic.AVERAGE_WAKE_TIME,
+                SleepStatistic.DISTRIBUTION);
+
+        SleepAverages result = SleepAverages.fromAggregate(aggregate, FROM, TO, statistics);
+
+        assertThat(result).isEqualTo(SleepAverages.fromSleepLogs(sleepLogs, FROM, TO, statistics));
+        assertThat(result.averageBedTime()).isNull();
+        assertThat(result.morningFeelingFrequencies()).isNull();
+        assertThat(SleepAverages.fromAggregate(new SleepAggregate(), FROM, TO, statistics))
+                .isEqualTo(new SleepAverages(FROM, TO, Duration.ZERO, null, null, null));
+    }
+
+    @Test
+    void fromSleepLogs_onPool_sameResultWhateverTheParallelism() {
+        List<SleepLog> sleepLogs = randomNights(3 * ParallelSleepSums.SLICE_SIZE + 17);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            SleepAverages onOne = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO, SleepStatistic.ALL, single);
+            SleepAverages onFour = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO, SleepStatistic.ALL, four);
+
+            assertThat(onFour).isEqualTo(onOne);
+            assertThat(SleepAverages.fromSleepLogs(sleepLogs, FROM, TO)).isEqualTo(onOne);
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    void fromSleepLogs_onPool_matchesSequentialPath() {
+        List<SleepLog> sleepLogs = randomNights(2 * ParallelSleepSums.SLICE_SIZE + 5);
+        Set<SleepStatistic> statistics = EnumSet.of(SleepStatistic.AVERAGE_TOTAL_TIME_IN_BED, SleepStatistic.AVERAGE_WAKE_TIME,
+                SleepStatistic.MORNING_FEELING_FREQUENCIES);
+
+        SleepAverages result = SleepAverages.fromSleepLogs(sleepLogs, FROM, TO, statistics, ForkJoinPool.commonPool());
+
+        assertThat(result).isEqualTo(SleepAverages.fromSleepLogsSequentially(sleepLogs, FROM, TO, statistics));
+        assertThat(result.averageBedTime()).isNull();
+        assertThat(SleepAverages.fromSleepLogs(List.of(), FROM, TO, statistics, ForkJoinPool.commonPool()))
+                .isEqualTo(new SleepAverages(FROM, TO, Duration.ZERO, null, null, Map.of()));
+    }
+
+    private static List<SleepLog> randomNights(int count) {
+        Random random = new Random(7);
+        MorningFeeling[] feelings = MorningFeeling.values();
+        List<SleepLog> sleepLogs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime bedTime = LocalDateTime.of(2020, 1, 1, 21, 0).plusDays(i % 2000).plusSeconds(random.nextInt(5 * 3600));
+            LocalDateTime wakeTime = bedTime.plusSeconds(5 * 3600 + random.nextInt(5 * 3600));
+            sleepLogs.add(new SleepLog((long) i, 1L, wakeTime.toLocalDate(), bedTime, wakeTime,
+                    feelings[random.nextInt(feelings.length)], null));
+        }
+        return sleepLogs;
+    }
 }
@@ -0,0 +1,170 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SleepConsistencyTest {
+
+    // A Monday
+    private static final LocalDate MONDAY = LocalDate.of(2026, 1, 5);
+
+    @Test
+    void empty_hasNoStatistics() {
+        SleepConsistency consistency = SleepConsistency.empty(1L, 0);
+
+        assertThat(consistency.currentStreak(MONDAY)).isZero();
+        assertThat(consistency.longestStreak()).isZero();
+        assertThat(consistency.bedTimeCircularVariance()).isNull();
+        assertThat(consistency.wakeTimeCircularVariance()).isNull();
+        assertThat(consistency.socialJetLag()).isNull();
+        assertThat(consistency.averageTimeInBedChange()).isNull();
+        assertThat(consistency.canAdd(MONDAY)).isTrue();
+    }
+
+    @Test
+    void add_afterLatestNight_tracksStreaks() {
+        SleepConsistency consistency = addAll(SleepConsistency.empty(1L, 0),
+                night(MONDAY, 23, 8), night(MONDAY.plusDays(1), 23, 8), night(MONDAY.plusDays(2), 23, 8), night(MONDAY.plusDays(4), 23, 8));
+
+        assertThat(consistency.nights()).isEqualTo(4);
+        assertThat(consistency.firstStreak()).isEqualTo(3);
+        assertThat(consistency.lastStreak()).isEqualTo(1);
+        assertThat(consistency.longestStreak()).isEqualTo(3);
+        assertThat(consistency.currentStreak(MONDAY.plusDays(4))).isEqualTo(1);
+        assertThat(consistency.currentStreak(MONDAY.plusDays(5))).isEqualTo(1);
+        assertThat(consistency.currentStreak(MONDAY.plusDays(6))).isZero();
+    }
+
+    @Test
+    void add_beforeEarliestNight_extendsBothEndsOfASingleRun() {
+        SleepConsistency consistency = addAll(SleepConsistency.empty(1L, 0),
+                night(MONDAY.plusDays(2), 23, 8), night(MONDAY.plusDays(1), 23, 8), night(MONDAY.plusDays(3), 23, 8), night(MONDAY, 23, 8));
+
+        assertThat(consistency.firstDate()).isEqualTo(MONDAY);
+        assertThat(consistency.lastDate()).isEqualTo(MONDAY.plusDays(3));
+        assertThat(consistency.firstStreak()).isEqualTo(4);
+        assertThat(consistency.lastStreak()).isEqualTo(4);
+        assertThat(consistency.longestStreak()).isEqualTo(4);
+
+        SleepConsistency withGap = consistency.add(night(MONDAY.minusDays(3), 23, 8));
+
+        assertThat(withGap.firstStreak()).isEqualTo(1);
+        assertThat(withGap.lastStreak()).isEqualTo(4);
+        assertThat(withGap.longestStreak()).isEqualTo(4);
+    }
+
+    @Test
+    void add_betweenEarliestAndLatestNight_throwsIllegalArgument() {
+        SleepConsistency consistency = addAll(SleepConsistency.empty(1L, 0), night(MONDAY, 23, 8), night(MONDAY.plusDays(4), 23, 8));
+
+        assertThat(consistency.canAdd(MONDAY.plusDays(2))).isFalse();
+        assertThat(consistency.canAdd(MONDAY.plusDays(4))).isFalse();
+        assertThatThrownBy(() -> consistency.add(night(MONDAY.plusDays(2), 23, 8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void of_anyOrder_matchesAddingNightsOldestFirst() {
+        List<SleepLog> sleepLogs = new ArrayList<>();
+        Random random = new Random(42);
+        for (int day = 0; day < 60; day++) {
+            if (random.nextInt(4) > 0) {
+                sleepLogs.add(night(MONDAY.plusDays(day), 21 + random.nextInt(5), 5 + random.nextInt(5)));
+            }
+        }
+        SleepConsistency oldestFirst = addAll(SleepConsistency.empty(1L, 3), sleepLogs.toArray(SleepLog[]::new));
+        List<SleepLog> newestFirst = new ArrayList<>(sleepLogs);
+        Collections.reverse(newestFirst);
+        SleepConsistency prepended = addAll(SleepConsistency.empty(1L, 3), newestFirst.toArray(SleepLog[]::new));
+        Collections.shuffle(sleepLogs, random);
+
+        assertThat(SleepConsistency.of(1L, sleepLogs, 3)).isEqualTo(oldestFirst);
+        assertThat(prepended.firstStreak()).isEqualTo(oldestFirst.firstStreak());
+        assertThat(prepended.lastStreak()).isEqualTo(oldestFirst.lastStreak());
+        assertThat(prepended.longestStreak()).isEqualTo(oldestFirst.longestStreak());
+        assertThat(prepended.consecutivePairs()).isEqualTo(oldestFirst.consecutivePairs());
+        assertThat(prepended.timeInBedChangeSeconds()).isEqualTo(oldestFirst.timeInBedChangeSeconds());
+        assertThat(prepended.socialJetLag()).isEqualTo(oldestFirst.socialJetLag());
+    }
+
+    @Test
+    void circularVariance_sameClockTime_isZero_spreadAcrossMidnight_isSmall() {
+        SleepConsistency consistency = addAll(SleepConsistency.empty(1L, 0),
+                night(MONDAY, 23, 8), night(MONDAY.plusDays(1), 25, 6));
+
+        assertThat(consistency.wakeTimeCircularVariance()).isEqualTo(0.0);
+        // Bed times at 23:00 and 01:00 are 30 degrees apart: 1 - cos(15°)
+        assertThat(consistency.bedTimeCircularVariance()).isEqualTo(0.034);
+    }
+
+    @Test
+    void socialJetLag_laterWeekendMidSleep_isPositive() {
+        List<SleepLog> week = new ArrayList<>();
+        for (int day = 0; day < 5; day++) {
+            week.add(night(MONDAY.plusDays(day), 23, 8));
+        }
+        week.add(night(MONDAY.plusDays(5), 25, 8));
+        week.add(night(MONDAY.plusDays(6), 25, 8));
+
+        SleepConsistency consistency = SleepConsistency.of(1L, week, 0);
+
+        assertThat(consistency.weekdayNights()).isEqualTo(5);
+        assertThat(consistency.weekendNights()).isEqualTo(2);
+        assertThat(consistency.weekdayMidSleep()).isEqualTo(LocalTime.of(3, 0));
+        assertThat(consistency.weekendMidSleep()).isEqualTo(LocalTime.of(5, 0));
+        assertThat(consistency.socialJetLag()).isEqualTo(Duration.ofHours(2));
+    }
+
+    @Test
+    void socialJetLag_acrossMidnight_takesTheShorterWay() {
+        SleepConsistency consistency = SleepConsistency.of(1L, List.of(
+                night(MONDAY.plusDays(4), 20, 7),
+                night(MONDAY.plusDays(5), 19, 7)), 0);
+
+        // Mid-sleep at 23:30 on Friday and 22:30 on Saturday
+        assertThat(consistency.socialJetLag()).isEqualTo(Duration.ofHours(-1));
+
+        SleepConsistency later = SleepConsistency.of(1L, List.of(
+                night(MONDAY.plusDays(4), 20, 7),
+                night(MONDAY.plusDays(5), 21, 7)), 0);
+
+        // Mid-sleep at 23:30 on Friday and 00:30 on Saturday
+        assertThat(later.socialJetLag()).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void averageTimeInBedChange_onlyCountsConsecutiveNights() {
+        SleepConsistency consistency = addAll(SleepConsistency.empty(1L, 0),
+                night(MONDAY, 23, 8), night(MONDAY.plusDays(1), 23, 7), night(MONDAY.plusDays(2), 23, 9), night(MONDAY.plusDays(5), 23, 4));
+
+        assertThat(consistency.consecutivePairs()).isEqualTo(2);
+        assertThat(consistency.averageTimeInBedChange()).isEqualTo(Duration.ofMinutes(90));
+    }
+
+    private static SleepConsistency addAll(SleepConsistency consistency, SleepLog... sleepLogs) {
+        for (SleepLog sleepLog : sleepLogs) {
+            consistency = consistency.add(sleepLog);
+        }
+        return consistency;
+    }
+
+    /**
+     * A night of {@code hours} in bed ending on {@code sleepDate}, going to bed at {@code bedHour}
+     * of the day before, 24 and later being past midnight.
+     */
+    private static SleepLog night(LocalDate sleepDate, int bedHour, int hours) {
+        LocalDateTime bedTime = sleepDate.minusDays(1).atStartOfDay().plusHours(bedHour);
+        return new SleepLog(null, 1L, sleepDate, bedTime, bedTime.plusHours(hours), MorningFeeling.OK, null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.noom.interview.fullstack.sleep.AllocationMeter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation budgets per call of the {@link SleepAverages}, {@link RecentNights} and
+ * {@link SleepLogRepository} hot paths, over a full 30-night window. Budgets are about twice the
+ * measured figures. Creating a {@link RecentNights} allocates what a cached user keeps on the heap.
+ */
+class SleepLogAllocationTest {
+
+    private static final long FROM_SLEEP_LOGS_BUDGET_BYTES = 12 * 1024;
+    private static final long RECENT_NIGHTS_AVERAGES_BUDGET_BYTES = 1536;
+    private static final long MORNING_FEELING_BREAKDOWN_BUDGET_BYTES = 4 * 1024;
+    private static final long NEW_RECENT_NIGHTS_BUDGET_BYTES = 1536;
+    private static final long FIND_RANGE_BUDGET_BYTES = 16 * 1024;
+    private static final long FIND_BY_DATE_BUDGET_BYTES = 512;
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(30);
+
+    private final InMemorySleepLogRepository repository = new InMemorySleepLogRepository();
+    private final List<SleepLog> sleepLogs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int daysAgo = 29; daysAgo >= 0; daysAgo--) {
+            LocalDateTime bedTime = TODAY.minusDays(daysAgo + 1).atTime(23, daysAgo);
+            sleepLogs.add(repository.save(new SleepLog(null, USER_ID, TODAY.minusDays(daysAgo), bedTime, bedTime.plusHours(8),
+                    MorningFeeling.values()[daysAgo % 3], null)));
+        }
+    }
+
+    @Test
+    void fromSleepLogs_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> SleepAverages.fromSleepLogs(sleepLogs, FROM, TODAY));
+
+        assertThat(bytes).isLessThanOrEqualTo(FROM_SLEEP_LOGS_BUDGET_BYTES);
+    }
+
+    @Test
+    void recentNightsAverages_staysWithinBudget() {
+        RecentNights recentNights = new RecentNights(30);
+        sleepLogs.forEach(recentNights::add);
+
+        long bytes = AllocationMeter.bytesPerCall(() -> recentNights.averages(FROM, TODAY));
+
+        assertThat(bytes).isLessThanOrEqualTo(RECENT_NIGHTS_AVERAGES_BUDGET_BYTES);
+    }
+
+    @Test
+    void morningFeelingBreakdown_staysWithinBudget() {
+        RecentNights recentNights = new RecentNights(30);
+        sleepLogs.forEach(recentNights::add);
+
+        long bytes = AllocationMeter.bytesPerCall(recentNights::morningFeelingBreakdown);
+
+        assertThat(bytes).isLessThanOrEqualTo(MORNING_FEELING_BREAKDOWN_BUDGET_BYTES);
+    }
+
+    @Test
+    void newRecentNights_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> new RecentNights(30));
+
+        assertThat(bytes).isLessThanOrEqualTo(NEW_RECENT_NIGHTS_BUDGET_BYTES);
+    }
+
+    @Test
+    void findByUserIdAndDateRange_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> repository.findByUserIdAndDateRange(USER_ID, FROM, TODAY));
+
+        assertThat(bytes).isLessThanOrEqualTo(FIND_RANGE_BUDGET_BYTES);
+    }
+
+    @Test
+    void findByUserIdAndDate_staysWithinBudget() {
+        long bytes = AllocationMeter.bytesPerCall(() -> repository.findByUserIdAndDate(USER_ID, TODAY));
+
+        assertThat(bytes).isLessThanOrEqualTo(FIND_BY_DATE_BUDGET_BYTES);
+    }
+}
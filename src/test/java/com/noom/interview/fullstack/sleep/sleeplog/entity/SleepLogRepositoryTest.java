@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import com.noom.interview.fullstack.sleep.infrastructure.SqlStatementStatistics;
 import com.noom.interview.fullstack.sleep.sleeplog.control.DuplicateSleepLogException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,9 @@ class SleepLogRepositoryTest {
     @Autowired
     private SleepLogRepository repository;
 
+    @Autowired
+    private SqlStatementStatistics sqlStatementStatistics;
+
     @Test
     void save_persistsAndReturnsWithGeneratedFields() {
         var sleepLog = new SleepLog(
@@ -142,4 +146,129 @@ class SleepLogRepositoryTest {
 
         assertThat(results).isEmpty();
     }
+
+    @Test
+    void findWrittenAfter_watermark_returnsOnlyNewerLogs() {
+        Long userId = 30L;
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 5, 1),
+                LocalDateTime.of(2026, 4, 30, 23, 0), LocalDateTime.of(2026, 5, 1, 7, 0), MorningFeeling.GOOD, null));
+        SleepLogWatermark watermark = repository.findWatermark().orElseThrow();
+        SleepLog newer = repository.save(new SleepLog(null, userId, LocalDate.of(2026, 5, 2),
+                LocalDateTime.of(2026, 5, 1, 23, 0), LocalDateTime.of(2026, 5, 2, 7, 0), MorningFeeling.OK, null));
+
+        List<SleepLog> results = repository.findWrittenAfter(watermark.id(), watermark.createdAt().plusDays(1), 100);
+
+        assertThat(results).extracting(SleepLog::id).containsExactly(newer.id());
+        assertThat(repository.findWatermark()).get().extracting(SleepLogWatermark::id).isEqualTo(newer.id());
+    }
+
+    @Test
+    void findUserIdsWrittenSince_returnsRecentWritersMostRecentFirst() {
+        repository.save(new SleepLog(null, 31L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.GOOD, null));
+        SleepLogWatermark watermark = repository.findWatermark().orElseThrow();
+        repository.save(new SleepLog(null, 32L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.OK, null));
+        repository.save(new SleepLog(null, 33L, LocalDate.of(2026, 5, 3),
+                LocalDateTime.of(2026, 5, 2, 23, 0), LocalDateTime.of(2026, 5, 3, 7, 0), MorningFeeling.BAD, null));
+
+        List<Long> userIds = repository.findUserIdsWrittenSince(watermark.createdAt().minusDays(1), 100);
+
+        assertThat(userIds).contains(31L, 32L, 33L).doesNotHaveDuplicates();
+        assertThat(repository.findUserIdsWrittenSince(watermark.createdAt().minusDays(1), 1)).hasSize(1);
+        assertThat(repository.findUserIdsWrittenSince(watermark.createdAt().plusDays(1), 100)).isEmpty();
+    }
+
+    @Test
+    void statements_areRecordedByNamedSql() {
+        repository.findByUserIdAndDate(40L, LocalDate.of(2026, 7, 1));
+
+        assertThat(sqlStatementStatistics.top(Integer.MAX_VALUE, SqlStatementStatistics.Order.CALLS))
+                .anySatisfy(snapshot -> {
+                    assertThat(snapshot.statement()).isEqualTo(SqlStatementStatistics.fingerprint(JdbcSleepLogRepository.FIND_BY_USER_ID_AND_DATE));
+                    assertThat(snapshot.calls()).isPositive();
+                });
+    }
+
+    @Test
+    void countByHistogramBucket_countsPerBucketAndWrapsBedTimesAroundMidnight() {
+        Long userId = 50L;
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 1),
+                LocalDateTime.of(2026, 5, 31, 23, 50), LocalDateTime.of(2026, 6, 1, 7, 0), MorningFeeling.GOOD, null));
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 2),
+                LocalDateTime.of(2026, 6, 2, 0, 10), LocalDateTime.of(2026, 6, 2, 7, 20), MorningFeeling.OK, null));
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 6, 3),
+                LocalDateTime.of(2026, 6, 2, 22, 5), LocalDateTime.of(2026, 6, 3, 6, 55), MorningFeeling.BAD, null));
+        LocalDate from = LocalDate.of(2026, 5, 31);
+        LocalDate to = LocalDate.of(2026, 6, 3);
+
+        // bed-time buckets start at noon: 22:05 -> 40, 23:50 -> 47, 00:10 -> 48
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.BED_TIME, 900))
+                .containsExactly(new SleepHistogramBucket(40, 1), new SleepHistogramBucket(47, 1), new SleepHistogramBucket(48, 1));
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.WAKE_TIME, 900))
+                .containsExactly(new SleepHistogramBucket(27, 1), new SleepHistogramBucket(28, 1), new SleepHistogramBucket(29, 1));
+        assertThat(repository.countByHistogramBucket(userId, from, to, SleepHistogramField.TIME_IN_BED, 900))
+                .containsExactly(new SleepHistogramBucket(28, 2), new SleepHistogramBucket(35, 1));
+        assertThat(repository.countByHistogramBucket(userId, to, to.plusDays(1), SleepHistogramField.BED_TIME, 900))
+                .isEmpty();
+    }
+
+    @Test
+    void findByUserIdsAndDateRange_returnsLogsOfGivenUsersInRange() {
+        for (long userId = 60; userId <= 62; userId++) {
+            repository.save(new SleepLog(null, userId, LocalDate.of(2026, 8, 1),
+                    LocalDateTime.of(2026, 7, 31, 23, 0), LocalDateTime.of(2026, 8, 1, 7, 0), MorningFeeling.GOOD, null));
+            repository.save(new SleepLog(null, userId, LocalDate.of(2026, 8, 2),
+                    LocalDateTime.of(2026, 8, 1, 23, 0), LocalDateTime.of(2026, 8, 2, 7, 0), MorningFeeling.OK, null));
+        }
+
+        List<SleepLog> results = repository.findByUserIdsAndDateRange(List.of(60L, 62L), LocalDate.of(2026, 8, 1), LocalDate.of(2026, 8, 2));
+
+        assertThat(results).extracting(SleepLog::userId).containsExactlyInAnyOrder(60L, 62L);
+        assertThat(results).extracting(SleepLog::sleepDate).containsOnly(LocalDate.of(2026, 8, 2));
+        assertThat(repository.findByUserIdsAndDateRange(List.of(), LocalDate.of(2026, 8, 1), LocalDate.of(2026, 8, 2))).isEmpty();
+    }
+
+    @Test
+    void findActiveUserIds_pagesThroughUsersWithRecentNights() {
+        LocalDate activeSince = LocalDate.of(2031, 1, 1);
+        for (long userId = 70; userId <= 74; userId++) {
+            LocalDate sleepDate = userId == 72 ? activeSince : activeSince.plusDays(userId);
+            repository.save(new SleepLog(null, userId, sleepDate,
+                    sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+        }
+
+        assertThat(repository.findActiveUserIds(activeSince, 69, 2)).containsExactly(70L, 71L);
+        assertThat(repository.findActiveUserIds(activeSince, 71, 2)).containsExactly(73L, 74L);
+    }
+
+    @Test
+    void findMaxUserId_returnsHighestUserWithLogs() {
+        Long userId = 900_000_000L;
+        repository.save(new SleepLog(null, userId, LocalDate.of(2026, 9, 1),
+                LocalDateTime.of(2026, 8, 31, 23, 0), LocalDateTime.of(2026, 9, 1, 7, 0), MorningFeeling.GOOD, null));
+
+        assertThat(repository.findMaxUserId()).hasValueSatisfying(maxUserId -> assertThat(maxUserId).isGreaterThanOrEqualTo(userId));
+    }
+
+    @Test
+    void deleteOldestByUserId_deletesOldestNightsFirstInBatches() {
+        Long userId = 95L;
+        LocalDate first = LocalDate.of(2026, 9, 1);
+        for (int i = 0; i < 5; i++) {
+            LocalDate sleepDate = first.plusDays(i);
+            repository.save(new SleepLog(null, userId, sleepDate,
+                    sleepDate.minusDays(1).atTime(23, 0), sleepDate.atTime(7, 0), MorningFeeling.GOOD, null));
+        }
+        repository.save(new SleepLog(null, userId + 1, first,
+                first.minusDays(1).atTime(23, 0), first.atTime(7, 0), MorningFeeling.GOOD, null));
+
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(2);
+        assertThat(repository.findByUserIdAndDateRange(userId, first.minusDays(1), first.plusDays(10)))
+                .extracting(SleepLog::sleepDate).containsExactlyInAnyOrder(first.plusDays(2), first.plusDays(3), first.plusDays(4));
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(2);
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isEqualTo(1);
+        assertThat(repository.deleteOldestByUserId(userId, 2)).isZero();
+        assertThat(repository.findByUserIdAndDate(userId + 1, first)).isPresent();
+    }
 }
@@ -0,0 +1,69 @@
+package com.noom.interview.fullstack.sleep.sleeplog.entity;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeInBedHistogramTest {
+
+    @Test
+    void quantile_empty_returnsNull() {
+        assertThat(new TimeInBedHistogram().quantile(0.5)).isNull();
+    }
+
+    @Test
+    void quantile_isWithinFiveMinutesOfExactNearestRank() {
+        Random random = new Random(7);
+        long[] seconds = LongStream.generate(() -> 4 * 3600 + random.nextInt(6 * 3600)).limit(1_000).toArray();
+        TimeInBedHistogram histogram = new TimeInBedHistogram();
+        LongStream.of(seconds).forEach(histogram::add);
+        long[] sorted = LongStream.of(seconds).sorted().toArray();
+
+        for (double q : new double[] {0.1, 0.5, 0.9}) {
+            long exact = sorted[(int) Math.ceil(q * sorted.length) - 1];
+            assertThat(histogram.quantile(q).getSeconds()).isBetween(exact - 300, exact + 300);
+        }
+    }
+
+    @Test
+    void quantile_beyondOneDay_isClampedToLastBucket() {
+        TimeInBedHistogram histogram = new TimeInBedHistogram();
+        histogram.add(Duration.ofHours(30).getSeconds());
+
+        assertThat(histogram.quantile(0.5)).isEqualTo(Duration.ofHours(24));
+    }
+
+    @Test
+    void merge_equalsAddingAllNights() {
+        TimeInBedHistogram first = new TimeInBedHistogram();
+        TimeInBedHistogram second = new TimeInBedHistogram();
+        TimeInBedHistogram all = new TimeInBedHistogram();
+        for (int minutes = 300; minutes < 600; minutes += 7) {
+            (minutes % 2 == 0 ? first : second).add(minutes * 60L);
+            all.add(minutes * 60L);
+        }
+
+        first.merge(second);
+
+        assertThat(first.count()).isEqualTo(all.count());
+        for (double q : new double[] {0.1, 0.25, 0.5, 0.75, 0.9}) {
+            assertThat(first.quantile(q)).isEqualTo(all.quantile(q));
+        }
+    }
+
+    @Test
+    void remove_undoesAdd() {
+        TimeInBedHistogram histogram = new TimeInBedHistogram();
+        histogram.add(Duration.ofHours(8).getSeconds());
+        histogram.add(Duration.ofHours(3).getSeconds());
+
+        histogram.remove(Duration.ofHours(3).getSeconds());
+
+        assertThat(histogram.count()).isEqualTo(1);
+        assertThat(histogram.quantile(0.1)).isEqualTo(Duration.ofHours(8));
+    }
+}